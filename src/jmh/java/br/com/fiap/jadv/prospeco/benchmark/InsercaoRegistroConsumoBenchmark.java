@@ -0,0 +1,128 @@
+package br.com.fiap.jadv.prospeco.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>InsercaoRegistroConsumoBenchmark</h1>
+ * Compara a vazão de inserção (linhas/s) de registros de consumo com os dois
+ * padrões de comandos que o Hibernate emite para a tabela registros_consumo:
+ *
+ * <ul>
+ *   <li>identidade: um INSERT por linha com leitura da chave gerada (GenerationType.IDENTITY),
+ *   sem possibilidade de lote JDBC;</li>
+ *   <li>sequenciaPooled: um NEXT VALUE FOR a cada 50 linhas e INSERTs agrupados em lotes de 50
+ *   (GenerationType.SEQUENCE com allocationSize = 50 e hibernate.jdbc.batch_size = 50).</li>
+ * </ul>
+ *
+ * <p>
+ * O modo "tcp" acessa o H2 por um servidor local, de forma que cada ida e volta ao banco
+ * tenha custo de rede, como no SQL Server. Execute com {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InsercaoRegistroConsumoBenchmark {
+
+    private static final int LINHAS_POR_OPERACAO = 1000;
+    private static final int TAMANHO_LOTE = 50;
+
+    @Param({"mem", "tcp"})
+    private String modo;
+
+    private Server servidor;
+    private Connection conexao;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        String url;
+        if ("tcp".equals(modo)) {
+            servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:benchmark;DB_CLOSE_DELAY=-1";
+        } else {
+            url = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+        }
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        conexao = dataSource.getConnection();
+        conexao.setAutoCommit(false);
+
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("CREATE TABLE registros_identidade (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "data_hora TIMESTAMP(6) NOT NULL, consumo DOUBLE NOT NULL, aparelho_id BIGINT NOT NULL)");
+            ddl.execute("CREATE TABLE registros_sequencia (id BIGINT PRIMARY KEY, "
+                    + "data_hora TIMESTAMP(6) NOT NULL, consumo DOUBLE NOT NULL, aparelho_id BIGINT NOT NULL)");
+            ddl.execute("CREATE SEQUENCE registros_sequencia_seq START WITH 1 INCREMENT BY " + TAMANHO_LOTE);
+        }
+        conexao.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("DROP ALL OBJECTS");
+        }
+        conexao.close();
+        if (servidor != null) {
+            servidor.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINHAS_POR_OPERACAO)
+    public void identidade() throws SQLException {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement insert = conexao.prepareStatement(
+                "INSERT INTO registros_identidade (data_hora, consumo, aparelho_id) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < LINHAS_POR_OPERACAO; i++) {
+                insert.setTimestamp(1, agora);
+                insert.setDouble(2, i * 0.1);
+                insert.setLong(3, i % 10);
+                insert.executeUpdate();
+                try (ResultSet chave = insert.getGeneratedKeys()) {
+                    chave.next();
+                }
+            }
+        }
+        conexao.commit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINHAS_POR_OPERACAO)
+    public void sequenciaPooled() throws SQLException {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement proximoBloco = conexao.prepareStatement("SELECT NEXT VALUE FOR registros_sequencia_seq");
+             PreparedStatement insert = conexao.prepareStatement(
+                     "INSERT INTO registros_sequencia (id, data_hora, consumo, aparelho_id) VALUES (?, ?, ?, ?)")) {
+            long proximoId = 0;
+            long limiteBloco = 0;
+            for (int i = 0; i < LINHAS_POR_OPERACAO; i++) {
+                if (proximoId >= limiteBloco) {
+                    try (ResultSet valor = proximoBloco.executeQuery()) {
+                        valor.next();
+                        proximoId = valor.getLong(1);
+                        limiteBloco = proximoId + TAMANHO_LOTE;
+                    }
+                }
+                insert.setLong(1, proximoId++);
+                insert.setTimestamp(2, agora);
+                insert.setDouble(3, i * 0.1);
+                insert.setLong(4, i % 10);
+                insert.addBatch();
+                if ((i + 1) % TAMANHO_LOTE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        conexao.commit();
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.fiap.jadv.prospeco.benchmark;
+
+import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.mapper.RegistroConsumoMapper;
+import br.com.fiap.jadv.prospeco.mapper.RegistroConsumoMapperImpl;
+import br.com.fiap.jadv.prospeco.model.Aparelho;
+import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>MapeamentoDtoBenchmark</h1>
+ * Mede o custo por objeto da conversão entre RegistroConsumo e os seus DTOs, caminho
+ * executado em toda resposta da API e em todo evento publicado no Kafka:
+ *
+ * <ul>
+ *   <li>beanUtils: cópia por reflexão com {@link BeanUtils#copyProperties}, como era feito
+ *   nos serviços;</li>
+ *   <li>mapper: o {@link RegistroConsumoMapper} gerado pelo MapStruct na compilação.</li>
+ * </ul>
+ *
+ * <p>
+ * Execute com {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapeamentoDtoBenchmark {
+
+    private RegistroConsumoMapper mapper;
+    private RegistroConsumo registro;
+    private RegistroConsumoRequestDTO requestDTO;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        mapper = new RegistroConsumoMapperImpl();
+
+        Usuario usuario = new Usuario();
+        usuario.setId(1530L);
+        Aparelho aparelho = new Aparelho();
+        aparelho.setId(4821L);
+        aparelho.setUsuario(usuario);
+        registro = RegistroConsumo.builder()
+                .id(918273L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 19, 40))
+                .consumo(0.734)
+                .aparelho(aparelho)
+                .build();
+
+        requestDTO = new RegistroConsumoRequestDTO();
+        requestDTO.setDataHora(LocalDateTime.of(2024, 5, 10, 19, 40));
+        requestDTO.setConsumo(0.734);
+        requestDTO.setAparelhoId(4821L);
+    }
+
+    @Benchmark
+    public RegistroConsumoResponseDTO toResponseDTO_beanUtils() {
+        RegistroConsumoResponseDTO responseDTO = new RegistroConsumoResponseDTO();
+        BeanUtils.copyProperties(registro, responseDTO);
+        responseDTO.setAparelhoId(registro.getAparelho().getId());
+        responseDTO.setUsuarioId(registro.getAparelho().getUsuario().getId());
+        return responseDTO;
+    }
+
+    @Benchmark
+    public RegistroConsumoResponseDTO toResponseDTO_mapper() {
+        return mapper.toResponseDTO(registro);
+    }
+
+    @Benchmark
+    public RegistroConsumo toEntity_beanUtils() {
+        RegistroConsumo novo = new RegistroConsumo();
+        BeanUtils.copyProperties(requestDTO, novo);
+        return novo;
+    }
+
+    @Benchmark
+    public RegistroConsumo toEntity_mapper() {
+        return mapper.toEntity(requestDTO);
+    }
+}
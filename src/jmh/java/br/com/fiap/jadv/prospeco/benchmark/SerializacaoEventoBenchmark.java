@@ -0,0 +1,98 @@
+package br.com.fiap.jadv.prospeco.benchmark;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import br.com.fiap.jadv.prospeco.service.serializacao.RegistroSchemasAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEvento;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>SerializacaoEventoBenchmark</h1>
+ * Compara a vazão (eventos/s) de serialização e desserialização dos eventos de registro de
+ * consumo nos dois formatos aceitos pelo pipeline:
+ *
+ * <ul>
+ *   <li>json: o envelope serializado pelo ObjectMapper da aplicação (datas em ISO-8601);</li>
+ *   <li>avro: o envelope em Avro binário com o cabeçalho de objeto único (10 bytes).</li>
+ * </ul>
+ *
+ * <p>
+ * O benchmark de serialização também reporta, pelo contador auxiliar {@code bytes}, a vazão
+ * em bytes/s dos eventos serializados; dividida pela vazão em eventos/s, ela dá o tamanho de
+ * cada evento, que determina os bytes enviados ao broker e gravados no outbox. Execute com
+ * {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializacaoEventoBenchmark {
+
+    @Param({"json", "avro"})
+    private String formato;
+
+    private SerializadorEvento serializador;
+    private EventoDTO<RegistroConsumoResponseDTO> evento;
+    private byte[] conteudo;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        serializador = SerializadorEventoAvro.FORMATO.equals(formato)
+                ? new SerializadorEventoAvro(new RegistroSchemasAvro())
+                : new SerializadorEventoJson(objectMapper);
+
+        evento = EventoDTO.<RegistroConsumoResponseDTO>builder()
+                .tipo(TipoEvento.CRIADO)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave("4821")
+                .ocorridoEm(LocalDateTime.of(2024, 5, 10, 19, 42, 7))
+                .dados(RegistroConsumoResponseDTO.builder()
+                        .id(918273L)
+                        .dataHora(LocalDateTime.of(2024, 5, 10, 19, 40))
+                        .consumo(0.734)
+                        .aparelhoId(4821L)
+                        .usuarioId(1530L)
+                        .build())
+                .build();
+        conteudo = serializador.serializar(evento, RegistroConsumoResponseDTO.class);
+    }
+
+    @Benchmark
+    public byte[] serializar(BytesSerializados contador) throws IOException {
+        byte[] serializado = serializador.serializar(evento, RegistroConsumoResponseDTO.class);
+        contador.bytes += serializado.length;
+        return serializado;
+    }
+
+    @Benchmark
+    public EventoDTO<RegistroConsumoResponseDTO> desserializar() throws IOException {
+        return serializador.desserializar(conteudo, RegistroConsumoResponseDTO.class);
+    }
+
+    /**
+     * Contador dos bytes serializados, normalizado pelo JMH como vazão (bytes/s).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BytesSerializados {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.fiap.jadv.prospeco.benchmark;
+
+import br.com.fiap.jadv.prospeco.config.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>ValidacaoJwtBenchmark</h1>
+ * Compara a vazão (requisições/s) da validação do token no filtro JWT:
+ *
+ * <ul>
+ *   <li>duasVerificacoes: o caminho anterior, que construía um parser e verificava a assinatura
+ *   duas vezes por requisição (validação e leitura do usuário);</li>
+ *   <li>verificacaoUnica: um parser compartilhado e uma verificação por requisição;</li>
+ *   <li>tokenEmCache: o {@link JwtTokenProvider}, com o token já verificado em cache.</li>
+ * </ul>
+ *
+ * <p>
+ * Execute com {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ValidacaoJwtBenchmark {
+
+    private static final String SEGREDO = "segredo-do-benchmark-com-pelo-menos-256-bits-para-hs256";
+
+    private Key chave;
+    private JwtParser parser;
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        chave = Keys.hmacShaKeyFor(SEGREDO.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(chave).build();
+        tokenProvider = new JwtTokenProvider(SEGREDO, 3600000, 10000);
+        token = tokenProvider.generateToken("maria@prospeco.com");
+        tokenProvider.getVerifiedClaims(token);
+    }
+
+    @Benchmark
+    public String duasVerificacoes() {
+        Jwts.parserBuilder().setSigningKey(chave).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(chave).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verificacaoUnica() {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String tokenEmCache() {
+        return tokenProvider.getVerifiedClaims(token).map(Claims::getSubject).orElseThrow();
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * <h1>CacheTokensVerificados</h1>
+ * Cache limitado de tokens já verificados, indexado pelo hash SHA-256 do token, em que cada
+ * entrada expira na data de expiração do próprio token. Usado pelo {@link JwtTokenProvider} e
+ * pelo {@link FirebaseTokenVerifier} para não verificar de novo a assinatura de tokens usados
+ * com frequência.
+ *
+ * @param <T> Resultado da verificação do token.
+ */
+final class CacheTokensVerificados<T> {
+
+    private final Cache<String, T> tokensVerificados;
+
+    /**
+     * @param tamanhoMaximo       Número máximo de tokens em cache.
+     * @param instanteDeExpiracao Instante de expiração do token, em milissegundos desde a época,
+     *                            ou 0 se o token não tiver expiração (nesse caso ele não é mantido).
+     */
+    CacheTokensVerificados(long tamanhoMaximo, ToLongFunction<T> instanteDeExpiracao) {
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new ExpiracaoDoToken<>(instanteDeExpiracao))
+                .build();
+    }
+
+    /**
+     * Retorna o resultado em cache do token ou, se não houver, verifica o token e guarda o
+     * resultado quando a verificação tiver sucesso.
+     *
+     * @param token       Token.
+     * @param verificador Verificação do token; vazio se o token for inválido.
+     * @return Resultado da verificação, ou vazio se o token for inválido.
+     */
+    Optional<T> obter(String token, Function<String, Optional<T>> verificador) {
+        String hash = hash(token);
+        T verificado = tokensVerificados.getIfPresent(hash);
+        if (verificado != null) {
+            return Optional.of(verificado);
+        }
+        Optional<T> resultado = verificador.apply(token);
+        resultado.ifPresent(valor -> tokensVerificados.put(hash, valor));
+        return resultado;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Mantém cada token em cache até a sua própria expiração.
+     */
+    private record ExpiracaoDoToken<T>(ToLongFunction<T> instanteDeExpiracao) implements Expiry<String, T> {
+
+        @Override
+        public long expireAfterCreate(String hash, T verificado, long currentTime) {
+            long expiracao = instanteDeExpiracao.applyAsLong(verificado);
+            if (expiracao == 0) {
+                return 0;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiracao - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, T verificado, long currentTime, long currentDuration) {
+            return expireAfterCreate(hash, verificado, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String hash, T verificado, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
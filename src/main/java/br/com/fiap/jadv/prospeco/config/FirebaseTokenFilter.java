@@ -1,14 +1,13 @@
 package br.com.fiap.jadv.prospeco.config;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -16,10 +15,11 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+@RequiredArgsConstructor
 @Component
 public class FirebaseTokenFilter extends OncePerRequestFilter {
 
-    private static final Logger logger = LoggerFactory.getLogger(FirebaseTokenFilter.class);
+    private final FirebaseTokenVerifier firebaseTokenVerifier;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
@@ -28,23 +28,29 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
         return !path.startsWith("/api/");
     }
 
+    /**
+     * Autentica pelo ID token do Firebase apenas quando a requisição ainda não foi autenticada
+     * e o token é do Firebase; os tokens da aplicação já foram tratados pelo
+     * {@link JwtAuthenticationFilter}.
+     */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String authToken = request.getHeader("Authorization");
-        if (authToken != null && authToken.startsWith("Bearer ")) {
-            authToken = authToken.substring(7); // Remove "Bearer "
-            try {
-                FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(authToken);
+        if (!isAutenticado() && TipoTokenBearer.daRequisicao(request) == TipoTokenBearer.FIREBASE) {
+            firebaseTokenVerifier.verify(TipoTokenBearer.token(request)).ifPresent(decodedToken -> {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         decodedToken.getUid(), null, null);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-            } catch (Exception e) {
-                logger.error("Erro na verificação do token Firebase: ", e);
-            }
+            });
         }
         chain.doFilter(request, response);
     }
+
+    private boolean isAutenticado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
 }
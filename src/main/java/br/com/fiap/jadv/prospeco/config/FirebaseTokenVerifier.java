@@ -0,0 +1,114 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <h1>FirebaseTokenVerifier</h1>
+ * Verifica os ID tokens do Firebase, mantendo os tokens verificados em um
+ * {@link CacheTokensVerificados} até a sua expiração ({@code exp}).
+ *
+ * <p>
+ * Se o Firebase não estiver inicializado na aplicação, nenhum token é verificado. Quando está,
+ * as chaves públicas do Google são carregadas logo após a inicialização, em segundo plano,
+ * para que a primeira requisição não espere por elas.
+ * </p>
+ */
+@Component
+public class FirebaseTokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseTokenVerifier.class);
+
+    private static final String EMISSOR = "https://securetoken.google.com/";
+
+    private final CacheTokensVerificados<FirebaseToken> tokensVerificados;
+
+    @Autowired
+    public FirebaseTokenVerifier(@Value("${app.firebase.cache-tokens.tamanho-maximo:10000}") long tamanhoMaximo) {
+        this.tokensVerificados = new CacheTokensVerificados<>(tamanhoMaximo,
+                token -> token.getClaims().get("exp") instanceof Number segundos ? segundos.longValue() * 1000 : 0);
+    }
+
+    /**
+     * Indica se o Firebase foi inicializado na aplicação.
+     *
+     * @return true se houver um FirebaseApp.
+     */
+    public boolean isDisponivel() {
+        return !FirebaseApp.getApps().isEmpty();
+    }
+
+    /**
+     * Verifica um ID token do Firebase.
+     *
+     * @param token ID token.
+     * @return Token verificado, ou vazio se o token for inválido ou o Firebase não estiver disponível.
+     */
+    public Optional<FirebaseToken> verify(String token) {
+        if (!isDisponivel()) {
+            return Optional.empty();
+        }
+        return verify(token, FirebaseAuth.getInstance());
+    }
+
+    Optional<FirebaseToken> verify(String token, FirebaseAuth firebaseAuth) {
+        return tokensVerificados.obter(token, valor -> {
+            try {
+                return Optional.of(firebaseAuth.verifyIdToken(valor));
+            } catch (FirebaseAuthException | IllegalArgumentException e) {
+                logger.debug("Token Firebase inválido: {}", e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Carrega as chaves públicas usadas na verificação dos tokens. O SDK só as busca ao
+     * verificar uma assinatura, então é verificado um token com cabeçalho e claims válidos
+     * para o projeto e assinatura inválida; a falha esperada é ignorada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void aquecerChavesPublicas() {
+        if (!isDisponivel()) {
+            return;
+        }
+        String projectId = FirebaseApp.getInstance().getOptions().getProjectId();
+        if (projectId == null) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                FirebaseAuth.getInstance().verifyIdToken(tokenDeAquecimento(projectId));
+            } catch (FirebaseAuthException | IllegalArgumentException e) {
+                logger.debug("Chaves públicas do Firebase carregadas ({})", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Não foi possível carregar as chaves públicas do Firebase: {}", e.getMessage());
+            }
+        });
+    }
+
+    private static String tokenDeAquecimento(String projectId) {
+        long agora = System.currentTimeMillis() / 1000;
+        String cabecalho = "{\"alg\":\"RS256\",\"kid\":\"aquecimento\",\"typ\":\"JWT\"}";
+        String claims = String.format("{\"aud\":\"%s\",\"iss\":\"%s%s\",\"sub\":\"aquecimento\",\"iat\":%d,\"exp\":%d}",
+                projectId, EMISSOR, projectId, agora, agora + 60);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(cabecalho.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(new byte[]{0});
+    }
+}
@@ -1,6 +1,7 @@
 package br.com.fiap.jadv.prospeco.config;
 
 import br.com.fiap.jadv.prospeco.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,11 +35,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        String jwt = getJwtFromRequest(request);
-
-        if (jwt != null && tokenProvider.validateToken(jwt)) {
-            String username = tokenProvider.getUsernameFromJWT(jwt);
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+        Claims claims = TipoTokenBearer.daRequisicao(request) == TipoTokenBearer.APLICACAO
+                ? tokenProvider.getVerifiedClaims(TipoTokenBearer.token(request)).orElse(null)
+                : null;
+        if (claims != null) {
+            String username = claims.getSubject();
+            UserDetails userDetails = customUserDetailsService.carregarUsuarioAutenticado(username);
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -46,9 +48,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-
-    private String getJwtFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        return (bearerToken != null && bearerToken.startsWith("Bearer ")) ? bearerToken.substring(7) : null;
-    }
 }
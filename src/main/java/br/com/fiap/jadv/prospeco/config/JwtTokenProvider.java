@@ -2,27 +2,45 @@ package br.com.fiap.jadv.prospeco.config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * <h1>JwtTokenProvider</h1>
+ * Gera e valida os tokens JWT da aplicação.
+ *
+ * <p>
+ * A validação usa um único {@link JwtParser}, imutável e compartilhado entre as requisições,
+ * e faz uma só verificação de assinatura por token. As claims verificadas ficam em um
+ * {@link CacheTokensVerificados} até a expiração do token.
+ * </p>
+ */
 @Component
 public class JwtTokenProvider {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    @Value("${app.jwt.expiration-in-ms}")
-    private long jwtExpirationInMs;
+    private final long jwtExpirationInMs;
+    private final Key key;
+    private final JwtParser parser;
+    private final CacheTokensVerificados<Claims> tokensVerificados;
 
-    private Key key;
-
-    @PostConstruct
-    public void init() {
+    @Autowired
+    public JwtTokenProvider(@Value("${app.jwt.secret}") String jwtSecret,
+                            @Value("${app.jwt.expiration-in-ms}") long jwtExpirationInMs,
+                            @Value("${app.jwt.cache-tokens.tamanho-maximo:10000}") long tamanhoMaximoCache) {
+        this.jwtExpirationInMs = jwtExpirationInMs;
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.tokensVerificados = new CacheTokensVerificados<>(tamanhoMaximoCache,
+                claims -> claims.getExpiration() != null ? claims.getExpiration().getTime() : 0);
     }
 
     public String generateToken(String username) {
@@ -36,18 +54,23 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
-        return claims.getSubject();
+    /**
+     * Valida o token e retorna as suas claims, verificando a assinatura no máximo uma vez
+     * enquanto o token estiver em cache.
+     *
+     * @param token Token JWT.
+     * @return Claims verificadas, ou vazio se o token for inválido ou estiver expirado.
+     */
+    public Optional<Claims> getVerifiedClaims(String token) {
+        return tokensVerificados.obter(token, this::verificar);
     }
 
-    public boolean validateToken(String authToken) {
+    private Optional<Claims> verificar(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
-        } catch (Exception ex) {
-            // Logging opcional para validação de token JWT
-            return false;
+            return Optional.of(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.debug("Token JWT inválido: {}", ex.getMessage());
+            return Optional.empty();
         }
     }
 }
@@ -0,0 +1,43 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import br.com.fiap.jadv.prospeco.service.RetentativaEventoService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Tratamento de falhas dos listeners Kafka. O Spring Boot aplica o {@link DefaultErrorHandler}
+ * definido aqui a todos os containers: um lote cujo processamento falha (por exemplo, com o banco
+ * de dados indisponível) é reentregue com espera exponencial ({@code app.kafka.retry.*}) e, esgotadas
+ * as tentativas, cada evento do lote é encaminhado ao dead-letter do seu tópico pelo
+ * {@link RetentativaEventoService}, em vez de ser confirmado sem processamento.
+ */
+@Configuration
+public class KafkaListenerConfig {
+
+    @Bean
+    @SuppressWarnings("unchecked")
+    public DefaultErrorHandler kafkaErrorHandler(RetentativaEventoService retentativaEventoService,
+                                                 @Value("${app.kafka.retry.max-tentativas:6}") int maxTentativas,
+                                                 @Value("${app.kafka.retry.intervalo-inicial:PT1S}") Duration intervaloInicial,
+                                                 @Value("${app.kafka.retry.multiplicador:2.0}") double multiplicador,
+                                                 @Value("${app.kafka.retry.intervalo-maximo:PT30S}") Duration intervaloMaximo) {
+        ExponentialBackOffWithMaxRetries espera = new ExponentialBackOffWithMaxRetries(maxTentativas);
+        espera.setInitialInterval(intervaloInicial.toMillis());
+        espera.setMultiplier(multiplicador);
+        espera.setMaxInterval(intervaloMaximo.toMillis());
+
+        // Uma falha no encaminhamento impede a confirmação, e o lote volta a ser entregue
+        return new DefaultErrorHandler((record, erro) -> {
+            Exception causa = erro.getCause() instanceof Exception excecao ? excecao : erro;
+            retentativaEventoService.aguardarEncaminhamentos(List.of(
+                    retentativaEventoService.encaminhar((ConsumerRecord<String, byte[]>) record, causa)));
+        }, espera);
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+/**
+ * Habilita o Kafka Streams na aplicação. As propriedades da aplicação de streams
+ * (application-id, state-dir etc.) vêm de {@code spring.kafka.streams.*} e a topologia
+ * é definida em {@link br.com.fiap.jadv.prospeco.service.ConsumoTempoRealService}.
+ */
+@Configuration
+@EnableKafkaStreams
+public class KafkaStreamsConfig {
+}
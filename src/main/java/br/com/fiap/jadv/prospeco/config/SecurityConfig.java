@@ -37,6 +37,9 @@ public class SecurityConfig {
                 .securityMatcher("/api/**", "/auth/**")
                 .csrf(csrf -> csrf.disable()) // CSRF não é necessário para APIs
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, "/api/consumo-agregado/reconstrucao",
+                                "/api/consumo-agregado/reprecificacao").hasRole("ADMIN") // Operações de manutenção
+                        .requestMatchers(HttpMethod.POST, "/api/eventos/dlt/**").hasRole("ADMIN") // Reenvio do dead-letter
                         .anyRequest().permitAll() // Permitir acesso a todos os endpoints da API
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Sessões stateless para APIs
@@ -0,0 +1,85 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Base64;
+
+/**
+ * <h1>TipoTokenBearer</h1>
+ * Tipo do token enviado no header Authorization, identificado pelo cabeçalho do JWT
+ * (sem verificar a assinatura). O tipo é calculado uma vez por requisição e guardado como
+ * atributo, para que cada filtro de autenticação processe apenas os tokens que emite.
+ */
+public enum TipoTokenBearer {
+
+    /**
+     * Token emitido pela aplicação ({@link JwtTokenProvider}, HS256).
+     */
+    APLICACAO,
+
+    /**
+     * ID token do Firebase (RS256, com o identificador da chave pública em {@code kid}).
+     */
+    FIREBASE,
+
+    /**
+     * Sem token ou token em formato desconhecido.
+     */
+    DESCONHECIDO;
+
+    private static final String ATRIBUTO = TipoTokenBearer.class.getName();
+    private static final String PREFIXO = "Bearer ";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Retorna o tipo do token da requisição, calculando-o na primeira chamada.
+     *
+     * @param request Requisição HTTP.
+     * @return Tipo do token.
+     */
+    public static TipoTokenBearer daRequisicao(HttpServletRequest request) {
+        Object tipo = request.getAttribute(ATRIBUTO);
+        if (tipo instanceof TipoTokenBearer tipoToken) {
+            return tipoToken;
+        }
+        TipoTokenBearer tipoToken = detectar(token(request));
+        request.setAttribute(ATRIBUTO, tipoToken);
+        return tipoToken;
+    }
+
+    /**
+     * Extrai o token do header Authorization.
+     *
+     * @param request Requisição HTTP.
+     * @return Token, ou null se o header não tiver um token Bearer.
+     */
+    public static String token(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        return (bearerToken != null && bearerToken.startsWith(PREFIXO)) ? bearerToken.substring(PREFIXO.length()) : null;
+    }
+
+    static TipoTokenBearer detectar(String token) {
+        if (token == null) {
+            return DESCONHECIDO;
+        }
+        int fimCabecalho = token.indexOf('.');
+        if (fimCabecalho <= 0) {
+            return DESCONHECIDO;
+        }
+        try {
+            JsonNode cabecalho = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, fimCabecalho)));
+            String algoritmo = cabecalho.path("alg").asText();
+            if ("HS256".equals(algoritmo)) {
+                return APLICACAO;
+            }
+            if ("RS256".equals(algoritmo) && cabecalho.hasNonNull("kid")) {
+                return FIREBASE;
+            }
+        } catch (Exception e) {
+            // Cabeçalho que não é JSON em Base64URL: não é um JWT
+        }
+        return DESCONHECIDO;
+    }
+}
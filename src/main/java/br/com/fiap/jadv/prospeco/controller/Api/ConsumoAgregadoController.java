@@ -0,0 +1,127 @@
+package br.com.fiap.jadv.prospeco.controller.Api;
+
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoAgregadoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.service.ConsumoAgregadoService;
+import br.com.fiap.jadv.prospeco.service.ConsumoTempoRealService;
+import br.com.fiap.jadv.prospeco.service.ReprecificacaoCustoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/consumo-agregado")
+public class ConsumoAgregadoController {
+
+    private final ConsumoAgregadoService consumoAgregadoService;
+    private final ConsumoTempoRealService consumoTempoRealService;
+    private final ReprecificacaoCustoService reprecificacaoCustoService;
+
+    @Autowired
+    public ConsumoAgregadoController(ConsumoAgregadoService consumoAgregadoService,
+                                     ConsumoTempoRealService consumoTempoRealService,
+                                     ReprecificacaoCustoService reprecificacaoCustoService) {
+        this.consumoAgregadoService = consumoAgregadoService;
+        this.consumoTempoRealService = consumoTempoRealService;
+        this.reprecificacaoCustoService = reprecificacaoCustoService;
+    }
+
+    /**
+     * Consulta o consumo de um aparelho por período.
+     *
+     * @param aparelhoId    ID do aparelho.
+     * @param granularidade Granularidade dos períodos (HORA, DIA ou MES).
+     * @param inicio        Início do intervalo.
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e os períodos.
+     */
+    @GetMapping("/aparelho/{aparelhoId}")
+    public ResponseEntity<ConsumoAgregadoResponseDTO> consultarPorAparelho(
+            @PathVariable Long aparelhoId,
+            @RequestParam(defaultValue = "DIA") GranularidadeAgregacao granularidade,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        return ResponseEntity.ok(consumoAgregadoService.consultarPorAparelho(aparelhoId, granularidade, inicio, fim));
+    }
+
+    /**
+     * Consulta o consumo somado dos aparelhos de um usuário por período.
+     *
+     * @param usuarioId     ID do usuário.
+     * @param granularidade Granularidade dos períodos (HORA, DIA ou MES).
+     * @param inicio        Início do intervalo.
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e os períodos.
+     */
+    @GetMapping("/usuario/{usuarioId}")
+    public ResponseEntity<ConsumoAgregadoResponseDTO> consultarPorUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(defaultValue = "DIA") GranularidadeAgregacao granularidade,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        return ResponseEntity.ok(consumoAgregadoService.consultarPorUsuario(usuarioId, granularidade, inicio, fim));
+    }
+
+    /**
+     * Consulta o consumo por hora de um aparelho a partir dos agregados em tempo real do Kafka Streams.
+     *
+     * @param aparelhoId  ID do aparelho.
+     * @param inicio      Início do intervalo.
+     * @param fim         Fim do intervalo (exclusivo).
+     * @param encaminhada Indica se a consulta foi encaminhada por outra instância.
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas.
+     */
+    @GetMapping("/tempo-real/aparelho/{aparelhoId}")
+    public ResponseEntity<ConsumoAgregadoResponseDTO> consultarTempoRealPorAparelho(
+            @PathVariable Long aparelhoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestHeader(value = ConsumoTempoRealService.CABECALHO_ENCAMINHADA, defaultValue = "false") boolean encaminhada) {
+        return ResponseEntity.ok(consumoTempoRealService.consultarPorAparelho(aparelhoId, inicio, fim, encaminhada));
+    }
+
+    /**
+     * Consulta o consumo por hora de um usuário a partir dos agregados em tempo real do Kafka Streams.
+     *
+     * @param usuarioId   ID do usuário.
+     * @param inicio      Início do intervalo.
+     * @param fim         Fim do intervalo (exclusivo).
+     * @param encaminhada Indica se a consulta foi encaminhada por outra instância.
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas.
+     */
+    @GetMapping("/tempo-real/usuario/{usuarioId}")
+    public ResponseEntity<ConsumoAgregadoResponseDTO> consultarTempoRealPorUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestHeader(value = ConsumoTempoRealService.CABECALHO_ENCAMINHADA, defaultValue = "false") boolean encaminhada) {
+        return ResponseEntity.ok(consumoTempoRealService.consultarPorUsuario(usuarioId, inicio, fim, encaminhada));
+    }
+
+    /**
+     * Recalcula todos os agregados a partir dos registros de consumo. Restrito a administradores.
+     *
+     * @return Quantidade de registros processados.
+     */
+    @PostMapping("/reconstrucao")
+    public ResponseEntity<Map<String, Long>> reconstruirAgregados() {
+        long processados = consumoAgregadoService.reconstruirAgregados();
+        return ResponseEntity.ok(Map.of("registrosProcessados", processados));
+    }
+
+    /**
+     * Recalcula o custo de todos os agregados pelo calendário de bandeiras atual. Restrito a
+     * administradores.
+     *
+     * @return Quantidade de períodos atualizados.
+     */
+    @PostMapping("/reprecificacao")
+    public ResponseEntity<Map<String, Integer>> reprecificarCustos() {
+        int periodos = reprecificacaoCustoService.reprecificarTudo();
+        return ResponseEntity.ok(Map.of("periodosAtualizados", periodos));
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.fiap.jadv.prospeco.controller.Api;
+
+import br.com.fiap.jadv.prospeco.service.RetentativaEventoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/eventos")
+public class EventoController {
+
+    private final RetentativaEventoService retentativaEventoService;
+
+    @Autowired
+    public EventoController(RetentativaEventoService retentativaEventoService) {
+        this.retentativaEventoService = retentativaEventoService;
+    }
+
+    /**
+     * Reenvia para o tópico original os próximos eventos do dead-letter de um tópico.
+     * Restrito a administradores.
+     *
+     * @param topico Tópico original dos eventos (ex.: registro-consumo-events).
+     * @param limite Quantidade máxima de eventos reenviados.
+     * @return Quantidade de eventos reenviados.
+     */
+    @PostMapping("/dlt/{topico}/reprocessamento")
+    public ResponseEntity<Map<String, Integer>> reprocessarDeadLetter(
+            @PathVariable String topico,
+            @RequestParam(defaultValue = "1000") int limite) {
+        int reenviados = retentativaEventoService.reprocessarDeadLetter(topico, limite);
+        return ResponseEntity.ok(Map.of("eventosReprocessados", reenviados));
+    }
+}
@@ -1,6 +1,7 @@
 package br.com.fiap.jadv.prospeco.controller.Api;
 
 import br.com.fiap.jadv.prospeco.dto.request.NotificacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.service.NotificacaoService;
 import jakarta.validation.Valid;
@@ -36,6 +37,23 @@ public class NotificacaoController {
         return ResponseEntity.ok(notificacoes);
     }
 
+    /**
+     * Lista as notificações de um usuário por cursor (do mais recente para o mais antigo), sem a
+     * contagem total. Para a próxima página, envie o proximoCursor da resposta.
+     *
+     * @param usuarioId ID do usuário.
+     * @param cursor    Cursor da página anterior (ausente na primeira página).
+     * @param limite    Quantidade de itens da página (1 a 100).
+     * @return Página de NotificacaoResponseDTO com o cursor da próxima página.
+     */
+    @GetMapping("/usuario/{usuarioId}/cursor")
+    public ResponseEntity<PaginaCursorResponseDTO<NotificacaoResponseDTO>> listarNotificacoesPorUsuarioCursor(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, cursor, limite));
+    }
+
     /**
      * Busca uma notificação pelo ID.
      *
@@ -1,14 +1,22 @@
 package br.com.fiap.jadv.prospeco.controller.Api;
 
 import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.TarefaRecomendacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.service.RecomendacaoService;
+import br.com.fiap.jadv.prospeco.service.TarefaRecomendacaoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/recomendacoes")
@@ -16,11 +24,45 @@ import org.springframework.web.bind.annotation.*;
 public class RecomendacaoController {
 
     private final RecomendacaoService recomendacaoService;
+    private final TarefaRecomendacaoService tarefaRecomendacaoService;
 
+    /**
+     * Inicia a geração de uma recomendação. A resposta é imediata, com a tarefa criada; a
+     * recomendação é obtida consultando a tarefa ou acompanhando seus eventos.
+     *
+     * @param requestDTO Dados da recomendação.
+     * @return 202 com a TarefaRecomendacaoResponseDTO e o endereço da tarefa.
+     */
     @PostMapping
-    public ResponseEntity<RecomendacaoResponseDTO> criarRecomendacao(@Valid @RequestBody RecomendacaoRequestDTO requestDTO) {
-        RecomendacaoResponseDTO responseDTO = recomendacaoService.criarRecomendacao(requestDTO);
-        return ResponseEntity.status(201).body(responseDTO);
+    public ResponseEntity<TarefaRecomendacaoResponseDTO> criarRecomendacao(@Valid @RequestBody RecomendacaoRequestDTO requestDTO) {
+        TarefaRecomendacaoResponseDTO responseDTO = tarefaRecomendacaoService.iniciarTarefa(requestDTO);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/recomendacoes/tarefas/" + responseDTO.getId()))
+                .body(responseDTO);
+    }
+
+    /**
+     * Consulta a situação de uma tarefa de geração de recomendação.
+     *
+     * @param id ID da tarefa.
+     * @return TarefaRecomendacaoResponseDTO com o texto gerado até o momento e, quando
+     * concluída, a recomendação salva.
+     */
+    @GetMapping("/tarefas/{id}")
+    public ResponseEntity<TarefaRecomendacaoResponseDTO> buscarTarefa(@PathVariable UUID id) {
+        return ResponseEntity.ok(tarefaRecomendacaoService.buscarTarefa(id));
+    }
+
+    /**
+     * Acompanha uma tarefa por Server-Sent Events: eventos "trecho" com o texto à medida que é
+     * gerado e um evento "finalizada" com a situação final.
+     *
+     * @param id ID da tarefa.
+     * @return Fluxo de eventos da tarefa.
+     */
+    @GetMapping(value = "/tarefas/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanharTarefa(@PathVariable UUID id) {
+        return tarefaRecomendacaoService.transmitirTarefa(id);
     }
 
     @GetMapping("/usuarios/{usuarioId}")
@@ -29,4 +71,21 @@ public class RecomendacaoController {
         Page<RecomendacaoResponseDTO> recomendacoes = recomendacaoService.listarRecomendacoesPorUsuario(usuarioId, pageable);
         return ResponseEntity.ok(recomendacoes);
     }
+
+    /**
+     * Lista as recomendações de um usuário por cursor (do mais recente para o mais antigo), sem a
+     * contagem total. Para a próxima página, envie o proximoCursor da resposta.
+     *
+     * @param usuarioId ID do usuário.
+     * @param cursor    Cursor da página anterior (ausente na primeira página).
+     * @param limite    Quantidade de itens da página (1 a 100).
+     * @return Página de RecomendacaoResponseDTO com o cursor da próxima página.
+     */
+    @GetMapping("/usuarios/{usuarioId}/cursor")
+    public ResponseEntity<PaginaCursorResponseDTO<RecomendacaoResponseDTO>> listarRecomendacoesPorUsuarioCursor(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(recomendacaoService.listarRecomendacoesPorUsuarioCursor(usuarioId, cursor, limite));
+    }
 }
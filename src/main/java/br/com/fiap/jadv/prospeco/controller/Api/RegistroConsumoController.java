@@ -1,25 +1,43 @@
 package br.com.fiap.jadv.prospeco.controller.Api;
 
 import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoLoteResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
 import br.com.fiap.jadv.prospeco.service.RegistroConsumoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/registro-consumo")
 public class RegistroConsumoController {
 
     private final RegistroConsumoService registroConsumoService;
+    private final ObjectReader leitorNdjson;
+    private final int maxRegistrosLote;
 
     @Autowired
-    public RegistroConsumoController(RegistroConsumoService registroConsumoService) {
+    public RegistroConsumoController(RegistroConsumoService registroConsumoService, ObjectMapper objectMapper,
+                                     @Value("${app.registro-consumo.lote.max-registros:20000}") int maxRegistrosLote) {
         this.registroConsumoService = registroConsumoService;
+        this.leitorNdjson = objectMapper.readerFor(RegistroConsumoRequestDTO.class);
+        this.maxRegistrosLote = maxRegistrosLote;
     }
 
     /**
@@ -36,6 +54,23 @@ public class RegistroConsumoController {
         return ResponseEntity.ok(registros);
     }
 
+    /**
+     * Lista os registros de consumo de um aparelho por cursor (do mais recente para o mais antigo), sem a
+     * contagem total. Para a próxima página, envie o proximoCursor da resposta.
+     *
+     * @param aparelhoId ID do aparelho.
+     * @param cursor     Cursor da página anterior (ausente na primeira página).
+     * @param limite     Quantidade de itens da página (1 a 100).
+     * @return Página de RegistroConsumoResponseDTO com o cursor da próxima página.
+     */
+    @GetMapping("/aparelho/{aparelhoId}/cursor")
+    public ResponseEntity<PaginaCursorResponseDTO<RegistroConsumoResponseDTO>> listarRegistrosPorAparelhoCursor(
+            @PathVariable Long aparelhoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(registroConsumoService.listarRegistrosPorAparelhoCursor(aparelhoId, cursor, limite));
+    }
+
     /**
      * Busca um registro de consumo pelo ID.
      *
@@ -61,6 +96,42 @@ public class RegistroConsumoController {
         return ResponseEntity.status(201).body(registro);
     }
 
+    /**
+     * Cria registros de consumo em lote a partir de um array JSON.
+     *
+     * @param requestDTOs Dados dos registros de consumo.
+     * @return RegistroConsumoLoteResponseDTO com o resumo do lote gravado.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RegistroConsumoLoteResponseDTO> criarRegistrosConsumoEmLote(@RequestBody List<RegistroConsumoRequestDTO> requestDTOs) {
+        RegistroConsumoLoteResponseDTO lote = registroConsumoService.criarRegistrosConsumoEmLote(requestDTOs);
+        return ResponseEntity.status(201).body(lote);
+    }
+
+    /**
+     * Cria registros de consumo em lote a partir de um fluxo NDJSON (um registro por linha). O fluxo
+     * é lido registro a registro e recusado assim que passa do limite do lote, sem ler o restante.
+     *
+     * @param corpo Corpo da requisição em formato NDJSON.
+     * @return RegistroConsumoLoteResponseDTO com o resumo do lote gravado.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<RegistroConsumoLoteResponseDTO> criarRegistrosConsumoEmLoteNdjson(InputStream corpo) throws IOException {
+        List<RegistroConsumoRequestDTO> requestDTOs = new ArrayList<>();
+        try (MappingIterator<RegistroConsumoRequestDTO> registros = leitorNdjson.readValues(corpo)) {
+            while (registros.hasNextValue()) {
+                if (requestDTOs.size() == maxRegistrosLote) {
+                    throw new IllegalArgumentException("O lote excede o limite de " + maxRegistrosLote + " registros.");
+                }
+                requestDTOs.add(registros.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Conteúdo NDJSON inválido: " + e.getOriginalMessage());
+        }
+        RegistroConsumoLoteResponseDTO lote = registroConsumoService.criarRegistrosConsumoEmLote(requestDTOs);
+        return ResponseEntity.status(201).body(lote);
+    }
+
     /**
      * Atualiza um registro de consumo existente.
      *
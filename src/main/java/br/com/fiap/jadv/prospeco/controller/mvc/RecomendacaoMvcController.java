@@ -2,26 +2,36 @@ package br.com.fiap.jadv.prospeco.controller.mvc;
 
 import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.TarefaRecomendacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.service.RecomendacaoService;
+import br.com.fiap.jadv.prospeco.service.TarefaRecomendacaoService;
 import br.com.fiap.jadv.prospeco.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/recomendacoes")
 public class RecomendacaoMvcController {
 
     private final RecomendacaoService recomendacaoService;
+    private final TarefaRecomendacaoService tarefaRecomendacaoService;
     private final UsuarioService usuarioService;
 
     @Autowired
-    public RecomendacaoMvcController(RecomendacaoService recomendacaoService, UsuarioService usuarioService) {
+    public RecomendacaoMvcController(RecomendacaoService recomendacaoService,
+                                     TarefaRecomendacaoService tarefaRecomendacaoService,
+                                     UsuarioService usuarioService) {
         this.recomendacaoService = recomendacaoService;
+        this.tarefaRecomendacaoService = tarefaRecomendacaoService;
         this.usuarioService = usuarioService;
     }
 
@@ -33,10 +43,13 @@ public class RecomendacaoMvcController {
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public String listarRecomendacoesPorUsuario(@PathVariable Long usuarioId, Pageable pageable, Model model) {
+    public String listarRecomendacoesPorUsuario(@PathVariable Long usuarioId,
+                                                @RequestParam(required = false) UUID tarefa,
+                                                Pageable pageable, Model model) {
         Page<RecomendacaoResponseDTO> recomendacoes = recomendacaoService.listarRecomendacoesPorUsuario(usuarioId, pageable);
         model.addAttribute("recomendacoes", recomendacoes);
         model.addAttribute("usuarioId", usuarioId);
+        model.addAttribute("tarefa", tarefa);
         return "recomendacoes/list";
     }
 
@@ -57,7 +70,13 @@ public class RecomendacaoMvcController {
     @PostMapping("/usuario/{usuarioId}")
     public String criarRecomendacao(@PathVariable Long usuarioId, @ModelAttribute RecomendacaoRequestDTO recomendacaoRequestDTO) {
         recomendacaoRequestDTO.setUsuarioId(usuarioId);
-        recomendacaoService.criarRecomendacao(recomendacaoRequestDTO);
-        return "redirect:/recomendacoes/usuario/" + usuarioId;
+        TarefaRecomendacaoResponseDTO tarefa = tarefaRecomendacaoService.iniciarTarefa(recomendacaoRequestDTO);
+        return "redirect:/recomendacoes/usuario/" + usuarioId + "?tarefa=" + tarefa.getId();
+    }
+
+    @GetMapping(value = "/tarefas/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter acompanharTarefa(@PathVariable UUID id) {
+        return tarefaRecomendacaoService.transmitirTarefa(id);
     }
 }
@@ -0,0 +1,61 @@
+package br.com.fiap.jadv.prospeco.dto.evento;
+
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h1>EventoDTO</h1>
+ * Envelope dos eventos publicados no Kafka. Identifica o tipo de alteração, a versão do
+ * formato do envelope e a chave de particionamento, e carrega o estado da entidade.
+ *
+ * <p>
+ * A chave é o identificador do agregado dono da entidade (o usuário para entidades do
+ * usuário e o aparelho para registros de consumo), garantindo que todos os eventos de um
+ * mesmo agregado caiam na mesma partição e sejam consumidos em ordem.
+ * </p>
+ *
+ * @param <T> Tipo do DTO da entidade.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventoDTO<T> {
+
+    /**
+     * Versão atual do formato do envelope.
+     */
+    public static final int VERSAO_ATUAL = 1;
+
+    /**
+     * Tipo de alteração.
+     */
+    private TipoEvento tipo;
+
+    /**
+     * Versão do formato do envelope.
+     */
+    private Integer versao;
+
+    /**
+     * Chave de particionamento (identificador do agregado).
+     */
+    private String chave;
+
+    /**
+     * Data e hora em que o evento foi registrado.
+     */
+    private LocalDateTime ocorridoEm;
+
+    /**
+     * Estado da entidade após a alteração (ou antes da exclusão).
+     */
+    private T dados;
+
+    /**
+     * Estado da entidade antes da alteração, quando informado em eventos ATUALIZADO.
+     */
+    private T anterior;
+}
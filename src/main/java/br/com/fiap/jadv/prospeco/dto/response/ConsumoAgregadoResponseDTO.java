@@ -0,0 +1,65 @@
+package br.com.fiap.jadv.prospeco.dto.response;
+
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * <h1>ConsumoAgregadoResponseDTO</h1>
+ * DTO para enviar o consumo de um aparelho ou usuário em um intervalo,
+ * com o total e o detalhamento por período.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumoAgregadoResponseDTO {
+
+    /**
+     * Entidade consultada (aparelho ou usuário).
+     */
+    private EscopoAgregacao escopo;
+
+    /**
+     * Identificador do aparelho ou do usuário.
+     */
+    private Long referenciaId;
+
+    /**
+     * Granularidade dos períodos retornados.
+     */
+    private GranularidadeAgregacao granularidade;
+
+    /**
+     * Início do intervalo consultado, alinhado à granularidade.
+     */
+    private LocalDateTime inicio;
+
+    /**
+     * Fim do intervalo consultado (exclusivo).
+     */
+    private LocalDateTime fim;
+
+    /**
+     * Consumo total do intervalo em kWh.
+     */
+    private Double consumoTotal;
+
+    /**
+     * Custo total do intervalo em reais.
+     */
+    private Double custoTotal;
+
+    /**
+     * Quantidade total de registros de consumo do intervalo.
+     */
+    private Long quantidadeRegistros;
+
+    /**
+     * Consumo de cada período com registros no intervalo.
+     */
+    private List<ConsumoPeriodoResponseDTO> periodos;
+}
@@ -0,0 +1,35 @@
+package br.com.fiap.jadv.prospeco.dto.response;
+
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * <h1>ConsumoPeriodoResponseDTO</h1>
+ * DTO para enviar o consumo agregado de um único período nas respostas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumoPeriodoResponseDTO {
+
+    /**
+     * Início do período.
+     */
+    private LocalDateTime inicioPeriodo;
+
+    /**
+     * Consumo total do período em kWh.
+     */
+    private Double consumoTotal;
+
+    /**
+     * Custo total do período em reais.
+     */
+    private Double custoTotal;
+
+    /**
+     * Quantidade de registros de consumo somados no período.
+     */
+    private Long quantidadeRegistros;
+}
@@ -38,6 +38,16 @@ public class MetaResponseDTO {
      */
     private Boolean atingida;
 
+    /**
+     * Consumo em kWh acumulado no período da meta.
+     */
+    private Double consumoAcumulado;
+
+    /**
+     * Indica se a avaliação da meta foi concluída.
+     */
+    private Boolean encerrada;
+
     /**
      * Identificador do usuário proprietário da meta.
      */
@@ -0,0 +1,28 @@
+package br.com.fiap.jadv.prospeco.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * <h1>PaginaCursorResponseDTO</h1>
+ * DTO para enviar uma página de uma listagem por cursor (keyset), sem a contagem total.
+ *
+ * @param <T> Tipo dos itens da página.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaCursorResponseDTO<T> {
+
+    /**
+     * Itens da página, do mais recente para o mais antigo.
+     */
+    private List<T> itens;
+
+    /**
+     * Cursor a ser enviado para obter a próxima página, ou null se esta for a última.
+     */
+    private String proximoCursor;
+}
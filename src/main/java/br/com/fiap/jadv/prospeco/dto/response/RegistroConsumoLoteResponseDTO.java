@@ -0,0 +1,24 @@
+package br.com.fiap.jadv.prospeco.dto.response;
+
+import lombok.*;
+
+/**
+ * <h1>RegistroConsumoLoteResponseDTO</h1>
+ * DTO para enviar o resultado da ingestão em lote de registros de consumo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegistroConsumoLoteResponseDTO {
+
+    /**
+     * Quantidade de registros de consumo gravados no lote.
+     */
+    private Integer quantidadeRegistros;
+
+    /**
+     * Quantidade de aparelhos distintos presentes no lote.
+     */
+    private Integer quantidadeAparelhos;
+}
@@ -32,4 +32,9 @@ public class RegistroConsumoResponseDTO {
      * Identificador do aparelho ao qual o registro pertence.
      */
     private Long aparelhoId;
+
+    /**
+     * Identificador do usuário dono do aparelho.
+     */
+    private Long usuarioId;
 }
@@ -0,0 +1,58 @@
+package br.com.fiap.jadv.prospeco.dto.response;
+
+import br.com.fiap.jadv.prospeco.model.SituacaoTarefaRecomendacao;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * <h1>TarefaRecomendacaoResponseDTO</h1>
+ * DTO para enviar a situação de uma tarefa de geração de recomendação nas respostas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TarefaRecomendacaoResponseDTO {
+
+    /**
+     * Identificador da tarefa.
+     */
+    private UUID id;
+
+    /**
+     * Situação atual da tarefa.
+     */
+    private SituacaoTarefaRecomendacao situacao;
+
+    /**
+     * Aparelho sobre o qual a recomendação é gerada.
+     */
+    private String aparelho;
+
+    /**
+     * Identificador do usuário que receberá a recomendação.
+     */
+    private Long usuarioId;
+
+    /**
+     * Data e hora em que a tarefa foi criada.
+     */
+    private LocalDateTime criadaEm;
+
+    /**
+     * Texto gerado até o momento.
+     */
+    private String texto;
+
+    /**
+     * Recomendação salva, quando a tarefa é concluída.
+     */
+    private RecomendacaoResponseDTO recomendacao;
+
+    /**
+     * Motivo da falha, quando a tarefa falha.
+     */
+    private String erro;
+}
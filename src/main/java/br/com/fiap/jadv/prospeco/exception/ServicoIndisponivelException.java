@@ -0,0 +1,32 @@
+package br.com.fiap.jadv.prospeco.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção personalizada para indicar que um recurso está temporariamente indisponível,
+ * por exemplo enquanto os state stores do Kafka Streams são restaurados.
+ * Lança um código de status 503 (Service Unavailable) quando tratada em um contexto REST.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServicoIndisponivelException extends RuntimeException {
+
+    /**
+     * Construtor para criar uma exceção com uma mensagem personalizada.
+     *
+     * @param message Mensagem de erro que descreve a indisponibilidade.
+     */
+    public ServicoIndisponivelException(String message) {
+        super(message);
+    }
+
+    /**
+     * Construtor para criar uma exceção com uma mensagem personalizada e a causa original.
+     *
+     * @param message Mensagem de erro que descreve a indisponibilidade.
+     * @param cause   Exceção que originou a indisponibilidade.
+     */
+    public ServicoIndisponivelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.AparelhoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.AparelhoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Aparelho;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * <h1>AparelhoMapper</h1>
+ * Converte os aparelhos entre a entidade {@link Aparelho} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface AparelhoMapper {
+
+    /**
+     * Converte um Aparelho em AparelhoResponseDTO.
+     *
+     * @param aparelho Aparelho a ser convertido.
+     * @return AparelhoResponseDTO correspondente.
+     */
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    AparelhoResponseDTO toResponseDTO(Aparelho aparelho);
+
+    /**
+     * Cria um aparelho com os dados da requisição, sem o usuário.
+     *
+     * @param requestDTO Dados do aparelho.
+     * @return Novo Aparelho.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "registrosConsumo", ignore = true)
+    Aparelho toEntity(AparelhoRequestDTO requestDTO);
+
+    /**
+     * Copia os dados da requisição para um aparelho existente, mantendo o ID, o usuário e os
+     * registros de consumo.
+     *
+     * @param requestDTO Dados do aparelho.
+     * @param aparelho   Aparelho a ser atualizado.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "registrosConsumo", ignore = true)
+    void atualizar(AparelhoRequestDTO requestDTO, @MappingTarget Aparelho aparelho);
+}
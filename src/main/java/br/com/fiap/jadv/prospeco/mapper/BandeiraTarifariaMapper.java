@@ -0,0 +1,42 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.BandeiraTarifariaRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.BandeiraTarifariaResponseDTO;
+import br.com.fiap.jadv.prospeco.model.BandeiraTarifaria;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * <h1>BandeiraTarifariaMapper</h1>
+ * Converte as bandeiras tarifárias entre a entidade {@link BandeiraTarifaria} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface BandeiraTarifariaMapper {
+
+    /**
+     * Converte uma BandeiraTarifaria em BandeiraTarifariaResponseDTO.
+     *
+     * @param bandeira BandeiraTarifaria a ser convertida.
+     * @return BandeiraTarifariaResponseDTO correspondente.
+     */
+    BandeiraTarifariaResponseDTO toResponseDTO(BandeiraTarifaria bandeira);
+
+    /**
+     * Cria uma bandeira tarifária com os dados da requisição.
+     *
+     * @param requestDTO Dados da bandeira.
+     * @return Nova BandeiraTarifaria.
+     */
+    @Mapping(target = "id", ignore = true)
+    BandeiraTarifaria toEntity(BandeiraTarifariaRequestDTO requestDTO);
+
+    /**
+     * Copia os dados da requisição para uma bandeira tarifária existente, mantendo o ID.
+     *
+     * @param requestDTO Dados da bandeira.
+     * @param bandeira   Bandeira a ser atualizada.
+     */
+    @Mapping(target = "id", ignore = true)
+    void atualizar(BandeiraTarifariaRequestDTO requestDTO, @MappingTarget BandeiraTarifaria bandeira);
+}
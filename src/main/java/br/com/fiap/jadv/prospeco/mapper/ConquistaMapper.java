@@ -0,0 +1,50 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.ConquistaRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.ConquistaResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Conquista;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * <h1>ConquistaMapper</h1>
+ * Converte as conquistas entre a entidade {@link Conquista} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface ConquistaMapper {
+
+    /**
+     * Converte uma Conquista em ConquistaResponseDTO.
+     *
+     * @param conquista Conquista a ser convertida.
+     * @return ConquistaResponseDTO correspondente.
+     */
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    ConquistaResponseDTO toResponseDTO(Conquista conquista);
+
+    /**
+     * Cria uma conquista com os dados da requisição, sem o usuário e a data de conquista.
+     *
+     * @param requestDTO Dados da conquista.
+     * @return Nova Conquista.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "dataConquista", ignore = true)
+    @Mapping(target = "codigoRegra", ignore = true)
+    Conquista toEntity(ConquistaRequestDTO requestDTO);
+
+    /**
+     * Copia os dados da requisição para uma conquista existente, mantendo o ID, o usuário e
+     * a data de conquista.
+     *
+     * @param requestDTO Dados da conquista.
+     * @param conquista  Conquista a ser atualizada.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "dataConquista", ignore = true)
+    @Mapping(target = "codigoRegra", ignore = true)
+    void atualizar(ConquistaRequestDTO requestDTO, @MappingTarget Conquista conquista);
+}
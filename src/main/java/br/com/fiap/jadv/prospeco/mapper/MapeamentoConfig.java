@@ -0,0 +1,26 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import org.mapstruct.Builder;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * <h1>MapeamentoConfig</h1>
+ * Configuração comum dos mappers entre entidades e DTOs, gerados pelo MapStruct em tempo de
+ * compilação (sem reflexão em tempo de execução).
+ *
+ * <p>
+ * Os mappers são beans do Spring e toda propriedade do destino precisa ser mapeada ou
+ * ignorada explicitamente, então um campo novo sem mapeamento quebra a compilação. Os
+ * builders do Lombok não são usados, para que as entidades sejam criadas pelo construtor
+ * sem argumentos e mantenham os valores iniciais dos campos.
+ * </p>
+ */
+@MapperConfig(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.ERROR,
+        builder = @Builder(disableBuilder = true)
+)
+public interface MapeamentoConfig {
+}
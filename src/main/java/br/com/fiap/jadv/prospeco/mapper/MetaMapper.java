@@ -0,0 +1,52 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.MetaRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Meta;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * <h1>MetaMapper</h1>
+ * Converte as metas entre a entidade {@link Meta} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface MetaMapper {
+
+    /**
+     * Converte uma Meta em MetaResponseDTO.
+     *
+     * @param meta Meta a ser convertida.
+     * @return MetaResponseDTO correspondente.
+     */
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    MetaResponseDTO toResponseDTO(Meta meta);
+
+    /**
+     * Cria uma meta com os dados da requisição, sem o usuário.
+     *
+     * @param requestDTO Dados da meta.
+     * @return Nova Meta.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "atingida", ignore = true)
+    @Mapping(target = "consumoAcumulado", ignore = true)
+    @Mapping(target = "encerrada", ignore = true)
+    Meta toEntity(MetaRequestDTO requestDTO);
+
+    /**
+     * Copia os dados da requisição para uma meta existente, mantendo o ID, o usuário e a
+     * avaliação da meta.
+     *
+     * @param requestDTO Dados da meta.
+     * @param meta       Meta a ser atualizada.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "atingida", ignore = true)
+    @Mapping(target = "consumoAcumulado", ignore = true)
+    @Mapping(target = "encerrada", ignore = true)
+    void atualizar(MetaRequestDTO requestDTO, @MappingTarget Meta meta);
+}
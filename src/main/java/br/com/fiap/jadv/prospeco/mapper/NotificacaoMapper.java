@@ -0,0 +1,36 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.NotificacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Notificacao;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * <h1>NotificacaoMapper</h1>
+ * Converte as notificações entre a entidade {@link Notificacao} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface NotificacaoMapper {
+
+    /**
+     * Converte uma Notificacao em NotificacaoResponseDTO.
+     *
+     * @param notificacao Notificacao a ser convertida.
+     * @return NotificacaoResponseDTO correspondente.
+     */
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    NotificacaoResponseDTO toResponseDTO(Notificacao notificacao);
+
+    /**
+     * Cria uma notificação com a mensagem da requisição, sem o usuário, a data e a leitura.
+     *
+     * @param requestDTO Dados da notificação.
+     * @return Nova Notificacao.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "usuario", ignore = true)
+    @Mapping(target = "dataHora", ignore = true)
+    @Mapping(target = "lida", ignore = true)
+    Notificacao toEntity(NotificacaoRequestDTO requestDTO);
+}
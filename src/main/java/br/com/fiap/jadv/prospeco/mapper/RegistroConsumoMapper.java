@@ -0,0 +1,46 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+/**
+ * <h1>RegistroConsumoMapper</h1>
+ * Converte os registros de consumo entre a entidade {@link RegistroConsumo} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface RegistroConsumoMapper {
+
+    /**
+     * Converte um RegistroConsumo em RegistroConsumoResponseDTO.
+     *
+     * @param registro RegistroConsumo a ser convertido.
+     * @return RegistroConsumoResponseDTO correspondente.
+     */
+    @Mapping(target = "aparelhoId", source = "aparelho.id")
+    @Mapping(target = "usuarioId", source = "aparelho.usuario.id")
+    RegistroConsumoResponseDTO toResponseDTO(RegistroConsumo registro);
+
+    /**
+     * Cria um registro de consumo com os dados da requisição, sem o aparelho.
+     *
+     * @param requestDTO Dados do registro.
+     * @return Novo RegistroConsumo.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "aparelho", ignore = true)
+    RegistroConsumo toEntity(RegistroConsumoRequestDTO requestDTO);
+
+    /**
+     * Copia os dados da requisição para um registro existente, mantendo o ID e o aparelho.
+     *
+     * @param requestDTO Dados do registro.
+     * @param registro   Registro a ser atualizado.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "aparelho", ignore = true)
+    void atualizar(RegistroConsumoRequestDTO requestDTO, @MappingTarget RegistroConsumo registro);
+}
@@ -0,0 +1,36 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.UsuarioRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.UsuarioResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * <h1>UsuarioMapper</h1>
+ * Converte os usuários entre a entidade {@link Usuario} e os seus DTOs.
+ */
+@Mapper(config = MapeamentoConfig.class)
+public interface UsuarioMapper {
+
+    /**
+     * Converte um Usuario em UsuarioResponseDTO.
+     *
+     * @param usuario Usuario a ser convertido.
+     * @return UsuarioResponseDTO correspondente.
+     */
+    UsuarioResponseDTO toResponseDTO(Usuario usuario);
+
+    /**
+     * Cria um usuário com os dados da requisição. A senha é copiada como recebida e deve ser
+     * substituída pelo hash antes de o usuário ser salvo.
+     *
+     * @param requestDTO Dados do usuário.
+     * @return Novo Usuario.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "pontuacaoEconomia", ignore = true)
+    @Mapping(target = "authorities", ignore = true)
+    Usuario toEntity(UsuarioRequestDTO requestDTO);
+}
@@ -0,0 +1,40 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import lombok.*;
+
+/**
+ * <h1>AcumuladoConsumo</h1>
+ * Valor acumulado de uma janela de consumo mantida pelo Kafka Streams:
+ * soma do consumo em kWh e quantidade de leituras recebidas na janela.
+ * Não é uma entidade JPA; é serializado em formato binário de tamanho fixo
+ * nos state stores locais.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AcumuladoConsumo {
+
+    /**
+     * Consumo total da janela em kWh.
+     */
+    private double consumoTotal;
+
+    /**
+     * Quantidade de leituras somadas na janela.
+     */
+    private long quantidadeRegistros;
+
+    /**
+     * Soma um delta ao acumulado. Deltas negativos desfazem leituras excluídas
+     * ou substituídas por uma alteração.
+     *
+     * @param delta Delta de consumo e de quantidade de leituras.
+     * @return O próprio acumulado, atualizado.
+     */
+    public AcumuladoConsumo somar(AcumuladoConsumo delta) {
+        this.consumoTotal += delta.getConsumoTotal();
+        this.quantidadeRegistros += delta.getQuantidadeRegistros();
+        return this;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * <h1>CheckpointConquista</h1>
+ * Classe que representa o próximo offset a ser aplicado pelo motor de conquistas em uma
+ * partição do Kafka. É gravado na mesma transação que os estados das métricas, de modo que
+ * mensagens reentregues após uma falha ou reinício são reconhecidas e descartadas.
+ *
+ */
+@Entity
+@Table(name = "checkpoints_conquista")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckpointConquista {
+
+    /**
+     * Tópico e partição, no formato {@code topico-particao}.
+     */
+    @Id
+    @Column(length = 210)
+    private String particao;
+
+    /**
+     * Offset da próxima mensagem ainda não aplicada.
+     */
+    @NotNull
+    private Long proximoOffset;
+}
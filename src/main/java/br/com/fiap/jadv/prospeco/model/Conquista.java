@@ -50,6 +50,12 @@ public class Conquista {
     @NotNull(message = "A data de conquista é obrigatória.")
     private LocalDateTime dataConquista;
 
+    /**
+     * Código da regra que concedeu a conquista automaticamente; nulo nas conquistas manuais.
+     */
+    @Size(max = 50, message = "O código da regra deve ter no máximo 50 caracteres.")
+    private String codigoRegra;
+
     /**
      * Usuário que obteve a conquista.
      */
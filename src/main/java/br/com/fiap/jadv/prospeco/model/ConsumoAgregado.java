@@ -0,0 +1,89 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h1>ConsumoAgregado</h1>
+ * Classe que representa o consumo somado de um aparelho ou de um usuário
+ * em um período (hora, dia ou mês). Os agregados são mantidos de forma
+ * incremental a cada inclusão, alteração ou exclusão de registro de consumo,
+ * permitindo consultar totais por intervalo sem percorrer as leituras.
+ *
+ * <p>
+ * Observação: A unidade de medida para o consumo é kWh e para o custo, reais.
+ * </p>
+ *
+ * @see EscopoAgregacao
+ * @see GranularidadeAgregacao
+ *
+ */
+@Entity
+@Table(name = "consumos_agregados",
+        uniqueConstraints = @UniqueConstraint(name = "uk_consumos_agregados_periodo",
+                columnNames = {"escopo", "referencia_id", "granularidade", "inicio_periodo"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumoAgregado {
+
+    /**
+     * Identificador único do agregado.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Entidade à qual o agregado se refere (aparelho ou usuário).
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private EscopoAgregacao escopo;
+
+    /**
+     * Identificador do aparelho ou do usuário, conforme o escopo.
+     */
+    @NotNull
+    @Column(name = "referencia_id")
+    private Long referenciaId;
+
+    /**
+     * Tamanho do período agregado.
+     */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private GranularidadeAgregacao granularidade;
+
+    /**
+     * Início do período agregado.
+     */
+    @NotNull
+    @Column(name = "inicio_periodo")
+    private LocalDateTime inicioPeriodo;
+
+    /**
+     * Consumo total do período em kWh.
+     */
+    @NotNull
+    private Double consumoTotal;
+
+    /**
+     * Custo total do período em reais, com cada leitura precificada pela bandeira
+     * tarifária vigente na sua data.
+     */
+    @NotNull
+    private Double custoTotal;
+
+    /**
+     * Quantidade de registros de consumo somados no período.
+     */
+    @NotNull
+    private Long quantidadeRegistros;
+}
@@ -0,0 +1,16 @@
+package br.com.fiap.jadv.prospeco.model;
+
+/**
+ * <h1>EscopoAgregacao</h1>
+ * Enumeração que define a entidade à qual um agregado de consumo se refere.
+ *
+ * <ul>
+ *   <li>APARELHO: Consumo de um único aparelho.</li>
+ *   <li>USUARIO: Consumo somado de todos os aparelhos de um usuário.</li>
+ * </ul>
+ *
+ */
+public enum EscopoAgregacao {
+    APARELHO,
+    USUARIO
+}
@@ -0,0 +1,93 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * <h1>EstadoConquista</h1>
+ * Classe que representa o estado compacto das métricas de conquista de um usuário,
+ * mantido pelo motor de conquistas a partir dos eventos de consumo e de metas.
+ * Guarda apenas o dia e o mês em andamento, a sequência atual e a meta vigente; o
+ * consumo de cada período encerrado é lido dos agregados diários e mensais do usuário.
+ *
+ * <p>
+ * Observação: A unidade de medida para o consumo é kWh.
+ * </p>
+ *
+ * @see MetricaConquista
+ *
+ */
+@Entity
+@Table(name = "estados_conquista")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadoConquista {
+
+    /**
+     * Identificador do usuário dono do estado.
+     */
+    @Id
+    private Long usuarioId;
+
+    /**
+     * Dia em andamento, ainda sem avaliação da sequência.
+     */
+    private LocalDate diaAtual;
+
+    /**
+     * Quantidade de dias consecutivos, até o último dia encerrado, com consumo até o alvo diário.
+     */
+    @NotNull
+    @Builder.Default
+    private Integer sequenciaDiasAbaixoDaMeta = 0;
+
+    /**
+     * Primeiro dia do mês em andamento, ainda sem comparação com o mês anterior.
+     */
+    private LocalDate mesAtual;
+
+    /**
+     * Identificador da meta vigente, usada como referência do alvo diário.
+     */
+    private Long metaId;
+
+    /**
+     * Alvo de consumo diário da meta vigente (alvo da meta dividido pelos dias do período).
+     */
+    private Double alvoDiario;
+
+    /**
+     * Data de início da meta vigente.
+     */
+    private LocalDate inicioMeta;
+
+    /**
+     * Data de fim da meta vigente (inclusiva).
+     */
+    private LocalDate fimMeta;
+
+    /**
+     * Quantidade de metas atingidas pelo usuário.
+     */
+    @NotNull
+    @Builder.Default
+    private Integer metasAtingidas = 0;
+
+    /**
+     * Retorna o alvo diário da meta vigente em uma data.
+     *
+     * @param data Data de referência.
+     * @return Alvo diário, ou null se a meta vigente não cobre a data.
+     */
+    public Double alvoDiarioEm(LocalDate data) {
+        if (alvoDiario == null || data.isBefore(inicioMeta) || data.isAfter(fimMeta)) {
+            return null;
+        }
+        return alvoDiario;
+    }
+}
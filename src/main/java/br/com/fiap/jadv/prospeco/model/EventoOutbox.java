@@ -0,0 +1,60 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h1>EventoOutbox</h1>
+ * Classe que representa um evento pendente de publicação no Kafka (padrão transactional outbox).
+ * O evento é gravado na mesma transação da alteração que o originou e publicado depois,
+ * em segundo plano, na ordem do seu identificador; após a confirmação do broker ele é removido.
+ *
+ */
+@Entity
+@Table(name = "eventos_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventoOutbox {
+
+    /**
+     * Identificador único do evento. Define a ordem de publicação; é lido da sequência um a um
+     * (sem blocos por instância), de modo que segue a ordem em que os eventos foram registrados
+     * em todas as instâncias.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventos_outbox_seq")
+    @SequenceGenerator(name = "eventos_outbox_seq", sequenceName = "eventos_outbox_seq", allocationSize = 1)
+    private Long id;
+
+    /**
+     * Tópico do Kafka de destino.
+     */
+    @NotBlank
+    @Column(length = 200)
+    private String topico;
+
+    /**
+     * Chave de particionamento da mensagem (identificador do agregado).
+     */
+    @Column(length = 100)
+    private String chave;
+
+    /**
+     * Conteúdo do evento serializado no formato configurado (JSON ou Avro). A coluna é
+     * VARBINARY(MAX) (ver db/migration), lida como binário comum em vez de LOB.
+     */
+    @NotNull
+    private byte[] payload;
+
+    /**
+     * Data e hora em que o evento foi registrado.
+     */
+    @NotNull
+    private LocalDateTime criadoEm;
+}
@@ -0,0 +1,63 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * <h1>ExecucaoPreCalculoRecomendacao</h1>
+ * Classe que representa a execução noturna do pré-cálculo de recomendações de uma data. Guarda
+ * o último usuário cujo lote foi gravado, atualizado na mesma transação que as recomendações do
+ * lote, de modo que uma execução interrompida seja retomada a partir do lote seguinte.
+ *
+ */
+@Entity
+@Table(name = "execucoes_pre_calculo_recomendacao")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExecucaoPreCalculoRecomendacao {
+
+    /**
+     * Data da execução; o consumo considerado termina no início deste dia.
+     */
+    @Id
+    @Column(name = "data_referencia")
+    private LocalDate dataReferencia;
+
+    /**
+     * Maior ID de usuário já processado (0 antes do primeiro lote).
+     */
+    @NotNull
+    @Builder.Default
+    private Long ultimoUsuarioId = 0L;
+
+    /**
+     * Quantidade de recomendações gravadas pela execução.
+     */
+    @NotNull
+    @Builder.Default
+    private Integer recomendacoesGeradas = 0;
+
+    /**
+     * Indica se todos os usuários já foram processados.
+     */
+    @NotNull
+    @Builder.Default
+    private Boolean concluida = false;
+
+    /**
+     * Data e hora de início da execução.
+     */
+    @NotNull
+    private LocalDateTime iniciadaEm;
+
+    /**
+     * Data e hora de conclusão da execução.
+     */
+    private LocalDateTime concluidaEm;
+}
@@ -0,0 +1,74 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * <h1>GranularidadeAgregacao</h1>
+ * Enumeração que define os tamanhos de período usados nos agregados de consumo.
+ *
+ * <ul>
+ *   <li>HORA: Consumo agregado por hora.</li>
+ *   <li>DIA: Consumo agregado por dia.</li>
+ *   <li>MES: Consumo agregado por mês.</li>
+ * </ul>
+ *
+ */
+public enum GranularidadeAgregacao {
+    HORA,
+    DIA,
+    MES;
+
+    /**
+     * Calcula o início do período que contém a data e hora informada.
+     *
+     * @param dataHora Data e hora de referência.
+     * @return Início do período correspondente.
+     */
+    public LocalDateTime inicioPeriodo(LocalDateTime dataHora) {
+        switch (this) {
+            case HORA:
+                return dataHora.truncatedTo(ChronoUnit.HOURS);
+            case DIA:
+                return dataHora.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return dataHora.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+
+    /**
+     * Calcula o início do período seguinte ao período informado.
+     *
+     * @param inicioPeriodo Início de um período desta granularidade.
+     * @return Início do próximo período.
+     */
+    public LocalDateTime proximoPeriodo(LocalDateTime inicioPeriodo) {
+        switch (this) {
+            case HORA:
+                return inicioPeriodo.plusHours(1);
+            case DIA:
+                return inicioPeriodo.plusDays(1);
+            default:
+                return inicioPeriodo.plusMonths(1);
+        }
+    }
+
+    /**
+     * Calcula a quantidade de períodos desta granularidade contidos no intervalo [inicio, fim).
+     *
+     * @param inicio Início do intervalo.
+     * @param fim    Fim do intervalo (exclusivo).
+     * @return Quantidade de períodos.
+     */
+    public long quantidadePeriodos(LocalDateTime inicio, LocalDateTime fim) {
+        LocalDateTime inicioAlinhado = inicioPeriodo(inicio);
+        switch (this) {
+            case HORA:
+                return ChronoUnit.HOURS.between(inicioAlinhado, fim) + 1;
+            case DIA:
+                return ChronoUnit.DAYS.between(inicioAlinhado, fim) + 1;
+            default:
+                return ChronoUnit.MONTHS.between(inicioAlinhado, fim) + 1;
+        }
+    }
+}
@@ -13,7 +13,8 @@ import java.time.LocalDate;
  * <h1>Meta</h1>
  * Classe que representa uma meta de consumo definida pelo usuário.
  * Permite que o usuário estabeleça objetivos de economia de energia
- * em um período específico.
+ * em um período específico: a meta é atingida quando o consumo do
+ * período (de dataInicio a dataFim, inclusive) não ultrapassa o alvo.
  *
  */
 @Entity
@@ -56,6 +57,21 @@ public class Meta {
     @NotNull
     private Boolean atingida = false;
 
+    /**
+     * Consumo em kWh do usuário no período da meta, somado a cada leitura registrada.
+     */
+    @NotNull
+    @Builder.Default
+    private Double consumoAcumulado = 0.0;
+
+    /**
+     * Indica se a avaliação da meta foi concluída, seja no fim do período ou porque o consumo
+     * ultrapassou o alvo. Metas encerradas não recebem mais as leituras.
+     */
+    @NotNull
+    @Builder.Default
+    private Boolean encerrada = false;
+
     /**
      * Usuário ao qual a meta pertence.
      */
@@ -0,0 +1,19 @@
+package br.com.fiap.jadv.prospeco.model;
+
+/**
+ * <h1>MetricaConquista</h1>
+ * Enumeração que define as métricas acompanhadas por usuário pelo motor de conquistas.
+ * Cada regra de conquista compara uma destas métricas com um limite.
+ *
+ * <ul>
+ *   <li>SEQUENCIA_DIAS_ABAIXO_DA_META: Dias consecutivos com consumo até o alvo diário da meta vigente.</li>
+ *   <li>REDUCAO_CONSUMO_MENSAL: Redução percentual do consumo de um mês em relação ao mês anterior.</li>
+ *   <li>METAS_ATINGIDAS: Quantidade de metas atingidas pelo usuário.</li>
+ * </ul>
+ *
+ */
+public enum MetricaConquista {
+    SEQUENCIA_DIAS_ABAIXO_DA_META,
+    REDUCAO_CONSUMO_MENSAL,
+    METAS_ATINGIDAS
+}
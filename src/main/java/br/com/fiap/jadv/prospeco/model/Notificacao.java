@@ -26,7 +26,8 @@ public class Notificacao {
      * Identificador único da notificação.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificacoes_seq")
+    @SequenceGenerator(name = "notificacoes_seq", sequenceName = "notificacoes_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -0,0 +1,57 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * <h1>PendenciaPreCalculoRecomendacao</h1>
+ * Classe que representa um usuário reservado por uma execução do pré-cálculo de recomendações e
+ * ainda sem recomendação gravada. A pendência é excluída quando a recomendação é gravada; se a
+ * geração falhar, ou a instância que a reservou parar antes de gravar, o usuário é tentado de novo
+ * antes de a execução ser concluída.
+ *
+ */
+@Entity
+@Table(name = "pendencias_pre_calculo_recomendacao")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendenciaPreCalculoRecomendacao {
+
+    /**
+     * Identificador único da pendência.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Data da execução a que a pendência pertence.
+     */
+    @NotNull
+    private LocalDate dataReferencia;
+
+    /**
+     * ID do usuário sem recomendação.
+     */
+    @NotNull
+    private Long usuarioId;
+
+    /**
+     * Quantidade de gerações que já falharam para o usuário.
+     */
+    @NotNull
+    @Builder.Default
+    private Integer tentativas = 0;
+
+    /**
+     * Fim da reserva da instância que está gerando a recomendação, ou null se o usuário estiver
+     * livre para uma nova tentativa. Também identifica a reserva na gravação do lote.
+     */
+    private LocalDateTime reservadaAte;
+}
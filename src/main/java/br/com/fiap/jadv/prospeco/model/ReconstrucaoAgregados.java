@@ -0,0 +1,82 @@
+package br.com.fiap.jadv.prospeco.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h1>ReconstrucaoAgregados</h1>
+ * Classe que representa o marcador da reconstrução dos agregados de consumo. Existe uma única
+ * linha, criada pela migração; cada bloco de leituras reprocessado avança o último registro na
+ * mesma transação que grava os agregados do bloco, de modo que uma reconstrução interrompida
+ * seja retomada a partir do bloco seguinte.
+ *
+ */
+@Entity
+@Table(name = "reconstrucao_agregados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconstrucaoAgregados {
+
+    /**
+     * ID da única linha do marcador.
+     */
+    public static final Integer ID_UNICO = 1;
+
+    @Id
+    private Integer id;
+
+    /**
+     * Indica se há uma reconstrução iniciada e ainda não concluída.
+     */
+    @NotNull
+    @Builder.Default
+    private Boolean emAndamento = false;
+
+    /**
+     * Maior ID de registro de consumo existente no início da reconstrução.
+     */
+    @NotNull
+    @Builder.Default
+    private Long limiteRegistroId = 0L;
+
+    /**
+     * Maior ID de registro de consumo já reprocessado (0 antes do primeiro bloco).
+     */
+    @NotNull
+    @Builder.Default
+    private Long ultimoRegistroId = 0L;
+
+    /**
+     * Quantidade de registros de consumo reprocessados.
+     */
+    @NotNull
+    @Builder.Default
+    private Long registrosProcessados = 0L;
+
+    /**
+     * Data e hora de início da última reconstrução.
+     */
+    private LocalDateTime iniciadaEm;
+
+    /**
+     * Data e hora de conclusão da última reconstrução.
+     */
+    private LocalDateTime concluidaEm;
+
+    /**
+     * Indica se um registro de consumo ainda será somado pela reconstrução em andamento. Esses
+     * registros não devem ser somados aos agregados por quem os altera, pois o bloco que os
+     * contém já lerá seus valores atuais.
+     *
+     * @param registroId ID do registro de consumo.
+     * @return true se a reconstrução ainda não passou pelo registro.
+     */
+    public boolean aguardaReprocessamento(Long registroId) {
+        return emAndamento && registroId != null && registroId > ultimoRegistroId && registroId <= limiteRegistroId;
+    }
+}
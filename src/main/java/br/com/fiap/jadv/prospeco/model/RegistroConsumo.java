@@ -28,9 +28,12 @@ public class RegistroConsumo {
 
     /**
      * Identificador único do registro de consumo.
+     * Gerado a partir de uma sequência com alocação em blocos (pooled),
+     * o que permite ao Hibernate agrupar os inserts em lotes JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registros_consumo_seq")
+    @SequenceGenerator(name = "registros_consumo_seq", sequenceName = "registros_consumo_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -0,0 +1,20 @@
+package br.com.fiap.jadv.prospeco.model;
+
+/**
+ * <h1>SituacaoTarefaRecomendacao</h1>
+ * Enumeração que define as etapas de uma tarefa de geração de recomendação.
+ *
+ * <ul>
+ *   <li>PENDENTE: Aguardando a geração, na fila do executor.</li>
+ *   <li>EM_ANDAMENTO: O modelo já começou a enviar o texto.</li>
+ *   <li>CONCLUIDA: Recomendação gerada e salva.</li>
+ *   <li>FALHA: A geração ou o registro da recomendação falhou.</li>
+ * </ul>
+ *
+ */
+public enum SituacaoTarefaRecomendacao {
+    PENDENTE,
+    EM_ANDAMENTO,
+    CONCLUIDA,
+    FALHA
+}
@@ -0,0 +1,18 @@
+package br.com.fiap.jadv.prospeco.model;
+
+/**
+ * <h1>TipoEvento</h1>
+ * Enumeração que define o tipo de alteração descrita por um evento publicado no Kafka.
+ *
+ * <ul>
+ *   <li>CRIADO: A entidade foi criada.</li>
+ *   <li>ATUALIZADO: A entidade foi alterada.</li>
+ *   <li>EXCLUIDO: A entidade foi excluída.</li>
+ * </ul>
+ *
+ */
+public enum TipoEvento {
+    CRIADO,
+    ATUALIZADO,
+    EXCLUIDO
+}
@@ -0,0 +1,22 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+
+import java.util.List;
+
+/**
+ * <h1>AcumuloConsumoAgregadoRepository</h1>
+ * Fragmento do {@link ConsumoAgregadoRepository} para somar deltas aos períodos agregados,
+ * criando os períodos que ainda não existem. Cada delta é um upsert atômico, de modo que
+ * ingestões simultâneas do mesmo período novo não disputam a inserção; os deltas são enviados
+ * por JDBC em batches, já que o id IDENTITY impede o Hibernate de agrupar as inserções.
+ */
+public interface AcumuloConsumoAgregadoRepository {
+
+    /**
+     * Soma os deltas aos seus períodos na transação atual, na ordem recebida.
+     *
+     * @param deltas Períodos com o delta de consumo, de custo e de quantidade nos totais.
+     */
+    void acumularEmLote(List<ConsumoAgregado> deltas);
+}
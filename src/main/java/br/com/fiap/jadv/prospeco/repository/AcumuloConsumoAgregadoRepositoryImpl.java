@@ -0,0 +1,70 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * <h1>AcumuloConsumoAgregadoRepositoryImpl</h1>
+ * Implementação de {@link AcumuloConsumoAgregadoRepository} com {@link JdbcTemplate}. No SQL
+ * Server, o {@code merge ... with (holdlock)} mantém o bloqueio de faixa da chave do período até
+ * o fim da transação, e a inserção de um período novo não conflita com a de outra transação. Em
+ * outros bancos (o H2 dos testes), que não aceitam o hint, o merge é enviado sem ele.
+ */
+public class AcumuloConsumoAgregadoRepositoryImpl implements AcumuloConsumoAgregadoRepository {
+
+    private static final int TAMANHO_BATCH = 50;
+
+    private static final String ACUMULAR =
+            "merge into consumos_agregados%s as alvo " +
+            "using (values (?, ?, ?, ?, ?, ?, ?)) as origem " +
+            "(escopo, referencia_id, granularidade, inicio_periodo, consumo, custo, quantidade) " +
+            "on alvo.escopo = origem.escopo and alvo.referencia_id = origem.referencia_id " +
+            "and alvo.granularidade = origem.granularidade and alvo.inicio_periodo = origem.inicio_periodo " +
+            "when matched then update set consumo_total = alvo.consumo_total + origem.consumo, " +
+            "custo_total = alvo.custo_total + origem.custo, " +
+            "quantidade_registros = alvo.quantidade_registros + origem.quantidade " +
+            "when not matched then insert " +
+            "(escopo, referencia_id, granularidade, inicio_periodo, consumo_total, custo_total, quantidade_registros) " +
+            "values (origem.escopo, origem.referencia_id, origem.granularidade, origem.inicio_periodo, " +
+            "origem.consumo, origem.custo, origem.quantidade);";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String acumular;
+
+    @Autowired
+    public AcumuloConsumoAgregadoRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void acumularEmLote(List<ConsumoAgregado> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(instrucaoAcumular(), deltas, TAMANHO_BATCH, (instrucao, delta) -> {
+            instrucao.setString(1, delta.getEscopo().name());
+            instrucao.setLong(2, delta.getReferenciaId());
+            instrucao.setString(3, delta.getGranularidade().name());
+            instrucao.setTimestamp(4, Timestamp.valueOf(delta.getInicioPeriodo()));
+            instrucao.setDouble(5, delta.getConsumoTotal());
+            instrucao.setDouble(6, delta.getCustoTotal());
+            instrucao.setLong(7, delta.getQuantidadeRegistros());
+        });
+    }
+
+    private String instrucaoAcumular() {
+        String instrucao = acumular;
+        if (instrucao == null) {
+            boolean sqlServer = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) conexao ->
+                    conexao.getMetaData().getDatabaseProductName().startsWith("Microsoft SQL Server")));
+            instrucao = String.format(ACUMULAR, sqlServer ? " with (holdlock)" : "");
+            acumular = instrucao;
+        }
+        return instrucao;
+    }
+}
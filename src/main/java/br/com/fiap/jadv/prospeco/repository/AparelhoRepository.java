@@ -1,20 +1,27 @@
 package br.com.fiap.jadv.prospeco.repository;
 
+import br.com.fiap.jadv.prospeco.dto.response.AparelhoResponseDTO;
 import br.com.fiap.jadv.prospeco.model.Aparelho;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AparelhoRepository extends JpaRepository<Aparelho, Long> {
 
     /**
-     * Busca aparelhos associados a um usuário específico com suporte a paginação.
+     * Lista os aparelhos de um usuário já convertidos em DTO, em uma única consulta.
      *
      * @param usuarioId ID do usuário proprietário dos aparelhos.
      * @param pageable  Configuração de paginação.
      * @return Página contendo os aparelhos do usuário.
      */
-    Page<Aparelho> findByUsuarioId(Long usuarioId, Pageable pageable);
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.AparelhoResponseDTO(" +
+            "a.id, a.nome, a.potencia, a.tipo, a.descricao, a.usuario.id) " +
+            "from Aparelho a where a.usuario.id = :usuarioId",
+            countQuery = "select count(a) from Aparelho a where a.usuario.id = :usuarioId")
+    Page<AparelhoResponseDTO> listarAparelhosPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
 }
@@ -0,0 +1,30 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.CheckpointConquista;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <h1>CheckpointConquistaRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade CheckpointConquista.
+ */
+public interface CheckpointConquistaRepository extends JpaRepository<CheckpointConquista, String> {
+
+    /**
+     * Busca os checkpoints das partições, bloqueando-os para escrita até o fim da transação.
+     * O bloqueio impede que um consumidor que perdeu a partição em um rebalanceamento aplique
+     * as mesmas mensagens que o novo dono.
+     *
+     * @param particoes Partições no formato {@code topico-particao}.
+     * @return Checkpoints existentes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from CheckpointConquista c where c.particao in :particoes order by c.particao")
+    List<CheckpointConquista> buscarParaAtualizacao(@Param("particoes") Collection<String> particoes);
+}
@@ -1,12 +1,34 @@
 package br.com.fiap.jadv.prospeco.repository;
 
+import br.com.fiap.jadv.prospeco.dto.response.ConquistaResponseDTO;
 import br.com.fiap.jadv.prospeco.model.Conquista;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ConquistaRepository extends JpaRepository<Conquista, Long> {
 
-    // Método com paginação por ID do usuário
-    Page<Conquista> findByUsuarioId(Long usuarioId, Pageable pageable);
+    /**
+     * Lista as conquistas de um usuário já convertidas em DTO, em uma única consulta.
+     *
+     * @param usuarioId ID do usuário.
+     * @param pageable  Configuração de paginação.
+     * @return Página de conquistas do usuário.
+     */
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.ConquistaResponseDTO(" +
+            "c.id, c.titulo, c.descricao, c.dataConquista, c.usuario.id) " +
+            "from Conquista c where c.usuario.id = :usuarioId",
+            countQuery = "select count(c) from Conquista c where c.usuario.id = :usuarioId")
+    Page<ConquistaResponseDTO> listarConquistasPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    /**
+     * Verifica se o usuário já recebeu a conquista concedida por uma regra.
+     *
+     * @param usuarioId   ID do usuário.
+     * @param codigoRegra Código da regra.
+     * @return true se a conquista já foi concedida.
+     */
+    boolean existsByUsuarioIdAndCodigoRegra(Long usuarioId, String codigoRegra);
 }
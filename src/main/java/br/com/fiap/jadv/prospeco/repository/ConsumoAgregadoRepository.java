@@ -0,0 +1,155 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <h1>ConsumoAgregadoRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade ConsumoAgregado.
+ */
+public interface ConsumoAgregadoRepository extends JpaRepository<ConsumoAgregado, Long>, AcumuloConsumoAgregadoRepository {
+
+    /**
+     * Busca os períodos agregados de um aparelho ou usuário dentro de um intervalo.
+     *
+     * @param escopo        Escopo do agregado.
+     * @param referenciaId  Identificador do aparelho ou usuário.
+     * @param granularidade Granularidade dos períodos.
+     * @param inicio        Início do intervalo (inclusivo).
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return Lista de períodos em ordem cronológica.
+     */
+    @Query("select c from ConsumoAgregado c where c.escopo = :escopo and c.referenciaId = :referenciaId " +
+            "and c.granularidade = :granularidade and c.inicioPeriodo >= :inicio and c.inicioPeriodo < :fim " +
+            "order by c.inicioPeriodo")
+    List<ConsumoAgregado> buscarPeriodos(@Param("escopo") EscopoAgregacao escopo,
+                                         @Param("referenciaId") Long referenciaId,
+                                         @Param("granularidade") GranularidadeAgregacao granularidade,
+                                         @Param("inicio") LocalDateTime inicio,
+                                         @Param("fim") LocalDateTime fim);
+
+    /**
+     * Soma o consumo dos períodos de um aparelho ou usuário dentro de um intervalo.
+     *
+     * @param escopo        Escopo do agregado.
+     * @param referenciaId  Identificador do aparelho ou usuário.
+     * @param granularidade Granularidade dos períodos somados.
+     * @param inicio        Início do intervalo (inclusivo).
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return Consumo total em kWh (0 se não houver períodos).
+     */
+    @Query("select coalesce(sum(c.consumoTotal), 0) from ConsumoAgregado c where c.escopo = :escopo " +
+            "and c.referenciaId = :referenciaId and c.granularidade = :granularidade " +
+            "and c.inicioPeriodo >= :inicio and c.inicioPeriodo < :fim")
+    double somarConsumo(@Param("escopo") EscopoAgregacao escopo,
+                        @Param("referenciaId") Long referenciaId,
+                        @Param("granularidade") GranularidadeAgregacao granularidade,
+                        @Param("inicio") LocalDateTime inicio,
+                        @Param("fim") LocalDateTime fim);
+
+    /**
+     * Soma o consumo de cada aparelho de um grupo de usuários dentro de um intervalo. Aparelhos
+     * sem períodos no intervalo não aparecem no resultado.
+     *
+     * @param escopo        Escopo de aparelho.
+     * @param granularidade Granularidade dos períodos somados.
+     * @param inicio        Início do intervalo (inclusivo).
+     * @param fim           Fim do intervalo (exclusivo).
+     * @param usuarioIds    IDs dos usuários donos dos aparelhos.
+     * @return Consumo de cada aparelho, com o usuário dono.
+     */
+    @Query("select a.usuario.id as usuarioId, a.id as aparelhoId, a.nome as nome, sum(c.consumoTotal) as consumo " +
+            "from ConsumoAgregado c join Aparelho a on a.id = c.referenciaId " +
+            "where c.escopo = :escopo and c.granularidade = :granularidade " +
+            "and c.inicioPeriodo >= :inicio and c.inicioPeriodo < :fim and a.usuario.id in :usuarioIds " +
+            "group by a.usuario.id, a.id, a.nome")
+    List<ConsumoAparelhoProjecao> somarConsumoPorAparelho(@Param("escopo") EscopoAgregacao escopo,
+                                                          @Param("granularidade") GranularidadeAgregacao granularidade,
+                                                          @Param("inicio") LocalDateTime inicio,
+                                                          @Param("fim") LocalDateTime fim,
+                                                          @Param("usuarioIds") Collection<Long> usuarioIds);
+
+    /**
+     * Recalcula o custo dos períodos de um intervalo com um preço do kWh constante, em todos os
+     * aparelhos e usuários. Usado na reprecificação após a correção de uma bandeira tarifária.
+     *
+     * @param granularidades Granularidades recalculadas (períodos contidos no intervalo).
+     * @param inicio         Início do intervalo (inclusivo).
+     * @param fim            Fim do intervalo (exclusivo).
+     * @param precoKwh       Preço do kWh em reais.
+     * @return Número de períodos atualizados.
+     */
+    @Modifying
+    @Query("update ConsumoAgregado c set c.custoTotal = c.consumoTotal * :precoKwh " +
+            "where c.granularidade in :granularidades and c.inicioPeriodo >= :inicio and c.inicioPeriodo < :fim")
+    int reprecificar(@Param("granularidades") Collection<GranularidadeAgregacao> granularidades,
+                     @Param("inicio") LocalDateTime inicio,
+                     @Param("fim") LocalDateTime fim,
+                     @Param("precoKwh") double precoKwh);
+
+    /**
+     * Recalcula o custo dos períodos mensais que começam em uma data como a soma do custo dos
+     * seus períodos diários, em todos os aparelhos e usuários.
+     *
+     * @param mensal           Granularidade mensal.
+     * @param diaria           Granularidade diária.
+     * @param inicioMes        Início do mês.
+     * @param inicioProximoMes Início do mês seguinte.
+     * @return Número de períodos atualizados.
+     */
+    @Modifying
+    @Query("update ConsumoAgregado c set c.custoTotal = (select coalesce(sum(d.custoTotal), 0) " +
+            "from ConsumoAgregado d where d.escopo = c.escopo and d.referenciaId = c.referenciaId " +
+            "and d.granularidade = :diaria and d.inicioPeriodo >= :inicioMes and d.inicioPeriodo < :inicioProximoMes) " +
+            "where c.granularidade = :mensal and c.inicioPeriodo = :inicioMes")
+    int recalcularCustoMensal(@Param("mensal") GranularidadeAgregacao mensal,
+                              @Param("diaria") GranularidadeAgregacao diaria,
+                              @Param("inicioMes") LocalDateTime inicioMes,
+                              @Param("inicioProximoMes") LocalDateTime inicioProximoMes);
+
+    /**
+     * Busca o início do primeiro período agregado de uma granularidade.
+     *
+     * @param granularidade Granularidade dos períodos.
+     * @return Início do primeiro período, ou null se não houver agregados.
+     */
+    @Query("select min(c.inicioPeriodo) from ConsumoAgregado c where c.granularidade = :granularidade")
+    LocalDateTime buscarPrimeiroInicioPeriodo(@Param("granularidade") GranularidadeAgregacao granularidade);
+
+    /**
+     * Busca o início do último período agregado de uma granularidade.
+     *
+     * @param granularidade Granularidade dos períodos.
+     * @return Início do último período, ou null se não houver agregados.
+     */
+    @Query("select max(c.inicioPeriodo) from ConsumoAgregado c where c.granularidade = :granularidade")
+    LocalDateTime buscarUltimoInicioPeriodo(@Param("granularidade") GranularidadeAgregacao granularidade);
+
+    /**
+     * Busca todos os períodos agregados de um aparelho ou usuário.
+     *
+     * @param escopo       Escopo do agregado.
+     * @param referenciaId Identificador do aparelho ou usuário.
+     * @return Lista de períodos.
+     */
+    List<ConsumoAgregado> findByEscopoAndReferenciaId(EscopoAgregacao escopo, Long referenciaId);
+
+    /**
+     * Remove todos os períodos agregados de um aparelho ou usuário.
+     *
+     * @param escopo       Escopo do agregado.
+     * @param referenciaId Identificador do aparelho ou usuário.
+     */
+    @Modifying
+    @Query("delete from ConsumoAgregado c where c.escopo = :escopo and c.referenciaId = :referenciaId")
+    void removerPorReferencia(@Param("escopo") EscopoAgregacao escopo, @Param("referenciaId") Long referenciaId);
+}
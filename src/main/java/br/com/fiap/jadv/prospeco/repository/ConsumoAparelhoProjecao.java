@@ -0,0 +1,17 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+/**
+ * <h1>ConsumoAparelhoProjecao</h1>
+ * Projeção do consumo somado de um aparelho em um intervalo, com o usuário dono e o nome do
+ * aparelho usado no prompt das recomendações.
+ */
+public interface ConsumoAparelhoProjecao {
+
+    Long getUsuarioId();
+
+    Long getAparelhoId();
+
+    String getNome();
+
+    Double getConsumo();
+}
@@ -0,0 +1,30 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.EstadoConquista;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <h1>EstadoConquistaRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade EstadoConquista.
+ */
+public interface EstadoConquistaRepository extends JpaRepository<EstadoConquista, Long> {
+
+    /**
+     * Busca os estados dos usuários, bloqueando-os para escrita até o fim da transação.
+     * A ordenação pelo ID evita impasses entre consumidores de partições diferentes que
+     * atualizam os mesmos usuários.
+     *
+     * @param usuarioIds IDs dos usuários.
+     * @return Estados existentes, em ordem de usuário.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from EstadoConquista e where e.usuarioId in :usuarioIds order by e.usuarioId")
+    List<EstadoConquista> buscarParaAtualizacao(@Param("usuarioIds") Collection<Long> usuarioIds);
+}
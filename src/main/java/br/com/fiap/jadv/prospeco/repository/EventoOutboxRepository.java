@@ -0,0 +1,28 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.EventoOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * <h1>EventoOutboxRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade EventoOutbox.
+ */
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    /**
+     * Busca os eventos pendentes mais antigos, bloqueando-os para escrita até o fim da transação.
+     * O bloqueio impede que duas instâncias publiquem o mesmo lote e preserva a ordem de publicação.
+     *
+     * @param pageable Tamanho do lote.
+     * @return Eventos pendentes em ordem de registro.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from EventoOutbox e order by e.id")
+    List<EventoOutbox> buscarPendentes(Pageable pageable);
+}
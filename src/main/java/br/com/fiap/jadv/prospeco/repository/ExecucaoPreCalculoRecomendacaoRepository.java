@@ -0,0 +1,44 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.ExecucaoPreCalculoRecomendacao;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * <h1>ExecucaoPreCalculoRecomendacaoRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade ExecucaoPreCalculoRecomendacao.
+ */
+public interface ExecucaoPreCalculoRecomendacaoRepository extends JpaRepository<ExecucaoPreCalculoRecomendacao, LocalDate> {
+
+    /**
+     * Busca a execução de uma data, bloqueando-a para escrita até o fim da transação. O bloqueio
+     * impede que duas instâncias gravem o mesmo lote de usuários.
+     *
+     * @param dataReferencia Data da execução.
+     * @return Optional contendo a execução, se existir.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from ExecucaoPreCalculoRecomendacao e where e.dataReferencia = :dataReferencia")
+    Optional<ExecucaoPreCalculoRecomendacao> buscarParaAtualizacao(@Param("dataReferencia") LocalDate dataReferencia);
+
+    /**
+     * Busca a execução não concluída mais recente.
+     *
+     * @return Optional contendo a execução interrompida, se houver.
+     */
+    Optional<ExecucaoPreCalculoRecomendacao> findFirstByConcluidaFalseOrderByDataReferenciaDesc();
+
+    /**
+     * Verifica se já existe execução de uma data posterior.
+     *
+     * @param dataReferencia Data da execução.
+     * @return true se houver execução com data posterior.
+     */
+    boolean existsByDataReferenciaAfter(LocalDate dataReferencia);
+}
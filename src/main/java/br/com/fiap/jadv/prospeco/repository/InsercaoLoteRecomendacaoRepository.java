@@ -0,0 +1,22 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.Recomendacao;
+
+import java.util.List;
+
+/**
+ * <h1>InsercaoLoteRecomendacaoRepository</h1>
+ * Fragmento do {@link RecomendacaoRepository} para inserir muitas recomendações de uma vez.
+ * O id das recomendações é IDENTITY, o que impede o Hibernate de agrupar as inserções em
+ * batch; aqui elas são enviadas por JDBC em batches, sem retornar os ids gerados.
+ */
+public interface InsercaoLoteRecomendacaoRepository {
+
+    /**
+     * Insere recomendações em batches, na transação atual.
+     *
+     * @param recomendacoes Recomendações novas, com mensagem, data e hora e usuário.
+     * @return Quantidade de recomendações inseridas.
+     */
+    int inserirEmLote(List<Recomendacao> recomendacoes);
+}
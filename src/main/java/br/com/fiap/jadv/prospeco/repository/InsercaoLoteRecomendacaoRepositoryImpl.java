@@ -0,0 +1,41 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.Recomendacao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * <h1>InsercaoLoteRecomendacaoRepositoryImpl</h1>
+ * Implementação de {@link InsercaoLoteRecomendacaoRepository} com {@link JdbcTemplate}, que
+ * participa da transação JPA em andamento.
+ */
+public class InsercaoLoteRecomendacaoRepositoryImpl implements InsercaoLoteRecomendacaoRepository {
+
+    private static final int TAMANHO_BATCH = 50;
+
+    private static final String INSERIR =
+            "insert into recomendacoes (mensagem, data_hora, usuario_id) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public InsercaoLoteRecomendacaoRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int inserirEmLote(List<Recomendacao> recomendacoes) {
+        if (recomendacoes.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERIR, recomendacoes, TAMANHO_BATCH, (instrucao, recomendacao) -> {
+            instrucao.setString(1, recomendacao.getMensagem());
+            instrucao.setTimestamp(2, Timestamp.valueOf(recomendacao.getDataHora()));
+            instrucao.setLong(3, recomendacao.getUsuario().getId());
+        });
+        return recomendacoes.size();
+    }
+}
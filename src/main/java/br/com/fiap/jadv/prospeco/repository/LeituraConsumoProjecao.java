@@ -0,0 +1,21 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * <h1>LeituraConsumoProjecao</h1>
+ * Projeção de um registro de consumo com apenas os campos necessários
+ * para recalcular os agregados, incluindo o usuário dono do aparelho.
+ */
+public interface LeituraConsumoProjecao {
+
+    Long getId();
+
+    Long getAparelhoId();
+
+    Long getUsuarioId();
+
+    LocalDateTime getDataHora();
+
+    Double getConsumo();
+}
@@ -1,11 +1,17 @@
 package br.com.fiap.jadv.prospeco.repository;
 
-
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
 import br.com.fiap.jadv.prospeco.model.Meta;
-import br.com.fiap.jadv.prospeco.model.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <h1>MetaRepository</h1>
@@ -14,10 +20,69 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface MetaRepository extends JpaRepository<Meta, Long> {
 
     /**
-     * Busca todas as metas de um usuário.
+     * Lista as metas de um usuário já convertidas em DTO, em uma única consulta.
+     *
+     * @param usuarioId ID do usuário proprietário das metas.
+     * @param pageable  Configuração de paginação.
+     * @return Página de metas do usuário.
+     */
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO(" +
+            "m.id, m.consumoAlvo, m.dataInicio, m.dataFim, m.atingida, m.consumoAcumulado, m.encerrada, m.usuario.id) " +
+            "from Meta m where m.usuario.id = :usuarioId",
+            countQuery = "select count(m) from Meta m where m.usuario.id = :usuarioId")
+    Page<MetaResponseDTO> listarMetasPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    /**
+     * Busca as metas ainda em avaliação, para carregar o índice de metas ativas.
+     *
+     * @return Metas não encerradas.
+     */
+    @Query("select m from Meta m where m.encerrada = false")
+    List<Meta> buscarMetasEmAvaliacao();
+
+    /**
+     * Soma um delta ao consumo acumulado de uma meta em avaliação.
+     *
+     * @param id      ID da meta.
+     * @param consumo Delta de consumo em kWh.
+     * @return Número de metas atualizadas (0 se a meta já foi encerrada).
+     */
+    @Modifying
+    @Query("update Meta m set m.consumoAcumulado = m.consumoAcumulado + :consumo " +
+            "where m.id = :id and m.encerrada = false")
+    int acumularConsumo(@Param("id") Long id, @Param("consumo") double consumo);
+
+    /**
+     * Busca, entre as metas informadas, as que estão em avaliação e cujo consumo acumulado
+     * ultrapassou o alvo.
+     *
+     * @param ids IDs das metas.
+     * @return Metas ultrapassadas.
+     */
+    @Query("select m from Meta m where m.id in :ids and m.encerrada = false and m.consumoAcumulado > m.consumoAlvo")
+    List<Meta> buscarUltrapassadas(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca as metas em avaliação cujo período terminou antes de uma data.
+     *
+     * @param data Data de referência (normalmente hoje).
+     * @return Metas vencidas.
+     */
+    @Query("select m from Meta m where m.encerrada = false and m.dataFim < :data")
+    List<Meta> buscarVencidas(@Param("data") LocalDate data);
+
+    /**
+     * Encerra a avaliação de uma meta, se ela ainda não foi encerrada. A condição garante que
+     * apenas uma instância encerre (e publique o evento de) cada meta.
      *
-     * @param usuario Usuário proprietário das metas.
-     * @return Lista de metas do usuário.
+     * @param id               ID da meta.
+     * @param atingida         Resultado da avaliação.
+     * @param consumoAcumulado Consumo apurado no período.
+     * @return Número de metas atualizadas (0 se a meta já estava encerrada).
      */
-    Page<Meta> findByUsuario(Usuario usuario, Pageable pageable);
+    @Modifying
+    @Query("update Meta m set m.encerrada = true, m.atingida = :atingida, m.consumoAcumulado = :consumoAcumulado " +
+            "where m.id = :id and m.encerrada = false")
+    int encerrar(@Param("id") Long id, @Param("atingida") boolean atingida,
+                 @Param("consumoAcumulado") double consumoAcumulado);
 }
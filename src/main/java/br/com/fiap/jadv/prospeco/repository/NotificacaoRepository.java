@@ -1,10 +1,16 @@
 package br.com.fiap.jadv.prospeco.repository;
 
+import br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.model.Notificacao;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * <h1>NotificacaoRepository</h1>
@@ -13,12 +19,18 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface NotificacaoRepository extends JpaRepository<Notificacao, Long> {
 
     /**
-     * Busca as notificações de um usuário, ordenadas pela data e hora de envio.
+     * Lista as notificações de um usuário já convertidas em DTO, da mais recente para a mais
+     * antiga, em uma única consulta.
      *
-     * @param usuario Usuário que recebeu as notificações.
+     * @param usuarioId ID do usuário que recebeu as notificações.
+     * @param pageable  Configuração de paginação.
      * @return Página de notificações do usuário.
      */
-    Page<Notificacao> findByUsuarioOrderByDataHoraDesc(Usuario usuario, Pageable pageable);
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO(" +
+            "n.id, n.mensagem, n.dataHora, n.lida, n.usuario.id) " +
+            "from Notificacao n where n.usuario.id = :usuarioId order by n.dataHora desc, n.id desc",
+            countQuery = "select count(n) from Notificacao n where n.usuario.id = :usuarioId")
+    Page<NotificacaoResponseDTO> listarNotificacoesPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
 
     /**
      * Conta o número de notificações não lidas de um usuário.
@@ -28,4 +40,39 @@ public interface NotificacaoRepository extends JpaRepository<Notificacao, Long>
      * @return Número de notificações não lidas.
      */
     long countByUsuarioAndLida(Usuario usuario, Boolean lida);
+
+    /**
+     * Lista as notificações mais recentes de um usuário, ordenadas por data e hora e ID
+     * decrescentes (primeira página da listagem por cursor).
+     *
+     * @param usuarioId ID do usuário.
+     * @param pageable  Quantidade de linhas a buscar.
+     * @return Itens mais recentes.
+     */
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO(" +
+            "n.id, n.mensagem, n.dataHora, n.lida, n.usuario.id) " +
+            "from Notificacao n where n.usuario.id = :usuarioId " +
+            "order by n.dataHora desc, n.id desc")
+    List<NotificacaoResponseDTO> listarNotificacoesRecentes(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    /**
+     * Lista as notificações de um usuário anteriores a uma posição (data e hora, ID), na
+     * mesma ordem de {@link #listarNotificacoesRecentes}, buscando a partir da posição pelo
+     * índice em vez de usar OFFSET.
+     *
+     * @param usuarioId ID do usuário.
+     * @param dataHora  Data e hora do último item já entregue.
+     * @param id        ID do último item já entregue.
+     * @param pageable  Quantidade de linhas a buscar.
+     * @return Itens anteriores à posição.
+     */
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO(" +
+            "n.id, n.mensagem, n.dataHora, n.lida, n.usuario.id) " +
+            "from Notificacao n where n.usuario.id = :usuarioId " +
+            "and (n.dataHora < :dataHora or (n.dataHora = :dataHora and n.id < :id)) " +
+            "order by n.dataHora desc, n.id desc")
+    List<NotificacaoResponseDTO> listarNotificacoesAnteriores(@Param("usuarioId") Long usuarioId,
+                                                              @Param("dataHora") LocalDateTime dataHora,
+                                                              @Param("id") Long id,
+                                                              Pageable pageable);
 }
@@ -0,0 +1,67 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.PendenciaPreCalculoRecomendacao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <h1>PendenciaPreCalculoRecomendacaoRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade PendenciaPreCalculoRecomendacao.
+ */
+public interface PendenciaPreCalculoRecomendacaoRepository extends JpaRepository<PendenciaPreCalculoRecomendacao, Long> {
+
+    /**
+     * Busca as pendências de uma execução que podem ser tentadas de novo: sem reserva ou com a
+     * reserva expirada, e abaixo do limite de tentativas.
+     *
+     * @param dataReferencia Data da execução.
+     * @param maxTentativas  Limite de tentativas por usuário.
+     * @param agora          Data e hora atuais.
+     * @param pageable       Quantidade máxima de pendências.
+     * @return Pendências disponíveis, em ordem de ID do usuário.
+     */
+    @Query("select p from PendenciaPreCalculoRecomendacao p where p.dataReferencia = :dataReferencia " +
+            "and p.tentativas < :maxTentativas and (p.reservadaAte is null or p.reservadaAte < :agora) " +
+            "order by p.usuarioId")
+    List<PendenciaPreCalculoRecomendacao> buscarDisponiveis(@Param("dataReferencia") LocalDate dataReferencia,
+                                                            @Param("maxTentativas") int maxTentativas,
+                                                            @Param("agora") LocalDateTime agora,
+                                                            Pageable pageable);
+
+    /**
+     * Busca as pendências de uma execução para um conjunto de usuários.
+     *
+     * @param dataReferencia Data da execução.
+     * @param usuarioIds     IDs dos usuários.
+     * @return Pendências encontradas, em ordem de ID do usuário.
+     */
+    List<PendenciaPreCalculoRecomendacao> findByDataReferenciaAndUsuarioIdInOrderByUsuarioId(LocalDate dataReferencia,
+                                                                                           Collection<Long> usuarioIds);
+
+    /**
+     * Verifica se a execução ainda tem usuários a gerar, reservados ou não.
+     *
+     * @param dataReferencia Data da execução.
+     * @param maxTentativas  Limite de tentativas por usuário.
+     * @return true se houver pendência abaixo do limite de tentativas.
+     */
+    boolean existsByDataReferenciaAndTentativasLessThan(LocalDate dataReferencia, int maxTentativas);
+
+    /**
+     * Exclui as pendências restantes de uma execução.
+     *
+     * @param dataReferencia Data da execução.
+     * @return Quantidade de pendências excluídas.
+     */
+    @Modifying
+    @Query("delete from PendenciaPreCalculoRecomendacao p where p.dataReferencia = :dataReferencia")
+    int excluirDaExecucao(@Param("dataReferencia") LocalDate dataReferencia);
+}
@@ -1,22 +1,68 @@
 package br.com.fiap.jadv.prospeco.repository;
 
+import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.model.Recomendacao;
-import br.com.fiap.jadv.prospeco.model.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * <h1>RecomendacaoRepository</h1>
  * Interface responsável pelas operações de acesso a dados da entidade Recomendacao.
  */
-public interface RecomendacaoRepository extends JpaRepository<Recomendacao, Long> {
+public interface RecomendacaoRepository extends JpaRepository<Recomendacao, Long>, InsercaoLoteRecomendacaoRepository {
+
+    /**
+     * Lista as recomendações de um usuário já convertidas em DTO, da mais recente para a mais
+     * antiga, em uma única consulta.
+     *
+     * @param usuarioId ID do usuário que recebeu as recomendações.
+     * @param pageable  Configuração de paginação.
+     * @return Página de recomendações do usuário.
+     */
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO(" +
+            "r.id, r.mensagem, r.dataHora, r.usuario.id) " +
+            "from Recomendacao r where r.usuario.id = :usuarioId order by r.dataHora desc, r.id desc",
+            countQuery = "select count(r) from Recomendacao r where r.usuario.id = :usuarioId")
+    Page<RecomendacaoResponseDTO> listarRecomendacoesPorUsuario(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    /**
+     * Lista as recomendações mais recentes de um usuário, ordenadas por data e hora e ID
+     * decrescentes (primeira página da listagem por cursor).
+     *
+     * @param usuarioId ID do usuário.
+     * @param pageable  Quantidade de linhas a buscar.
+     * @return Itens mais recentes.
+     */
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO(" +
+            "r.id, r.mensagem, r.dataHora, r.usuario.id) " +
+            "from Recomendacao r where r.usuario.id = :usuarioId " +
+            "order by r.dataHora desc, r.id desc")
+    List<RecomendacaoResponseDTO> listarRecomendacoesRecentes(@Param("usuarioId") Long usuarioId, Pageable pageable);
 
     /**
-     * Busca as recomendações de um usuário, ordenadas pela data e hora.
+     * Lista as recomendações de um usuário anteriores a uma posição (data e hora, ID), na
+     * mesma ordem de {@link #listarRecomendacoesRecentes}, buscando a partir da posição pelo
+     * índice em vez de usar OFFSET.
      *
-     * @param usuario Usuário que recebeu as recomendações.
-     * @return Lista de recomendações do usuário.
+     * @param usuarioId ID do usuário.
+     * @param dataHora  Data e hora do último item já entregue.
+     * @param id        ID do último item já entregue.
+     * @param pageable  Quantidade de linhas a buscar.
+     * @return Itens anteriores à posição.
      */
-    Page<Recomendacao> findByUsuarioOrderByDataHoraDesc(Usuario usuario, Pageable pageable);
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO(" +
+            "r.id, r.mensagem, r.dataHora, r.usuario.id) " +
+            "from Recomendacao r where r.usuario.id = :usuarioId " +
+            "and (r.dataHora < :dataHora or (r.dataHora = :dataHora and r.id < :id)) " +
+            "order by r.dataHora desc, r.id desc")
+    List<RecomendacaoResponseDTO> listarRecomendacoesAnteriores(@Param("usuarioId") Long usuarioId,
+                                                                @Param("dataHora") LocalDateTime dataHora,
+                                                                @Param("id") Long id,
+                                                                Pageable pageable);
 }
@@ -0,0 +1,40 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.ReconstrucaoAgregados;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * <h1>ReconstrucaoAgregadosRepository</h1>
+ * Interface responsável pelas operações de acesso a dados da entidade ReconstrucaoAgregados.
+ */
+public interface ReconstrucaoAgregadosRepository extends JpaRepository<ReconstrucaoAgregados, Integer> {
+
+    /**
+     * Busca o marcador, bloqueando-o para escrita até o fim da transação. Usado por quem inicia
+     * a reconstrução ou grava um bloco dela.
+     *
+     * @param id ID do marcador.
+     * @return Optional contendo o marcador, se existir.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReconstrucaoAgregados r where r.id = :id")
+    Optional<ReconstrucaoAgregados> buscarParaAtualizacao(@Param("id") Integer id);
+
+    /**
+     * Busca o marcador com bloqueio compartilhado até o fim da transação. Transações que
+     * alteram leituras não se bloqueiam entre si, mas esperam o bloco da reconstrução em
+     * andamento terminar, e vice-versa.
+     *
+     * @param id ID do marcador.
+     * @return Optional contendo o marcador, se existir.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select r from ReconstrucaoAgregados r where r.id = :id")
+    Optional<ReconstrucaoAgregados> buscarParaLeitura(@Param("id") Integer id);
+}
@@ -1,11 +1,16 @@
 package br.com.fiap.jadv.prospeco.repository;
 
 
-import br.com.fiap.jadv.prospeco.model.Aparelho;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
 import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * <h1>RegistroConsumoRepository</h1>
@@ -14,10 +19,74 @@ import org.springframework.data.domain.Page;
 public interface RegistroConsumoRepository extends JpaRepository<RegistroConsumo, Long> {
 
     /**
-     * Busca os registros de consumo de um determinado aparelho, com suporte a paginação.
+     * Lista os registros de consumo de um aparelho já convertidos em DTO, em uma única consulta
+     * (sem carregar o aparelho e o usuário de cada registro).
      *
-     * @param aparelho Aparelho cujos registros serão buscados.
+     * @param aparelhoId ID do aparelho.
+     * @param pageable   Configuração de paginação.
      * @return Página contendo os registros de consumo.
      */
-    Page<RegistroConsumo> findByAparelho(Aparelho aparelho, Pageable pageable);
+    @Query(value = "select new br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO(" +
+            "r.id, r.dataHora, r.consumo, a.id, a.usuario.id) " +
+            "from RegistroConsumo r join r.aparelho a where a.id = :aparelhoId",
+            countQuery = "select count(r) from RegistroConsumo r where r.aparelho.id = :aparelhoId")
+    Page<RegistroConsumoResponseDTO> listarRegistrosPorAparelho(@Param("aparelhoId") Long aparelhoId,
+                                                                Pageable pageable);
+
+    /**
+     * Percorre as leituras de consumo em ordem de id dentro de um intervalo de ids,
+     * trazendo apenas os campos usados no recálculo dos agregados.
+     *
+     * @param ultimoId  Último id já processado (exclusivo).
+     * @param limiteId  Maior id a ser processado (inclusivo).
+     * @param pageable  Tamanho do bloco a ser lido.
+     * @return Bloco de leituras com id maior que ultimoId e até limiteId.
+     */
+    @Query("select r.id as id, a.id as aparelhoId, a.usuario.id as usuarioId, r.dataHora as dataHora, r.consumo as consumo " +
+            "from RegistroConsumo r join r.aparelho a where r.id > :ultimoId and r.id <= :limiteId order by r.id")
+    List<LeituraConsumoProjecao> buscarLeiturasAposId(@Param("ultimoId") Long ultimoId, @Param("limiteId") Long limiteId,
+                                                      Pageable pageable);
+
+    /**
+     * Busca o maior id de registro de consumo.
+     *
+     * @return Maior id, ou null se não houver registros.
+     */
+    @Query("select max(r.id) from RegistroConsumo r")
+    Long buscarMaiorId();
+
+    /**
+     * Lista os registros de consumo mais recentes de um aparelho, ordenados por data e hora e ID
+     * decrescentes (primeira página da listagem por cursor).
+     *
+     * @param aparelhoId ID do aparelho.
+     * @param pageable   Quantidade de linhas a buscar.
+     * @return Itens mais recentes.
+     */
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO(" +
+            "r.id, r.dataHora, r.consumo, a.id, a.usuario.id) " +
+            "from RegistroConsumo r join r.aparelho a where a.id = :aparelhoId " +
+            "order by r.dataHora desc, r.id desc")
+    List<RegistroConsumoResponseDTO> listarRegistrosRecentes(@Param("aparelhoId") Long aparelhoId, Pageable pageable);
+
+    /**
+     * Lista os registros de consumo de um aparelho anteriores a uma posição (data e hora, ID), na
+     * mesma ordem de {@link #listarRegistrosRecentes}, buscando a partir da posição pelo
+     * índice em vez de usar OFFSET.
+     *
+     * @param aparelhoId ID do aparelho.
+     * @param dataHora   Data e hora do último item já entregue.
+     * @param id         ID do último item já entregue.
+     * @param pageable   Quantidade de linhas a buscar.
+     * @return Itens anteriores à posição.
+     */
+    @Query("select new br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO(" +
+            "r.id, r.dataHora, r.consumo, a.id, a.usuario.id) " +
+            "from RegistroConsumo r join r.aparelho a where a.id = :aparelhoId " +
+            "and (r.dataHora < :dataHora or (r.dataHora = :dataHora and r.id < :id)) " +
+            "order by r.dataHora desc, r.id desc")
+    List<RegistroConsumoResponseDTO> listarRegistrosAnteriores(@Param("aparelhoId") Long aparelhoId,
+                                                               @Param("dataHora") LocalDateTime dataHora,
+                                                               @Param("id") Long id,
+                                                               Pageable pageable);
 }
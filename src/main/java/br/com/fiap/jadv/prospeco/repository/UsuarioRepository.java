@@ -1,7 +1,13 @@
 package br.com.fiap.jadv.prospeco.repository;
 
 import br.com.fiap.jadv.prospeco.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +32,25 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
      * @return true se existir, false caso contrário.
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Soma pontos à pontuação de economia do usuário, em uma única atualização no banco.
+     *
+     * @param id     ID do usuário.
+     * @param pontos Pontos a somar.
+     * @return Quantidade de usuários atualizados (0 se o usuário não existe).
+     */
+    @Modifying
+    @Query("update Usuario u set u.pontuacaoEconomia = coalesce(u.pontuacaoEconomia, 0) + :pontos where u.id = :id")
+    int somarPontuacaoEconomia(@Param("id") Long id, @Param("pontos") double pontos);
+
+    /**
+     * Busca um bloco de IDs de usuário em ordem crescente, a partir de um ID.
+     *
+     * @param ultimoId Último ID já processado (exclusivo).
+     * @param pageable Tamanho do bloco a ser lido.
+     * @return IDs maiores que ultimoId.
+     */
+    @Query("select u.id from Usuario u where u.id > :ultimoId order by u.id")
+    List<Long> buscarIdsAposId(@Param("ultimoId") Long ultimoId, Pageable pageable);
 }
@@ -3,15 +3,17 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.AparelhoRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.AparelhoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.AparelhoMapper;
 import br.com.fiap.jadv.prospeco.model.Aparelho;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.AparelhoRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,14 +25,20 @@ public class AparelhoService {
     private final AparelhoRepository aparelhoRepository;
     private final UsuarioRepository usuarioRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final ConsumoAgregadoService consumoAgregadoService;
+    private final AparelhoMapper aparelhoMapper;
 
     @Autowired
     public AparelhoService(AparelhoRepository aparelhoRepository,
                            UsuarioRepository usuarioRepository,
-                           KafkaProducerService kafkaProducerService) {
+                           KafkaProducerService kafkaProducerService,
+                           ConsumoAgregadoService consumoAgregadoService,
+                           AparelhoMapper aparelhoMapper) {
         this.aparelhoRepository = aparelhoRepository;
         this.usuarioRepository = usuarioRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.consumoAgregadoService = consumoAgregadoService;
+        this.aparelhoMapper = aparelhoMapper;
     }
 
     /**
@@ -40,8 +48,7 @@ public class AparelhoService {
      * @return Lista de AparelhoResponseDTO.
      */
     public Page<AparelhoResponseDTO> listarAparelhosPorUsuario(Long usuarioId, Pageable pageable) {
-        return aparelhoRepository.findByUsuarioId(usuarioId, pageable)
-                .map(this::toResponseDTO);
+        return aparelhoRepository.listarAparelhosPorUsuario(usuarioId, pageable);
     }
 
     /**
@@ -52,7 +59,7 @@ public class AparelhoService {
      */
     public Optional<AparelhoResponseDTO> buscarAparelhoPorId(Long id) {
         return aparelhoRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(aparelhoMapper::toResponseDTO);
     }
 
     /**
@@ -62,25 +69,21 @@ public class AparelhoService {
      * @param usuarioId  Identificador do usuário.
      * @return AparelhoResponseDTO com os dados do aparelho criado.
      */
+    @Transactional
     public AparelhoResponseDTO criarAparelho(AparelhoRequestDTO requestDTO, Long usuarioId) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        Aparelho aparelho = new Aparelho();
-        BeanUtils.copyProperties(requestDTO, aparelho);
+        Aparelho aparelho = aparelhoMapper.toEntity(requestDTO);
         aparelho.setUsuario(usuario);
 
         Aparelho novoAparelho = aparelhoRepository.save(aparelho);
 
         // Enviar evento ao Kafka
-        try {
-            AparelhoResponseDTO responseDTO = toResponseDTO(novoAparelho);
-            kafkaProducerService.sendMessage("aparelho-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return toResponseDTO(novoAparelho);
+        kafkaProducerService.sendMessage("aparelho-events", novoAparelho.getUsuario().getId(),
+                TipoEvento.CRIADO, aparelhoMapper.toResponseDTO(novoAparelho));
+
+        return aparelhoMapper.toResponseDTO(novoAparelho);
     }
 
     /**
@@ -90,23 +93,20 @@ public class AparelhoService {
      * @param requestDTO Dados do aparelho a serem atualizados.
      * @return AparelhoResponseDTO com os dados atualizados.
      */
+    @Transactional
     public AparelhoResponseDTO atualizarAparelho(Long id, AparelhoRequestDTO requestDTO) {
         Aparelho aparelho = aparelhoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Aparelho não encontrado"));
 
-        BeanUtils.copyProperties(requestDTO, aparelho, "id", "usuario");
+        aparelhoMapper.atualizar(requestDTO, aparelho);
 
         Aparelho aparelhoAtualizado = aparelhoRepository.save(aparelho);
 
         // Enviar evento ao Kafka
-        try {
-            AparelhoResponseDTO responseDTO = toResponseDTO(aparelhoAtualizado);
-            kafkaProducerService.sendMessage("aparelho-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return toResponseDTO(aparelhoAtualizado);
+        kafkaProducerService.sendMessage("aparelho-events", aparelhoAtualizado.getUsuario().getId(),
+                TipoEvento.ATUALIZADO, aparelhoMapper.toResponseDTO(aparelhoAtualizado));
+
+        return aparelhoMapper.toResponseDTO(aparelhoAtualizado);
     }
 
     /**
@@ -114,31 +114,17 @@ public class AparelhoService {
      *
      * @param id Identificador do aparelho.
      */
+    @Transactional
     public void excluirAparelho(Long id) {
+        consumoAgregadoService.aguardarReconstrucao();
         Aparelho aparelho = aparelhoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Aparelho não encontrado"));
 
         aparelhoRepository.delete(aparelho);
+        consumoAgregadoService.removerAgregadosDoAparelho(aparelho.getId(), aparelho.getUsuario().getId());
 
         // Enviar evento ao Kafka
-        try {
-            AparelhoResponseDTO responseDTO = toResponseDTO(aparelho);
-            kafkaProducerService.sendMessage("aparelho-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Converte um Aparelho em AparelhoResponseDTO.
-     *
-     * @param aparelho Aparelho a ser convertido.
-     * @return AparelhoResponseDTO correspondente.
-     */
-    private AparelhoResponseDTO toResponseDTO(Aparelho aparelho) {
-        AparelhoResponseDTO responseDTO = new AparelhoResponseDTO();
-        BeanUtils.copyProperties(aparelho, responseDTO);
-        responseDTO.setUsuarioId(aparelho.getUsuario().getId());
-        return responseDTO;
+        kafkaProducerService.sendMessage("aparelho-events", aparelho.getUsuario().getId(),
+                TipoEvento.EXCLUIDO, aparelhoMapper.toResponseDTO(aparelho));
     }
 }
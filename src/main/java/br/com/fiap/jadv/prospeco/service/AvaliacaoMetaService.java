@@ -0,0 +1,353 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapper;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.MetaRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * <h1>AvaliacaoMetaService</h1>
+ * Avalia as metas de consumo automaticamente. Cada leitura registrada soma seu consumo às
+ * metas em avaliação cujo período contém a data da leitura, encontradas pelo
+ * {@link IndiceMetasAtivas}; uma meta é encerrada como não atingida assim que o consumo
+ * ultrapassa o alvo e, se isso não acontecer, como atingida no dia seguinte ao fim do período.
+ * Cada encerramento publica um evento em {@code meta-events}.
+ *
+ * <p>
+ * O consumo acumulado é uma estimativa mantida na mesma transação da leitura. Antes de
+ * encerrar uma meta, o consumo do período é apurado nos agregados diários do usuário e
+ * gravado no lugar do acumulado, de modo que o resultado não depende de o índice desta
+ * instância já conhecer as metas criadas nas demais.
+ * </p>
+ *
+ * <p>
+ * O índice é carregado do banco no primeiro uso e mantido após o commit de cada alteração
+ * local e a cada evento de {@code meta-events}, consumido por cada instância com um grupo
+ * próprio e estável ({@code app.instancia.id}). A cada atribuição de partições o índice é
+ * recarregado e o tópico relido a partir de um pouco antes da carga, como no calendário de
+ * {@link BandeiraTarifariaService}.
+ * </p>
+ */
+@Service
+public class AvaliacaoMetaService implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvaliacaoMetaService.class);
+
+    /**
+     * Quanto antes da recarga o tópico é relido.
+     */
+    static final Duration MARGEM_RELEITURA = BandeiraTarifariaService.MARGEM_RELEITURA;
+
+    private final MetaRepository metaRepository;
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final MetaMapper metaMapper;
+    private final SerializacaoEventoService serializacaoEventoService;
+
+    private volatile IndiceMetasAtivas indice;
+
+    @Autowired
+    public AvaliacaoMetaService(MetaRepository metaRepository,
+                                ConsumoAgregadoRepository consumoAgregadoRepository,
+                                KafkaProducerService kafkaProducerService,
+                                MetaMapper metaMapper,
+                                SerializacaoEventoService serializacaoEventoService) {
+        this.metaRepository = metaRepository;
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.metaMapper = metaMapper;
+        this.serializacaoEventoService = serializacaoEventoService;
+    }
+
+    /**
+     * Retorna o índice das metas em avaliação, carregando-o no primeiro uso.
+     *
+     * @return Índice de metas ativas.
+     */
+    public IndiceMetasAtivas getIndice() {
+        IndiceMetasAtivas atual = indice;
+        return atual != null ? atual : recarregarIndice();
+    }
+
+    /**
+     * Recarrega o índice a partir das metas em avaliação no banco de dados.
+     *
+     * @return Índice carregado.
+     */
+    public synchronized IndiceMetasAtivas recarregarIndice() {
+        indice = IndiceMetasAtivas.de(metaRepository.buscarMetasEmAvaliacao().stream()
+                .map(this::janela)
+                .collect(Collectors.toList()));
+        return indice;
+    }
+
+    /**
+     * Soma registros de consumo incluídos às metas afetadas.
+     *
+     * @param registros Registros de consumo incluídos.
+     */
+    @Transactional
+    public void registrarInclusoes(Collection<RegistroConsumo> registros) {
+        Map<Long, Double> deltas = new HashMap<>();
+        for (RegistroConsumo registro : registros) {
+            acumularDelta(deltas, registro.getAparelho().getUsuario().getId(), registro.getDataHora(), registro.getConsumo());
+        }
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Substitui nas metas afetadas os valores anteriores de um registro de consumo pelos atuais.
+     *
+     * @param dataHoraAnterior Data e hora do registro antes da alteração.
+     * @param consumoAnterior  Consumo do registro antes da alteração.
+     * @param registro         Registro de consumo já alterado.
+     */
+    @Transactional
+    public void registrarAlteracao(LocalDateTime dataHoraAnterior, Double consumoAnterior, RegistroConsumo registro) {
+        Long usuarioId = registro.getAparelho().getUsuario().getId();
+        Map<Long, Double> deltas = new HashMap<>();
+        acumularDelta(deltas, usuarioId, dataHoraAnterior, -consumoAnterior);
+        acumularDelta(deltas, usuarioId, registro.getDataHora(), registro.getConsumo());
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Subtrai das metas afetadas um registro de consumo excluído.
+     *
+     * @param registro Registro de consumo excluído.
+     */
+    @Transactional
+    public void registrarExclusao(RegistroConsumo registro) {
+        Map<Long, Double> deltas = new HashMap<>();
+        acumularDelta(deltas, registro.getAparelho().getUsuario().getId(), registro.getDataHora(), -registro.getConsumo());
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Avalia uma meta criada ou alterada: apura o consumo do período e a encerra se o alvo já
+     * foi ultrapassado ou se o período já terminou. A meta deve estar gerenciada pela
+     * transação atual; o índice é atualizado após o commit.
+     *
+     * @param meta Meta a ser avaliada.
+     */
+    public void avaliarMeta(Meta meta) {
+        double consumo = consumoNoPeriodo(meta);
+        boolean ultrapassada = consumo > meta.getConsumoAlvo();
+        boolean vencida = meta.getDataFim().isBefore(LocalDate.now());
+
+        meta.setConsumoAcumulado(consumo);
+        meta.setEncerrada(ultrapassada || vencida);
+        meta.setAtingida(!ultrapassada && vencida);
+
+        IndiceMetasAtivas.Janela janela = janela(meta);
+        if (meta.getEncerrada()) {
+            atualizarIndiceAposCommit(atual -> atual.remover(janela.usuarioId(), janela.metaId()));
+        } else {
+            atualizarIndiceAposCommit(atual -> atual.registrar(janela));
+        }
+    }
+
+    /**
+     * Retira do índice, após o commit, uma meta excluída ou encerrada manualmente.
+     *
+     * @param meta Meta retirada da avaliação.
+     */
+    public void removerMeta(Meta meta) {
+        Long usuarioId = meta.getUsuario().getId();
+        Long metaId = meta.getId();
+        atualizarIndiceAposCommit(atual -> atual.remover(usuarioId, metaId));
+    }
+
+    /**
+     * Encerra as metas cujo período terminou antes de hoje, como atingidas se o consumo do
+     * período não ultrapassou o alvo. Executado diariamente; se mais de uma instância
+     * executar, cada meta é encerrada por apenas uma delas.
+     *
+     * @return Quantidade de metas encerradas.
+     */
+    @Scheduled(cron = "${app.meta.avaliacao.cron:0 5 0 * * *}")
+    @Transactional
+    public int encerrarMetasVencidas() {
+        int encerradas = 0;
+        for (Meta meta : metaRepository.buscarVencidas(LocalDate.now())) {
+            double consumo = consumoNoPeriodo(meta);
+            if (encerrar(meta, consumo <= meta.getConsumoAlvo(), consumo)) {
+                encerradas++;
+            }
+        }
+        if (encerradas > 0) {
+            logger.info("{} metas encerradas no fim do período", encerradas);
+        }
+        return encerradas;
+    }
+
+    /**
+     * Aplica ao índice desta instância as alterações publicadas em {@code meta-events},
+     * inclusive as feitas por ela mesma (a aplicação é idempotente). Se algum evento não
+     * puder ser lido, o índice é recarregado do banco.
+     *
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
+     */
+    @KafkaListener(topics = "${spring.kafka.topic.meta-events}",
+            groupId = "prospeco-indice-metas-${app.instancia.id}")
+    public void sincronizarIndice(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        List<EventoDTO<MetaResponseDTO>> eventos = new ArrayList<>(records.size());
+        try {
+            for (ConsumerRecord<String, byte[]> record : records) {
+                eventos.add(serializacaoEventoService.desserializar(record.value(), MetaResponseDTO.class));
+            }
+        } catch (Exception e) {
+            logger.warn("Evento de meta ilegível; recarregando o índice de metas: {}", e.getMessage());
+            recarregarIndice();
+            ack.acknowledge();
+            return;
+        }
+        atualizarIndice(atual -> {
+            for (EventoDTO<MetaResponseDTO> evento : eventos) {
+                MetaResponseDTO meta = evento.getDados();
+                if (evento.getTipo() == TipoEvento.EXCLUIDO || Boolean.TRUE.equals(meta.getEncerrada())) {
+                    atual.remover(meta.getUsuarioId(), meta.getId());
+                } else {
+                    atual.registrar(new IndiceMetasAtivas.Janela(
+                            meta.getId(), meta.getUsuarioId(), meta.getDataInicio(), meta.getDataFim()));
+                }
+            }
+        });
+        ack.acknowledge();
+    }
+
+    /**
+     * Recarrega o índice quando as partições de {@code meta-events} são atribuídas e relê o
+     * tópico a partir de um pouco antes da carga.
+     *
+     * @param assignments Partições atribuídas e suas posições atuais.
+     * @param callback    Callback para reposicionar o consumo.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long inicioReleitura = System.currentTimeMillis() - MARGEM_RELEITURA.toMillis();
+        recarregarIndice();
+        callback.seekToTimestamp(assignments.keySet(), inicioReleitura);
+    }
+
+    /**
+     * Distribui o consumo de uma leitura pelas metas do usuário cujo período contém a sua data.
+     */
+    private void acumularDelta(Map<Long, Double> deltas, Long usuarioId, LocalDateTime dataHora, double consumo) {
+        for (Long metaId : getIndice().metasEm(usuarioId, dataHora.toLocalDate())) {
+            deltas.merge(metaId, consumo, Double::sum);
+        }
+    }
+
+    /**
+     * Grava os deltas nas metas e encerra as que passaram a ultrapassar o alvo. As metas são
+     * atualizadas em ordem de ID, para que transações concorrentes do mesmo usuário bloqueiem
+     * as linhas na mesma ordem e não entrem em deadlock.
+     */
+    private void aplicarDeltas(Map<Long, Double> deltas) {
+        List<Long> aumentadas = new ArrayList<>();
+        for (Map.Entry<Long, Double> delta : new TreeMap<>(deltas).entrySet()) {
+            double consumo = delta.getValue();
+            if (consumo == 0.0) {
+                continue;
+            }
+            int atualizadas = metaRepository.acumularConsumo(delta.getKey(), consumo);
+            if (atualizadas > 0 && consumo > 0) {
+                aumentadas.add(delta.getKey());
+            }
+        }
+        if (aumentadas.isEmpty()) {
+            return;
+        }
+        for (Meta meta : metaRepository.buscarUltrapassadas(aumentadas)) {
+            // Confirma pelos agregados antes de encerrar: o acumulado pode divergir do consumo real
+            double consumo = consumoNoPeriodo(meta);
+            if (consumo > meta.getConsumoAlvo()) {
+                encerrar(meta, false, consumo);
+            }
+        }
+    }
+
+    /**
+     * Encerra a meta, publica o evento e a retira do índice após o commit.
+     *
+     * @return true se esta chamada encerrou a meta; false se ela já havia sido encerrada.
+     */
+    private boolean encerrar(Meta meta, boolean atingida, double consumo) {
+        if (metaRepository.encerrar(meta.getId(), atingida, consumo) == 0) {
+            return false;
+        }
+        MetaResponseDTO anterior = metaMapper.toResponseDTO(meta);
+        MetaResponseDTO responseDTO = metaMapper.toResponseDTO(meta);
+        responseDTO.setAtingida(atingida);
+        responseDTO.setConsumoAcumulado(consumo);
+        responseDTO.setEncerrada(true);
+
+        kafkaProducerService.sendMessage("meta-events", responseDTO.getUsuarioId(), TipoEvento.ATUALIZADO,
+                responseDTO, anterior);
+        removerMeta(meta);
+        return true;
+    }
+
+    /**
+     * Apura o consumo do usuário no período da meta a partir dos agregados diários.
+     */
+    private double consumoNoPeriodo(Meta meta) {
+        return consumoAgregadoRepository.somarConsumo(EscopoAgregacao.USUARIO, meta.getUsuario().getId(),
+                GranularidadeAgregacao.DIA, meta.getDataInicio().atStartOfDay(),
+                meta.getDataFim().plusDays(1).atStartOfDay());
+    }
+
+    private IndiceMetasAtivas.Janela janela(Meta meta) {
+        return new IndiceMetasAtivas.Janela(meta.getId(), meta.getUsuario().getId(),
+                meta.getDataInicio(), meta.getDataFim());
+    }
+
+    /**
+     * Aplica a alteração ao índice após o commit da transação atual, para que o índice nunca
+     * reflita uma alteração desfeita; fora de uma transação, aplica imediatamente.
+     */
+    private void atualizarIndiceAposCommit(Consumer<IndiceMetasAtivas> alteracao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            atualizarIndice(alteracao);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                atualizarIndice(alteracao);
+            }
+        });
+    }
+
+    /**
+     * Altera o índice atual. As escritas são serializadas com a recarga, para que nenhuma
+     * alteração seja aplicada a um índice que está sendo substituído.
+     */
+    private synchronized void atualizarIndice(Consumer<IndiceMetasAtivas> alteracao) {
+        alteracao.accept(getIndice());
+    }
+}
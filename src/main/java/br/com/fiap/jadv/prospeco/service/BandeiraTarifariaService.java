@@ -1,42 +1,174 @@
 package br.com.fiap.jadv.prospeco.service;
 
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
 import br.com.fiap.jadv.prospeco.dto.request.BandeiraTarifariaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.BandeiraTarifariaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.BandeiraTarifariaMapper;
 import br.com.fiap.jadv.prospeco.model.BandeiraTarifaria;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.repository.BandeiraTarifariaRepository;
-import org.springframework.beans.BeanUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+/**
+ * <h1>BandeiraTarifariaService</h1>
+ * Cadastro das bandeiras tarifárias e do {@link CalendarioBandeiras} usado para saber qual
+ * bandeira vigorava no instante de cada leitura.
+ *
+ * <p>
+ * O calendário é carregado do banco no primeiro uso e substituído por inteiro (cópia na
+ * escrita) após o commit de cada alteração local e a cada evento de
+ * {@code bandeira-tarifaria-events}. Cada instância consome o tópico com um grupo próprio e
+ * estável ({@code app.instancia.id}), para que todas recebam as alterações feitas pelas
+ * demais. A cada atribuição de partições o calendário é recarregado e o tópico relido a partir
+ * de um pouco antes da carga, de modo que nenhuma alteração feita entre a carga e o início
+ * do consumo se perca. Cada troca do calendário publica um {@link CalendarioAlterado}, que
+ * dispara a reprecificação dos custos já agregados em cada instância, depois que ela passa
+ * a usar o calendário novo. Na instância que fez a alteração o evento do tópico não muda
+ * mais nada, e a reprecificação não se repete.
+ * </p>
+ */
 @Service
-public class BandeiraTarifariaService {
+public class BandeiraTarifariaService implements ConsumerSeekAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(BandeiraTarifariaService.class);
+
+    /**
+     * Quanto antes da recarga o tópico é relido, para cobrir a diferença entre os relógios das
+     * instâncias.
+     */
+    static final Duration MARGEM_RELEITURA = Duration.ofMinutes(1);
 
     private final BandeiraTarifariaRepository bandeiraTarifariaRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final BandeiraTarifariaMapper bandeiraTarifariaMapper;
+    private final SerializacaoEventoService serializacaoEventoService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile CalendarioBandeiras calendario;
 
     @Autowired
     public BandeiraTarifariaService(BandeiraTarifariaRepository bandeiraTarifariaRepository,
-                                    KafkaProducerService kafkaProducerService) {
+                                    KafkaProducerService kafkaProducerService,
+                                    BandeiraTarifariaMapper bandeiraTarifariaMapper,
+                                    SerializacaoEventoService serializacaoEventoService,
+                                    ApplicationEventPublisher eventPublisher) {
         this.bandeiraTarifariaRepository = bandeiraTarifariaRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.bandeiraTarifariaMapper = bandeiraTarifariaMapper;
+        this.serializacaoEventoService = serializacaoEventoService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Lista todas as bandeiras tarifárias.
+     * Lista todas as bandeiras tarifárias, a partir do calendário em memória.
      *
-     * @return Lista de BandeiraTarifariaResponseDTO.
+     * @return Lista de BandeiraTarifariaResponseDTO ordenada pela data de vigência.
      */
     public List<BandeiraTarifariaResponseDTO> listarTodasBandeiras() {
-        return bandeiraTarifariaRepository.findAll().stream()
-                .map(this::toResponseDTO)
+        return getCalendario().vigencias().stream()
+                .map(vigencia -> new BandeiraTarifariaResponseDTO(
+                        vigencia.id(), vigencia.tipoBandeira(), vigencia.dataVigencia()))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retorna o calendário de bandeiras atual. A instância retornada é imutável e pode ser
+     * usada por todo um cálculo, mesmo que o calendário seja substituído no meio dele.
+     *
+     * @return Calendário de bandeiras tarifárias.
+     */
+    public CalendarioBandeiras getCalendario() {
+        CalendarioBandeiras atual = calendario;
+        return atual != null ? atual : recarregarCalendario();
+    }
+
+    /**
+     * Recarrega o calendário a partir do banco de dados.
+     *
+     * @return Calendário carregado.
+     */
+    public synchronized CalendarioBandeiras recarregarCalendario() {
+        calendario = carregarCalendario();
+        return calendario;
+    }
+
+    private CalendarioBandeiras carregarCalendario() {
+        return CalendarioBandeiras.de(bandeiraTarifariaRepository.findAll().stream()
+                .map(bandeira -> new CalendarioBandeiras.Vigencia(
+                        bandeira.getId(), bandeira.getTipoBandeira(), bandeira.getDataVigencia()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Aplica ao calendário desta instância as alterações publicadas em
+     * {@code bandeira-tarifaria-events}, inclusive as feitas por ela mesma (a aplicação é
+     * idempotente). O lote inteiro gera um único calendário novo; se algum evento não puder
+     * ser lido, o calendário é recarregado do banco.
+     *
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
+     */
+    @KafkaListener(topics = "${spring.kafka.topic.bandeira-tarifaria-events}",
+            groupId = "prospeco-calendario-bandeiras-${app.instancia.id}")
+    public void sincronizarCalendario(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        List<EventoDTO<BandeiraTarifariaResponseDTO>> eventos = new ArrayList<>(records.size());
+        try {
+            for (ConsumerRecord<String, byte[]> record : records) {
+                eventos.add(serializacaoEventoService.desserializar(record.value(), BandeiraTarifariaResponseDTO.class));
+            }
+        } catch (Exception e) {
+            logger.warn("Evento de bandeira tarifária ilegível; recarregando o calendário: {}", e.getMessage());
+            eventPublisher.publishEvent(atualizarCalendario(atual -> carregarCalendario()));
+            ack.acknowledge();
+            return;
+        }
+        CalendarioAlterado alteracao = atualizarCalendario(atual -> {
+            CalendarioBandeiras novo = atual;
+            for (EventoDTO<BandeiraTarifariaResponseDTO> evento : eventos) {
+                novo = aplicar(novo, evento.getTipo(), evento.getDados());
+            }
+            return novo;
+        });
+        eventPublisher.publishEvent(alteracao);
+        ack.acknowledge();
+    }
+
+    /**
+     * Recarrega o calendário quando as partições de {@code bandeira-tarifaria-events} são
+     * atribuídas e relê o tópico a partir de um pouco antes da carga. Os eventos relidos que o
+     * banco já refletia são reaplicados sem efeito.
+     *
+     * @param assignments Partições atribuídas e suas posições atuais.
+     * @param callback    Callback para reposicionar o consumo.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long inicioReleitura = System.currentTimeMillis() - MARGEM_RELEITURA.toMillis();
+        eventPublisher.publishEvent(atualizarCalendario(atual -> carregarCalendario()));
+        callback.seekToTimestamp(assignments.keySet(), inicioReleitura);
+    }
+
     /**
      * Busca uma bandeira tarifária pelo ID.
      *
@@ -45,7 +177,7 @@ public class BandeiraTarifariaService {
      */
     public Optional<BandeiraTarifariaResponseDTO> buscarBandeiraPorId(Long id) {
         return bandeiraTarifariaRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(bandeiraTarifariaMapper::toResponseDTO);
     }
 
     /**
@@ -54,21 +186,19 @@ public class BandeiraTarifariaService {
      * @param requestDTO Dados da bandeira a ser criada.
      * @return BandeiraTarifariaResponseDTO com os dados da bandeira criada.
      */
+    @Transactional
     public BandeiraTarifariaResponseDTO criarBandeira(BandeiraTarifariaRequestDTO requestDTO) {
-        BandeiraTarifaria bandeira = new BandeiraTarifaria();
-        BeanUtils.copyProperties(requestDTO, bandeira);
+        BandeiraTarifaria bandeira = bandeiraTarifariaMapper.toEntity(requestDTO);
 
         BandeiraTarifaria novaBandeira = bandeiraTarifariaRepository.save(bandeira);
+        BandeiraTarifariaResponseDTO responseDTO = bandeiraTarifariaMapper.toResponseDTO(novaBandeira);
+        atualizarCalendarioAposCommit(TipoEvento.CRIADO, responseDTO);
 
         // Enviar evento ao Kafka
-        try {
-            BandeiraTarifariaResponseDTO responseDTO = toResponseDTO(novaBandeira);
-            kafkaProducerService.sendMessage("bandeira-tarifaria-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("bandeira-tarifaria-events", novaBandeira.getId(),
+                TipoEvento.CRIADO, responseDTO);
 
-        return toResponseDTO(novaBandeira);
+        return responseDTO;
     }
 
     /**
@@ -78,23 +208,22 @@ public class BandeiraTarifariaService {
      * @param requestDTO Dados de atualização da bandeira.
      * @return BandeiraTarifariaResponseDTO com os dados atualizados.
      */
+    @Transactional
     public BandeiraTarifariaResponseDTO atualizarBandeira(Long id, BandeiraTarifariaRequestDTO requestDTO) {
         BandeiraTarifaria bandeira = bandeiraTarifariaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Bandeira tarifária não encontrada"));
 
-        BeanUtils.copyProperties(requestDTO, bandeira, "id");
+        bandeiraTarifariaMapper.atualizar(requestDTO, bandeira);
 
         BandeiraTarifaria bandeiraAtualizada = bandeiraTarifariaRepository.save(bandeira);
+        BandeiraTarifariaResponseDTO responseDTO = bandeiraTarifariaMapper.toResponseDTO(bandeiraAtualizada);
+        atualizarCalendarioAposCommit(TipoEvento.ATUALIZADO, responseDTO);
 
         // Enviar evento ao Kafka
-        try {
-            BandeiraTarifariaResponseDTO responseDTO = toResponseDTO(bandeiraAtualizada);
-            kafkaProducerService.sendMessage("bandeira-tarifaria-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("bandeira-tarifaria-events", bandeiraAtualizada.getId(),
+                TipoEvento.ATUALIZADO, responseDTO);
 
-        return toResponseDTO(bandeiraAtualizada);
+        return responseDTO;
     }
 
     /**
@@ -102,30 +231,68 @@ public class BandeiraTarifariaService {
      *
      * @param id Identificador da bandeira a ser excluída.
      */
+    @Transactional
     public void excluirBandeira(Long id) {
         BandeiraTarifaria bandeira = bandeiraTarifariaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Bandeira tarifária não encontrada"));
 
         bandeiraTarifariaRepository.delete(bandeira);
+        BandeiraTarifariaResponseDTO responseDTO = bandeiraTarifariaMapper.toResponseDTO(bandeira);
+        atualizarCalendarioAposCommit(TipoEvento.EXCLUIDO, responseDTO);
 
         // Enviar evento ao Kafka
-        try {
-            BandeiraTarifariaResponseDTO responseDTO = toResponseDTO(bandeira);
-            kafkaProducerService.sendMessage("bandeira-tarifaria-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
+        kafkaProducerService.sendMessage("bandeira-tarifaria-events", bandeira.getId(),
+                TipoEvento.EXCLUIDO, responseDTO);
+    }
+
+    /**
+     * Aplica a alteração ao calendário após o commit da transação atual, para que o calendário
+     * nunca reflita uma alteração desfeita; fora de uma transação, aplica imediatamente.
+     */
+    private void atualizarCalendarioAposCommit(TipoEvento tipo, BandeiraTarifariaResponseDTO bandeira) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicarAlteracao(tipo, bandeira);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publicarAlteracao(tipo, bandeira);
+            }
+        });
+    }
+
+    private void publicarAlteracao(TipoEvento tipo, BandeiraTarifariaResponseDTO bandeira) {
+        CalendarioAlterado alteracao = atualizarCalendario(atual -> aplicar(atual, tipo, bandeira));
+        eventPublisher.publishEvent(alteracao);
     }
 
     /**
-     * Converte uma entidade BandeiraTarifaria para BandeiraTarifariaResponseDTO.
+     * Substitui o calendário pelo resultado da alteração. As escritas são serializadas; as
+     * leituras continuam usando o calendário anterior até a troca da referência.
+     */
+    private synchronized CalendarioAlterado atualizarCalendario(UnaryOperator<CalendarioBandeiras> alteracao) {
+        CalendarioBandeiras anterior = getCalendario();
+        calendario = alteracao.apply(anterior);
+        return new CalendarioAlterado(anterior, calendario);
+    }
+
+    private CalendarioBandeiras aplicar(CalendarioBandeiras atual, TipoEvento tipo,
+                                        BandeiraTarifariaResponseDTO bandeira) {
+        if (tipo == TipoEvento.EXCLUIDO) {
+            return atual.semVigencia(bandeira.getId());
+        }
+        return atual.comVigencia(new CalendarioBandeiras.Vigencia(
+                bandeira.getId(), bandeira.getTipoBandeira(), bandeira.getDataVigencia()));
+    }
+
+    /**
+     * Evento publicado após cada troca do calendário de bandeiras desta instância, seja por uma
+     * alteração local, por eventos de outras instâncias ou por uma recarga do banco.
      *
-     * @param bandeira Entidade a ser convertida.
-     * @return BandeiraTarifariaResponseDTO correspondente.
+     * @param anterior Calendário antes da alteração.
+     * @param atual    Calendário após a alteração.
      */
-    private BandeiraTarifariaResponseDTO toResponseDTO(BandeiraTarifaria bandeira) {
-        BandeiraTarifariaResponseDTO responseDTO = new BandeiraTarifariaResponseDTO();
-        BeanUtils.copyProperties(bandeira, responseDTO);
-        return responseDTO;
+    public record CalendarioAlterado(CalendarioBandeiras anterior, CalendarioBandeiras atual) {
     }
 }
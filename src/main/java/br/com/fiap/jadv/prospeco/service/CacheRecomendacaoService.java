@@ -0,0 +1,153 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoRecomendacao;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * <h1>CacheRecomendacaoService</h1>
+ * Cache das recomendações geradas pelo modelo de linguagem. A consulta é feita em duas camadas:
+ * primeiro pelo prompt normalizado, em um cache local com expiração e tamanho máximo; depois,
+ * por similaridade do assunto no {@link IndiceSemanticoRecomendacao} configurado em
+ * {@code app.recomendacao.cache.semantico.armazenamento} ({@code memoria}, {@code vector-store}
+ * ou {@code nenhum}). O modelo só é chamado quando as duas camadas falham.
+ *
+ * <p>
+ * Prompts sem assunto (personalizados para um usuário) consultam apenas a primeira camada e não
+ * são registrados no índice semântico.
+ * </p>
+ *
+ * <p>
+ * Requisições simultâneas com o mesmo prompt aguardam uma única geração, feita na thread da
+ * primeira requisição: o cache guarda a geração em andamento, e nenhum bloqueio do cache é
+ * mantido durante a chamada ao modelo. Falhas do índice
+ * semântico são registradas e tratadas como ausência, sem impedir a geração. Os acertos de
+ * cada camada e as gerações são contados em {@value #METRICA_CONSULTAS}, com a tag
+ * {@code resultado}, e o cache local é instrumentado como {@code recomendacoes}.
+ * </p>
+ */
+@Service
+public class CacheRecomendacaoService {
+
+    static final String METRICA_CONSULTAS = "prospeco.recomendacao.cache.consultas";
+    static final String SEM_INDICE_SEMANTICO = "nenhum";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRecomendacaoService.class);
+
+    private final AsyncCache<String, String> recomendacoes;
+    private final IndiceSemanticoRecomendacao indiceSemantico;
+    private final Counter acertosExatos;
+    private final Counter acertosSemanticos;
+    private final Counter ausencias;
+
+    @Autowired
+    public CacheRecomendacaoService(List<IndiceSemanticoRecomendacao> indices,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.recomendacao.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                                    @Value("${app.recomendacao.cache.expiracao:PT24H}") Duration expiracao,
+                                    @Value("${app.recomendacao.cache.semantico.armazenamento:memoria}") String armazenamento) {
+        this.recomendacoes = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .buildAsync();
+        this.indiceSemantico = SEM_INDICE_SEMANTICO.equalsIgnoreCase(armazenamento) ? null : indices.stream()
+                .filter(indice -> indice.armazenamento().equalsIgnoreCase(armazenamento))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Armazenamento do cache semântico de recomendações inválido: " + armazenamento));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, recomendacoes, "recomendacoes");
+        this.acertosExatos = contador(meterRegistry, "exato");
+        this.acertosSemanticos = contador(meterRegistry, "semantico");
+        this.ausencias = contador(meterRegistry, "ausente");
+    }
+
+    /**
+     * Retorna a recomendação de um prompt, gerando-a apenas se nenhuma camada do cache a tiver.
+     *
+     * @param assunto Parte variável do prompt, comparada por similaridade, ou null para não
+     *                consultar nem alimentar o índice semântico.
+     * @param prompt  Prompt completo enviado ao modelo.
+     * @param gerador Chamada ao modelo, recebendo o prompt.
+     * @return Recomendação em cache ou recém-gerada.
+     */
+    public String obter(String assunto, String prompt, Function<String, String> gerador) {
+        String chave = IndiceSemanticoRecomendacao.normalizar(prompt);
+        CompletableFuture<String> propria = new CompletableFuture<>();
+        CompletableFuture<String> recomendacao = recomendacoes.get(chave, (ignorada, executor) -> propria);
+        if (recomendacao != propria) {
+            acertosExatos.increment();
+            return aguardar(recomendacao);
+        }
+        // Falhas e recomendações nulas concluem a geração sem ficar no cache
+        try {
+            String gerada = carregar(assunto, prompt, gerador);
+            propria.complete(gerada);
+            return gerada;
+        } catch (RuntimeException e) {
+            propria.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static String aguardar(CompletableFuture<String> recomendacao) {
+        try {
+            return recomendacao.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    private String carregar(String assunto, String prompt, Function<String, String> gerador) {
+        Optional<String> semelhante = buscarSemelhante(assunto);
+        if (semelhante.isPresent()) {
+            acertosSemanticos.increment();
+            return semelhante.get();
+        }
+
+        ausencias.increment();
+        String recomendacao = gerador.apply(prompt);
+        if (indiceSemantico != null && assunto != null && recomendacao != null) {
+            try {
+                indiceSemantico.registrar(assunto, recomendacao);
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao registrar a recomendação no índice semântico: {}", e.getMessage());
+            }
+        }
+        return recomendacao;
+    }
+
+    private Optional<String> buscarSemelhante(String assunto) {
+        if (indiceSemantico == null || assunto == null) {
+            return Optional.empty();
+        }
+        try {
+            return indiceSemantico.buscar(assunto);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao consultar o índice semântico de recomendações: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder(METRICA_CONSULTAS)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,235 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * <h1>CalendarioBandeiras</h1>
+ * Calendário imutável das bandeiras tarifárias. Cada bandeira vigora a partir da sua data de
+ * vigência até a véspera da data de vigência seguinte; antes da primeira bandeira não há
+ * bandeira vigente. Bandeiras cadastradas para a mesma data são desempatadas pelo maior ID.
+ *
+ * <p>
+ * As datas ficam em um array ordenado de dias desde a época, de modo que a bandeira vigente
+ * em uma data é encontrada por busca binária (O(log n)) sem alocar objetos. Alterações geram
+ * um novo calendário ({@link #comVigencia(Vigencia)} e {@link #semVigencia(Long)}), que pode
+ * ser publicado em uma referência compartilhada sem bloquear as leituras.
+ * </p>
+ */
+public final class CalendarioBandeiras {
+
+    /**
+     * Calendário sem nenhuma bandeira cadastrada.
+     */
+    public static final CalendarioBandeiras VAZIO = new CalendarioBandeiras(new Vigencia[0]);
+
+    private static final Comparator<Vigencia> ORDEM = Comparator
+            .comparing(Vigencia::dataVigencia)
+            .thenComparing(Vigencia::id);
+
+    private final Vigencia[] vigencias;
+    private final long[] diasInicio;
+
+    private CalendarioBandeiras(Vigencia[] vigenciasOrdenadas) {
+        this.vigencias = vigenciasOrdenadas;
+        this.diasInicio = new long[vigenciasOrdenadas.length];
+        for (int i = 0; i < vigenciasOrdenadas.length; i++) {
+            diasInicio[i] = vigenciasOrdenadas[i].dataVigencia().toEpochDay();
+        }
+    }
+
+    /**
+     * Monta um calendário a partir das vigências informadas, em qualquer ordem.
+     *
+     * @param vigencias Bandeiras cadastradas.
+     * @return Calendário ordenado pela data de vigência.
+     */
+    public static CalendarioBandeiras de(Collection<Vigencia> vigencias) {
+        Vigencia[] ordenadas = vigencias.toArray(new Vigencia[0]);
+        Arrays.sort(ordenadas, ORDEM);
+        return new CalendarioBandeiras(ordenadas);
+    }
+
+    /**
+     * Busca a vigência em vigor em uma data.
+     *
+     * @param data Data consultada.
+     * @return Vigência mais recente iniciada até a data, ou vazio se a data for anterior à
+     * primeira bandeira.
+     */
+    public Optional<Vigencia> vigenciaEm(LocalDate data) {
+        int posicao = ultimaIniciadaAte(data.toEpochDay());
+        return posicao < 0 ? Optional.empty() : Optional.of(vigencias[posicao]);
+    }
+
+    /**
+     * Busca a bandeira em vigor no instante de uma leitura.
+     *
+     * @param dataHora Data e hora consultada.
+     * @return Bandeira vigente, ou vazio se não houver bandeira cadastrada até a data.
+     */
+    public Optional<TipoBandeira> bandeiraEm(LocalDateTime dataHora) {
+        int posicao = ultimaIniciadaAte(dataHora.toLocalDate().toEpochDay());
+        return posicao < 0 ? Optional.empty() : Optional.of(vigencias[posicao].tipoBandeira());
+    }
+
+    /**
+     * Lista as vigências do calendário.
+     *
+     * @return Vigências ordenadas por data de vigência e ID.
+     */
+    public List<Vigencia> vigencias() {
+        return List.of(vigencias);
+    }
+
+    /**
+     * @return Quantidade de bandeiras no calendário.
+     */
+    public int tamanho() {
+        return vigencias.length;
+    }
+
+    /**
+     * Cria um novo calendário incluindo a vigência informada, ou substituindo a de mesmo ID.
+     *
+     * @param vigencia Vigência criada ou alterada.
+     * @return Novo calendário; o atual não é alterado.
+     */
+    public CalendarioBandeiras comVigencia(Vigencia vigencia) {
+        List<Vigencia> novas = new ArrayList<>(vigencias.length + 1);
+        for (Vigencia atual : vigencias) {
+            if (!atual.id().equals(vigencia.id())) {
+                novas.add(atual);
+            }
+        }
+        novas.add(vigencia);
+        return de(novas);
+    }
+
+    /**
+     * Cria um novo calendário sem a vigência do ID informado.
+     *
+     * @param id ID da bandeira excluída.
+     * @return Novo calendário, ou o próprio calendário se o ID não estiver nele.
+     */
+    public CalendarioBandeiras semVigencia(Long id) {
+        List<Vigencia> novas = new ArrayList<>(vigencias.length);
+        for (Vigencia atual : vigencias) {
+            if (!atual.id().equals(id)) {
+                novas.add(atual);
+            }
+        }
+        return novas.size() == vigencias.length ? this : new CalendarioBandeiras(novas.toArray(new Vigencia[0]));
+    }
+
+    /**
+     * Divide um intervalo de datas em trechos de bandeira constante.
+     *
+     * @param inicio Primeiro dia do intervalo.
+     * @param fim    Dia seguinte ao último dia do intervalo.
+     * @return Trechos consecutivos que cobrem o intervalo, com a bandeira vigente em cada um
+     * (null antes da primeira bandeira).
+     */
+    public List<Trecho> trechos(LocalDate inicio, LocalDate fim) {
+        List<Trecho> trechos = new ArrayList<>();
+        LocalDate atual = inicio;
+        int posicao = ultimaIniciadaAte(inicio.toEpochDay());
+        while (atual.isBefore(fim)) {
+            TipoBandeira bandeira = posicao < 0 ? null : vigencias[posicao].tipoBandeira();
+            int proxima = posicao + 1;
+            LocalDate fimTrecho = proxima < vigencias.length && vigencias[proxima].dataVigencia().isBefore(fim)
+                    ? vigencias[proxima].dataVigencia() : fim;
+            adicionarTrecho(trechos, new Trecho(atual, fimTrecho, bandeira));
+            atual = fimTrecho;
+            posicao = ultimaIniciadaAte(atual.toEpochDay());
+        }
+        return trechos;
+    }
+
+    /**
+     * Compara este calendário com uma versão anterior e retorna os trechos em que a bandeira
+     * vigente mudou, com a bandeira deste calendário. Usado para recalcular apenas os custos
+     * afetados pela correção de uma bandeira.
+     *
+     * @param anterior Calendário antes da alteração.
+     * @return Trechos alterados em ordem cronológica; o último pode não ter fim (null).
+     */
+    public List<Trecho> trechosAlterados(CalendarioBandeiras anterior) {
+        TreeSet<LocalDate> limites = new TreeSet<>();
+        for (Vigencia vigencia : vigencias) {
+            limites.add(vigencia.dataVigencia());
+        }
+        for (Vigencia vigencia : anterior.vigencias) {
+            limites.add(vigencia.dataVigencia());
+        }
+
+        List<Trecho> alterados = new ArrayList<>();
+        LocalDate[] datas = limites.toArray(new LocalDate[0]);
+        for (int i = 0; i < datas.length; i++) {
+            TipoBandeira atual = vigenciaEm(datas[i]).map(Vigencia::tipoBandeira).orElse(null);
+            TipoBandeira antes = anterior.vigenciaEm(datas[i]).map(Vigencia::tipoBandeira).orElse(null);
+            if (atual == antes) {
+                continue;
+            }
+            adicionarTrecho(alterados, new Trecho(datas[i], i + 1 < datas.length ? datas[i + 1] : null, atual));
+        }
+        return alterados;
+    }
+
+    /**
+     * Adiciona um trecho à lista, estendendo o último quando ele termina onde o novo começa e
+     * tem a mesma bandeira.
+     */
+    private static void adicionarTrecho(List<Trecho> trechos, Trecho trecho) {
+        Trecho ultimo = trechos.isEmpty() ? null : trechos.get(trechos.size() - 1);
+        if (ultimo != null && ultimo.bandeira() == trecho.bandeira() && trecho.inicio().equals(ultimo.fim())) {
+            trechos.set(trechos.size() - 1, new Trecho(ultimo.inicio(), trecho.fim(), trecho.bandeira()));
+        } else {
+            trechos.add(trecho);
+        }
+    }
+
+    /**
+     * Busca binária pela última posição cujo dia de início é menor ou igual ao dia informado.
+     *
+     * @return Posição encontrada, ou -1 se todas as vigências começam depois do dia.
+     */
+    private int ultimaIniciadaAte(long dia) {
+        int inicio = 0;
+        int fim = diasInicio.length - 1;
+        int encontrada = -1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (diasInicio[meio] <= dia) {
+                encontrada = meio;
+                inicio = meio + 1;
+            } else {
+                fim = meio - 1;
+            }
+        }
+        return encontrada;
+    }
+
+    /**
+     * Bandeira tarifária vigente a partir de uma data.
+     *
+     * @param id           ID da bandeira tarifária.
+     * @param tipoBandeira Tipo da bandeira.
+     * @param dataVigencia Data a partir da qual a bandeira vigora.
+     */
+    public record Vigencia(Long id, TipoBandeira tipoBandeira, LocalDate dataVigencia) {
+    }
+
+    /**
+     * Intervalo de datas com a mesma bandeira vigente.
+     *
+     * @param inicio   Primeiro dia do trecho.
+     * @param fim      Dia seguinte ao último dia do trecho, ou null se o trecho não termina.
+     * @param bandeira Bandeira vigente, ou null antes da primeira bandeira.
+     */
+    public record Trecho(LocalDate inicio, LocalDate fim, TipoBandeira bandeira) {
+    }
+}
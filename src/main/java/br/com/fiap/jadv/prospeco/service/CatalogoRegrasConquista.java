@@ -0,0 +1,108 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.MetricaConquista;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * <h1>CatalogoRegrasConquista</h1>
+ * Regras de conquista declaradas em um arquivo JSON (por padrão
+ * {@code classpath:conquistas/regras.json}). Cada regra é concedida quando uma
+ * {@link MetricaConquista} do usuário alcança o seu limite, de modo que novas conquistas
+ * sobre as métricas existentes são criadas sem alterar o código.
+ */
+@Component
+public class CatalogoRegrasConquista {
+
+    private final Map<MetricaConquista, List<Regra>> porMetrica = new EnumMap<>(MetricaConquista.class);
+
+    @Autowired
+    public CatalogoRegrasConquista(ObjectMapper objectMapper,
+                                   @Value("${app.conquistas.regras:classpath:conquistas/regras.json}") Resource arquivo) {
+        this(lerRegras(objectMapper, arquivo));
+    }
+
+    /**
+     * Monta o catálogo com as regras informadas.
+     *
+     * @param regras Regras de conquista.
+     * @throws IllegalStateException Se alguma regra for inválida ou tiver código repetido.
+     */
+    public CatalogoRegrasConquista(List<Regra> regras) {
+        Set<String> codigos = new HashSet<>();
+        for (Regra regra : regras) {
+            validar(regra);
+            if (!codigos.add(regra.codigo())) {
+                throw new IllegalStateException("Regra de conquista duplicada: " + regra.codigo());
+            }
+            porMetrica.computeIfAbsent(regra.metrica(), metrica -> new ArrayList<>()).add(regra);
+        }
+        porMetrica.replaceAll((metrica, daMetrica) -> List.copyOf(daMetrica));
+    }
+
+    /**
+     * Lista as regras avaliadas sobre uma métrica.
+     *
+     * @param metrica Métrica do usuário.
+     * @return Regras da métrica; vazio se nenhuma regra usa a métrica.
+     */
+    public List<Regra> regrasDa(MetricaConquista metrica) {
+        return porMetrica.getOrDefault(metrica, List.of());
+    }
+
+    private static List<Regra> lerRegras(ObjectMapper objectMapper, Resource arquivo) {
+        try (InputStream conteudo = arquivo.getInputStream()) {
+            return objectMapper.readValue(conteudo, new TypeReference<List<Regra>>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível ler as regras de conquista de " + arquivo, e);
+        }
+    }
+
+    private static void validar(Regra regra) {
+        if (regra.codigo() == null || regra.codigo().isBlank() || regra.codigo().length() > 50) {
+            throw new IllegalStateException("Código de regra de conquista inválido: " + regra.codigo());
+        }
+        if (regra.titulo() == null || regra.titulo().isBlank() || regra.titulo().length() > 100
+                || (regra.descricao() != null && regra.descricao().length() > 255)) {
+            throw new IllegalStateException("Título ou descrição inválidos na regra " + regra.codigo());
+        }
+        if (regra.metrica() == null || regra.limite() <= 0 || regra.pontos() < 0) {
+            throw new IllegalStateException("Métrica, limite ou pontos inválidos na regra " + regra.codigo());
+        }
+    }
+
+    /**
+     * Regra de conquista declarativa.
+     *
+     * @param codigo    Código único da regra, gravado nas conquistas concedidas.
+     * @param titulo    Título da conquista.
+     * @param descricao Descrição da conquista.
+     * @param metrica   Métrica avaliada.
+     * @param limite    Valor que a métrica precisa alcançar.
+     * @param pontos    Pontos somados à pontuação de economia do usuário.
+     * @param repetivel Se a conquista pode ser concedida novamente a cada vez que o limite é alcançado.
+     */
+    public record Regra(String codigo, String titulo, String descricao, MetricaConquista metrica,
+                        double limite, double pontos, boolean repetivel) {
+
+        /**
+         * Verifica se uma variação da métrica alcança o limite da regra.
+         *
+         * @param anterior Valor da métrica antes do evento.
+         * @param atual    Valor da métrica após o evento.
+         * @return true se o valor passou de abaixo do limite para o limite ou acima dele.
+         */
+        public boolean alcancadaPor(double anterior, double atual) {
+            return anterior < limite && atual >= limite;
+        }
+    }
+}
@@ -3,15 +3,17 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.ConquistaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.ConquistaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.ConquistaMapper;
 import br.com.fiap.jadv.prospeco.model.Conquista;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.ConquistaRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,14 +26,17 @@ public class ConquistaService {
     private final ConquistaRepository conquistaRepository;
     private final UsuarioRepository usuarioRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final ConquistaMapper conquistaMapper;
 
     @Autowired
     public ConquistaService(ConquistaRepository conquistaRepository,
                             UsuarioRepository usuarioRepository,
-                            KafkaProducerService kafkaProducerService) {
+                            KafkaProducerService kafkaProducerService,
+                            ConquistaMapper conquistaMapper) {
         this.conquistaRepository = conquistaRepository;
         this.usuarioRepository = usuarioRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.conquistaMapper = conquistaMapper;
     }
 
     /**
@@ -41,8 +46,7 @@ public class ConquistaService {
      * @return Lista de ConquistaResponseDTO.
      */
     public Page<ConquistaResponseDTO> listarConquistasPorUsuario(Long usuarioId, Pageable pageable) {
-        return conquistaRepository.findByUsuarioId(usuarioId, pageable)
-                .map(this::toResponseDTO);
+        return conquistaRepository.listarConquistasPorUsuario(usuarioId, pageable);
     }
 
 
@@ -54,7 +58,7 @@ public class ConquistaService {
      */
     public Optional<ConquistaResponseDTO> buscarConquistaPorId(Long id) {
         return conquistaRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(conquistaMapper::toResponseDTO);
     }
 
     /**
@@ -63,26 +67,55 @@ public class ConquistaService {
      * @param requestDTO Dados da conquista.
      * @return ConquistaResponseDTO com os dados da conquista criada.
      */
+    @Transactional
     public ConquistaResponseDTO criarConquista(ConquistaRequestDTO requestDTO) {
         Usuario usuario = usuarioRepository.findById(requestDTO.getUsuarioId())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        Conquista conquista = new Conquista();
-        BeanUtils.copyProperties(requestDTO, conquista);
+        Conquista conquista = conquistaMapper.toEntity(requestDTO);
         conquista.setUsuario(usuario);
         conquista.setDataConquista(LocalDateTime.now());
 
         Conquista novaConquista = conquistaRepository.save(conquista);
 
         // Enviar evento ao Kafka
-        try {
-            ConquistaResponseDTO responseDTO = toResponseDTO(novaConquista);
-            kafkaProducerService.sendMessage("conquista-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
+        kafkaProducerService.sendMessage("conquista-events", novaConquista.getUsuario().getId(),
+                TipoEvento.CRIADO, conquistaMapper.toResponseDTO(novaConquista));
+
+        return conquistaMapper.toResponseDTO(novaConquista);
+    }
+
+    /**
+     * Concede a um usuário a conquista de uma regra e soma os pontos da regra à sua pontuação
+     * de economia. Regras não repetíveis são concedidas uma única vez por usuário.
+     *
+     * @param usuarioId Identificador do usuário.
+     * @param regra     Regra alcançada pelo usuário.
+     * @return ConquistaResponseDTO da conquista concedida; vazio se a regra já havia sido
+     * concedida ou o usuário não existe mais.
+     */
+    @Transactional
+    public Optional<ConquistaResponseDTO> concederConquista(Long usuarioId, CatalogoRegrasConquista.Regra regra) {
+        if (!regra.repetivel() && conquistaRepository.existsByUsuarioIdAndCodigoRegra(usuarioId, regra.codigo())) {
+            return Optional.empty();
         }
+        if (usuarioRepository.somarPontuacaoEconomia(usuarioId, regra.pontos()) == 0) {
+            return Optional.empty();
+        }
+
+        Conquista novaConquista = conquistaRepository.save(Conquista.builder()
+                .titulo(regra.titulo())
+                .descricao(regra.descricao())
+                .dataConquista(LocalDateTime.now())
+                .codigoRegra(regra.codigo())
+                .usuario(usuarioRepository.getReferenceById(usuarioId))
+                .build());
 
-        return toResponseDTO(novaConquista);
+        // Enviar evento ao Kafka
+        ConquistaResponseDTO responseDTO = conquistaMapper.toResponseDTO(novaConquista);
+        kafkaProducerService.sendMessage("conquista-events", usuarioId, TipoEvento.CRIADO, responseDTO);
+
+        return Optional.of(responseDTO);
     }
 
     /**
@@ -92,23 +125,20 @@ public class ConquistaService {
      * @param requestDTO Dados de atualização da conquista.
      * @return ConquistaResponseDTO com os dados atualizados.
      */
+    @Transactional
     public ConquistaResponseDTO atualizarConquista(Long id, ConquistaRequestDTO requestDTO) {
         Conquista conquista = conquistaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Conquista não encontrada"));
 
-        BeanUtils.copyProperties(requestDTO, conquista, "id", "usuario", "dataConquista");
+        conquistaMapper.atualizar(requestDTO, conquista);
 
         Conquista conquistaAtualizada = conquistaRepository.save(conquista);
 
         // Enviar evento ao Kafka
-        try {
-            ConquistaResponseDTO responseDTO = toResponseDTO(conquistaAtualizada);
-            kafkaProducerService.sendMessage("conquista-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("conquista-events", conquistaAtualizada.getUsuario().getId(),
+                TipoEvento.ATUALIZADO, conquistaMapper.toResponseDTO(conquistaAtualizada));
 
-        return toResponseDTO(conquistaAtualizada);
+        return conquistaMapper.toResponseDTO(conquistaAtualizada);
     }
 
     /**
@@ -116,6 +146,7 @@ public class ConquistaService {
      *
      * @param id Identificador da conquista.
      */
+    @Transactional
     public void excluirConquista(Long id) {
         Conquista conquista = conquistaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Conquista não encontrada"));
@@ -123,24 +154,7 @@ public class ConquistaService {
         conquistaRepository.delete(conquista);
 
         // Enviar evento ao Kafka
-        try {
-            ConquistaResponseDTO responseDTO = toResponseDTO(conquista);
-            kafkaProducerService.sendMessage("conquista-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Converte uma entidade Conquista para ConquistaResponseDTO.
-     *
-     * @param conquista Entidade a ser convertida.
-     * @return ConquistaResponseDTO correspondente.
-     */
-    private ConquistaResponseDTO toResponseDTO(Conquista conquista) {
-        ConquistaResponseDTO responseDTO = new ConquistaResponseDTO();
-        BeanUtils.copyProperties(conquista, responseDTO);
-        responseDTO.setUsuarioId(conquista.getUsuario().getId());
-        return responseDTO;
+        kafkaProducerService.sendMessage("conquista-events", conquista.getUsuario().getId(),
+                TipoEvento.EXCLUIDO, conquistaMapper.toResponseDTO(conquista));
     }
 }
@@ -0,0 +1,419 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoAgregadoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoPeriodoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.ReconstrucaoAgregados;
+import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.LeituraConsumoProjecao;
+import br.com.fiap.jadv.prospeco.repository.ReconstrucaoAgregadosRepository;
+import br.com.fiap.jadv.prospeco.repository.RegistroConsumoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * <h1>ConsumoAgregadoService</h1>
+ * Mantém os agregados de consumo por hora, dia e mês de cada aparelho e de cada usuário.
+ * Cada alteração em um registro de consumo é convertida em deltas que são somados
+ * diretamente nos períodos afetados, de modo que consultas de intervalo percorrem
+ * apenas os períodos, e não as leituras.
+ *
+ * <p>
+ * Cada leitura também é precificada pela bandeira tarifária vigente na sua data
+ * ({@link CalendarioBandeiras}) e pelo preço do kWh da {@link TabelaTarifaria}; o custo é
+ * somado aos mesmos períodos que o consumo. Correções de bandeira são propagadas aos
+ * custos já agregados pelo {@link ReprecificacaoCustoService}.
+ * </p>
+ *
+ * <p>
+ * A reconstrução dos agregados grava um bloco de leituras por transação e avança o marcador
+ * {@link ReconstrucaoAgregados} junto com cada bloco. Enquanto ela está em andamento, as
+ * alterações de leituras que a reconstrução ainda vai ler não são somadas aos agregados; o
+ * marcador é lido com bloqueio compartilhado, de modo que essas alterações e os blocos da
+ * reconstrução nunca se intercalam.
+ * </p>
+ */
+@Service
+public class ConsumoAgregadoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumoAgregadoService.class);
+
+    /**
+     * Ordem em que os períodos são gravados: transações simultâneas bloqueiam os períodos
+     * compartilhados (do usuário, do dia e do mês) sempre na mesma sequência.
+     */
+    private static final Comparator<ChaveAgregado> ORDEM_GRAVACAO = Comparator
+            .comparing(ChaveAgregado::escopo)
+            .thenComparing(ChaveAgregado::referenciaId)
+            .thenComparing(ChaveAgregado::granularidade)
+            .thenComparing(ChaveAgregado::inicioPeriodo);
+
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final RegistroConsumoRepository registroConsumoRepository;
+    private final BandeiraTarifariaService bandeiraTarifariaService;
+    private final TabelaTarifaria tabelaTarifaria;
+    private final ReconstrucaoAgregadosRepository reconstrucaoAgregadosRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.consumo-agregado.max-periodos-consulta:10000}")
+    private long maxPeriodosConsulta = 10000;
+
+    @Value("${app.consumo-agregado.tamanho-bloco-reconstrucao:5000}")
+    private int tamanhoBlocoReconstrucao = 5000;
+
+    @Autowired
+    public ConsumoAgregadoService(ConsumoAgregadoRepository consumoAgregadoRepository,
+                                  RegistroConsumoRepository registroConsumoRepository,
+                                  BandeiraTarifariaService bandeiraTarifariaService,
+                                  TabelaTarifaria tabelaTarifaria,
+                                  ReconstrucaoAgregadosRepository reconstrucaoAgregadosRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.registroConsumoRepository = registroConsumoRepository;
+        this.bandeiraTarifariaService = bandeiraTarifariaService;
+        this.tabelaTarifaria = tabelaTarifaria;
+        this.reconstrucaoAgregadosRepository = reconstrucaoAgregadosRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Bloqueia o marcador da reconstrução até o fim da transação atual. Deve ser chamado antes de
+     * gravar as leituras, para que a transação nunca segure uma leitura que o bloco em andamento
+     * da reconstrução está esperando para ler.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aguardarReconstrucao() {
+        reconstrucaoEmAndamento();
+    }
+
+    /**
+     * Soma um novo registro de consumo aos agregados.
+     *
+     * @param registro Registro de consumo incluído.
+     */
+    @Transactional
+    public void registrarInclusao(RegistroConsumo registro) {
+        registrarInclusoes(Collections.singletonList(registro));
+    }
+
+    /**
+     * Soma um conjunto de registros de consumo aos agregados. Os deltas de registros
+     * que caem no mesmo período são combinados antes de serem gravados.
+     *
+     * @param registros Registros de consumo incluídos.
+     */
+    @Transactional
+    public void registrarInclusoes(Collection<RegistroConsumo> registros) {
+        ReconstrucaoAgregados reconstrucao = reconstrucaoEmAndamento();
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        Map<ChaveAgregado, Delta> deltas = new HashMap<>();
+        for (RegistroConsumo registro : registros) {
+            if (reconstrucao.aguardaReprocessamento(registro.getId())) {
+                continue;
+            }
+            acumularDelta(deltas, calendario, registro.getAparelho().getId(),
+                    registro.getAparelho().getUsuario().getId(), registro.getDataHora(), registro.getConsumo(), 1);
+        }
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Substitui nos agregados os valores anteriores de um registro de consumo pelos atuais.
+     *
+     * @param dataHoraAnterior Data e hora do registro antes da alteração.
+     * @param consumoAnterior  Consumo do registro antes da alteração.
+     * @param registro         Registro de consumo já alterado.
+     */
+    @Transactional
+    public void registrarAlteracao(LocalDateTime dataHoraAnterior, Double consumoAnterior, RegistroConsumo registro) {
+        if (reconstrucaoEmAndamento().aguardaReprocessamento(registro.getId())) {
+            return;
+        }
+        Long aparelhoId = registro.getAparelho().getId();
+        Long usuarioId = registro.getAparelho().getUsuario().getId();
+
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        Map<ChaveAgregado, Delta> deltas = new HashMap<>();
+        acumularDelta(deltas, calendario, aparelhoId, usuarioId, dataHoraAnterior, -consumoAnterior, -1);
+        acumularDelta(deltas, calendario, aparelhoId, usuarioId, registro.getDataHora(), registro.getConsumo(), 1);
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Subtrai dos agregados um registro de consumo excluído.
+     *
+     * @param registro Registro de consumo excluído.
+     */
+    @Transactional
+    public void registrarExclusao(RegistroConsumo registro) {
+        if (reconstrucaoEmAndamento().aguardaReprocessamento(registro.getId())) {
+            return;
+        }
+        Map<ChaveAgregado, Delta> deltas = new HashMap<>();
+        acumularDelta(deltas, bandeiraTarifariaService.getCalendario(), registro.getAparelho().getId(),
+                registro.getAparelho().getUsuario().getId(), registro.getDataHora(), -registro.getConsumo(), -1);
+        aplicarDeltas(deltas);
+    }
+
+    /**
+     * Remove os agregados de um aparelho excluído e subtrai seus totais dos agregados do usuário.
+     *
+     * @param aparelhoId ID do aparelho excluído.
+     * @param usuarioId  ID do usuário dono do aparelho.
+     */
+    @Transactional
+    public void removerAgregadosDoAparelho(Long aparelhoId, Long usuarioId) {
+        // Os agregados do aparelho e do usuário não mudam no meio de um bloco da reconstrução
+        reconstrucaoEmAndamento();
+        Map<ChaveAgregado, Delta> deltas = new HashMap<>();
+        for (ConsumoAgregado agregado : consumoAgregadoRepository.findByEscopoAndReferenciaId(EscopoAgregacao.APARELHO, aparelhoId)) {
+            ChaveAgregado chave = new ChaveAgregado(EscopoAgregacao.USUARIO, usuarioId,
+                    agregado.getGranularidade(), agregado.getInicioPeriodo());
+            deltas.computeIfAbsent(chave, c -> new Delta())
+                    .somar(-agregado.getConsumoTotal(), -agregado.getCustoTotal(), -agregado.getQuantidadeRegistros());
+        }
+        aplicarDeltas(deltas);
+        consumoAgregadoRepository.removerPorReferencia(EscopoAgregacao.APARELHO, aparelhoId);
+    }
+
+    /**
+     * Descarta todos os agregados e os recalcula a partir dos registros de consumo.
+     * Usado para a carga inicial ou para corrigir divergências; percorre as leituras
+     * existentes no início da reconstrução em blocos ordenados por id, cada bloco em sua
+     * própria transação. Uma reconstrução interrompida é retomada a partir do último bloco
+     * gravado, sem descartar novamente os agregados.
+     *
+     * @return Quantidade de registros de consumo processados.
+     */
+    public long reconstruirAgregados() {
+        transactionTemplate.executeWithoutResult(status -> iniciarReconstrucao());
+
+        Boolean concluida;
+        do {
+            concluida = transactionTemplate.execute(status -> reconstruirBloco());
+        } while (Boolean.FALSE.equals(concluida));
+
+        ReconstrucaoAgregados reconstrucao = reconstrucaoAgregadosRepository.findById(ReconstrucaoAgregados.ID_UNICO)
+                .orElseThrow(() -> new IllegalStateException("Marcador da reconstrução de agregados não encontrado."));
+        logger.info("Agregados de consumo reconstruídos a partir de {} registros", reconstrucao.getRegistrosProcessados());
+        return reconstrucao.getRegistrosProcessados();
+    }
+
+    /**
+     * Descarta os agregados e marca a reconstrução como iniciada, limitada às leituras já
+     * existentes; as incluídas depois são somadas normalmente por quem as grava. Não faz nada
+     * se já houver uma reconstrução em andamento.
+     */
+    private void iniciarReconstrucao() {
+        ReconstrucaoAgregados reconstrucao = bloquearMarcador();
+        if (reconstrucao.getEmAndamento()) {
+            logger.info("Retomando a reconstrução de agregados após o registro {}", reconstrucao.getUltimoRegistroId());
+            return;
+        }
+
+        consumoAgregadoRepository.deleteAllInBatch();
+        Long limiteRegistroId = registroConsumoRepository.buscarMaiorId();
+        reconstrucao.setEmAndamento(true);
+        reconstrucao.setLimiteRegistroId(limiteRegistroId == null ? 0L : limiteRegistroId);
+        reconstrucao.setUltimoRegistroId(0L);
+        reconstrucao.setRegistrosProcessados(0L);
+        reconstrucao.setIniciadaEm(LocalDateTime.now());
+        reconstrucao.setConcluidaEm(null);
+        reconstrucaoAgregadosRepository.save(reconstrucao);
+    }
+
+    /**
+     * Soma aos agregados o próximo bloco de leituras e avança o marcador na mesma transação.
+     *
+     * @return true se a reconstrução terminou (ou já não estava em andamento).
+     */
+    private boolean reconstruirBloco() {
+        ReconstrucaoAgregados reconstrucao = bloquearMarcador();
+        if (!reconstrucao.getEmAndamento()) {
+            return true;
+        }
+
+        List<LeituraConsumoProjecao> bloco = registroConsumoRepository.buscarLeiturasAposId(
+                reconstrucao.getUltimoRegistroId(), reconstrucao.getLimiteRegistroId(),
+                PageRequest.of(0, tamanhoBlocoReconstrucao));
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        Map<ChaveAgregado, Delta> deltas = new HashMap<>();
+        for (LeituraConsumoProjecao leitura : bloco) {
+            acumularDelta(deltas, calendario, leitura.getAparelhoId(), leitura.getUsuarioId(),
+                    leitura.getDataHora(), leitura.getConsumo(), 1);
+            reconstrucao.setUltimoRegistroId(leitura.getId());
+        }
+        aplicarDeltas(deltas);
+
+        reconstrucao.setRegistrosProcessados(reconstrucao.getRegistrosProcessados() + bloco.size());
+        boolean concluida = bloco.size() < tamanhoBlocoReconstrucao;
+        if (concluida) {
+            reconstrucao.setEmAndamento(false);
+            reconstrucao.setConcluidaEm(LocalDateTime.now());
+        }
+        reconstrucaoAgregadosRepository.save(reconstrucao);
+        return concluida;
+    }
+
+    private ReconstrucaoAgregados bloquearMarcador() {
+        return reconstrucaoAgregadosRepository.buscarParaAtualizacao(ReconstrucaoAgregados.ID_UNICO)
+                .orElseThrow(() -> new IllegalStateException("Marcador da reconstrução de agregados não encontrado."));
+    }
+
+    /**
+     * Lê o marcador da reconstrução com bloqueio compartilhado.
+     *
+     * @return Marcador atual, ou um marcador sem reconstrução em andamento se a linha não existir.
+     */
+    private ReconstrucaoAgregados reconstrucaoEmAndamento() {
+        return reconstrucaoAgregadosRepository.buscarParaLeitura(ReconstrucaoAgregados.ID_UNICO)
+                .orElseGet(() -> ReconstrucaoAgregados.builder().build());
+    }
+
+    /**
+     * Consulta o consumo de um aparelho em um intervalo.
+     *
+     * @param aparelhoId    ID do aparelho.
+     * @param granularidade Granularidade dos períodos.
+     * @param inicio        Início do intervalo.
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e os períodos.
+     */
+    @Transactional(readOnly = true)
+    public ConsumoAgregadoResponseDTO consultarPorAparelho(Long aparelhoId, GranularidadeAgregacao granularidade,
+                                                         LocalDateTime inicio, LocalDateTime fim) {
+        return consultar(EscopoAgregacao.APARELHO, aparelhoId, granularidade, inicio, fim);
+    }
+
+    /**
+     * Consulta o consumo somado de todos os aparelhos de um usuário em um intervalo.
+     *
+     * @param usuarioId     ID do usuário.
+     * @param granularidade Granularidade dos períodos.
+     * @param inicio        Início do intervalo.
+     * @param fim           Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e os períodos.
+     */
+    @Transactional(readOnly = true)
+    public ConsumoAgregadoResponseDTO consultarPorUsuario(Long usuarioId, GranularidadeAgregacao granularidade,
+                                                        LocalDateTime inicio, LocalDateTime fim) {
+        return consultar(EscopoAgregacao.USUARIO, usuarioId, granularidade, inicio, fim);
+    }
+
+    private ConsumoAgregadoResponseDTO consultar(EscopoAgregacao escopo, Long referenciaId,
+                                                 GranularidadeAgregacao granularidade,
+                                                 LocalDateTime inicio, LocalDateTime fim) {
+        if (inicio == null || fim == null || !fim.isAfter(inicio)) {
+            throw new IllegalArgumentException("O fim do intervalo deve ser posterior ao início.");
+        }
+        if (granularidade.quantidadePeriodos(inicio, fim) > maxPeriodosConsulta) {
+            throw new IllegalArgumentException("O intervalo excede o limite de " + maxPeriodosConsulta
+                    + " períodos para a granularidade " + granularidade + ".");
+        }
+
+        LocalDateTime inicioAlinhado = granularidade.inicioPeriodo(inicio);
+        List<ConsumoPeriodoResponseDTO> periodos = consumoAgregadoRepository
+                .buscarPeriodos(escopo, referenciaId, granularidade, inicioAlinhado, fim).stream()
+                .map(agregado -> ConsumoPeriodoResponseDTO.builder()
+                        .inicioPeriodo(agregado.getInicioPeriodo())
+                        .consumoTotal(agregado.getConsumoTotal())
+                        .custoTotal(agregado.getCustoTotal())
+                        .quantidadeRegistros(agregado.getQuantidadeRegistros())
+                        .build())
+                .collect(Collectors.toList());
+
+        return ConsumoAgregadoResponseDTO.builder()
+                .escopo(escopo)
+                .referenciaId(referenciaId)
+                .granularidade(granularidade)
+                .inicio(inicioAlinhado)
+                .fim(fim)
+                .consumoTotal(periodos.stream().mapToDouble(ConsumoPeriodoResponseDTO::getConsumoTotal).sum())
+                .custoTotal(periodos.stream().mapToDouble(ConsumoPeriodoResponseDTO::getCustoTotal).sum())
+                .quantidadeRegistros(periodos.stream().mapToLong(ConsumoPeriodoResponseDTO::getQuantidadeRegistros).sum())
+                .periodos(periodos)
+                .build();
+    }
+
+    /**
+     * Precifica o delta de uma leitura pela bandeira vigente na sua data e o distribui pelos
+     * períodos de hora, dia e mês do aparelho e do usuário.
+     */
+    private void acumularDelta(Map<ChaveAgregado, Delta> deltas, CalendarioBandeiras calendario,
+                               Long aparelhoId, Long usuarioId,
+                               LocalDateTime dataHora, double consumo, long quantidade) {
+        double custo = consumo * tabelaTarifaria.precoKwh(calendario.bandeiraEm(dataHora).orElse(null));
+        for (GranularidadeAgregacao granularidade : GranularidadeAgregacao.values()) {
+            LocalDateTime inicioPeriodo = granularidade.inicioPeriodo(dataHora);
+            deltas.computeIfAbsent(new ChaveAgregado(EscopoAgregacao.APARELHO, aparelhoId, granularidade, inicioPeriodo),
+                    c -> new Delta()).somar(consumo, custo, quantidade);
+            deltas.computeIfAbsent(new ChaveAgregado(EscopoAgregacao.USUARIO, usuarioId, granularidade, inicioPeriodo),
+                    c -> new Delta()).somar(consumo, custo, quantidade);
+        }
+    }
+
+    /**
+     * Grava os deltas em {@link #ORDEM_GRAVACAO}, somando cada um ao seu período ou criando o
+     * período que ainda não existe. Deltas nulos (por exemplo, alteração que não muda o período
+     * nem o valor) são ignorados.
+     */
+    private void aplicarDeltas(Map<ChaveAgregado, Delta> deltas) {
+        List<ConsumoAgregado> periodos = deltas.entrySet().stream()
+                .filter(entrada -> !entrada.getValue().isNulo())
+                .sorted(Map.Entry.comparingByKey(ORDEM_GRAVACAO))
+                .map(entrada -> ConsumoAgregado.builder()
+                        .escopo(entrada.getKey().escopo())
+                        .referenciaId(entrada.getKey().referenciaId())
+                        .granularidade(entrada.getKey().granularidade())
+                        .inicioPeriodo(entrada.getKey().inicioPeriodo())
+                        .consumoTotal(entrada.getValue().consumo)
+                        .custoTotal(entrada.getValue().custo)
+                        .quantidadeRegistros(entrada.getValue().quantidade)
+                        .build())
+                .toList();
+        if (!periodos.isEmpty()) {
+            consumoAgregadoRepository.acumularEmLote(periodos);
+        }
+    }
+
+    /**
+     * Identifica um período agregado.
+     */
+    private record ChaveAgregado(EscopoAgregacao escopo, Long referenciaId,
+                                 GranularidadeAgregacao granularidade, LocalDateTime inicioPeriodo) {
+    }
+
+    /**
+     * Delta acumulado de consumo, de custo e de quantidade de registros para um período.
+     */
+    private static final class Delta {
+        private double consumo;
+        private double custo;
+        private long quantidade;
+
+        void somar(double consumo, double custo, long quantidade) {
+            this.consumo += consumo;
+            this.custo += custo;
+            this.quantidade += quantidade;
+        }
+
+        boolean isNulo() {
+            return consumo == 0.0 && custo == 0.0 && quantidade == 0;
+        }
+    }
+}
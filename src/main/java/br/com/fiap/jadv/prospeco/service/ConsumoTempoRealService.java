@@ -0,0 +1,395 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoAgregadoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoPeriodoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
+import br.com.fiap.jadv.prospeco.model.AcumuladoConsumo;
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>ConsumoTempoRealService</h1>
+ * Mantém, com Kafka Streams, o consumo por hora de cada aparelho e de cada usuário a partir
+ * do tópico de eventos de registros de consumo. As janelas ficam em state stores RocksDB
+ * locais e são lidas por consultas interativas, sem acesso ao banco de dados.
+ *
+ * <p>
+ * As janelas usam a data e hora da leitura (e não a do envio do evento), de modo que
+ * leituras enviadas em lote caem no período correto enquanto estiverem dentro da
+ * tolerância de atraso configurada. Alterações e exclusões de registros são aplicadas
+ * como deltas sobre as janelas das leituras afetadas; as que atingem janelas já fechadas
+ * são descartadas e ficam refletidas apenas nos agregados do banco
+ * ({@link ConsumoAgregadoService}).
+ * </p>
+ *
+ * <p>
+ * Com mais de uma instância, cada uma guarda apenas as janelas das partições que lhe foram
+ * atribuídas. A consulta de uma chave que pertence a outra instância é encaminhada a ela pelo
+ * endereço que cada instância anuncia em {@code application.server}
+ * ({@code app.consumo-tempo-real.endereco}); a requisição encaminhada leva o cabeçalho
+ * {@link #CABECALHO_ENCAMINHADA} e é sempre respondida localmente, sem novo encaminhamento.
+ * </p>
+ */
+@Service
+public class ConsumoTempoRealService {
+
+    public static final String STORE_CONSUMO_APARELHO = "consumo-aparelho-por-hora";
+    public static final String STORE_CONSUMO_USUARIO = "consumo-usuario-por-hora";
+    public static final String CABECALHO_ENCAMINHADA = "X-Consulta-Encaminhada";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumoTempoRealService.class);
+
+    private static final Duration TAMANHO_JANELA = Duration.ofHours(1);
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final Serde<EventoDTO<RegistroConsumoResponseDTO>> serdeEvento;
+    private final RestClient restClient;
+    private final HostInfo instanciaLocal;
+
+    @Value("${spring.kafka.topic.registro-consumo-events:registro-consumo-events}")
+    private String topicoRegistroConsumo = "registro-consumo-events";
+
+    @Value("${app.consumo-tempo-real.retencao:P2D}")
+    private Duration retencao = Duration.ofDays(2);
+
+    @Value("${app.consumo-tempo-real.tolerancia-atraso:PT10M}")
+    private Duration toleranciaAtraso = Duration.ofMinutes(10);
+
+    @Value("${app.consumo-tempo-real.fuso-horario:America/Sao_Paulo}")
+    private ZoneId fusoHorario = ZoneId.of("America/Sao_Paulo");
+
+    @Autowired
+    public ConsumoTempoRealService(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+                                   SerializacaoEventoService serializacaoEventoService,
+                                   RestClient.Builder restClientBuilder,
+                                   @Value("${app.consumo-tempo-real.endereco:localhost:8080}") String endereco) {
+        this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+        this.restClient = restClientBuilder.build();
+        this.instanciaLocal = HostInfo.buildFromEndpoint(endereco);
+        this.serdeEvento = Serdes.serdeFrom(
+                (topico, evento) -> serializar(serializacaoEventoService, evento),
+                (topico, conteudo) -> desserializar(serializacaoEventoService, conteudo));
+    }
+
+    /**
+     * Define a topologia: cada evento é convertido em deltas de consumo (positivo na criação,
+     * negativo na exclusão e ambos na alteração), com o tempo da leitura correspondente, e os
+     * deltas são somados em janelas de uma hora materializadas nos stores
+     * {@link #STORE_CONSUMO_APARELHO} e {@link #STORE_CONSUMO_USUARIO}.
+     *
+     * <p>
+     * Os eventos já chegam particionados pelo aparelho, de modo que a agregação por aparelho
+     * não exige reparticionamento; a agregação por usuário reparticiona pelo usuário.
+     * </p>
+     *
+     * @param streamsBuilder Builder da aplicação de streams.
+     */
+    @Autowired
+    public void definirTopologia(StreamsBuilder streamsBuilder) {
+        KStream<String, DeltaLeitura> deltas = streamsBuilder
+                .stream(topicoRegistroConsumo, Consumed.with(Serdes.String(), serdeEvento))
+                .filter((chave, evento) -> chave != null && evento != null && evento.getTipo() != null)
+                .processValues(DesmembradorEvento::new, Named.as("desmembrar-eventos-consumo"));
+
+        TimeWindows janelas = TimeWindows.ofSizeAndGrace(TAMANHO_JANELA, toleranciaAtraso);
+        Serde<AcumuladoConsumo> serdeAcumulado = serdeAcumulado();
+
+        deltas.mapValues(DeltaLeitura::delta)
+                .groupByKey(Grouped.with(Serdes.String(), serdeAcumulado))
+                .windowedBy(janelas)
+                .aggregate(AcumuladoConsumo::new,
+                        (aparelhoId, delta, acumulado) -> acumulado.somar(delta),
+                        materializar(STORE_CONSUMO_APARELHO, Serdes.String()));
+
+        deltas.filter((chave, delta) -> delta.usuarioId() != null)
+                .map((chave, delta) -> KeyValue.pair(delta.usuarioId(), delta.delta()))
+                .groupByKey(Grouped.with("consumo-por-usuario", Serdes.Long(), serdeAcumulado))
+                .windowedBy(janelas)
+                .aggregate(AcumuladoConsumo::new,
+                        (usuarioId, delta, acumulado) -> acumulado.somar(delta),
+                        materializar(STORE_CONSUMO_USUARIO, Serdes.Long()));
+    }
+
+    /**
+     * Consulta o consumo por hora de um aparelho nas janelas da instância dona do aparelho.
+     *
+     * @param aparelhoId ID do aparelho.
+     * @param inicio     Início do intervalo.
+     * @param fim        Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas do intervalo.
+     */
+    public ConsumoAgregadoResponseDTO consultarPorAparelho(Long aparelhoId, LocalDateTime inicio, LocalDateTime fim) {
+        return consultarPorAparelho(aparelhoId, inicio, fim, false);
+    }
+
+    /**
+     * Consulta o consumo por hora de um aparelho, encaminhando a consulta à instância dona do
+     * aparelho quando ela não é esta.
+     *
+     * @param aparelhoId  ID do aparelho.
+     * @param inicio      Início do intervalo.
+     * @param fim         Fim do intervalo (exclusivo).
+     * @param encaminhada Indica se a consulta já foi encaminhada por outra instância.
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas do intervalo.
+     */
+    public ConsumoAgregadoResponseDTO consultarPorAparelho(Long aparelhoId, LocalDateTime inicio, LocalDateTime fim,
+                                                         boolean encaminhada) {
+        return consultar(STORE_CONSUMO_APARELHO, String.valueOf(aparelhoId), Serdes.String().serializer(),
+                EscopoAgregacao.APARELHO, aparelhoId, inicio, fim, encaminhada);
+    }
+
+    /**
+     * Consulta o consumo por hora de um usuário nas janelas da instância dona do usuário.
+     *
+     * @param usuarioId ID do usuário.
+     * @param inicio    Início do intervalo.
+     * @param fim       Fim do intervalo (exclusivo).
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas do intervalo.
+     */
+    public ConsumoAgregadoResponseDTO consultarPorUsuario(Long usuarioId, LocalDateTime inicio, LocalDateTime fim) {
+        return consultarPorUsuario(usuarioId, inicio, fim, false);
+    }
+
+    /**
+     * Consulta o consumo por hora de um usuário, encaminhando a consulta à instância dona do
+     * usuário quando ela não é esta.
+     *
+     * @param usuarioId   ID do usuário.
+     * @param inicio      Início do intervalo.
+     * @param fim         Fim do intervalo (exclusivo).
+     * @param encaminhada Indica se a consulta já foi encaminhada por outra instância.
+     * @return ConsumoAgregadoResponseDTO com o total e as janelas do intervalo.
+     */
+    public ConsumoAgregadoResponseDTO consultarPorUsuario(Long usuarioId, LocalDateTime inicio, LocalDateTime fim,
+                                                        boolean encaminhada) {
+        return consultar(STORE_CONSUMO_USUARIO, usuarioId, Serdes.Long().serializer(),
+                EscopoAgregacao.USUARIO, usuarioId, inicio, fim, encaminhada);
+    }
+
+    private <K> ConsumoAgregadoResponseDTO consultar(String nomeStore, K chave, Serializer<K> serializadorChave,
+                                                     EscopoAgregacao escopo, Long referenciaId,
+                                                     LocalDateTime inicio, LocalDateTime fim, boolean encaminhada) {
+        if (inicio == null || fim == null || !fim.isAfter(inicio)) {
+            throw new IllegalArgumentException("O fim do intervalo deve ser posterior ao início.");
+        }
+
+        KafkaStreams kafkaStreams = obterKafkaStreams();
+        if (!encaminhada) {
+            HostInfo dono = obterDono(kafkaStreams, nomeStore, chave, serializadorChave);
+            if (!dono.equals(instanciaLocal)) {
+                return encaminhar(dono, escopo, referenciaId, inicio, fim);
+            }
+        }
+
+        LocalDateTime inicioAlinhado = GranularidadeAgregacao.HORA.inicioPeriodo(inicio);
+        Instant de = inicioAlinhado.atZone(fusoHorario).toInstant();
+        Instant ate = fim.atZone(fusoHorario).toInstant().minusMillis(1);
+
+        List<ConsumoPeriodoResponseDTO> periodos = new ArrayList<>();
+        double consumoTotal = 0;
+        long quantidadeRegistros = 0;
+        try {
+            ReadOnlyWindowStore<K, AcumuladoConsumo> store = kafkaStreams.store(
+                    StoreQueryParameters.fromNameAndType(nomeStore, QueryableStoreTypes.windowStore()));
+            try (WindowStoreIterator<AcumuladoConsumo> janelas = store.fetch(chave, de, ate)) {
+                while (janelas.hasNext()) {
+                    KeyValue<Long, AcumuladoConsumo> janela = janelas.next();
+                    AcumuladoConsumo acumulado = janela.value;
+                    periodos.add(ConsumoPeriodoResponseDTO.builder()
+                            .inicioPeriodo(LocalDateTime.ofInstant(Instant.ofEpochMilli(janela.key), fusoHorario))
+                            .consumoTotal(acumulado.getConsumoTotal())
+                            .quantidadeRegistros(acumulado.getQuantidadeRegistros())
+                            .build());
+                    consumoTotal += acumulado.getConsumoTotal();
+                    quantidadeRegistros += acumulado.getQuantidadeRegistros();
+                }
+            }
+        } catch (InvalidStateStoreException e) {
+            throw new ServicoIndisponivelException("Os agregados em tempo real estão sendo restaurados. Tente novamente.", e);
+        }
+
+        return ConsumoAgregadoResponseDTO.builder()
+                .escopo(escopo)
+                .referenciaId(referenciaId)
+                .granularidade(GranularidadeAgregacao.HORA)
+                .inicio(inicioAlinhado)
+                .fim(fim)
+                .consumoTotal(consumoTotal)
+                .quantidadeRegistros(quantidadeRegistros)
+                .periodos(periodos)
+                .build();
+    }
+
+    private KafkaStreams obterKafkaStreams() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            throw new ServicoIndisponivelException("O processamento de consumo em tempo real não está ativo.");
+        }
+        return kafkaStreams;
+    }
+
+    /**
+     * Identifica a instância ativa que guarda as janelas de uma chave.
+     */
+    private <K> HostInfo obterDono(KafkaStreams kafkaStreams, String nomeStore, K chave, Serializer<K> serializadorChave) {
+        KeyQueryMetadata metadados;
+        try {
+            metadados = kafkaStreams.queryMetadataForKey(nomeStore, chave, serializadorChave);
+        } catch (InvalidStateStoreException e) {
+            throw new ServicoIndisponivelException("Os agregados em tempo real estão sendo restaurados. Tente novamente.", e);
+        }
+        if (metadados == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadados)) {
+            throw new ServicoIndisponivelException("As partições dos agregados em tempo real estão sendo redistribuídas. Tente novamente.");
+        }
+        return metadados.activeHost();
+    }
+
+    /**
+     * Repassa a consulta à instância dona da chave, que a responde a partir das suas janelas.
+     */
+    private ConsumoAgregadoResponseDTO encaminhar(HostInfo dono, EscopoAgregacao escopo, Long referenciaId,
+                                                  LocalDateTime inicio, LocalDateTime fim) {
+        try {
+            return restClient.get()
+                    .uri("http://{host}:{porta}/api/consumo-agregado/tempo-real/{escopo}/{id}?inicio={inicio}&fim={fim}",
+                            dono.host(), dono.port(), escopo.name().toLowerCase(), referenciaId, inicio, fim)
+                    .header(CABECALHO_ENCAMINHADA, "true")
+                    .retrieve()
+                    .body(ConsumoAgregadoResponseDTO.class);
+        } catch (RestClientException e) {
+            throw new ServicoIndisponivelException("A instância que mantém os agregados em tempo real não respondeu. Tente novamente.", e);
+        }
+    }
+
+    private <K> Materialized<K, AcumuladoConsumo, WindowStore<Bytes, byte[]>> materializar(String nomeStore, Serde<K> serdeChave) {
+        return Materialized.<K, AcumuladoConsumo, WindowStore<Bytes, byte[]>>as(nomeStore)
+                .withKeySerde(serdeChave)
+                .withValueSerde(serdeAcumulado())
+                .withRetention(retencao);
+    }
+
+    /**
+     * Converte um evento de registro de consumo em deltas, cada um com o tempo da leitura
+     * a que se refere, para que caia na janela correta mesmo quando a alteração muda a hora.
+     */
+    private class DesmembradorEvento implements FixedKeyProcessor<String, EventoDTO<RegistroConsumoResponseDTO>, DeltaLeitura> {
+
+        private FixedKeyProcessorContext<String, DeltaLeitura> contexto;
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, DeltaLeitura> contexto) {
+            this.contexto = contexto;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, EventoDTO<RegistroConsumoResponseDTO>> registro) {
+            EventoDTO<RegistroConsumoResponseDTO> evento = registro.value();
+            switch (evento.getTipo()) {
+                case CRIADO -> encaminhar(registro, evento.getDados(), 1);
+                case EXCLUIDO -> encaminhar(registro, evento.getDados(), -1);
+                case ATUALIZADO -> {
+                    if (evento.getAnterior() == null) {
+                        logger.warn("Evento de alteração sem estado anterior ignorado (aparelho {})", registro.key());
+                        return;
+                    }
+                    encaminhar(registro, evento.getAnterior(), -1);
+                    encaminhar(registro, evento.getDados(), 1);
+                }
+            }
+        }
+
+        private void encaminhar(FixedKeyRecord<String, ?> registro, RegistroConsumoResponseDTO leitura, int sinal) {
+            if (leitura == null || leitura.getConsumo() == null || leitura.getDataHora() == null) {
+                return;
+            }
+            DeltaLeitura delta = new DeltaLeitura(leitura.getUsuarioId(),
+                    new AcumuladoConsumo(sinal * leitura.getConsumo(), sinal));
+            long tempoLeitura = leitura.getDataHora().atZone(fusoHorario).toInstant().toEpochMilli();
+            contexto.forward(registro.withValue(delta).withTimestamp(tempoLeitura));
+        }
+    }
+
+    /**
+     * Delta de consumo de uma leitura, com o usuário dono do aparelho.
+     */
+    private record DeltaLeitura(Long usuarioId, AcumuladoConsumo delta) {
+    }
+
+    private static byte[] serializar(SerializacaoEventoService serializacaoEventoService,
+                                     EventoDTO<RegistroConsumoResponseDTO> evento) {
+        if (evento == null) {
+            return null;
+        }
+        try {
+            return serializacaoEventoService.serializar(evento);
+        } catch (IOException e) {
+            throw new SerializationException("Erro ao serializar evento de registro de consumo", e);
+        }
+    }
+
+    private static EventoDTO<RegistroConsumoResponseDTO> desserializar(
+            SerializacaoEventoService serializacaoEventoService, byte[] conteudo) {
+        if (conteudo == null) {
+            return null;
+        }
+        try {
+            return serializacaoEventoService.desserializar(conteudo, RegistroConsumoResponseDTO.class);
+        } catch (IOException e) {
+            throw new SerializationException("Erro ao desserializar evento de registro de consumo", e);
+        }
+    }
+
+    /**
+     * Serde binário de tamanho fixo (16 bytes) para os acumulados gravados no RocksDB.
+     */
+    static Serde<AcumuladoConsumo> serdeAcumulado() {
+        return Serdes.serdeFrom(
+                (topico, acumulado) -> acumulado == null ? null : ByteBuffer.allocate(Double.BYTES + Long.BYTES)
+                        .putDouble(acumulado.getConsumoTotal())
+                        .putLong(acumulado.getQuantidadeRegistros())
+                        .array(),
+                (topico, bytes) -> {
+                    if (bytes == null) {
+                        return null;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    return new AcumuladoConsumo(buffer.getDouble(), buffer.getLong());
+                });
+    }
+}
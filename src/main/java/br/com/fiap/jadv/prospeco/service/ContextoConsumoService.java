@@ -0,0 +1,236 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>ContextoConsumoService</h1>
+ * Resume o consumo recente de um usuário em poucas linhas de estatísticas para personalizar o
+ * prompt das recomendações, sem enviar o histórico de leituras ao modelo. O resumo é calculado
+ * a partir dos agregados horários do usuário nos últimos {@code app.recomendacao.contexto.janela-dias}
+ * dias completos e traz, em ordem de prioridade: consumo médio diário, horários de pico,
+ * exposição às bandeiras tarifárias, tendência semanal e perfil por faixa do dia.
+ *
+ * <p>
+ * O prompt completo respeita um orçamento fixo de tokens ({@code app.recomendacao.contexto.max-tokens}),
+ * estimado pela quantidade de caracteres: as linhas do resumo entram enquanto couberem, e uma
+ * instrução que sozinha exceda o orçamento é cortada. Os resumos ficam em cache por usuário e
+ * dia, de modo que novas recomendações no mesmo dia não consultam o banco de dados.
+ * </p>
+ */
+@Service
+public class ContextoConsumoService {
+
+    /**
+     * Caracteres por token usados na estimativa; abaixo da média do português, para que a
+     * estimativa fique do lado seguro.
+     */
+    static final int CARACTERES_POR_TOKEN = 3;
+
+    private static final Locale PT_BR = Locale.forLanguageTag("pt-BR");
+    private static final String[] FAIXAS = {"madrugada", "manhã", "tarde", "noite"};
+    private static final int HORARIOS_PICO = 3;
+    private static final int DIAS_TENDENCIA = 7;
+
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final BandeiraTarifariaService bandeiraTarifariaService;
+    private final TabelaTarifaria tabelaTarifaria;
+    private final Cache<Chave, List<String>> resumos;
+    private final int janelaDias;
+    private final int maxTokens;
+
+    @Autowired
+    public ContextoConsumoService(ConsumoAgregadoRepository consumoAgregadoRepository,
+                                  BandeiraTarifariaService bandeiraTarifariaService,
+                                  TabelaTarifaria tabelaTarifaria,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.recomendacao.contexto.janela-dias:28}") int janelaDias,
+                                  @Value("${app.recomendacao.contexto.max-tokens:250}") int maxTokens,
+                                  @Value("${app.recomendacao.contexto.cache.tamanho-maximo:10000}") long tamanhoMaximo) {
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.bandeiraTarifariaService = bandeiraTarifariaService;
+        this.tabelaTarifaria = tabelaTarifaria;
+        this.janelaDias = janelaDias;
+        this.maxTokens = maxTokens;
+        this.resumos = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(Duration.ofDays(1))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, resumos, "contexto-consumo");
+    }
+
+    /**
+     * Monta o prompt de uma instrução com o resumo do consumo do usuário, dentro do orçamento
+     * de tokens.
+     *
+     * @param instrucao Instrução enviada ao modelo.
+     * @param usuarioId ID do usuário, ou null para apenas limitar a instrução ao orçamento.
+     * @return Instrução seguida das linhas do resumo que couberem no orçamento; a própria
+     * instrução se o usuário não tiver consumo no período.
+     */
+    public String montarPrompt(String instrucao, Long usuarioId) {
+        if (estimarTokens(instrucao) >= maxTokens) {
+            return instrucao.substring(0, Math.min(instrucao.length(), maxTokens * CARACTERES_POR_TOKEN));
+        }
+        List<String> resumo = usuarioId == null ? List.of() : resumir(usuarioId);
+        if (resumo.isEmpty()) {
+            return instrucao;
+        }
+
+        StringBuilder prompt = new StringBuilder(instrucao)
+                .append("\nConsidere o consumo do usuário nos últimos ").append(janelaDias).append(" dias:");
+        int semResumo = prompt.length();
+        for (String linha : resumo) {
+            int tamanhoAnterior = prompt.length();
+            prompt.append("\n- ").append(linha);
+            if (estimarTokens(prompt) > maxTokens) {
+                prompt.setLength(tamanhoAnterior);
+                break;
+            }
+        }
+        // O cabeçalho sozinho não acrescenta nada ao prompt
+        return prompt.length() == semResumo ? instrucao : prompt.toString();
+    }
+
+    /**
+     * Resume o consumo do usuário nos últimos dias completos, usando o cache do dia.
+     *
+     * @param usuarioId ID do usuário.
+     * @return Linhas do resumo em ordem de prioridade, ou lista vazia se não houver consumo.
+     */
+    public List<String> resumir(Long usuarioId) {
+        LocalDate hoje = LocalDate.now();
+        return resumos.get(new Chave(usuarioId, hoje), chave -> calcularResumo(usuarioId, hoje));
+    }
+
+    /**
+     * Estima a quantidade de tokens de um texto.
+     *
+     * @param texto Texto enviado ao modelo.
+     * @return Quantidade estimada de tokens.
+     */
+    static int estimarTokens(CharSequence texto) {
+        return (texto.length() + CARACTERES_POR_TOKEN - 1) / CARACTERES_POR_TOKEN;
+    }
+
+    private List<String> calcularResumo(Long usuarioId, LocalDate hoje) {
+        LocalDate inicio = hoje.minusDays(janelaDias);
+        List<ConsumoAgregado> periodos = consumoAgregadoRepository.buscarPeriodos(EscopoAgregacao.USUARIO, usuarioId,
+                GranularidadeAgregacao.HORA, inicio.atStartOfDay(), hoje.atStartOfDay());
+
+        double[] consumoPorHora = new double[24];
+        double consumoTotal = 0;
+        double custoTotal = 0;
+        double consumoSemanaAtual = 0;
+        double consumoSemanaAnterior = 0;
+        LocalDateTime inicioSemanaAtual = hoje.minusDays(DIAS_TENDENCIA).atStartOfDay();
+        LocalDateTime inicioSemanaAnterior = hoje.minusDays(2L * DIAS_TENDENCIA).atStartOfDay();
+        for (ConsumoAgregado periodo : periodos) {
+            double consumo = periodo.getConsumoTotal();
+            consumoPorHora[periodo.getInicioPeriodo().getHour()] += consumo;
+            consumoTotal += consumo;
+            custoTotal += periodo.getCustoTotal();
+            if (!periodo.getInicioPeriodo().isBefore(inicioSemanaAtual)) {
+                consumoSemanaAtual += consumo;
+            } else if (!periodo.getInicioPeriodo().isBefore(inicioSemanaAnterior)) {
+                consumoSemanaAnterior += consumo;
+            }
+        }
+        if (consumoTotal <= 0) {
+            return List.of();
+        }
+
+        List<String> resumo = new ArrayList<>();
+        resumo.add(formatar("Consumo médio de %.1f kWh por dia (%.1f kWh no período).", consumoTotal / janelaDias, consumoTotal));
+        resumo.add(horariosPico(consumoPorHora, consumoTotal));
+        resumo.add(exposicaoTarifaria(inicio, hoje, consumoTotal, custoTotal));
+        if (janelaDias >= 2 * DIAS_TENDENCIA && consumoSemanaAnterior > 0) {
+            resumo.add(tendencia(consumoSemanaAtual, consumoSemanaAnterior));
+        }
+        resumo.add(perfilDiario(consumoPorHora, consumoTotal));
+        return List.copyOf(resumo);
+    }
+
+    private static String horariosPico(double[] consumoPorHora, double consumoTotal) {
+        int[] pico = IntStream.range(0, consumoPorHora.length).boxed()
+                .filter(hora -> consumoPorHora[hora] > 0)
+                .sorted((a, b) -> Double.compare(consumoPorHora[b], consumoPorHora[a]))
+                .limit(HORARIOS_PICO)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double consumoPico = 0;
+        List<String> horas = new ArrayList<>();
+        for (int hora : pico) {
+            consumoPico += consumoPorHora[hora];
+            horas.add(hora + "h");
+        }
+        return formatar("Horários de maior consumo: %s (%.0f%% do total).", String.join(", ", horas),
+                100 * consumoPico / consumoTotal);
+    }
+
+    private String exposicaoTarifaria(LocalDate inicio, LocalDate fim, double consumoTotal, double custoTotal) {
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        long diasBandeiraCara = calendario.trechos(inicio, fim).stream()
+                .filter(trecho -> trecho.bandeira() != null && trecho.bandeira() != TipoBandeira.VERDE)
+                .mapToLong(trecho -> ChronoUnit.DAYS.between(trecho.inicio(), trecho.fim()))
+                .sum();
+        TipoBandeira vigente = calendario.bandeiraEm(LocalDateTime.now()).orElse(null);
+        String bandeira = vigente == null ? "sem bandeira" : "bandeira " + vigente.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+        return formatar("Tarifa atual: %s, R$ %.2f/kWh; %d de %d dias em bandeira amarela ou vermelha; "
+                        + "custo médio de R$ %.2f/kWh no período.", bandeira, tabelaTarifaria.precoKwh(vigente),
+                diasBandeiraCara, janelaDias, custoTotal / consumoTotal);
+    }
+
+    private static String tendencia(double consumoSemanaAtual, double consumoSemanaAnterior) {
+        double variacao = 100 * (consumoSemanaAtual - consumoSemanaAnterior) / consumoSemanaAnterior;
+        if (Math.abs(variacao) < 5) {
+            return "Tendência: consumo estável na última semana.";
+        }
+        return formatar("Tendência: consumo %s %.0f%% na última semana em relação à anterior.",
+                variacao > 0 ? "subiu" : "caiu", Math.abs(variacao));
+    }
+
+    private static String perfilDiario(double[] consumoPorHora, double consumoTotal) {
+        List<String> faixas = new ArrayList<>();
+        int horasPorFaixa = consumoPorHora.length / FAIXAS.length;
+        for (int faixa = 0; faixa < FAIXAS.length; faixa++) {
+            double consumo = 0;
+            for (int hora = faixa * horasPorFaixa; hora < (faixa + 1) * horasPorFaixa; hora++) {
+                consumo += consumoPorHora[hora];
+            }
+            faixas.add(formatar("%s %.0f%%", FAIXAS[faixa], 100 * consumo / consumoTotal));
+        }
+        return "Perfil do dia: " + String.join(", ", faixas) + ".";
+    }
+
+    private static String formatar(String formato, Object... argumentos) {
+        return String.format(PT_BR, formato, argumentos);
+    }
+
+    /**
+     * Chave do cache de resumos: um resumo por usuário e dia.
+     */
+    private record Chave(Long usuarioId, LocalDate dia) {
+    }
+}
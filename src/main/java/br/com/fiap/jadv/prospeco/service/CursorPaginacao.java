@@ -0,0 +1,103 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <h1>CursorPaginacao</h1>
+ * Posição de uma listagem por cursor (keyset), ordenada por data e hora e ID decrescentes:
+ * a próxima página contém as linhas anteriores ao último item entregue, localizadas pelo
+ * índice em vez de pular as linhas das páginas anteriores (OFFSET).
+ *
+ * <p>
+ * O cursor enviado ao cliente é opaco (Base64 URL-safe) e não deve ser interpretado por ele.
+ * </p>
+ */
+@Getter
+public final class CursorPaginacao {
+
+    /**
+     * Quantidade máxima de itens por página.
+     */
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final char SEPARADOR = '|';
+
+    private final LocalDateTime dataHora;
+    private final Long id;
+
+    public CursorPaginacao(LocalDateTime dataHora, Long id) {
+        this.dataHora = dataHora;
+        this.id = id;
+    }
+
+    /**
+     * Lê o cursor recebido do cliente.
+     *
+     * @param cursor Cursor opaco.
+     * @return Posição da listagem.
+     * @throws IllegalArgumentException se o cursor for inválido.
+     */
+    public static CursorPaginacao decodificar(String cursor) {
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = conteudo.indexOf(SEPARADOR);
+            return new CursorPaginacao(LocalDateTime.parse(conteudo.substring(0, separador)),
+                    Long.parseLong(conteudo.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Gera o cursor opaco desta posição.
+     *
+     * @return Cursor a ser enviado ao cliente.
+     */
+    public String codificar() {
+        String conteudo = dataHora.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Valida o tamanho da página e retorna a paginação da consulta, com um item a mais para
+     * saber se existe uma próxima página sem contar as linhas.
+     *
+     * @param limite Quantidade de itens da página.
+     * @return Paginação a ser usada na consulta.
+     * @throws IllegalArgumentException se o limite estiver fora do intervalo aceito.
+     */
+    public static Pageable consulta(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("O limite deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        return PageRequest.of(0, limite + 1);
+    }
+
+    /**
+     * Monta a página a partir das linhas consultadas com {@link #consulta(int)}.
+     *
+     * @param linhas   Linhas consultadas (até limite + 1).
+     * @param limite   Quantidade de itens da página.
+     * @param posicao  Função que extrai a posição de um item.
+     * @param <T>      Tipo dos itens.
+     * @return Página com o cursor da próxima página, se houver.
+     */
+    public static <T> PaginaCursorResponseDTO<T> pagina(List<T> linhas, int limite,
+                                                        Function<T, CursorPaginacao> posicao) {
+        if (linhas.size() <= limite) {
+            return new PaginaCursorResponseDTO<>(linhas, null);
+        }
+        List<T> itens = linhas.subList(0, limite);
+        return new PaginaCursorResponseDTO<>(itens, posicao.apply(itens.get(limite - 1)).codificar());
+    }
+}
@@ -2,23 +2,91 @@ package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+
+/**
+ * <h1>CustomUserDetailsService</h1>
+ * Carrega os usuários para o Spring Security.
+ *
+ * <p>
+ * O login sempre consulta o banco. Nas requisições autenticadas por JWT, os dados do usuário
+ * (email e perfil, sem a senha) vêm de um cache limitado por tamanho e com expiração, indexado
+ * pelo email, que é invalidado quando o usuário é alterado ou excluído.
+ * </p>
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
+
     private final UsuarioRepository usuarioRepository;
+    private final Cache<String, UserDetails> usuariosAutenticados;
+
+    @Autowired
+    public CustomUserDetailsService(UsuarioRepository usuarioRepository,
+                                    @Value("${app.seguranca.cache-usuarios.tamanho-maximo:10000}") long tamanhoMaximo,
+                                    @Value("${app.seguranca.cache-usuarios.expiracao:PT5M}") Duration expiracao) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuariosAutenticados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .build();
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com o email: " + email));
-        System.out.println("Usuário carregado: " + usuario.getEmail());
+        logger.debug("Usuário carregado: {}", usuario.getEmail());
         return usuario;
     }
+
+    /**
+     * Carrega o usuário de uma requisição já autenticada (pelo token), usando o cache.
+     *
+     * @param email Email do usuário.
+     * @return Dados do usuário, sem a senha.
+     * @throws UsernameNotFoundException Se o usuário não existir.
+     */
+    public UserDetails carregarUsuarioAutenticado(String email) throws UsernameNotFoundException {
+        return usuariosAutenticados.get(email, chave -> {
+            UserDetails usuario = loadUserByUsername(chave);
+            return User.withUsername(usuario.getUsername())
+                    .password("")
+                    .authorities(usuario.getAuthorities())
+                    .build();
+        });
+    }
+
+    /**
+     * Remove um usuário do cache. Dentro de uma transação, a remoção é repetida após o commit,
+     * para que uma requisição concorrente não mantenha em cache o estado anterior.
+     *
+     * @param email Email do usuário.
+     */
+    public void invalidarUsuario(String email) {
+        usuariosAutenticados.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    usuariosAutenticados.invalidate(email);
+                }
+            });
+        }
+    }
 }
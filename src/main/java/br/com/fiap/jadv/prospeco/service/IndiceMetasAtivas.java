@@ -0,0 +1,165 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <h1>IndiceMetasAtivas</h1>
+ * Índice de intervalos das metas em avaliação, separado por usuário, usado para encontrar
+ * as metas cujo período contém a data de uma leitura sem percorrer todas as metas do usuário.
+ *
+ * <p>
+ * As janelas de cada usuário ficam em arrays imutáveis ordenados pela data de início, com o
+ * maior fim visto até cada posição. Uma consulta localiza por busca binária a última janela
+ * iniciada até a data e volta pelas anteriores apenas enquanto o maior fim acumulado ainda
+ * alcança a data, visitando só as janelas candidatas. Alterações substituem os arrays do
+ * usuário (cópia na escrita), de modo que as consultas não precisam de bloqueio.
+ * </p>
+ */
+public final class IndiceMetasAtivas {
+
+    private final ConcurrentMap<Long, JanelasUsuario> porUsuario = new ConcurrentHashMap<>();
+
+    /**
+     * Monta um índice com as janelas informadas.
+     *
+     * @param janelas Janelas das metas em avaliação.
+     * @return Índice carregado.
+     */
+    public static IndiceMetasAtivas de(Collection<Janela> janelas) {
+        IndiceMetasAtivas indice = new IndiceMetasAtivas();
+        Map<Long, List<Janela>> agrupadas = new HashMap<>();
+        for (Janela janela : janelas) {
+            agrupadas.computeIfAbsent(janela.usuarioId(), id -> new ArrayList<>()).add(janela);
+        }
+        agrupadas.forEach((usuarioId, doUsuario) ->
+                indice.porUsuario.put(usuarioId, JanelasUsuario.de(doUsuario.toArray(new Janela[0]))));
+        return indice;
+    }
+
+    /**
+     * Busca as metas de um usuário cujo período contém uma data.
+     *
+     * @param usuarioId ID do usuário.
+     * @param data      Data da leitura.
+     * @return IDs das metas afetadas; vazio se nenhuma meta cobre a data.
+     */
+    public List<Long> metasEm(Long usuarioId, LocalDate data) {
+        JanelasUsuario janelas = porUsuario.get(usuarioId);
+        return janelas == null ? List.of() : janelas.metasEm(data.toEpochDay());
+    }
+
+    /**
+     * Inclui a janela de uma meta, ou substitui a janela de mesma meta.
+     *
+     * @param janela Janela da meta.
+     */
+    public void registrar(Janela janela) {
+        porUsuario.compute(janela.usuarioId(), (id, atuais) -> {
+            List<Janela> novas = new ArrayList<>();
+            if (atuais != null) {
+                for (Janela atual : atuais.janelas) {
+                    if (!atual.metaId().equals(janela.metaId())) {
+                        novas.add(atual);
+                    }
+                }
+            }
+            novas.add(janela);
+            return JanelasUsuario.de(novas.toArray(new Janela[0]));
+        });
+    }
+
+    /**
+     * Remove a janela de uma meta encerrada ou excluída.
+     *
+     * @param usuarioId ID do usuário dono da meta.
+     * @param metaId    ID da meta.
+     */
+    public void remover(Long usuarioId, Long metaId) {
+        porUsuario.computeIfPresent(usuarioId, (id, atuais) -> {
+            Janela[] novas = Arrays.stream(atuais.janelas)
+                    .filter(janela -> !janela.metaId().equals(metaId))
+                    .toArray(Janela[]::new);
+            if (novas.length == atuais.janelas.length) {
+                return atuais;
+            }
+            return novas.length == 0 ? null : JanelasUsuario.de(novas);
+        });
+    }
+
+    /**
+     * @return Quantidade de metas no índice.
+     */
+    public int tamanho() {
+        return porUsuario.values().stream().mapToInt(janelas -> janelas.janelas.length).sum();
+    }
+
+    /**
+     * Janelas de um usuário ordenadas pelo início, com o maior fim acumulado por posição.
+     */
+    private static final class JanelasUsuario {
+
+        private final Janela[] janelas;
+        private final long[] inicios;
+        private final long[] maiorFimAte;
+
+        private JanelasUsuario(Janela[] janelas) {
+            this.janelas = janelas;
+            this.inicios = new long[janelas.length];
+            this.maiorFimAte = new long[janelas.length];
+            long maiorFim = Long.MIN_VALUE;
+            for (int i = 0; i < janelas.length; i++) {
+                inicios[i] = janelas[i].inicio().toEpochDay();
+                maiorFim = Math.max(maiorFim, janelas[i].fim().toEpochDay());
+                maiorFimAte[i] = maiorFim;
+            }
+        }
+
+        static JanelasUsuario de(Janela[] janelas) {
+            Arrays.sort(janelas, Comparator.comparing(Janela::inicio).thenComparing(Janela::metaId));
+            return new JanelasUsuario(janelas);
+        }
+
+        List<Long> metasEm(long dia) {
+            List<Long> metas = null;
+            for (int i = ultimaIniciadaAte(dia); i >= 0 && maiorFimAte[i] >= dia; i--) {
+                if (janelas[i].fim().toEpochDay() >= dia) {
+                    if (metas == null) {
+                        metas = new ArrayList<>(2);
+                    }
+                    metas.add(janelas[i].metaId());
+                }
+            }
+            return metas == null ? List.of() : metas;
+        }
+
+        private int ultimaIniciadaAte(long dia) {
+            int inicio = 0;
+            int fim = inicios.length - 1;
+            int encontrada = -1;
+            while (inicio <= fim) {
+                int meio = (inicio + fim) >>> 1;
+                if (inicios[meio] <= dia) {
+                    encontrada = meio;
+                    inicio = meio + 1;
+                } else {
+                    fim = meio - 1;
+                }
+            }
+            return encontrada;
+        }
+    }
+
+    /**
+     * Período de avaliação de uma meta.
+     *
+     * @param metaId    ID da meta.
+     * @param usuarioId ID do usuário dono da meta.
+     * @param inicio    Data de início da meta.
+     * @param fim       Data de fim da meta (inclusiva).
+     */
+    public record Janela(Long metaId, Long usuarioId, LocalDate inicio, LocalDate fim) {
+    }
+}
@@ -1,136 +1,174 @@
 package br.com.fiap.jadv.prospeco.service;
 
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
 import br.com.fiap.jadv.prospeco.dto.response.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <h1>KafkaConsumerService</h1>
+ * Consome os eventos da aplicação em lotes. Cada listener recebe todas as mensagens de um
+ * poll, confirma o lote inteiro com um único commit de offset e tem a concorrência do seu
+ * tópico configurada em {@code app.kafka.consumer.concorrencia.*} (limitada ao número de
+ * partições do tópico).
+ */
 @Service
 public class KafkaConsumerService {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaConsumerService.class);
 
-    private final ObjectMapper objectMapper;
+    private final SerializacaoEventoService serializacaoEventoService;
+    private final RetentativaEventoService retentativaEventoService;
 
     @Autowired
-    public KafkaConsumerService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public KafkaConsumerService(SerializacaoEventoService serializacaoEventoService,
+                                RetentativaEventoService retentativaEventoService) {
+        this.serializacaoEventoService = serializacaoEventoService;
+        this.retentativaEventoService = retentativaEventoService;
     }
 
     /**
-     * Processa mensagens do tópico de eventos de aparelhos.
+     * Processa lotes de mensagens do tópico de eventos de aparelhos.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.aparelho-events}", groupId = "prospeco-group")
-    public void consumeAparelhoEvent(String message, Acknowledgment ack) {
-        processMessage(message, AparelhoResponseDTO.class, "Aparelho");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.aparelho-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.aparelho:1}")
+    public void consumeAparelhoEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, AparelhoResponseDTO.class, "Aparelho", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de bandeiras tarifárias.
+     * Processa lotes de mensagens do tópico de eventos de bandeiras tarifárias.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.bandeira-tarifaria-events}", groupId = "prospeco-group")
-    public void consumeBandeiraEvent(String message, Acknowledgment ack) {
-        processMessage(message, BandeiraTarifariaResponseDTO.class, "Bandeira Tarifária");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.bandeira-tarifaria-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.bandeira-tarifaria:1}")
+    public void consumeBandeiraEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, BandeiraTarifariaResponseDTO.class, "Bandeira Tarifária", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de conquistas.
+     * Processa lotes de mensagens do tópico de eventos de conquistas.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.conquista-events}", groupId = "prospeco-group")
-    public void consumeConquistaEvent(String message, Acknowledgment ack) {
-        processMessage(message, ConquistaResponseDTO.class, "Conquista");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.conquista-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.conquista:1}")
+    public void consumeConquistaEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, ConquistaResponseDTO.class, "Conquista", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de metas.
+     * Processa lotes de mensagens do tópico de eventos de metas.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.meta-events}", groupId = "prospeco-group")
-    public void consumeMetaEvent(String message, Acknowledgment ack) {
-        processMessage(message, MetaResponseDTO.class, "Meta");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.meta-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.meta:1}")
+    public void consumeMetaEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, MetaResponseDTO.class, "Meta", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de notificações.
+     * Processa lotes de mensagens do tópico de eventos de notificações.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.notificacao-events}", groupId = "prospeco-group")
-    public void consumeNotificacaoEvent(String message, Acknowledgment ack) {
-        processMessage(message, NotificacaoResponseDTO.class, "Notificação");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.notificacao-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.notificacao:1}")
+    public void consumeNotificacaoEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, NotificacaoResponseDTO.class, "Notificação", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de recomendações.
+     * Processa lotes de mensagens do tópico de eventos de recomendações.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.recomendacao-events}", groupId = "prospeco-group")
-    public void consumeRecomendacaoEvent(String message, Acknowledgment ack) {
-        processMessage(message, RecomendacaoResponseDTO.class, "Recomendação");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.recomendacao-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.recomendacao:1}")
+    public void consumeRecomendacaoEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, RecomendacaoResponseDTO.class, "Recomendação", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de registros de consumo.
+     * Processa lotes de mensagens do tópico de eventos de registros de consumo.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.registro-consumo-events}", groupId = "prospeco-group")
-    public void consumeRegistroConsumoEvent(String message, Acknowledgment ack) {
-        processMessage(message, RegistroConsumoResponseDTO.class, "Registro de Consumo");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.registro-consumo-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.registro-consumo:1}")
+    public void consumeRegistroConsumoEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, RegistroConsumoResponseDTO.class, "Registro de Consumo", ack);
     }
 
     /**
-     * Processa mensagens do tópico de eventos de usuários.
+     * Processa lotes de mensagens do tópico de eventos de usuários.
      *
-     * @param message Mensagem recebida do Kafka.
-     * @param ack     Acknowledgment para confirmar o processamento.
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
      */
-    @KafkaListener(topics = "${spring.kafka.topic.usuario-events}", groupId = "prospeco-group")
-    public void consumeUsuarioEvent(String message, Acknowledgment ack) {
-        processMessage(message, UsuarioResponseDTO.class, "Usuário");
-        ack.acknowledge();
+    @KafkaListener(topics = "${spring.kafka.topic.usuario-events}", groupId = "prospeco-group",
+            concurrency = "${app.kafka.consumer.concorrencia.usuario:1}")
+    public void consumeUsuarioEvent(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processBatch(records, UsuarioResponseDTO.class, "Usuário", ack);
     }
 
     /**
-     * Método genérico para processar mensagens de eventos do Kafka.
+     * Método genérico para processar lotes de eventos do Kafka.
+     * As mensagens chegam no envelope {@link EventoDTO}, com o DTO da entidade em {@code dados},
+     * e são lidas pelo {@link SerializacaoEventoService} no formato em que foram produzidas.
      *
-     * @param message   Mensagem em formato JSON.
+     * <p>
+     * Uma mensagem que não pode ser lida é encaminhada ao dead-letter pelo
+     * {@link RetentativaEventoService}, sem interromper o restante do lote, que é confirmado
+     * após a confirmação dos encaminhamentos.
+     * </p>
+     *
+     * @param records   Mensagens serializadas.
      * @param dtoClass  Classe do DTO para desserialização.
      * @param eventName Nome do evento para logging.
+     * @param ack       Acknowledgment para confirmar o processamento do lote.
      * @param <T>       Tipo genérico do DTO.
+     * @return Quantidade de eventos processados com sucesso.
      */
-    private <T> void processMessage(String message, Class<T> dtoClass, String eventName) {
-        try {
-            T dto = objectMapper.readValue(message, dtoClass);
-            logger.info("Evento processado ({}): {}", eventName, dto);
-        } catch (Exception e) {
-            logger.error("Erro ao processar evento ({}): {}", eventName, e.getMessage(), e);
+    <T> int processBatch(List<ConsumerRecord<String, byte[]>> records, Class<T> dtoClass, String eventName,
+                         Acknowledgment ack) {
+        List<CompletableFuture<SendResult<String, byte[]>>> encaminhamentos = new ArrayList<>();
+        int processados = 0;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                EventoDTO<T> evento = serializacaoEventoService.desserializar(record.value(), dtoClass);
+                logger.debug("Evento processado ({} {}, chave {}): {}",
+                        eventName, evento.getTipo(), evento.getChave(), evento.getDados());
+                processados++;
+            } catch (Exception e) {
+                logger.error("Erro ao processar evento ({}): {}", eventName, e.getMessage(), e);
+                encaminhamentos.add(retentativaEventoService.encaminhar(record, e));
+            }
         }
+        retentativaEventoService.aguardarEncaminhamentos(encaminhamentos);
+        ack.acknowledge();
+        logger.info("Lote de eventos processado ({}): {} de {} mensagens", eventName, processados, records.size());
+        return processados;
     }
 }
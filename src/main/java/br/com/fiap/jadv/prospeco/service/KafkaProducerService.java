@@ -1,39 +1,123 @@
 package br.com.fiap.jadv.prospeco.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.model.EventoOutbox;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import br.com.fiap.jadv.prospeco.repository.EventoOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <h1>KafkaProducerService</h1>
+ * Registra os eventos da aplicação no outbox, dentro da transação de quem os produz.
+ * A publicação no Kafka é feita em segundo plano pelo {@link OutboxRelayService},
+ * de modo que o tempo de resposta das requisições não depende do broker e nenhum
+ * evento é publicado para uma alteração desfeita.
+ *
+ * <p>
+ * Cada mensagem é um {@link EventoDTO} com o tipo da alteração, serializado no formato
+ * configurado ({@link SerializacaoEventoService}), e é publicada com a chave do agregado
+ * dono da entidade, preservando a ordem dos eventos de um mesmo agregado.
+ * </p>
+ */
 @Service
 public class KafkaProducerService {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final SerializacaoEventoService serializacaoEventoService;
 
     @Autowired
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+    public KafkaProducerService(EventoOutboxRepository eventoOutboxRepository,
+                                SerializacaoEventoService serializacaoEventoService) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.serializacaoEventoService = serializacaoEventoService;
     }
 
     /**
-     * Envia uma mensagem para um tópico específico no Kafka.
+     * Registra uma mensagem para um tópico específico no Kafka.
      *
      * @param topic   Nome do tópico.
+     * @param key     Identificador do agregado, usado como chave de particionamento.
+     * @param tipo    Tipo da alteração.
      * @param message Objeto a ser enviado.
      */
-    public void sendMessage(String topic, Object message) {
+    @Transactional
+    public void sendMessage(String topic, Long key, TipoEvento tipo, Object message) {
+        sendMessage(topic, key, tipo, message, null);
+    }
+
+    /**
+     * Registra uma mensagem para um tópico específico no Kafka, informando também
+     * o estado anterior da entidade.
+     *
+     * @param topic    Nome do tópico.
+     * @param key      Identificador do agregado, usado como chave de particionamento.
+     * @param tipo     Tipo da alteração.
+     * @param message  Objeto a ser enviado.
+     * @param previous Estado anterior da entidade.
+     */
+    @Transactional
+    public void sendMessage(String topic, Long key, TipoEvento tipo, Object message, Object previous) {
+        EventoOutbox evento = eventoOutboxRepository.save(toEventoOutbox(topic, key, tipo, message, previous));
+        logger.debug("Mensagem registrada para o tópico {} ({} bytes)", topic, evento.getPayload().length);
+    }
+
+    /**
+     * Registra um conjunto de mensagens para um tópico específico no Kafka.
+     * As mensagens são gravadas no outbox em uma única operação e publicadas
+     * na mesma ordem em que foram informadas.
+     *
+     * @param topic    Nome do tópico.
+     * @param tipo     Tipo da alteração.
+     * @param messages Objetos a serem enviados.
+     * @param key      Função que extrai de cada objeto o identificador do agregado.
+     * @param <T>      Tipo dos objetos enviados.
+     */
+    @Transactional
+    public <T> void sendMessages(String topic, TipoEvento tipo, List<T> messages, Function<T, Long> key) {
+        List<EventoOutbox> eventos = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            eventos.add(toEventoOutbox(topic, key.apply(message), tipo, message, null));
+        }
+        eventoOutboxRepository.saveAll(eventos);
+        logger.info("{} mensagens registradas para o tópico {}", eventos.size(), topic);
+    }
+
+    /**
+     * Monta o envelope, serializa e cria o evento do outbox. Uma falha de serialização
+     * interrompe a transação de quem produziu o evento.
+     */
+    private EventoOutbox toEventoOutbox(String topic, Long key, TipoEvento tipo, Object message, Object previous) {
+        String chave = key != null ? key.toString() : null;
+        LocalDateTime agora = LocalDateTime.now();
+        EventoDTO<Object> envelope = EventoDTO.<Object>builder()
+                .tipo(tipo)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave(chave)
+                .ocorridoEm(agora)
+                .dados(message)
+                .anterior(previous)
+                .build();
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            kafkaTemplate.send(topic, jsonMessage);
-            logger.info("Mensagem enviada ao tópico {}: {}", topic, jsonMessage);
-        } catch (Exception e) {
-            logger.error("Erro ao enviar mensagem para o tópico {}: {}", topic, e.getMessage(), e);
+            return EventoOutbox.builder()
+                    .topico(topic)
+                    .chave(chave)
+                    .payload(serializacaoEventoService.serializar(envelope))
+                    .criadoEm(agora)
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao serializar mensagem para o tópico " + topic, e);
         }
     }
 }
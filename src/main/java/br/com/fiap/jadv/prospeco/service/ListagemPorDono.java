@@ -0,0 +1,30 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * <h1>ListagemPorDono</h1>
+ * Verificação comum às listagens dos itens de um usuário ou de um aparelho (por página ou
+ * por cursor). A existência do dono só é consultada quando a página vem vazia: uma página
+ * com itens já prova que ele existe, e a listagem dispensa a consulta extra no caso comum.
+ */
+public final class ListagemPorDono {
+
+    private ListagemPorDono() {
+    }
+
+    /**
+     * Lança {@link ResourceNotFoundException} se a página veio vazia porque o dono não existe.
+     *
+     * @param paginaVazia Indica se a página da listagem veio vazia.
+     * @param donos       Repositório da entidade dona dos itens.
+     * @param donoId      ID do dono.
+     * @param mensagem    Mensagem da exceção.
+     */
+    public static void exigirDono(boolean paginaVazia, CrudRepository<?, Long> donos, Long donoId, String mensagem) {
+        if (paginaVazia && !donos.existsById(donoId)) {
+            throw new ResourceNotFoundException(mensagem);
+        }
+    }
+}
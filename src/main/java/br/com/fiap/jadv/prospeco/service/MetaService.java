@@ -3,15 +3,17 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.MetaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapper;
 import br.com.fiap.jadv.prospeco.model.Meta;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.MetaRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,12 +25,20 @@ public class MetaService {
     private final MetaRepository metaRepository;
     private final UsuarioRepository usuarioRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final MetaMapper metaMapper;
+    private final AvaliacaoMetaService avaliacaoMetaService;
 
     @Autowired
-    public MetaService(MetaRepository metaRepository, UsuarioRepository usuarioRepository, KafkaProducerService kafkaProducerService) {
+    public MetaService(MetaRepository metaRepository,
+                       UsuarioRepository usuarioRepository,
+                       KafkaProducerService kafkaProducerService,
+                       MetaMapper metaMapper,
+                       AvaliacaoMetaService avaliacaoMetaService) {
         this.metaRepository = metaRepository;
         this.usuarioRepository = usuarioRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.metaMapper = metaMapper;
+        this.avaliacaoMetaService = avaliacaoMetaService;
     }
 
     /**
@@ -38,11 +48,9 @@ public class MetaService {
      * @return Lista de MetaResponseDTO.
      */
     public Page<MetaResponseDTO> listarMetasPorUsuario(Long usuarioId, Pageable pageable) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        return metaRepository.findByUsuario(usuario, pageable)
-                .map(this::toResponseDTO);
+        Page<MetaResponseDTO> metas = metaRepository.listarMetasPorUsuario(usuarioId, pageable);
+        ListagemPorDono.exigirDono(metas.isEmpty(), usuarioRepository, usuarioId, "Usuário não encontrado");
+        return metas;
     }
 
     /**
@@ -53,7 +61,7 @@ public class MetaService {
      */
     public Optional<MetaResponseDTO> buscarMetaPorId(Long id) {
         return metaRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(metaMapper::toResponseDTO);
     }
 
     /**
@@ -62,52 +70,47 @@ public class MetaService {
      * @param requestDTO Dados da meta a ser criada.
      * @return MetaResponseDTO com os dados da meta criada.
      */
+    @Transactional
     public MetaResponseDTO criarMeta(MetaRequestDTO requestDTO) {
         Usuario usuario = usuarioRepository.findById(requestDTO.getUsuarioId())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        Meta meta = new Meta();
-        BeanUtils.copyProperties(requestDTO, meta);
+        Meta meta = metaMapper.toEntity(requestDTO);
         meta.setUsuario(usuario);
         meta.setAtingida(false);
 
         Meta novaMeta = metaRepository.save(meta);
+        avaliacaoMetaService.avaliarMeta(novaMeta);
 
         // Enviar evento ao Kafka
-        try {
-            MetaResponseDTO responseDTO = toResponseDTO(novaMeta);
-            kafkaProducerService.sendMessage("meta-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return toResponseDTO(novaMeta);
+        kafkaProducerService.sendMessage("meta-events", novaMeta.getUsuario().getId(),
+                TipoEvento.CRIADO, metaMapper.toResponseDTO(novaMeta));
+
+        return metaMapper.toResponseDTO(novaMeta);
     }
 
     /**
-     * Atualiza os dados de uma meta existente.
+     * Atualiza os dados de uma meta existente. A meta é reavaliada com o novo período e alvo.
      *
      * @param id         ID da meta.
      * @param requestDTO Dados de atualização da meta.
      * @return MetaResponseDTO com os dados atualizados.
      */
+    @Transactional
     public MetaResponseDTO atualizarMeta(Long id, MetaRequestDTO requestDTO) {
         Meta meta = metaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meta não encontrada"));
 
-        BeanUtils.copyProperties(requestDTO, meta, "id", "usuario", "atingida");
+        metaMapper.atualizar(requestDTO, meta);
 
         Meta metaAtualizada = metaRepository.save(meta);
+        avaliacaoMetaService.avaliarMeta(metaAtualizada);
 
         // Enviar evento ao Kafka
-        try {
-            MetaResponseDTO responseDTO = toResponseDTO(metaAtualizada);
-            kafkaProducerService.sendMessage("meta-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return toResponseDTO(metaAtualizada);
+        kafkaProducerService.sendMessage("meta-events", metaAtualizada.getUsuario().getId(),
+                TipoEvento.ATUALIZADO, metaMapper.toResponseDTO(metaAtualizada));
+
+        return metaMapper.toResponseDTO(metaAtualizada);
     }
 
     /**
@@ -115,52 +118,37 @@ public class MetaService {
      *
      * @param id ID da meta.
      */
+    @Transactional
     public void excluirMeta(Long id) {
         Meta meta = metaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meta não encontrada"));
 
         metaRepository.delete(meta);
+        avaliacaoMetaService.removerMeta(meta);
 
         // Enviar evento ao Kafka
-        try {
-            MetaResponseDTO responseDTO = toResponseDTO(meta);
-            kafkaProducerService.sendMessage("meta-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("meta-events", meta.getUsuario().getId(),
+                TipoEvento.EXCLUIDO, metaMapper.toResponseDTO(meta));
     }
 
     /**
-     * Marca uma meta como atingida.
+     * Marca uma meta como atingida, encerrando a sua avaliação automática.
      *
      * @param id ID da meta.
      */
+    @Transactional
     public void marcarMetaComoAtingida(Long id) {
         Meta meta = metaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Meta não encontrada"));
+        MetaResponseDTO anterior = metaMapper.toResponseDTO(meta);
 
         meta.setAtingida(true);
+        meta.setEncerrada(true);
         Meta metaAtingida = metaRepository.save(meta);
+        avaliacaoMetaService.removerMeta(metaAtingida);
 
         // Enviar evento ao Kafka
-        try {
-            MetaResponseDTO responseDTO = toResponseDTO(metaAtingida);
-            kafkaProducerService.sendMessage("meta-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Converte uma entidade Meta para MetaResponseDTO.
-     *
-     * @param meta Entidade a ser convertida.
-     * @return MetaResponseDTO correspondente.
-     */
-    private MetaResponseDTO toResponseDTO(Meta meta) {
-        MetaResponseDTO responseDTO = new MetaResponseDTO();
-        BeanUtils.copyProperties(meta, responseDTO);
-        responseDTO.setUsuarioId(meta.getUsuario().getId());
-        return responseDTO;
+        kafkaProducerService.sendMessage("meta-events", metaAtingida.getUsuario().getId(),
+                TipoEvento.ATUALIZADO, metaMapper.toResponseDTO(metaAtingida), anterior);
     }
 }
@@ -0,0 +1,352 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.repository.CheckpointConquistaRepository;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.EstadoConquistaRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * <h1>MotorConquistasService</h1>
+ * Concede conquistas automaticamente a partir dos eventos de {@code registro-consumo-events}
+ * e {@code meta-events}. Cada evento atualiza as métricas do usuário ({@link MetricaConquista})
+ * e as regras do {@link CatalogoRegrasConquista} cujo limite é alcançado geram uma
+ * {@link br.com.fiap.jadv.prospeco.model.Conquista} e somam pontos à pontuação de economia.
+ *
+ * <p>
+ * As métricas são mantidas de forma incremental em um {@link EstadoConquista} por usuário,
+ * com apenas o dia e o mês em andamento: um dia é avaliado contra o alvo diário da meta
+ * vigente quando chega a primeira leitura do dia seguinte, e um mês é comparado com o
+ * anterior quando chega a primeira leitura do mês seguinte. Dias sem leitura interrompem a
+ * sequência e leituras de dias já avaliados não a alteram.
+ * </p>
+ *
+ * <p>
+ * Os eventos de consumo são particionados por aparelho, de modo que as leituras de um mesmo
+ * usuário chegam por partições e consumidores diferentes. Por isso o consumo de cada dia e
+ * mês encerrado é lido dos agregados diários e mensais do usuário
+ * ({@link ConsumoAgregadoRepository}), que somam as leituras já gravadas de todos os
+ * aparelhos, e não de acumulados montados a partir dos eventos de uma única partição.
+ * </p>
+ *
+ * <p>
+ * Os eventos são consumidos por um grupo compartilhado entre as instâncias. Cada lote é
+ * aplicado em uma transação que grava também o próximo offset de cada partição
+ * ({@link CheckpointConquista}); mensagens reentregues após uma falha ou reinício, com offset
+ * anterior ao checkpoint, são descartadas sem reaplicação e sem leitura do histórico.
+ * </p>
+ */
+@Service
+public class MotorConquistasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorConquistasService.class);
+
+    private final EstadoConquistaRepository estadoConquistaRepository;
+    private final CheckpointConquistaRepository checkpointConquistaRepository;
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final CatalogoRegrasConquista catalogoRegrasConquista;
+    private final ConquistaService conquistaService;
+    private final SerializacaoEventoService serializacaoEventoService;
+    private final RetentativaEventoService retentativaEventoService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate transacaoIsolada;
+
+    @Autowired
+    public MotorConquistasService(EstadoConquistaRepository estadoConquistaRepository,
+                                  CheckpointConquistaRepository checkpointConquistaRepository,
+                                  ConsumoAgregadoRepository consumoAgregadoRepository,
+                                  CatalogoRegrasConquista catalogoRegrasConquista,
+                                  ConquistaService conquistaService,
+                                  SerializacaoEventoService serializacaoEventoService,
+                                  RetentativaEventoService retentativaEventoService,
+                                  PlatformTransactionManager transactionManager) {
+        this.estadoConquistaRepository = estadoConquistaRepository;
+        this.checkpointConquistaRepository = checkpointConquistaRepository;
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.catalogoRegrasConquista = catalogoRegrasConquista;
+        this.conquistaService = conquistaService;
+        this.serializacaoEventoService = serializacaoEventoService;
+        this.retentativaEventoService = retentativaEventoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transacaoIsolada = new TransactionTemplate(transactionManager);
+        this.transacaoIsolada.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Avalia as regras de conquista sobre as leituras incluídas, alteradas e excluídas.
+     *
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
+     */
+    @KafkaListener(topics = "${spring.kafka.topic.registro-consumo-events}", groupId = "prospeco-conquistas",
+            concurrency = "${app.kafka.consumer.concorrencia.registro-consumo:1}")
+    public void consumirEventosConsumo(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processarLote(records, RegistroConsumoResponseDTO.class, RegistroConsumoResponseDTO::getUsuarioId,
+                this::aplicarEventoConsumo);
+        ack.acknowledge();
+    }
+
+    /**
+     * Avalia as regras de conquista sobre as metas criadas, alteradas, atingidas e excluídas.
+     *
+     * @param records Mensagens recebidas do Kafka em um mesmo poll.
+     * @param ack     Acknowledgment para confirmar o processamento do lote.
+     */
+    @KafkaListener(topics = "${spring.kafka.topic.meta-events}", groupId = "prospeco-conquistas",
+            concurrency = "${app.kafka.consumer.concorrencia.meta:1}")
+    public void consumirEventosMeta(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        processarLote(records, MetaResponseDTO.class, MetaResponseDTO::getUsuarioId, this::aplicarEventoMeta);
+        ack.acknowledge();
+    }
+
+    /**
+     * Aplica as mensagens ainda não aplicadas do lote, em uma única transação com os checkpoints.
+     * As mensagens ilegíveis são encaminhadas ao dead-letter, e a transação só é confirmada depois
+     * dos encaminhamentos.
+     */
+    private <T> void processarLote(List<ConsumerRecord<String, byte[]>> records, Class<T> tipo,
+                                   Function<T, Long> usuarioDe, AplicacaoEvento<T> aplicacao) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, CheckpointConquista> checkpoints = carregarCheckpoints(records);
+            List<EventoDTO<T>> eventos = new ArrayList<>(records.size());
+            List<CompletableFuture<SendResult<String, byte[]>>> encaminhamentos = new ArrayList<>();
+            for (ConsumerRecord<String, byte[]> record : records) {
+                CheckpointConquista checkpoint = checkpoints.get(particao(record));
+                if (record.offset() < checkpoint.getProximoOffset()) {
+                    continue;
+                }
+                checkpoint.setProximoOffset(record.offset() + 1);
+                try {
+                    EventoDTO<T> evento = serializacaoEventoService.desserializar(record.value(), tipo);
+                    if (evento.getDados() != null && usuarioDe.apply(evento.getDados()) != null) {
+                        eventos.add(evento);
+                    }
+                } catch (Exception e) {
+                    logger.warn("Evento ilegível no motor de conquistas ({}@{}): {}",
+                            particao(record), record.offset(), e.getMessage());
+                    encaminhamentos.add(retentativaEventoService.encaminhar(record, e));
+                }
+            }
+
+            if (!eventos.isEmpty()) {
+                Map<Long, EstadoConquista> estados = carregarEstados(
+                        eventos.stream().map(evento -> usuarioDe.apply(evento.getDados())).toList());
+                for (EventoDTO<T> evento : eventos) {
+                    EstadoConquista estado = estados.get(usuarioDe.apply(evento.getDados()));
+                    List<Observacao> observacoes = new ArrayList<>(2);
+                    aplicacao.aplicar(estado, evento, observacoes);
+                    concederRegras(estado.getUsuarioId(), observacoes);
+                }
+                estadoConquistaRepository.saveAll(estados.values());
+            }
+            checkpointConquistaRepository.saveAll(checkpoints.values());
+            retentativaEventoService.aguardarEncaminhamentos(encaminhamentos);
+        });
+    }
+
+    /**
+     * Encerra o dia e o mês anteriores à leitura incluída ou alterada. O consumo da leitura já
+     * está nos agregados; alterações e exclusões em períodos ainda em andamento entram na
+     * avaliação quando o período é encerrado.
+     */
+    private void aplicarEventoConsumo(EstadoConquista estado, EventoDTO<RegistroConsumoResponseDTO> evento,
+                                      List<Observacao> observacoes) {
+        if (evento.getTipo() == TipoEvento.EXCLUIDO) {
+            return;
+        }
+        LocalDate data = evento.getDados().getDataHora().toLocalDate();
+        avancarDia(estado, data, observacoes);
+        avancarMes(estado, data.withDayOfMonth(1), observacoes);
+    }
+
+    private void aplicarEventoMeta(EstadoConquista estado, EventoDTO<MetaResponseDTO> evento,
+                                   List<Observacao> observacoes) {
+        MetaResponseDTO meta = evento.getDados();
+        MetaResponseDTO anterior = evento.getAnterior();
+        if (Boolean.TRUE.equals(meta.getAtingida()) && anterior != null && !Boolean.TRUE.equals(anterior.getAtingida())) {
+            int metasAtingidas = estado.getMetasAtingidas();
+            estado.setMetasAtingidas(metasAtingidas + 1);
+            observacoes.add(new Observacao(MetricaConquista.METAS_ATINGIDAS, metasAtingidas, metasAtingidas + 1));
+        }
+
+        boolean vigente = meta.getId().equals(estado.getMetaId());
+        if (evento.getTipo() == TipoEvento.EXCLUIDO) {
+            if (vigente) {
+                definirMeta(estado, null, null, null, null);
+            }
+        } else if (vigente || !Boolean.TRUE.equals(meta.getEncerrada())) {
+            // A meta encerrada continua como referência do alvo diário até o fim do seu período
+            long dias = ChronoUnit.DAYS.between(meta.getDataInicio(), meta.getDataFim()) + 1;
+            definirMeta(estado, meta.getId(), meta.getConsumoAlvo() / dias, meta.getDataInicio(), meta.getDataFim());
+        }
+    }
+
+    /**
+     * Avalia os dias desde o dia em andamento até a véspera da data, pelos agregados diários.
+     */
+    private void avancarDia(EstadoConquista estado, LocalDate data, List<Observacao> observacoes) {
+        LocalDate diaAtual = estado.getDiaAtual();
+        if (diaAtual != null && !data.isAfter(diaAtual)) {
+            return;
+        }
+        if (diaAtual != null) {
+            int sequencia = estado.getSequenciaDiasAbaixoDaMeta();
+            LocalDate proximoDia = diaAtual;
+            for (Map.Entry<LocalDate, Double> dia : consumoPorPeriodo(estado.getUsuarioId(),
+                    GranularidadeAgregacao.DIA, diaAtual, data).entrySet()) {
+                // Dias sem nenhuma leitura interrompem a sequência
+                int sequenciaAnterior = dia.getKey().isAfter(proximoDia) ? 0 : sequencia;
+                Double alvoDiario = estado.alvoDiarioEm(dia.getKey());
+                sequencia = alvoDiario != null && dia.getValue() <= alvoDiario ? sequenciaAnterior + 1 : 0;
+                observacoes.add(new Observacao(MetricaConquista.SEQUENCIA_DIAS_ABAIXO_DA_META, sequenciaAnterior, sequencia));
+                proximoDia = dia.getKey().plusDays(1);
+            }
+            estado.setSequenciaDiasAbaixoDaMeta(data.isAfter(proximoDia) ? 0 : sequencia);
+        }
+        estado.setDiaAtual(data);
+    }
+
+    /**
+     * Compara cada mês desde o mês em andamento até o anterior ao informado com o mês que o
+     * precede, pelos agregados mensais.
+     */
+    private void avancarMes(EstadoConquista estado, LocalDate mes, List<Observacao> observacoes) {
+        LocalDate mesAtual = estado.getMesAtual();
+        if (mesAtual != null && !mes.isAfter(mesAtual)) {
+            return;
+        }
+        if (mesAtual != null) {
+            Map<LocalDate, Double> consumoPorMes = consumoPorPeriodo(estado.getUsuarioId(),
+                    GranularidadeAgregacao.MES, mesAtual.minusMonths(1), mes);
+            for (LocalDate encerrado = mesAtual; encerrado.isBefore(mes); encerrado = encerrado.plusMonths(1)) {
+                // Um mês sem leituras deixa o mês seguinte sem referência de comparação
+                Double consumoMesAnterior = consumoPorMes.get(encerrado.minusMonths(1));
+                Double consumo = consumoPorMes.get(encerrado);
+                if (consumo != null && consumoMesAnterior != null && consumoMesAnterior > 0) {
+                    double reducao = (consumoMesAnterior - consumo) / consumoMesAnterior * 100;
+                    observacoes.add(new Observacao(MetricaConquista.REDUCAO_CONSUMO_MENSAL, Double.NEGATIVE_INFINITY, reducao));
+                }
+            }
+        }
+        estado.setMesAtual(mes);
+    }
+
+    /**
+     * Lê o consumo do usuário por período dos agregados, no intervalo [inicio, fim).
+     *
+     * @return Consumo por data de início do período, em ordem cronológica.
+     */
+    private Map<LocalDate, Double> consumoPorPeriodo(Long usuarioId, GranularidadeAgregacao granularidade,
+                                                     LocalDate inicio, LocalDate fim) {
+        Map<LocalDate, Double> consumo = new TreeMap<>();
+        for (ConsumoAgregado periodo : consumoAgregadoRepository.buscarPeriodos(EscopoAgregacao.USUARIO, usuarioId,
+                granularidade, inicio.atStartOfDay(), fim.atStartOfDay())) {
+            consumo.put(periodo.getInicioPeriodo().toLocalDate(), periodo.getConsumoTotal());
+        }
+        return consumo;
+    }
+
+    private void definirMeta(EstadoConquista estado, Long metaId, Double alvoDiario, LocalDate inicio, LocalDate fim) {
+        estado.setMetaId(metaId);
+        estado.setAlvoDiario(alvoDiario);
+        estado.setInicioMeta(inicio);
+        estado.setFimMeta(fim);
+    }
+
+    private void concederRegras(Long usuarioId, List<Observacao> observacoes) {
+        for (Observacao observacao : observacoes) {
+            for (CatalogoRegrasConquista.Regra regra : catalogoRegrasConquista.regrasDa(observacao.metrica())) {
+                if (regra.alcancadaPor(observacao.anterior(), observacao.atual())) {
+                    conquistaService.concederConquista(usuarioId, regra);
+                }
+            }
+        }
+    }
+
+    private Map<String, CheckpointConquista> carregarCheckpoints(List<ConsumerRecord<String, byte[]>> records) {
+        Set<String> particoes = new TreeSet<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            particoes.add(particao(record));
+        }
+        Map<String, CheckpointConquista> checkpoints = new HashMap<>();
+        for (CheckpointConquista checkpoint : checkpointConquistaRepository.buscarParaAtualizacao(particoes)) {
+            checkpoints.put(checkpoint.getParticao(), checkpoint);
+        }
+        for (String particao : particoes) {
+            checkpoints.computeIfAbsent(particao, chave -> new CheckpointConquista(chave, 0L));
+        }
+        return checkpoints;
+    }
+
+    private Map<Long, EstadoConquista> carregarEstados(Collection<Long> usuarioIds) {
+        Set<Long> ids = new TreeSet<>(usuarioIds);
+        List<EstadoConquista> existentes = estadoConquistaRepository.buscarParaAtualizacao(ids);
+        if (existentes.size() < ids.size()) {
+            Set<Long> ausentes = new TreeSet<>(ids);
+            existentes.forEach(estado -> ausentes.remove(estado.getUsuarioId()));
+            ausentes.forEach(this::criarEstado);
+            existentes = estadoConquistaRepository.buscarParaAtualizacao(ids);
+        }
+        Map<Long, EstadoConquista> estados = new HashMap<>();
+        for (EstadoConquista estado : existentes) {
+            estados.put(estado.getUsuarioId(), estado);
+        }
+        return estados;
+    }
+
+    /**
+     * Cria o estado vazio de um usuário em uma transação própria. Consumidores de partições
+     * diferentes podem criar o mesmo estado ao mesmo tempo: a chave primária mantém apenas um,
+     * e os demais seguem com o estado criado, bloqueado em seguida.
+     */
+    private void criarEstado(Long usuarioId) {
+        try {
+            transacaoIsolada.executeWithoutResult(status -> estadoConquistaRepository.saveAndFlush(
+                    EstadoConquista.builder().usuarioId(usuarioId).build()));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Estado de conquistas do usuário {} criado por outro consumidor", usuarioId);
+        }
+    }
+
+    private static String particao(ConsumerRecord<String, byte[]> record) {
+        return record.topic() + "-" + record.partition();
+    }
+
+    /**
+     * Atualização das métricas de um usuário por um evento.
+     */
+    @FunctionalInterface
+    private interface AplicacaoEvento<T> {
+        void aplicar(EstadoConquista estado, EventoDTO<T> evento, List<Observacao> observacoes);
+    }
+
+    /**
+     * Variação de uma métrica causada por um evento.
+     *
+     * @param metrica  Métrica alterada.
+     * @param anterior Valor antes do evento.
+     * @param atual    Valor após o evento.
+     */
+    private record Observacao(MetricaConquista metrica, double anterior, double atual) {
+    }
+}
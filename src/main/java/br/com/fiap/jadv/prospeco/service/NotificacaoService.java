@@ -1,17 +1,20 @@
 package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.dto.request.NotificacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.NotificacaoMapper;
 import br.com.fiap.jadv.prospeco.model.Notificacao;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.NotificacaoRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,14 +27,17 @@ public class NotificacaoService {
     private final NotificacaoRepository notificacaoRepository;
     private final UsuarioRepository usuarioRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final NotificacaoMapper notificacaoMapper;
 
     @Autowired
     public NotificacaoService(NotificacaoRepository notificacaoRepository,
                               UsuarioRepository usuarioRepository,
-                              KafkaProducerService kafkaProducerService) {
+                              KafkaProducerService kafkaProducerService,
+                              NotificacaoMapper notificacaoMapper) {
         this.notificacaoRepository = notificacaoRepository;
         this.usuarioRepository = usuarioRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.notificacaoMapper = notificacaoMapper;
     }
 
     /**
@@ -41,11 +47,32 @@ public class NotificacaoService {
      * @return Lista de NotificacaoResponseDTO.
      */
     public Page<NotificacaoResponseDTO> listarNotificacoesPorUsuario(Long usuarioId, Pageable pageable) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        Page<NotificacaoResponseDTO> notificacoes = notificacaoRepository.listarNotificacoesPorUsuario(usuarioId, pageable);
+        ListagemPorDono.exigirDono(notificacoes.isEmpty(), usuarioRepository, usuarioId, "Usuário não encontrado");
+        return notificacoes;
+    }
 
-        return notificacaoRepository.findByUsuarioOrderByDataHoraDesc(usuario, pageable)
-                .map(this::toResponseDTO);
+    /**
+     * Lista as notificações de um usuário por cursor, do mais recente para o mais antigo, sem contar
+     * o total de linhas.
+     *
+     * @param usuarioId ID do usuário.
+     * @param cursor    Cursor retornado na página anterior, ou null para a primeira página.
+     * @param limite    Quantidade de itens da página.
+     * @return Página com o cursor da próxima página, se houver.
+     */
+    public PaginaCursorResponseDTO<NotificacaoResponseDTO> listarNotificacoesPorUsuarioCursor(Long usuarioId, String cursor, int limite) {
+        Pageable consulta = CursorPaginacao.consulta(limite);
+        List<NotificacaoResponseDTO> notificacoes;
+        if (cursor == null) {
+            notificacoes = notificacaoRepository.listarNotificacoesRecentes(usuarioId, consulta);
+            ListagemPorDono.exigirDono(notificacoes.isEmpty(), usuarioRepository, usuarioId, "Usuário não encontrado");
+        } else {
+            CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+            notificacoes = notificacaoRepository.listarNotificacoesAnteriores(usuarioId, posicao.getDataHora(), posicao.getId(), consulta);
+        }
+        return CursorPaginacao.pagina(notificacoes, limite,
+                item -> new CursorPaginacao(item.getDataHora(), item.getId()));
     }
 
     /**
@@ -56,7 +83,7 @@ public class NotificacaoService {
      */
     public Optional<NotificacaoResponseDTO> buscarNotificacaoPorId(Long id) {
         return notificacaoRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(notificacaoMapper::toResponseDTO);
     }
 
     /**
@@ -65,12 +92,12 @@ public class NotificacaoService {
      * @param requestDTO Dados da notificação.
      * @return NotificacaoResponseDTO com os dados da notificação criada.
      */
+    @Transactional
     public NotificacaoResponseDTO criarNotificacao(NotificacaoRequestDTO requestDTO) {
         Usuario usuario = usuarioRepository.findById(requestDTO.getUsuarioId())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        Notificacao notificacao = new Notificacao();
-        BeanUtils.copyProperties(requestDTO, notificacao);
+        Notificacao notificacao = notificacaoMapper.toEntity(requestDTO);
         notificacao.setUsuario(usuario);
         notificacao.setDataHora(LocalDateTime.now());
         notificacao.setLida(false);
@@ -78,14 +105,10 @@ public class NotificacaoService {
         Notificacao novaNotificacao = notificacaoRepository.save(notificacao);
 
         // Enviar evento ao Kafka
-        try {
-            NotificacaoResponseDTO responseDTO = toResponseDTO(novaNotificacao);
-            kafkaProducerService.sendMessage("notificacao-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("notificacao-events", novaNotificacao.getUsuario().getId(),
+                TipoEvento.CRIADO, notificacaoMapper.toResponseDTO(novaNotificacao));
 
-        return toResponseDTO(novaNotificacao);
+        return notificacaoMapper.toResponseDTO(novaNotificacao);
     }
 
     /**
@@ -93,6 +116,7 @@ public class NotificacaoService {
      *
      * @param id ID da notificação.
      */
+    @Transactional
     public void marcarNotificacaoComoLida(Long id) {
         Notificacao notificacao = notificacaoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Notificação não encontrada"));
@@ -101,12 +125,8 @@ public class NotificacaoService {
         Notificacao notificacaoLida = notificacaoRepository.save(notificacao);
 
         // Enviar evento ao Kafka
-        try {
-            NotificacaoResponseDTO responseDTO = toResponseDTO(notificacaoLida);
-            kafkaProducerService.sendMessage("notificacao-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("notificacao-events", notificacaoLida.getUsuario().getId(),
+                TipoEvento.ATUALIZADO, notificacaoMapper.toResponseDTO(notificacaoLida));
     }
 
     /**
@@ -114,6 +134,7 @@ public class NotificacaoService {
      *
      * @param id ID da notificação.
      */
+    @Transactional
     public void excluirNotificacao(Long id) {
         Notificacao notificacao = notificacaoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Notificação não encontrada"));
@@ -121,12 +142,8 @@ public class NotificacaoService {
         notificacaoRepository.delete(notificacao);
 
         // Enviar evento ao Kafka
-        try {
-            NotificacaoResponseDTO responseDTO = toResponseDTO(notificacao);
-            kafkaProducerService.sendMessage("notificacao-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("notificacao-events", notificacao.getUsuario().getId(),
+                TipoEvento.EXCLUIDO, notificacaoMapper.toResponseDTO(notificacao));
     }
 
     /**
@@ -141,17 +158,4 @@ public class NotificacaoService {
 
         return notificacaoRepository.countByUsuarioAndLida(usuario, false);
     }
-
-    /**
-     * Converte uma entidade Notificacao para NotificacaoResponseDTO.
-     *
-     * @param notificacao Entidade a ser convertida.
-     * @return NotificacaoResponseDTO correspondente.
-     */
-    private NotificacaoResponseDTO toResponseDTO(Notificacao notificacao) {
-        NotificacaoResponseDTO responseDTO = new NotificacaoResponseDTO();
-        BeanUtils.copyProperties(notificacao, responseDTO);
-        responseDTO.setUsuarioId(notificacao.getUsuario().getId());
-        return responseDTO;
-    }
 }
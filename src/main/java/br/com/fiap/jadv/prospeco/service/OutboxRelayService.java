@@ -0,0 +1,112 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.EventoOutbox;
+import br.com.fiap.jadv.prospeco.repository.EventoOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>OutboxRelayService</h1>
+ * Publica no Kafka, em segundo plano, os eventos registrados no outbox.
+ *
+ * <p>
+ * Cada lote é lido em ordem de registro e com bloqueio de escrita, enviado ao produtor
+ * de uma vez (que o agrupa conforme batch-size e linger.ms) com a chave do agregado,
+ * que determina a partição, e removido apenas após a confirmação do broker. Todos os
+ * eventos confirmados são removidos, mesmo os que vêm depois de um envio que falhou, pois
+ * já estão no broker e seriam duplicados se ficassem no outbox; apenas os que falharam são
+ * reenviados na próxima execução. Com o produtor idempotente, a falha de um envio costuma
+ * derrubar também os seguintes da mesma partição, de modo que raramente um evento
+ * reenviado chega depois de um posterior do mesmo agregado.
+ * </p>
+ */
+@Service
+public class OutboxRelayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.relay.tamanho-lote:500}")
+    private int tamanhoLote = 500;
+
+    @Value("${app.outbox.relay.timeout-envio-ms:10000}")
+    private long timeoutEnvioMs = 10000;
+
+    @Autowired
+    public OutboxRelayService(EventoOutboxRepository eventoOutboxRepository,
+                              KafkaTemplate<String, byte[]> kafkaTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Drena o outbox periodicamente. Enquanto houver lotes completos, continua publicando
+     * sem esperar o próximo ciclo; cada lote é confirmado em sua própria transação.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.intervalo-ms:500}")
+    public void retransmitirPendentes() {
+        int publicados;
+        do {
+            publicados = transactionTemplate.execute(status -> publicarLote());
+        } while (publicados == tamanhoLote);
+    }
+
+    /**
+     * Publica um lote de eventos pendentes e remove os que foram confirmados pelo broker.
+     *
+     * @return Quantidade de eventos publicados.
+     */
+    int publicarLote() {
+        List<EventoOutbox> eventos = eventoOutboxRepository.buscarPendentes(PageRequest.of(0, tamanhoLote));
+        if (eventos.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, byte[]>>> envios = new ArrayList<>(eventos.size());
+        for (EventoOutbox evento : eventos) {
+            envios.add(kafkaTemplate.send(evento.getTopico(), evento.getChave(), evento.getPayload()));
+        }
+
+        // O timeout vale para o lote inteiro, e não para cada envio
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutEnvioMs);
+        List<Long> publicados = new ArrayList<>(eventos.size());
+        for (int i = 0; i < eventos.size(); i++) {
+            EventoOutbox evento = eventos.get(i);
+            try {
+                envios.get(i).get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publicados.add(evento.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Erro ao publicar evento {} do outbox no tópico {}: {}",
+                        evento.getId(), evento.getTopico(), e.getMessage(), e);
+            }
+        }
+
+        if (!publicados.isEmpty()) {
+            eventoOutboxRepository.deleteAllByIdInBatch(publicados);
+        }
+        logger.debug("{} de {} eventos do outbox publicados", publicados.size(), eventos.size());
+        return publicados.size();
+    }
+}
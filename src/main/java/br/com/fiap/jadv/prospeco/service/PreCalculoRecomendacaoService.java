@@ -0,0 +1,412 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.ExecucaoPreCalculoRecomendacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.PendenciaPreCalculoRecomendacao;
+import br.com.fiap.jadv.prospeco.model.Recomendacao;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAparelhoProjecao;
+import br.com.fiap.jadv.prospeco.repository.ExecucaoPreCalculoRecomendacaoRepository;
+import br.com.fiap.jadv.prospeco.repository.PendenciaPreCalculoRecomendacaoRepository;
+import br.com.fiap.jadv.prospeco.repository.RecomendacaoRepository;
+import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoRecomendacao;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <h1>PreCalculoRecomendacaoService</h1>
+ * Gera de madrugada uma recomendação para cada usuário, sobre o aparelho que mais consumiu nos
+ * últimos dias, para que a página de recomendações mostre resultados prontos em vez de esperar
+ * pelo modelo de linguagem.
+ *
+ * <p>
+ * Os usuários são percorridos em lotes por ID. O aparelho de maior consumo vem dos agregados
+ * diários, sem percorrer as leituras; os prompts repetidos no lote (aparelhos com o mesmo nome
+ * normalizado) são gerados uma única vez, e entre lotes e execuções o
+ * {@link CacheRecomendacaoService} reaproveita os já gerados. As gerações rodam em paralelo,
+ * limitadas por {@code app.recomendacao.pre-calculo.paralelismo} e por
+ * {@code app.recomendacao.pre-calculo.chamadas-por-minuto}.
+ * </p>
+ *
+ * <p>
+ * Antes de chamar o modelo, cada instância reserva o próximo lote: sob o bloqueio da
+ * {@link ExecucaoPreCalculoRecomendacao}, avança o último usuário processado e registra os usuários
+ * do lote como {@link PendenciaPreCalculoRecomendacao}, de modo que instâncias diferentes geram
+ * lotes diferentes. As recomendações do lote são inseridas em batches JDBC na mesma transação que
+ * exclui as pendências atendidas. Os usuários cuja geração falhou voltam a ficar livres, e os de
+ * uma instância que parou antes de gravar são liberados quando a reserva
+ * ({@code app.recomendacao.pre-calculo.reserva}) expira; depois do último lote, esses usuários são
+ * tentados de novo, até {@code app.recomendacao.pre-calculo.max-tentativas} falhas cada, antes de a
+ * execução ser concluída. Uma execução interrompida é retomada após
+ * {@code app.recomendacao.pre-calculo.espera-retomada} e, se a instância parar, no início da aplicação.
+ * </p>
+ */
+@Service
+public class PreCalculoRecomendacaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreCalculoRecomendacaoService.class);
+
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final RecomendacaoRepository recomendacaoRepository;
+    private final ExecucaoPreCalculoRecomendacaoRepository execucaoRepository;
+    private final PendenciaPreCalculoRecomendacaoRepository pendenciaRepository;
+    private final RecomendacaoService recomendacaoService;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService coordenador;
+    private final ExecutorService executor;
+    private final LimitadorChamadas limitador;
+    private final int janelaDias;
+    private final int tamanhoLote;
+    private final Duration reserva;
+    private final int maxTentativas;
+    private final Duration esperaRetomada;
+
+    @Autowired
+    public PreCalculoRecomendacaoService(ConsumoAgregadoRepository consumoAgregadoRepository,
+                                         UsuarioRepository usuarioRepository,
+                                         RecomendacaoRepository recomendacaoRepository,
+                                         ExecucaoPreCalculoRecomendacaoRepository execucaoRepository,
+                                         PendenciaPreCalculoRecomendacaoRepository pendenciaRepository,
+                                         RecomendacaoService recomendacaoService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${app.recomendacao.pre-calculo.janela-dias:7}") int janelaDias,
+                                         @Value("${app.recomendacao.pre-calculo.tamanho-lote:200}") int tamanhoLote,
+                                         @Value("${app.recomendacao.pre-calculo.paralelismo:4}") int paralelismo,
+                                         @Value("${app.recomendacao.pre-calculo.chamadas-por-minuto:60}") int chamadasPorMinuto,
+                                         @Value("${app.recomendacao.pre-calculo.reserva:PT30M}") Duration reserva,
+                                         @Value("${app.recomendacao.pre-calculo.max-tentativas:3}") int maxTentativas,
+                                         @Value("${app.recomendacao.pre-calculo.espera-retomada:PT15M}") Duration esperaRetomada) {
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.recomendacaoRepository = recomendacaoRepository;
+        this.execucaoRepository = execucaoRepository;
+        this.pendenciaRepository = pendenciaRepository;
+        this.recomendacaoService = recomendacaoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coordenador = Executors.newSingleThreadScheduledExecutor(tarefa -> new Thread(tarefa, "pre-calculo-recomendacao"));
+        this.executor = Executors.newFixedThreadPool(paralelismo);
+        this.limitador = new LimitadorChamadas(chamadasPorMinuto);
+        this.janelaDias = janelaDias;
+        this.tamanhoLote = tamanhoLote;
+        this.reserva = reserva;
+        this.maxTentativas = maxTentativas;
+        this.esperaRetomada = esperaRetomada;
+    }
+
+    /**
+     * Agenda a execução do dia. As execuções rodam uma de cada vez, fora da thread do agendador.
+     */
+    @Scheduled(cron = "${app.recomendacao.pre-calculo.cron:0 0 3 * * *}")
+    public void agendarExecucao() {
+        LocalDate hoje = LocalDate.now();
+        coordenador.submit(() -> executarRegistrandoFalha(hoje));
+    }
+
+    /**
+     * Retoma, no início da aplicação, a execução mais recente que não foi concluída.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarExecucaoInterrompida() {
+        execucaoRepository.findFirstByConcluidaFalseOrderByDataReferenciaDesc().ifPresent(execucao -> {
+            logger.info("Retomando o pré-cálculo de recomendações de {} após o usuário {}",
+                    execucao.getDataReferencia(), execucao.getUltimoUsuarioId());
+            coordenador.submit(() -> executarRegistrandoFalha(execucao.getDataReferencia()));
+        });
+    }
+
+    /**
+     * Executa (ou retoma) o pré-cálculo de uma data, com o consumo dos dias anteriores a ela.
+     *
+     * @param dataReferencia Data da execução.
+     * @return Quantidade de recomendações gravadas por esta chamada.
+     */
+    public int executar(LocalDate dataReferencia) {
+        iniciarExecucao(dataReferencia);
+        LocalDateTime fim = dataReferencia.atStartOfDay();
+        LocalDateTime inicio = fim.minusDays(janelaDias);
+
+        int gravadas = 0;
+        while (true) {
+            Reserva lote = transactionTemplate.execute(status -> reservarLote(dataReferencia));
+            if (lote.usuarioIds().isEmpty()) {
+                // Execução concluída, ou os usuários restantes estão reservados por outra instância
+                break;
+            }
+            Geracao geracao = gerarLote(lote.usuarioIds(), inicio, fim);
+            gravadas += transactionTemplate.execute(status -> gravarLote(dataReferencia, lote, geracao));
+            if (geracao.modeloIndisponivel()) {
+                // Sem nenhuma geração no lote, o modelo está indisponível: a execução para e é retomada depois
+                throw new IllegalStateException("Nenhuma recomendação gerada no lote de usuários a partir do ID "
+                        + lote.usuarioIds().get(0));
+            }
+        }
+
+        logger.info("Pré-cálculo de recomendações de {} concluído: {} recomendações nesta instância",
+                dataReferencia, gravadas);
+        return gravadas;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        coordenador.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Executa o pré-cálculo e, se ele for interrompido (por exemplo, com o modelo indisponível),
+     * agenda a retomada após {@code app.recomendacao.pre-calculo.espera-retomada}. A retomada é
+     * abandonada quando a execução de uma data posterior já começou, pois ela gera recomendações
+     * mais recentes para os mesmos usuários.
+     */
+    private void executarRegistrandoFalha(LocalDate dataReferencia) {
+        if (execucaoRepository.existsByDataReferenciaAfter(dataReferencia)) {
+            logger.info("Pré-cálculo de recomendações de {} substituído por uma execução posterior", dataReferencia);
+            return;
+        }
+        try {
+            executar(dataReferencia);
+        } catch (RuntimeException e) {
+            logger.error("Pré-cálculo de recomendações de {} interrompido; será retomado em {}",
+                    dataReferencia, esperaRetomada, e);
+            coordenador.schedule(() -> executarRegistrandoFalha(dataReferencia),
+                    esperaRetomada.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    private ExecucaoPreCalculoRecomendacao iniciarExecucao(LocalDate dataReferencia) {
+        Optional<ExecucaoPreCalculoRecomendacao> existente = execucaoRepository.findById(dataReferencia);
+        if (existente.isPresent()) {
+            return existente.get();
+        }
+        try {
+            return execucaoRepository.save(ExecucaoPreCalculoRecomendacao.builder()
+                    .dataReferencia(dataReferencia)
+                    .iniciadaEm(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância iniciou a mesma execução
+            return execucaoRepository.findById(dataReferencia).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Reserva o próximo lote da execução: os usuários seguintes ao último processado ou, depois
+     * do último lote, as pendências livres. Sem nenhum dos dois, conclui a execução se não restar
+     * pendência reservada por outra instância.
+     *
+     * @return Usuários reservados (vazio se não houver o que gerar) e o fim da reserva.
+     */
+    private Reserva reservarLote(LocalDate dataReferencia) {
+        ExecucaoPreCalculoRecomendacao execucao = execucaoRepository.buscarParaAtualizacao(dataReferencia)
+                .orElseThrow(() -> new IllegalStateException("Execução do pré-cálculo não encontrada: " + dataReferencia));
+        if (execucao.getConcluida()) {
+            return new Reserva(List.of(), null);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        // Truncada à precisão da coluna, pois identifica a reserva na gravação do lote
+        LocalDateTime reservadaAte = agora.plus(reserva).truncatedTo(ChronoUnit.MICROS);
+        List<Long> usuarioIds = usuarioRepository.buscarIdsAposId(execucao.getUltimoUsuarioId(), PageRequest.of(0, tamanhoLote));
+        if (!usuarioIds.isEmpty()) {
+            pendenciaRepository.saveAll(usuarioIds.stream()
+                    .map(usuarioId -> PendenciaPreCalculoRecomendacao.builder()
+                            .dataReferencia(dataReferencia)
+                            .usuarioId(usuarioId)
+                            .reservadaAte(reservadaAte)
+                            .build())
+                    .toList());
+            execucao.setUltimoUsuarioId(usuarioIds.get(usuarioIds.size() - 1));
+            execucaoRepository.save(execucao);
+            return new Reserva(usuarioIds, reservadaAte);
+        }
+
+        List<PendenciaPreCalculoRecomendacao> pendencias = pendenciaRepository.buscarDisponiveis(dataReferencia,
+                maxTentativas, agora, PageRequest.of(0, tamanhoLote));
+        if (!pendencias.isEmpty()) {
+            pendencias.forEach(pendencia -> pendencia.setReservadaAte(reservadaAte));
+            pendenciaRepository.saveAll(pendencias);
+            return new Reserva(pendencias.stream().map(PendenciaPreCalculoRecomendacao::getUsuarioId).toList(), reservadaAte);
+        }
+
+        if (!pendenciaRepository.existsByDataReferenciaAndTentativasLessThan(dataReferencia, maxTentativas)) {
+            int descartadas = pendenciaRepository.excluirDaExecucao(dataReferencia);
+            if (descartadas > 0) {
+                logger.warn("Pré-cálculo de recomendações de {}: {} usuários sem recomendação após {} tentativas",
+                        dataReferencia, descartadas, maxTentativas);
+            }
+            execucao.setConcluida(true);
+            execucao.setConcluidaEm(agora);
+            execucaoRepository.save(execucao);
+        }
+        return new Reserva(List.of(), null);
+    }
+
+    /**
+     * Gera as mensagens de um lote de usuários, uma por prompt distinto.
+     *
+     * @return Mensagem de cada usuário com consumo no intervalo, na ordem dos IDs, e os usuários
+     * cuja geração falhou.
+     */
+    private Geracao gerarLote(List<Long> usuarioIds, LocalDateTime inicio, LocalDateTime fim) {
+        Map<Long, ConsumoAparelhoProjecao> maiores = new TreeMap<>();
+        for (ConsumoAparelhoProjecao consumo : consumoAgregadoRepository.somarConsumoPorAparelho(
+                EscopoAgregacao.APARELHO, GranularidadeAgregacao.DIA, inicio, fim, usuarioIds)) {
+            maiores.merge(consumo.getUsuarioId(), consumo, PreCalculoRecomendacaoService::maiorConsumo);
+        }
+
+        Map<String, CompletableFuture<String>> geracoes = new HashMap<>();
+        for (ConsumoAparelhoProjecao consumo : maiores.values()) {
+            geracoes.computeIfAbsent(IndiceSemanticoRecomendacao.normalizar(consumo.getNome()),
+                    chave -> CompletableFuture.supplyAsync(() -> gerar(consumo.getNome()), executor));
+        }
+
+        Map<Long, String> mensagens = new LinkedHashMap<>();
+        Set<Long> falhas = new HashSet<>();
+        for (ConsumoAparelhoProjecao consumo : maiores.values()) {
+            try {
+                mensagens.put(consumo.getUsuarioId(),
+                        geracoes.get(IndiceSemanticoRecomendacao.normalizar(consumo.getNome())).join());
+            } catch (CompletionException e) {
+                falhas.add(consumo.getUsuarioId());
+                logger.warn("Falha ao gerar a recomendação do aparelho '{}' para o usuário {}: {}",
+                        consumo.getNome(), consumo.getUsuarioId(), e.getCause().getMessage());
+            }
+        }
+        return new Geracao(mensagens, falhas);
+    }
+
+    private String gerar(String aparelho) {
+        try {
+            limitador.aguardarVez();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pré-cálculo de recomendações interrompido", e);
+        }
+        return recomendacaoService.gerarMensagem(aparelho);
+    }
+
+    /**
+     * Grava as recomendações de um lote reservado e atualiza as pendências dos seus usuários.
+     *
+     * @return Quantidade de recomendações gravadas.
+     */
+    private int gravarLote(LocalDate dataReferencia, Reserva lote, Geracao geracao) {
+        ExecucaoPreCalculoRecomendacao execucao = execucaoRepository.buscarParaAtualizacao(dataReferencia)
+                .orElseThrow(() -> new IllegalStateException("Execução do pré-cálculo não encontrada: " + dataReferencia));
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<Recomendacao> recomendacoes = new ArrayList<>();
+        List<PendenciaPreCalculoRecomendacao> atendidas = new ArrayList<>();
+        List<PendenciaPreCalculoRecomendacao> liberadas = new ArrayList<>();
+        for (PendenciaPreCalculoRecomendacao pendencia : pendenciaRepository
+                .findByDataReferenciaAndUsuarioIdInOrderByUsuarioId(dataReferencia, lote.usuarioIds())) {
+            if (!lote.reservadaAte().equals(pendencia.getReservadaAte())) {
+                // Reserva expirada e assumida por outra instância
+                continue;
+            }
+            String mensagem = geracao.mensagens().get(pendencia.getUsuarioId());
+            if (mensagem != null) {
+                recomendacoes.add(Recomendacao.builder()
+                        .mensagem(mensagem)
+                        .dataHora(agora)
+                        .usuario(usuarioRepository.getReferenceById(pendencia.getUsuarioId()))
+                        .build());
+                atendidas.add(pendencia);
+            } else if (geracao.falhas().contains(pendencia.getUsuarioId())) {
+                pendencia.setTentativas(pendencia.getTentativas() + 1);
+                pendencia.setReservadaAte(null);
+                liberadas.add(pendencia);
+            } else {
+                // Usuário sem consumo no intervalo
+                atendidas.add(pendencia);
+            }
+        }
+
+        if (!recomendacoes.isEmpty()) {
+            recomendacaoRepository.inserirEmLote(recomendacoes);
+        }
+        pendenciaRepository.deleteAllInBatch(atendidas);
+        pendenciaRepository.saveAll(liberadas);
+
+        execucao.setRecomendacoesGeradas(execucao.getRecomendacoesGeradas() + recomendacoes.size());
+        execucaoRepository.save(execucao);
+        return recomendacoes.size();
+    }
+
+    private static ConsumoAparelhoProjecao maiorConsumo(ConsumoAparelhoProjecao a, ConsumoAparelhoProjecao b) {
+        int comparacao = Double.compare(a.getConsumo(), b.getConsumo());
+        if (comparacao == 0) {
+            return a.getAparelhoId() <= b.getAparelhoId() ? a : b;
+        }
+        return comparacao > 0 ? a : b;
+    }
+
+    /**
+     * Usuários reservados por esta instância e o fim da reserva.
+     */
+    private record Reserva(List<Long> usuarioIds, LocalDateTime reservadaAte) {
+    }
+
+    /**
+     * Mensagens geradas para um lote e os usuários cuja geração falhou.
+     */
+    private record Geracao(Map<Long, String> mensagens, Set<Long> falhas) {
+
+        boolean modeloIndisponivel() {
+            return !falhas.isEmpty() && mensagens.isEmpty();
+        }
+    }
+
+    /**
+     * Espaça as chamadas ao modelo para no máximo um número de chamadas por minuto, entre todas
+     * as threads do pré-cálculo. Zero ou negativo desativa o limite.
+     */
+    private static final class LimitadorChamadas {
+
+        private final long intervaloNanos;
+        private long proximaChamada;
+
+        private LimitadorChamadas(int chamadasPorMinuto) {
+            this.intervaloNanos = chamadasPorMinuto > 0 ? TimeUnit.MINUTES.toNanos(1) / chamadasPorMinuto : 0;
+            this.proximaChamada = System.nanoTime();
+        }
+
+        void aguardarVez() throws InterruptedException {
+            if (intervaloNanos == 0) {
+                return;
+            }
+            long espera;
+            synchronized (this) {
+                long agora = System.nanoTime();
+                long vez = Math.max(agora, proximaChamada);
+                proximaChamada = vez + intervaloNanos;
+                espera = vez - agora;
+            }
+            if (espera > 0) {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            }
+        }
+    }
+}
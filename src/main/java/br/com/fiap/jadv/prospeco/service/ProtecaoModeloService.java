@@ -0,0 +1,185 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRateLimiterMetrics;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * <h1>ProtecaoModeloService</h1>
+ * Camada de proteção das chamadas ao modelo de linguagem, para que um endpoint lento ou fora
+ * do ar não prenda as threads da aplicação. Cada chamada passa, nesta ordem, por:
+ * <ul>
+ *     <li>um circuit breaker, que rejeita as chamadas enquanto a taxa de falhas (inclusive
+ *     timeouts) está acima do limite e libera algumas chamadas de teste após a espera;</li>
+ *     <li>um limite de chamadas por segundo, com uma espera curta por permissão;</li>
+ *     <li>um pool limitado de threads, que define o máximo de chamadas em andamento e isola o
+ *     modelo das demais requisições;</li>
+ *     <li>um timeout, após o qual a thread que aguarda é liberada e a chamada é interrompida.</li>
+ * </ul>
+ *
+ * <p>
+ * Chamadas rejeitadas ou com falha lançam {@link ServicoIndisponivelException}, para que quem
+ * chama aplique a recomendação alternativa ou registre a falha. Rejeições, timeouts e erros são contados em
+ * {@value #METRICA_FALHAS}, com a tag {@code motivo}; o estado do circuito, as chamadas por
+ * resultado, as permissões do limite e o pool são publicados pelos binders do Resilience4j e
+ * do Micrometer com o nome {@value #NOME}.
+ * </p>
+ */
+@Service
+public class ProtecaoModeloService {
+
+    static final String NOME = "modelo-linguagem";
+    static final String METRICA_FALHAS = "prospeco.recomendacao.modelo.falhas";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProtecaoModeloService.class);
+
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final Counter rejeicoesCircuitoAberto;
+    private final Counter rejeicoesLimiteTaxa;
+    private final Counter rejeicoesLotacao;
+    private final Counter timeouts;
+    private final Counter falhas;
+
+    @Autowired
+    public ProtecaoModeloService(MeterRegistry meterRegistry,
+                                 @Value("${app.recomendacao.modelo.chamadas-por-segundo:5}") int chamadasPorSegundo,
+                                 @Value("${app.recomendacao.modelo.espera-permissao:PT0.5S}") Duration esperaPermissao,
+                                 @Value("${app.recomendacao.modelo.max-em-andamento:10}") int maxEmAndamento,
+                                 @Value("${app.recomendacao.modelo.timeout:PT30S}") Duration timeout,
+                                 @Value("${app.recomendacao.modelo.circuito.percentual-falhas:50}") float percentualFalhas,
+                                 @Value("${app.recomendacao.modelo.circuito.janela:20}") int janela,
+                                 @Value("${app.recomendacao.modelo.circuito.espera-aberto:PT30S}") Duration esperaAberto) {
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(janela)
+                .minimumNumberOfCalls(janela)
+                .failureRateThreshold(percentualFalhas)
+                .waitDurationInOpenState(esperaAberto)
+                .permittedNumberOfCallsInHalfOpenState(Math.max(1, maxEmAndamento / 3))
+                .build());
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(chamadasPorSegundo)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(esperaPermissao)
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NOME);
+        this.rateLimiter = rateLimiterRegistry.rateLimiter(NOME);
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry,
+                new ThreadPoolExecutor(maxEmAndamento, maxEmAndamento, 0L, TimeUnit.MILLISECONDS,
+                        new SynchronousQueue<>(), tarefa -> new Thread(tarefa, NOME),
+                        new ThreadPoolExecutor.AbortPolicy()),
+                NOME);
+        this.timeout = timeout;
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedRateLimiterMetrics.ofRateLimiterRegistry(rateLimiterRegistry).bindTo(meterRegistry);
+        this.rejeicoesCircuitoAberto = contador(meterRegistry, "circuito-aberto");
+        this.rejeicoesLimiteTaxa = contador(meterRegistry, "limite-taxa");
+        this.rejeicoesLotacao = contador(meterRegistry, "lotacao");
+        this.timeouts = contador(meterRegistry, "timeout");
+        this.falhas = contador(meterRegistry, "falha");
+
+        circuitBreaker.getEventPublisher().onStateTransition(evento ->
+                logger.warn("Circuito do modelo de linguagem: {}", evento.getStateTransition()));
+    }
+
+    /**
+     * Executa uma chamada ao modelo com o timeout configurado.
+     *
+     * @param chamada Chamada ao modelo.
+     * @return Resposta do modelo.
+     * @throws ServicoIndisponivelException Se a chamada for rejeitada, exceder o timeout ou falhar.
+     */
+    public String chamar(Supplier<String> chamada) {
+        return chamar(chamada, timeout);
+    }
+
+    /**
+     * Executa uma chamada ao modelo com um timeout específico, como o de uma resposta em streaming.
+     *
+     * @param chamada Chamada ao modelo.
+     * @param limite  Tempo máximo de espera pela resposta.
+     * @return Resposta do modelo.
+     * @throws ServicoIndisponivelException Se a chamada for rejeitada, exceder o timeout ou falhar.
+     */
+    public String chamar(Supplier<String> chamada, Duration limite) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            rejeicoesCircuitoAberto.increment();
+            throw new ServicoIndisponivelException("Modelo de linguagem indisponível: circuito aberto");
+        }
+        if (!rateLimiter.acquirePermission()) {
+            circuitBreaker.releasePermission();
+            rejeicoesLimiteTaxa.increment();
+            throw new ServicoIndisponivelException("Modelo de linguagem indisponível: limite de chamadas atingido");
+        }
+
+        long inicio = System.nanoTime();
+        Future<String> resposta;
+        try {
+            resposta = executor.submit(chamada::get);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.releasePermission();
+            rejeicoesLotacao.increment();
+            throw new ServicoIndisponivelException("Modelo de linguagem indisponível: chamadas em andamento no máximo", e);
+        }
+
+        try {
+            String texto = resposta.get(limite.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return texto;
+        } catch (TimeoutException e) {
+            resposta.cancel(true);
+            circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+            timeouts.increment();
+            throw new ServicoIndisponivelException("Modelo de linguagem indisponível: sem resposta em " + limite, e);
+        } catch (ExecutionException e) {
+            circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e.getCause());
+            falhas.increment();
+            throw new ServicoIndisponivelException("Modelo de linguagem indisponível: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            resposta.cancel(true);
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new ServicoIndisponivelException("Chamada ao modelo de linguagem interrompida", e);
+        }
+    }
+
+    /**
+     * @return Estado atual do circuito.
+     */
+    public CircuitBreaker.State getEstadoCircuito() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String motivo) {
+        return Counter.builder(METRICA_FALHAS)
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+}
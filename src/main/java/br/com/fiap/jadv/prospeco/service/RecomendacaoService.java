@@ -1,55 +1,182 @@
 package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
 import br.com.fiap.jadv.prospeco.model.Recomendacao;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.RecomendacaoRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.StreamingChatModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class RecomendacaoService {
 
+    static final String MENSAGEM_ALTERNATIVA = "No momento não foi possível gerar uma recomendação personalizada "
+            + "para o aparelho '%s'. Enquanto isso: desligue-o da tomada quando não estiver em uso, prefira os "
+            + "modos econômicos e evite usá-lo nos horários de pico, quando a energia é mais cara.";
+
+    private static final Logger logger = LoggerFactory.getLogger(RecomendacaoService.class);
+
     private final RecomendacaoRepository recomendacaoRepository;
     private final UsuarioRepository usuarioRepository;
-    private final AzureOpenAiChatModel chatModel;
+    private final ChatModel chatModel;
+    private final StreamingChatModel streamingChatModel;
+    private final CacheRecomendacaoService cacheRecomendacaoService;
+    private final ProtecaoModeloService protecaoModeloService;
+    private final ContextoConsumoService contextoConsumoService;
 
     @Autowired
     public RecomendacaoService(RecomendacaoRepository recomendacaoRepository,
                                UsuarioRepository usuarioRepository,
-                               AzureOpenAiChatModel chatModel) {
+                               ChatModel chatModel,
+                               StreamingChatModel streamingChatModel,
+                               CacheRecomendacaoService cacheRecomendacaoService,
+                               ProtecaoModeloService protecaoModeloService,
+                               ContextoConsumoService contextoConsumoService) {
         this.recomendacaoRepository = recomendacaoRepository;
         this.usuarioRepository = usuarioRepository;
         this.chatModel = chatModel;
+        this.streamingChatModel = streamingChatModel;
+        this.cacheRecomendacaoService = cacheRecomendacaoService;
+        this.protecaoModeloService = protecaoModeloService;
+        this.contextoConsumoService = contextoConsumoService;
     }
 
     public Page<RecomendacaoResponseDTO> listarRecomendacoesPorUsuario(Long usuarioId, Pageable pageable) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        Page<RecomendacaoResponseDTO> recomendacoes = recomendacaoRepository.listarRecomendacoesPorUsuario(usuarioId, pageable);
+        ListagemPorDono.exigirDono(recomendacoes.isEmpty(), usuarioRepository, usuarioId, "Usuário não encontrado");
+        return recomendacoes;
+    }
 
-        return recomendacaoRepository.findByUsuarioOrderByDataHoraDesc(usuario, pageable)
-                .map(this::toResponseDTO);
+    /**
+     * Lista as recomendações de um usuário por cursor, do mais recente para o mais antigo, sem contar
+     * o total de linhas.
+     *
+     * @param usuarioId ID do usuário.
+     * @param cursor    Cursor retornado na página anterior, ou null para a primeira página.
+     * @param limite    Quantidade de itens da página.
+     * @return Página com o cursor da próxima página, se houver.
+     */
+    public PaginaCursorResponseDTO<RecomendacaoResponseDTO> listarRecomendacoesPorUsuarioCursor(Long usuarioId, String cursor, int limite) {
+        Pageable consulta = CursorPaginacao.consulta(limite);
+        List<RecomendacaoResponseDTO> recomendacoes;
+        if (cursor == null) {
+            recomendacoes = recomendacaoRepository.listarRecomendacoesRecentes(usuarioId, consulta);
+            ListagemPorDono.exigirDono(recomendacoes.isEmpty(), usuarioRepository, usuarioId, "Usuário não encontrado");
+        } else {
+            CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+            recomendacoes = recomendacaoRepository.listarRecomendacoesAnteriores(usuarioId, posicao.getDataHora(), posicao.getId(), consulta);
+        }
+        return CursorPaginacao.pagina(recomendacoes, limite,
+                item -> new CursorPaginacao(item.getDataHora(), item.getId()));
     }
 
     public RecomendacaoResponseDTO criarRecomendacao(RecomendacaoRequestDTO requestDTO) {
         Usuario usuario = usuarioRepository.findById(requestDTO.getUsuarioId())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
-        String promptText = generatePromptText(requestDTO.getAparelho());
+        PromptRecomendacao prompt = montarPrompt(usuario.getId(), requestDTO.getAparelho());
+        String mensagemGerada;
+        try {
+            mensagemGerada = obterDoCache(prompt, this::generateEnergySavingRecommendation);
+        } catch (ServicoIndisponivelException e) {
+            mensagemGerada = mensagemAlternativa(requestDTO.getAparelho(), e);
+        }
+
+        return salvar(usuario, mensagemGerada);
+    }
+
+    /**
+     * Monta o prompt da recomendação de um aparelho. Com um usuário, o prompt inclui o resumo do
+     * seu consumo recente dentro do orçamento de tokens.
+     *
+     * @param usuarioId ID do usuário, ou null para o prompt genérico do aparelho.
+     * @param aparelho  Nome do aparelho.
+     * @return Prompt a ser enviado ao modelo.
+     */
+    public PromptRecomendacao montarPrompt(Long usuarioId, String aparelho) {
+        String instrucao = generatePromptText(aparelho);
+        String texto = contextoConsumoService.montarPrompt(instrucao, usuarioId);
+        // Uma instrução longa pode ser cortada pelo orçamento; só o resumo torna o prompt pessoal
+        return new PromptRecomendacao(aparelho, texto, texto.length() > instrucao.length());
+    }
+
+    /**
+     * Gera a mensagem genérica de recomendação de um aparelho, sem salvá-la.
+     *
+     * @param aparelho Nome do aparelho.
+     * @return Mensagem em cache ou recém-gerada.
+     * @throws ServicoIndisponivelException Se não estiver em cache e o modelo estiver indisponível.
+     */
+    public String gerarMensagem(String aparelho) {
+        // O prompt depende apenas do aparelho: recomendações já geradas são reaproveitadas
+        return obterDoCache(montarPrompt(null, aparelho), this::generateEnergySavingRecommendation);
+    }
+
+    /**
+     * Gera a mensagem de recomendação de um prompt pelo modelo de streaming, repassando cada
+     * trecho assim que é recebido. Mensagens em cache são retornadas sem trechos. Se o modelo
+     * estiver indisponível antes do primeiro trecho, retorna a mensagem alternativa.
+     *
+     * @param prompt          Prompt montado por {@link #montarPrompt(Long, String)}.
+     * @param aoReceberTrecho Destino dos trechos recebidos do modelo.
+     * @param limite          Tempo máximo de espera pela resposta completa.
+     * @return Mensagem completa.
+     * @throws ServicoIndisponivelException Se o modelo falhar depois de enviar parte da resposta.
+     */
+    public String gerarMensagem(PromptRecomendacao prompt, Consumer<String> aoReceberTrecho, Duration limite) {
+        AtomicBoolean recebeuTrecho = new AtomicBoolean();
+        try {
+            return obterDoCache(prompt, texto -> streamEnergySavingRecommendation(
+                    texto, trecho -> {
+                        recebeuTrecho.set(true);
+                        aoReceberTrecho.accept(trecho);
+                    }, limite));
+        } catch (ServicoIndisponivelException e) {
+            if (recebeuTrecho.get()) {
+                throw e;
+            }
+            return mensagemAlternativa(prompt.aparelho(), e);
+        }
+    }
 
-        String mensagemGerada = generateEnergySavingRecommendation(promptText);
+    /**
+     * Salva uma recomendação já gerada para um usuário.
+     *
+     * @param usuarioId ID do usuário.
+     * @param mensagem  Mensagem da recomendação.
+     * @return RecomendacaoResponseDTO da recomendação salva.
+     */
+    @Transactional
+    public RecomendacaoResponseDTO salvarRecomendacao(Long usuarioId, String mensagem) {
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        return salvar(usuario, mensagem);
+    }
 
+    private RecomendacaoResponseDTO salvar(Usuario usuario, String mensagem) {
         Recomendacao recomendacao = Recomendacao.builder()
-                .mensagem(mensagemGerada)
+                .mensagem(mensagem)
                 .dataHora(LocalDateTime.now())
                 .usuario(usuario)
                 .build();
@@ -63,9 +190,40 @@ public class RecomendacaoService {
         return String.format("Gere uma recomendação detalhada para economizar energia ao usar o aparelho '%s'.", aparelho);
     }
 
+    /**
+     * Consulta o cache pelo prompt. Prompts personalizados não usam a camada semântica, que
+     * devolveria a recomendação de outro usuário para o mesmo aparelho.
+     */
+    private String obterDoCache(PromptRecomendacao prompt, Function<String, String> gerador) {
+        return cacheRecomendacaoService.obter(prompt.personalizado() ? null : prompt.aparelho(), prompt.texto(), gerador);
+    }
+
     private String generateEnergySavingRecommendation(String promptText) {
         UserMessage userMessage = new UserMessage(promptText);
-        return chatModel.call(userMessage);
+        return protecaoModeloService.chamar(() -> chatModel.call(userMessage));
+    }
+
+    private String streamEnergySavingRecommendation(String promptText, Consumer<String> aoReceberTrecho, Duration limite) {
+        return protecaoModeloService.chamar(() -> {
+            StringBuilder mensagem = new StringBuilder();
+            streamingChatModel.stream(new UserMessage(promptText))
+                    .filter(Objects::nonNull)
+                    .doOnNext(trecho -> {
+                        mensagem.append(trecho);
+                        aoReceberTrecho.accept(trecho);
+                    })
+                    .blockLast(limite);
+            return mensagem.toString();
+        }, limite);
+    }
+
+    /**
+     * Recomendação genérica usada quando o modelo está indisponível e nenhuma camada do cache
+     * tem o aparelho. Não é guardada no cache, para que a próxima requisição tente o modelo.
+     */
+    private String mensagemAlternativa(String aparelho, ServicoIndisponivelException causa) {
+        logger.warn("Usando a recomendação alternativa para o aparelho '{}': {}", aparelho, causa.getMessage());
+        return String.format(MENSAGEM_ALTERNATIVA, aparelho);
     }
 
     private RecomendacaoResponseDTO toResponseDTO(Recomendacao recomendacao) {
@@ -76,4 +234,14 @@ public class RecomendacaoService {
                 .usuarioId(recomendacao.getUsuario().getId())
                 .build();
     }
+
+    /**
+     * Prompt da recomendação de um aparelho.
+     *
+     * @param aparelho      Nome do aparelho.
+     * @param texto         Texto enviado ao modelo.
+     * @param personalizado Se o texto inclui o resumo do consumo de um usuário.
+     */
+    public record PromptRecomendacao(String aparelho, String texto, boolean personalizado) {
+    }
 }
@@ -1,19 +1,28 @@
 package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoLoteResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.RegistroConsumoMapper;
 import br.com.fiap.jadv.prospeco.model.Aparelho;
 import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.repository.AparelhoRepository;
 import br.com.fiap.jadv.prospeco.repository.RegistroConsumoRepository;
-import org.springframework.beans.BeanUtils;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class RegistroConsumoService {
@@ -21,14 +30,32 @@ public class RegistroConsumoService {
     private final RegistroConsumoRepository registroConsumoRepository;
     private final AparelhoRepository aparelhoRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final ConsumoAgregadoService consumoAgregadoService;
+    private final AvaliacaoMetaService avaliacaoMetaService;
+    private final Validator validator;
+    private final RegistroConsumoMapper registroConsumoMapper;
+
+    @Value("${app.registro-consumo.lote.tamanho-bloco:500}")
+    private int tamanhoBlocoLote = 500;
+
+    @Value("${app.registro-consumo.lote.max-registros:20000}")
+    private int maxRegistrosLote = 20000;
 
     @Autowired
     public RegistroConsumoService(RegistroConsumoRepository registroConsumoRepository,
                                   AparelhoRepository aparelhoRepository,
-                                  KafkaProducerService kafkaProducerService) {
+                                  KafkaProducerService kafkaProducerService,
+                                  ConsumoAgregadoService consumoAgregadoService,
+                                  AvaliacaoMetaService avaliacaoMetaService,
+                                  Validator validator,
+                                  RegistroConsumoMapper registroConsumoMapper) {
         this.registroConsumoRepository = registroConsumoRepository;
         this.aparelhoRepository = aparelhoRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.consumoAgregadoService = consumoAgregadoService;
+        this.avaliacaoMetaService = avaliacaoMetaService;
+        this.validator = validator;
+        this.registroConsumoMapper = registroConsumoMapper;
     }
 
     /**
@@ -39,11 +66,32 @@ public class RegistroConsumoService {
      * @return Página contendo os registros de consumo.
      */
     public Page<RegistroConsumoResponseDTO> listarRegistrosPorAparelho(Long aparelhoId, Pageable pageable) {
-        Aparelho aparelho = aparelhoRepository.findById(aparelhoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Aparelho não encontrado"));
+        Page<RegistroConsumoResponseDTO> registros = registroConsumoRepository.listarRegistrosPorAparelho(aparelhoId, pageable);
+        ListagemPorDono.exigirDono(registros.isEmpty(), aparelhoRepository, aparelhoId, "Aparelho não encontrado");
+        return registros;
+    }
 
-        return registroConsumoRepository.findByAparelho(aparelho, pageable)
-                .map(this::toResponseDTO);
+    /**
+     * Lista os registros de consumo de um aparelho por cursor, do mais recente para o mais antigo, sem contar
+     * o total de linhas.
+     *
+     * @param aparelhoId ID do aparelho.
+     * @param cursor     Cursor retornado na página anterior, ou null para a primeira página.
+     * @param limite     Quantidade de itens da página.
+     * @return Página com o cursor da próxima página, se houver.
+     */
+    public PaginaCursorResponseDTO<RegistroConsumoResponseDTO> listarRegistrosPorAparelhoCursor(Long aparelhoId, String cursor, int limite) {
+        Pageable consulta = CursorPaginacao.consulta(limite);
+        List<RegistroConsumoResponseDTO> registros;
+        if (cursor == null) {
+            registros = registroConsumoRepository.listarRegistrosRecentes(aparelhoId, consulta);
+            ListagemPorDono.exigirDono(registros.isEmpty(), aparelhoRepository, aparelhoId, "Aparelho não encontrado");
+        } else {
+            CursorPaginacao posicao = CursorPaginacao.decodificar(cursor);
+            registros = registroConsumoRepository.listarRegistrosAnteriores(aparelhoId, posicao.getDataHora(), posicao.getId(), consulta);
+        }
+        return CursorPaginacao.pagina(registros, limite,
+                item -> new CursorPaginacao(item.getDataHora(), item.getId()));
     }
 
     /**
@@ -54,7 +102,7 @@ public class RegistroConsumoService {
      */
     public Optional<RegistroConsumoResponseDTO> buscarRegistroPorId(Long id) {
         return registroConsumoRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(registroConsumoMapper::toResponseDTO);
     }
 
     /**
@@ -63,20 +111,79 @@ public class RegistroConsumoService {
      * @param requestDTO Dados do registro de consumo.
      * @return RegistroConsumoResponseDTO com os dados do registro criado.
      */
+    @Transactional
     public RegistroConsumoResponseDTO criarRegistroConsumo(RegistroConsumoRequestDTO requestDTO) {
+        consumoAgregadoService.aguardarReconstrucao();
         Aparelho aparelho = aparelhoRepository.findById(requestDTO.getAparelhoId())
                 .orElseThrow(() -> new ResourceNotFoundException("Aparelho não encontrado"));
 
-        RegistroConsumo registroConsumo = new RegistroConsumo();
-        BeanUtils.copyProperties(requestDTO, registroConsumo);
+        RegistroConsumo registroConsumo = registroConsumoMapper.toEntity(requestDTO);
         registroConsumo.setAparelho(aparelho);
 
         RegistroConsumo novoRegistro = registroConsumoRepository.save(registroConsumo);
+        consumoAgregadoService.registrarInclusao(novoRegistro);
+        avaliacaoMetaService.registrarInclusoes(List.of(novoRegistro));
 
         // Enviar evento ao Kafka
-        enviarEventoConsumo(novoRegistro, "registro-consumo-events");
+        enviarEventoConsumo(TipoEvento.CRIADO, novoRegistro, null);
+
+        return registroConsumoMapper.toResponseDTO(novoRegistro);
+    }
+
+    /**
+     * Cria registros de consumo em lote, como os enviados pelos gateways de medição.
+     * Todos os aparelhos do lote são resolvidos em uma única consulta, os registros
+     * são gravados em blocos e os eventos são publicados em um único conjunto ao final.
+     *
+     * @param requestDTOs Dados dos registros de consumo.
+     * @return RegistroConsumoLoteResponseDTO com o resumo do lote gravado.
+     */
+    @Transactional
+    public RegistroConsumoLoteResponseDTO criarRegistrosConsumoEmLote(List<RegistroConsumoRequestDTO> requestDTOs) {
+        validarLote(requestDTOs);
+        consumoAgregadoService.aguardarReconstrucao();
 
-        return toResponseDTO(novoRegistro);
+        Set<Long> aparelhoIds = requestDTOs.stream()
+                .map(RegistroConsumoRequestDTO::getAparelhoId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Aparelho> aparelhos = aparelhoRepository.findAllById(aparelhoIds).stream()
+                .collect(Collectors.toMap(Aparelho::getId, Function.identity()));
+
+        if (aparelhos.size() != aparelhoIds.size()) {
+            Set<Long> naoEncontrados = new TreeSet<>(aparelhoIds);
+            naoEncontrados.removeAll(aparelhos.keySet());
+            throw new ResourceNotFoundException("Aparelhos não encontrados: " + naoEncontrados);
+        }
+
+        List<RegistroConsumo> registros = new ArrayList<>(requestDTOs.size());
+        for (RegistroConsumoRequestDTO requestDTO : requestDTOs) {
+            registros.add(RegistroConsumo.builder()
+                    .dataHora(requestDTO.getDataHora())
+                    .consumo(requestDTO.getConsumo())
+                    .aparelho(aparelhos.get(requestDTO.getAparelhoId()))
+                    .build());
+        }
+
+        for (int inicio = 0; inicio < registros.size(); inicio += tamanhoBlocoLote) {
+            int fim = Math.min(inicio + tamanhoBlocoLote, registros.size());
+            registroConsumoRepository.saveAll(registros.subList(inicio, fim));
+            registroConsumoRepository.flush();
+        }
+        consumoAgregadoService.registrarInclusoes(registros);
+        avaliacaoMetaService.registrarInclusoes(registros);
+
+        // Enviar eventos ao Kafka
+        List<RegistroConsumoResponseDTO> eventos = registros.stream()
+                .map(registroConsumoMapper::toResponseDTO)
+                .collect(Collectors.toList());
+        kafkaProducerService.sendMessages("registro-consumo-events", TipoEvento.CRIADO, eventos,
+                RegistroConsumoResponseDTO::getAparelhoId);
+
+        return RegistroConsumoLoteResponseDTO.builder()
+                .quantidadeRegistros(registros.size())
+                .quantidadeAparelhos(aparelhos.size())
+                .build();
     }
 
     /**
@@ -86,18 +193,24 @@ public class RegistroConsumoService {
      * @param requestDTO Dados atualizados do registro.
      * @return RegistroConsumoResponseDTO com os dados atualizados.
      */
+    @Transactional
     public RegistroConsumoResponseDTO atualizarRegistroConsumo(Long id, RegistroConsumoRequestDTO requestDTO) {
+        consumoAgregadoService.aguardarReconstrucao();
         RegistroConsumo registro = registroConsumoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Registro de consumo não encontrado"));
 
-        BeanUtils.copyProperties(requestDTO, registro, "id", "aparelho");
+        RegistroConsumoResponseDTO anterior = registroConsumoMapper.toResponseDTO(registro);
+
+        registroConsumoMapper.atualizar(requestDTO, registro);
 
         RegistroConsumo registroAtualizado = registroConsumoRepository.save(registro);
+        consumoAgregadoService.registrarAlteracao(anterior.getDataHora(), anterior.getConsumo(), registroAtualizado);
+        avaliacaoMetaService.registrarAlteracao(anterior.getDataHora(), anterior.getConsumo(), registroAtualizado);
 
         // Enviar evento ao Kafka
-        enviarEventoConsumo(registroAtualizado, "registro-consumo-events");
+        enviarEventoConsumo(TipoEvento.ATUALIZADO, registroAtualizado, anterior);
 
-        return toResponseDTO(registroAtualizado);
+        return registroConsumoMapper.toResponseDTO(registroAtualizado);
     }
 
     /**
@@ -105,42 +218,54 @@ public class RegistroConsumoService {
      *
      * @param id ID do registro.
      */
+    @Transactional
     public void excluirRegistroConsumo(Long id) {
+        consumoAgregadoService.aguardarReconstrucao();
         RegistroConsumo registro = registroConsumoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Registro de consumo não encontrado"));
 
         registroConsumoRepository.delete(registro);
+        consumoAgregadoService.registrarExclusao(registro);
+        avaliacaoMetaService.registrarExclusao(registro);
 
         // Enviar evento ao Kafka
-        enviarEventoConsumo(registro, "registro-consumo-events");
+        enviarEventoConsumo(TipoEvento.EXCLUIDO, registro, null);
     }
 
     /**
-     * Converte uma entidade RegistroConsumo para RegistroConsumoResponseDTO.
+     * Valida o tamanho do lote e as restrições de cada registro recebido.
      *
-     * @param registro Entidade a ser convertida.
-     * @return RegistroConsumoResponseDTO correspondente.
+     * @param requestDTOs Registros do lote.
      */
-    private RegistroConsumoResponseDTO toResponseDTO(RegistroConsumo registro) {
-        RegistroConsumoResponseDTO responseDTO = new RegistroConsumoResponseDTO();
-        BeanUtils.copyProperties(registro, responseDTO);
-        responseDTO.setAparelhoId(registro.getAparelho().getId());
-        return responseDTO;
+    private void validarLote(List<RegistroConsumoRequestDTO> requestDTOs) {
+        if (requestDTOs == null || requestDTOs.isEmpty()) {
+            throw new IllegalArgumentException("O lote de registros de consumo está vazio.");
+        }
+        if (requestDTOs.size() > maxRegistrosLote) {
+            throw new IllegalArgumentException("O lote excede o limite de " + maxRegistrosLote + " registros.");
+        }
+
+        for (int i = 0; i < requestDTOs.size(); i++) {
+            Set<ConstraintViolation<RegistroConsumoRequestDTO>> violacoes = validator.validate(requestDTOs.get(i));
+            if (!violacoes.isEmpty()) {
+                String mensagens = violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(" "));
+                throw new IllegalArgumentException("Registro " + i + " do lote inválido: " + mensagens);
+            }
+        }
     }
 
     /**
-     * Envia um evento ao Kafka.
+     * Envia um evento ao Kafka, usando o aparelho como chave de particionamento.
      *
+     * @param tipo            Tipo da alteração.
      * @param registroConsumo Entidade RegistroConsumo.
-     * @param topic           Tópico do Kafka.
+     * @param anterior        Estado anterior do registro, em alterações.
      */
-    private void enviarEventoConsumo(RegistroConsumo registroConsumo, String topic) {
-        try {
-            RegistroConsumoResponseDTO responseDTO = toResponseDTO(registroConsumo);
-            kafkaProducerService.sendMessage(topic, responseDTO);
-        } catch (Exception e) {
-            // Utilize um logger apropriado no lugar de e.printStackTrace()
-            e.printStackTrace();
-        }
+    private void enviarEventoConsumo(TipoEvento tipo, RegistroConsumo registroConsumo, RegistroConsumoResponseDTO anterior) {
+        kafkaProducerService.sendMessage("registro-consumo-events", registroConsumo.getAparelho().getId(),
+                tipo, registroConsumoMapper.toResponseDTO(registroConsumo), anterior);
     }
 }
@@ -0,0 +1,201 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * <h1>ReprecificacaoCustoService</h1>
+ * Recalcula o custo dos consumos agregados quando uma bandeira tarifária é criada, alterada ou
+ * excluída, sem reprocessar as leituras.
+ *
+ * <p>
+ * Apenas os trechos de datas cuja bandeira mudou são recalculados. Cada trecho é dividido em
+ * blocos de no máximo um mês com preço do kWh constante; os períodos de hora e de dia de cada
+ * bloco são atualizados com uma única instrução ({@code custo = consumo × preço}) para todos os
+ * aparelhos e usuários, e os períodos mensais afetados são recalculados em seguida como a soma
+ * dos dias. Os blocos rodam em paralelo, cada um em sua própria transação; como cada bloco
+ * grava valores absolutos, uma reprecificação interrompida pode simplesmente ser repetida.
+ * </p>
+ *
+ * <p>
+ * As reprecificações disparadas pelas alterações de bandeira são enfileiradas e executadas
+ * uma de cada vez, em segundo plano, para que a requisição que alterou a bandeira não espere
+ * pelo recálculo. Cada instância reprecifica depois de passar a usar o calendário novo e
+ * repete a reprecificação após {@code app.custo.reprecificacao.segunda-passagem}. A repetição
+ * corrige os agregados gravados por transações que começaram com o calendário anterior e
+ * terminaram depois da primeira passagem.
+ * </p>
+ */
+@Service
+public class ReprecificacaoCustoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReprecificacaoCustoService.class);
+
+    private static final List<GranularidadeAgregacao> GRANULARIDADES_CONTIDAS_NO_DIA =
+            List.of(GranularidadeAgregacao.HORA, GranularidadeAgregacao.DIA);
+
+    private final ConsumoAgregadoRepository consumoAgregadoRepository;
+    private final BandeiraTarifariaService bandeiraTarifariaService;
+    private final TabelaTarifaria tabelaTarifaria;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService coordenador;
+    private final ExecutorService executor;
+    private final Duration segundaPassagem;
+
+    @Autowired
+    public ReprecificacaoCustoService(ConsumoAgregadoRepository consumoAgregadoRepository,
+                                      BandeiraTarifariaService bandeiraTarifariaService,
+                                      TabelaTarifaria tabelaTarifaria,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.custo.reprecificacao.paralelismo:4}") int paralelismo,
+                                      @Value("${app.custo.reprecificacao.segunda-passagem:PT2M}") Duration segundaPassagem) {
+        this.consumoAgregadoRepository = consumoAgregadoRepository;
+        this.bandeiraTarifariaService = bandeiraTarifariaService;
+        this.tabelaTarifaria = tabelaTarifaria;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coordenador = Executors.newSingleThreadScheduledExecutor(tarefa -> new Thread(tarefa, "reprecificacao-custo"));
+        this.executor = Executors.newFixedThreadPool(paralelismo);
+        this.segundaPassagem = segundaPassagem;
+    }
+
+    /**
+     * Agenda a reprecificação dos trechos alterados por uma troca do calendário desta instância.
+     *
+     * @param alteracao Calendários antes e depois da alteração.
+     */
+    @EventListener
+    public void aoAlterarCalendario(BandeiraTarifariaService.CalendarioAlterado alteracao) {
+        agendar(alteracao.atual().trechosAlterados(alteracao.anterior()));
+    }
+
+    /**
+     * Agenda a reprecificação dos trechos agora e novamente após a segunda passagem.
+     *
+     * @param trechos Trechos de datas a reprecificar.
+     * @return Primeira passagem, com a quantidade de períodos atualizados.
+     */
+    Future<Integer> agendar(List<CalendarioBandeiras.Trecho> trechos) {
+        if (trechos.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        Future<Integer> primeiraPassagem = coordenador.submit(() -> reprecificar(trechos));
+        coordenador.schedule(() -> reprecificar(trechos), segundaPassagem.toMillis(), TimeUnit.MILLISECONDS);
+        return primeiraPassagem;
+    }
+
+    /**
+     * Reprecifica todos os consumos agregados pelo calendário de bandeiras atual. Usado após a
+     * criação da coluna de custo ou para corrigir divergências.
+     *
+     * @return Quantidade de períodos atualizados.
+     */
+    public int reprecificarTudo() {
+        LocalDateTime primeiroDia = consumoAgregadoRepository.buscarPrimeiroInicioPeriodo(GranularidadeAgregacao.DIA);
+        if (primeiroDia == null) {
+            return 0;
+        }
+        return reprecificar(List.of(new CalendarioBandeiras.Trecho(primeiroDia.toLocalDate(), null, null)));
+    }
+
+    /**
+     * Reprecifica os consumos agregados dos trechos informados. O preço de cada dia é obtido do
+     * calendário atual, e não da bandeira informada no trecho, de modo que uma reprecificação
+     * executada depois de outra alteração use sempre a bandeira vigente.
+     *
+     * @param trechos Trechos de datas a reprecificar; o fim null se estende até o último dia com consumo.
+     * @return Quantidade de períodos atualizados.
+     */
+    public int reprecificar(List<CalendarioBandeiras.Trecho> trechos) {
+        if (trechos.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime ultimoDia = consumoAgregadoRepository.buscarUltimoInicioPeriodo(GranularidadeAgregacao.DIA);
+        if (ultimoDia == null) {
+            return 0;
+        }
+        LocalDate limite = ultimoDia.toLocalDate().plusDays(1);
+
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        List<CalendarioBandeiras.Trecho> blocos = new ArrayList<>();
+        for (CalendarioBandeiras.Trecho trecho : trechos) {
+            LocalDate fim = trecho.fim() == null || trecho.fim().isAfter(limite) ? limite : trecho.fim();
+            if (trecho.inicio().isBefore(fim)) {
+                for (CalendarioBandeiras.Trecho constante : calendario.trechos(trecho.inicio(), fim)) {
+                    dividirPorMes(constante, blocos);
+                }
+            }
+        }
+        Set<LocalDate> meses = new TreeSet<>();
+        for (CalendarioBandeiras.Trecho bloco : blocos) {
+            meses.add(bloco.inicio().withDayOfMonth(1));
+        }
+
+        long inicio = System.nanoTime();
+        int periodos = executarEmParalelo(blocos, bloco -> consumoAgregadoRepository.reprecificar(
+                GRANULARIDADES_CONTIDAS_NO_DIA, bloco.inicio().atStartOfDay(), bloco.fim().atStartOfDay(),
+                tabelaTarifaria.precoKwh(bloco.bandeira())));
+        periodos += executarEmParalelo(meses, mes -> consumoAgregadoRepository.recalcularCustoMensal(
+                GranularidadeAgregacao.MES, GranularidadeAgregacao.DIA,
+                mes.atStartOfDay(), mes.plusMonths(1).atStartOfDay()));
+
+        logger.info("Custos reprecificados: {} períodos em {} blocos e {} meses ({} ms)", periodos,
+                blocos.size(), meses.size(), (System.nanoTime() - inicio) / 1_000_000);
+        return periodos;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        coordenador.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Divide um trecho de preço constante em blocos que não ultrapassam o fim do mês.
+     */
+    private static void dividirPorMes(CalendarioBandeiras.Trecho trecho, List<CalendarioBandeiras.Trecho> blocos) {
+        LocalDate inicio = trecho.inicio();
+        while (inicio.isBefore(trecho.fim())) {
+            LocalDate proximoMes = inicio.withDayOfMonth(1).plusMonths(1);
+            LocalDate fim = proximoMes.isBefore(trecho.fim()) ? proximoMes : trecho.fim();
+            blocos.add(new CalendarioBandeiras.Trecho(inicio, fim, trecho.bandeira()));
+            inicio = fim;
+        }
+    }
+
+    /**
+     * Executa a operação para cada item no executor, cada uma em sua própria transação, e
+     * aguarda todas terminarem.
+     *
+     * @return Soma dos resultados.
+     */
+    private <T> int executarEmParalelo(Collection<T> itens, ToIntFunction<T> operacao) {
+        List<CompletableFuture<Integer>> execucoes = new ArrayList<>(itens.size());
+        for (T item : itens) {
+            execucoes.add(CompletableFuture.supplyAsync(
+                    () -> transactionTemplate.execute(status -> operacao.applyAsInt(item)), executor));
+        }
+        CompletableFuture.allOf(execucoes.toArray(new CompletableFuture[0])).join();
+        return execucoes.stream().mapToInt(CompletableFuture::join).sum();
+    }
+}
@@ -0,0 +1,196 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>RetentativaEventoService</h1>
+ * Encaminha ao dead-letter os eventos que não puderam ser lidos ou processados no consumo, sem
+ * bloquear a partição de origem, e reenvia em lote os eventos do dead-letter para o tópico original.
+ *
+ * <p>
+ * Cada tópico {@code X} tem um tópico {@code X-dlt}; os eventos levam nos headers o tópico
+ * original e o erro. Um evento ilegível é encaminhado na hora pelo próprio listener, pois repetir
+ * a leitura não a resolve. Um lote cujo processamento falha (o banco de dados indisponível, por
+ * exemplo) é reentregue com espera exponencial pelo tratamento de erros dos containers
+ * ({@link br.com.fiap.jadv.prospeco.config.KafkaListenerConfig}) e só chega ao dead-letter depois
+ * das tentativas. O reenvio do dead-letter é feito sob demanda, depois da correção, apenas para
+ * os tópicos em {@code app.kafka.dlt.topicos}.
+ * </p>
+ */
+@Service
+public class RetentativaEventoService {
+
+    public static final String HEADER_TOPICO_ORIGINAL = "prospeco-topico-original";
+    public static final String HEADER_ERRO = "prospeco-erro";
+
+    public static final String SUFIXO_DLT = "-dlt";
+
+    static final String METRICA_ENCAMINHADOS = "prospeco.kafka.eventos.encaminhados";
+    static final String METRICA_REPROCESSADOS = "prospeco.kafka.eventos.dlt.reprocessados";
+
+    private static final String GRUPO_REPROCESSAMENTO = "prospeco-dlt-reprocessamento";
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentativaEventoService.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> topicosDeadLetter;
+
+    @Value("${app.kafka.dlt.max-reprocessamento:10000}")
+    private int maxReprocessamento = 10000;
+
+    @Value("${app.kafka.dlt.timeout-ms:10000}")
+    private long timeoutMs = 10000;
+
+    @Autowired
+    public RetentativaEventoService(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                    ConsumerFactory<String, byte[]> consumerFactory,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.kafka.dlt.topicos:}") List<String> topicosDeadLetter) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.consumerFactory = consumerFactory;
+        this.meterRegistry = meterRegistry;
+        this.topicosDeadLetter = Set.copyOf(topicosDeadLetter);
+    }
+
+    /**
+     * Encaminha um evento que não pôde ser lido ou processado para o dead-letter do seu tópico.
+     *
+     * @param record Evento que falhou.
+     * @param erro   Erro ocorrido na leitura ou no processamento.
+     * @return Envio do evento encaminhado.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> encaminhar(ConsumerRecord<String, byte[]> record,
+                                                                    Exception erro) {
+        String destino = record.topic() + SUFIXO_DLT;
+
+        ProducerRecord<String, byte[]> encaminhado = new ProducerRecord<>(destino, record.key(), record.value());
+        adicionarHeader(encaminhado, HEADER_TOPICO_ORIGINAL, record.topic());
+        adicionarHeader(encaminhado, HEADER_ERRO, descreverErro(erro));
+
+        Counter.builder(METRICA_ENCAMINHADOS)
+                .tag("topico", record.topic())
+                .tag("destino", "dlt")
+                .register(meterRegistry)
+                .increment();
+        logger.warn("Evento de {} (offset {}) encaminhado para {}: {}",
+                record.topic(), record.offset(), destino, erro.getMessage());
+        return kafkaTemplate.send(encaminhado);
+    }
+
+    /**
+     * Aguarda a confirmação dos encaminhamentos de um lote. Uma falha impede a confirmação
+     * do lote, que é entregue novamente pelo container.
+     *
+     * @param envios Envios pendentes.
+     */
+    public void aguardarEncaminhamentos(List<CompletableFuture<SendResult<String, byte[]>>> envios) {
+        if (envios.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(envios.toArray(new CompletableFuture[0]))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Encaminhamento de eventos interrompido", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao encaminhar eventos com falha", e);
+        }
+    }
+
+    /**
+     * Reenvia para o tópico original os próximos eventos do dead-letter de um tópico.
+     * O progresso fica registrado no grupo de reprocessamento, de modo que chamadas
+     * seguintes continuam de onde a anterior parou.
+     *
+     * @param topico Tópico original dos eventos, um dos configurados em {@code app.kafka.dlt.topicos}.
+     * @param limite Quantidade máxima de eventos reenviados.
+     * @return Quantidade de eventos reenviados.
+     */
+    public int reprocessarDeadLetter(String topico, int limite) {
+        if (!topicosDeadLetter.contains(topico)) {
+            throw new IllegalArgumentException("O tópico " + topico + " não tem dead-letter reprocessável.");
+        }
+        if (limite < 1 || limite > maxReprocessamento) {
+            throw new IllegalArgumentException("O limite deve estar entre 1 e " + maxReprocessamento);
+        }
+        String topicoDlt = topico + SUFIXO_DLT;
+
+        Properties propriedades = new Properties();
+        propriedades.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        propriedades.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(limite));
+        try (Consumer<String, byte[]> consumer =
+                     consumerFactory.createConsumer(GRUPO_REPROCESSAMENTO, null, null, propriedades)) {
+            List<PartitionInfo> particoes = consumer.partitionsFor(topicoDlt);
+            if (particoes == null || particoes.isEmpty()) {
+                throw new ResourceNotFoundException("Tópico de dead-letter não encontrado: " + topicoDlt);
+            }
+            consumer.assign(particoes.stream()
+                    .map(particao -> new TopicPartition(topicoDlt, particao.partition()))
+                    .toList());
+
+            List<CompletableFuture<SendResult<String, byte[]>>> envios = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            while (envios.size() < limite) {
+                var records = consumer.poll(Duration.ofMillis(timeoutMs));
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (envios.size() == limite) {
+                        break;
+                    }
+                    envios.add(kafkaTemplate.send(topico, record.key(), record.value()));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+
+            aguardarEncaminhamentos(envios);
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+            Counter.builder(METRICA_REPROCESSADOS)
+                    .tag("topico", topico)
+                    .register(meterRegistry)
+                    .increment(envios.size());
+            logger.info("{} eventos de {} reenviados para {}", envios.size(), topicoDlt, topico);
+            return envios.size();
+        }
+    }
+
+    private void adicionarHeader(ProducerRecord<String, byte[]> record, String nome, String valor) {
+        record.headers().add(nome, valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String descreverErro(Exception erro) {
+        String descricao = erro.getClass().getSimpleName() + ": " + erro.getMessage();
+        return descricao.length() > TAMANHO_MAXIMO_ERRO ? descricao.substring(0, TAMANHO_MAXIMO_ERRO) : descricao;
+    }
+}
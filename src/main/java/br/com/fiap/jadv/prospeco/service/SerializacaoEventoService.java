@@ -0,0 +1,76 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEvento;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoJson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <h1>SerializacaoEventoService</h1>
+ * Serializa os eventos publicados no Kafka no formato configurado em
+ * {@code app.kafka.serializacao.formato} ({@code json} ou {@code avro}) e desserializa
+ * os eventos recebidos no formato em que foram produzidos.
+ *
+ * <p>
+ * Como o formato é identificado pelo próprio conteúdo, a troca do formato de publicação
+ * não exige parar os consumidores nem esvaziar os tópicos. Conteúdo não reconhecido é lido
+ * como JSON, o formato original dos eventos.
+ * </p>
+ */
+@Service
+public class SerializacaoEventoService {
+
+    private final List<SerializadorEvento> serializadores;
+    private final SerializadorEvento serializadorPublicacao;
+    private final SerializadorEvento serializadorJson;
+
+    @Autowired
+    public SerializacaoEventoService(List<SerializadorEvento> serializadores,
+                                     @Value("${app.kafka.serializacao.formato:json}") String formato) {
+        this.serializadores = serializadores;
+        this.serializadorPublicacao = buscarSerializador(formato);
+        this.serializadorJson = buscarSerializador(SerializadorEventoJson.FORMATO);
+    }
+
+    /**
+     * Serializa um evento no formato de publicação configurado.
+     *
+     * @param evento Evento a ser serializado.
+     * @return Conteúdo serializado.
+     * @throws IOException Se o evento não puder ser serializado.
+     */
+    public byte[] serializar(EventoDTO<?> evento) throws IOException {
+        return serializadorPublicacao.serializar(evento, evento.getDados().getClass());
+    }
+
+    /**
+     * Desserializa um evento recebido do Kafka.
+     *
+     * @param conteudo  Conteúdo recebido.
+     * @param tipoDados Classe do DTO carregado pelo evento.
+     * @param <T>       Tipo do DTO.
+     * @return Evento desserializado.
+     * @throws IOException Se o conteúdo for inválido.
+     */
+    public <T> EventoDTO<T> desserializar(byte[] conteudo, Class<T> tipoDados) throws IOException {
+        for (SerializadorEvento serializador : serializadores) {
+            if (serializador.reconhece(conteudo)) {
+                return serializador.desserializar(conteudo, tipoDados);
+            }
+        }
+        return serializadorJson.desserializar(conteudo, tipoDados);
+    }
+
+    private SerializadorEvento buscarSerializador(String formato) {
+        return serializadores.stream()
+                .filter(serializador -> serializador.formato().equalsIgnoreCase(formato))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Formato de serialização de eventos inválido: " + formato));
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <h1>TabelaTarifaria</h1>
+ * Preço do kWh por bandeira tarifária: a tarifa base configurada mais o acréscimo de cada
+ * bandeira. Sem bandeira vigente (datas anteriores à primeira bandeira cadastrada), é
+ * cobrada somente a tarifa base.
+ */
+@Component
+public class TabelaTarifaria {
+
+    private final double tarifaBase;
+    private final double[] precoPorBandeira = new double[TipoBandeira.values().length];
+
+    @Autowired
+    public TabelaTarifaria(@Value("${app.tarifa.base-kwh:0.656}") double tarifaBase,
+                           @Value("${app.tarifa.acrescimo-kwh.verde:0}") double acrescimoVerde,
+                           @Value("${app.tarifa.acrescimo-kwh.amarela:0.01885}") double acrescimoAmarela,
+                           @Value("${app.tarifa.acrescimo-kwh.vermelha-1:0.04463}") double acrescimoVermelha1,
+                           @Value("${app.tarifa.acrescimo-kwh.vermelha-2:0.07877}") double acrescimoVermelha2) {
+        this.tarifaBase = tarifaBase;
+        precoPorBandeira[TipoBandeira.VERDE.ordinal()] = tarifaBase + acrescimoVerde;
+        precoPorBandeira[TipoBandeira.AMARELA.ordinal()] = tarifaBase + acrescimoAmarela;
+        precoPorBandeira[TipoBandeira.VERMELHA_1.ordinal()] = tarifaBase + acrescimoVermelha1;
+        precoPorBandeira[TipoBandeira.VERMELHA_2.ordinal()] = tarifaBase + acrescimoVermelha2;
+    }
+
+    /**
+     * Preço do kWh sob uma bandeira.
+     *
+     * @param bandeira Bandeira vigente, ou null se não houver bandeira.
+     * @return Preço do kWh em reais.
+     */
+    public double precoKwh(TipoBandeira bandeira) {
+        return bandeira == null ? tarifaBase : precoPorBandeira[bandeira.ordinal()];
+    }
+}
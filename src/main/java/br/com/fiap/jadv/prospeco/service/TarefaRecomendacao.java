@@ -0,0 +1,171 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.TarefaRecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.SituacaoTarefaRecomendacao;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <h1>TarefaRecomendacao</h1>
+ * Geração de uma recomendação para um usuário, acompanhada em memória pela instância que a
+ * recebeu. Guarda o texto recebido do modelo até o momento e o repassa aos ouvintes
+ * (conexões SSE): quem passa a acompanhar a tarefa recebe primeiro o texto acumulado e depois
+ * os trechos seguintes, até a conclusão ou a falha.
+ */
+public final class TarefaRecomendacao {
+
+    private final UUID id;
+    private final Long usuarioId;
+    private final String aparelho;
+    private final LocalDateTime criadaEm = LocalDateTime.now();
+    private final StringBuilder texto = new StringBuilder();
+    private final List<Ouvinte> ouvintes = new ArrayList<>();
+
+    private SituacaoTarefaRecomendacao situacao = SituacaoTarefaRecomendacao.PENDENTE;
+    private RecomendacaoResponseDTO recomendacao;
+    private String erro;
+
+    public TarefaRecomendacao(UUID id, Long usuarioId, String aparelho) {
+        this.id = id;
+        this.usuarioId = usuarioId;
+        this.aparelho = aparelho;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    /**
+     * Acrescenta um trecho recebido do modelo e o repassa aos ouvintes.
+     *
+     * @param trecho Trecho do texto.
+     */
+    synchronized void adicionarTrecho(String trecho) {
+        if (finalizada() || trecho.isEmpty()) {
+            return;
+        }
+        situacao = SituacaoTarefaRecomendacao.EM_ANDAMENTO;
+        texto.append(trecho);
+        for (Iterator<Ouvinte> iterator = ouvintes.iterator(); iterator.hasNext(); ) {
+            try {
+                iterator.next().aoReceberTrecho(trecho);
+            } catch (IOException | RuntimeException e) {
+                // Conexão encerrada pelo cliente
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Conclui a tarefa com a recomendação salva.
+     *
+     * @param recomendacao Recomendação salva.
+     */
+    synchronized void concluir(RecomendacaoResponseDTO recomendacao) {
+        if (!finalizada()) {
+            this.recomendacao = recomendacao;
+            this.situacao = SituacaoTarefaRecomendacao.CONCLUIDA;
+            notificarFinalizacao();
+        }
+    }
+
+    /**
+     * Encerra a tarefa com falha.
+     *
+     * @param erro Motivo da falha.
+     */
+    synchronized void falhar(String erro) {
+        if (!finalizada()) {
+            this.erro = erro;
+            this.situacao = SituacaoTarefaRecomendacao.FALHA;
+            notificarFinalizacao();
+        }
+    }
+
+    /**
+     * Passa a acompanhar a tarefa. O ouvinte recebe o texto já acumulado e, se a tarefa já
+     * terminou, a finalização em seguida.
+     *
+     * @param ouvinte Ouvinte da tarefa.
+     * @throws IOException Se o ouvinte não puder receber o estado atual.
+     */
+    public synchronized void acompanhar(Ouvinte ouvinte) throws IOException {
+        if (!texto.isEmpty()) {
+            ouvinte.aoReceberTrecho(texto.toString());
+        }
+        if (finalizada()) {
+            ouvinte.aoFinalizar(paraResponseDTO());
+        } else {
+            ouvintes.add(ouvinte);
+        }
+    }
+
+    /**
+     * Deixa de acompanhar a tarefa.
+     *
+     * @param ouvinte Ouvinte da tarefa.
+     */
+    public synchronized void deixarDeAcompanhar(Ouvinte ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * @return Situação atual da tarefa.
+     */
+    public synchronized TarefaRecomendacaoResponseDTO paraResponseDTO() {
+        return TarefaRecomendacaoResponseDTO.builder()
+                .id(id)
+                .situacao(situacao)
+                .aparelho(aparelho)
+                .usuarioId(usuarioId)
+                .criadaEm(criadaEm)
+                .texto(texto.toString())
+                .recomendacao(recomendacao)
+                .erro(erro)
+                .build();
+    }
+
+    private boolean finalizada() {
+        return situacao == SituacaoTarefaRecomendacao.CONCLUIDA || situacao == SituacaoTarefaRecomendacao.FALHA;
+    }
+
+    private void notificarFinalizacao() {
+        TarefaRecomendacaoResponseDTO responseDTO = paraResponseDTO();
+        for (Ouvinte ouvinte : ouvintes) {
+            try {
+                ouvinte.aoFinalizar(responseDTO);
+            } catch (IOException | RuntimeException e) {
+                // Conexão encerrada pelo cliente
+            }
+        }
+        ouvintes.clear();
+    }
+
+    /**
+     * Destino dos trechos e da finalização de uma tarefa.
+     */
+    public interface Ouvinte {
+
+        /**
+         * @param trecho Trecho do texto gerado.
+         * @throws IOException Se o trecho não puder ser entregue.
+         */
+        void aoReceberTrecho(String trecho) throws IOException;
+
+        /**
+         * @param tarefa Situação final da tarefa (concluída ou com falha).
+         * @throws IOException Se a finalização não puder ser entregue.
+         */
+        void aoFinalizar(TarefaRecomendacaoResponseDTO tarefa) throws IOException;
+    }
+}
@@ -0,0 +1,344 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.TarefaRecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
+import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoRecomendacao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <h1>TarefaRecomendacaoService</h1>
+ * Geração assíncrona de recomendações. A requisição recebe de imediato o identificador de uma
+ * {@link TarefaRecomendacao}, e o texto é gerado em um pool de threads limitado pelo modelo de
+ * streaming; o cliente acompanha a tarefa consultando sua situação ou recebendo os trechos por
+ * Server-Sent Events, e a recomendação é salva ao final.
+ *
+ * <p>
+ * Tarefas simultâneas com o mesmo prompt (pelo texto normalizado) compartilham uma única
+ * geração: quem chega durante a geração recebe o texto já produzido e os trechos seguintes, e
+ * cada usuário tem sua própria recomendação salva com o mesmo texto. Prompts com o resumo do
+ * consumo de um usuário só coincidem com os do próprio usuário; os genéricos, por aparelho. Quando a fila do pool está
+ * cheia, a tarefa é recusada com {@link ServicoIndisponivelException}.
+ * </p>
+ *
+ * <p>
+ * Os eventos SSE não são enviados nas threads da geração: cada conexão tem sua fila, esvaziada
+ * em ordem por um pool próprio ({@code app.recomendacao.tarefas.paralelismo-envio}), de modo
+ * que nenhum envio acontece sob os bloqueios da tarefa ou da geração e um cliente lento atrasa
+ * apenas a própria conexão.
+ * </p>
+ *
+ * <p>
+ * As tarefas ficam em memória, na instância que as recebeu, e são descartadas após
+ * {@code app.recomendacao.tarefas.retencao}. Com mais de uma instância, o balanceador deve
+ * encaminhar a consulta e a transmissão de uma tarefa à instância que a criou (afinidade de
+ * sessão pelo cookie ou pelo token do usuário); em outra instância a tarefa não é encontrada.
+ * </p>
+ */
+@Service
+public class TarefaRecomendacaoService {
+
+    static final String EVENTO_TRECHO = "trecho";
+    static final String EVENTO_FINALIZADA = "finalizada";
+    static final String ERRO_GERACAO = "Não foi possível gerar a recomendação.";
+
+    private static final Logger logger = LoggerFactory.getLogger(TarefaRecomendacaoService.class);
+
+    private final RecomendacaoService recomendacaoService;
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<UUID, TarefaRecomendacao> tarefas;
+    private final ConcurrentMap<String, Geracao> emAndamento = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final ExecutorService envios;
+    private final Duration timeout;
+    private final Duration sseTimeout;
+
+    @Autowired
+    public TarefaRecomendacaoService(RecomendacaoService recomendacaoService,
+                                     UsuarioRepository usuarioRepository,
+                                     @Value("${app.recomendacao.tarefas.paralelismo:8}") int paralelismo,
+                                     @Value("${app.recomendacao.tarefas.capacidade-fila:100}") int capacidadeFila,
+                                     @Value("${app.recomendacao.tarefas.paralelismo-envio:8}") int paralelismoEnvio,
+                                     @Value("${app.recomendacao.tarefas.retencao:PT1H}") Duration retencao,
+                                     @Value("${app.recomendacao.tarefas.timeout:PT2M}") Duration timeout,
+                                     @Value("${app.recomendacao.tarefas.sse-timeout:PT2M}") Duration sseTimeout) {
+        this.recomendacaoService = recomendacaoService;
+        this.usuarioRepository = usuarioRepository;
+        this.tarefas = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(retencao)
+                .build();
+        this.executor = new ThreadPoolExecutor(paralelismo, paralelismo, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), tarefa -> new Thread(tarefa, "tarefa-recomendacao"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.envios = Executors.newFixedThreadPool(paralelismoEnvio, tarefa -> new Thread(tarefa, "envio-sse-recomendacao"));
+        this.timeout = timeout;
+        this.sseTimeout = sseTimeout;
+    }
+
+    /**
+     * Cria uma tarefa de geração de recomendação e a agenda, ou a associa à geração já em
+     * andamento para o mesmo prompt.
+     *
+     * @param requestDTO Dados da recomendação.
+     * @return Situação inicial da tarefa.
+     */
+    public TarefaRecomendacaoResponseDTO iniciarTarefa(RecomendacaoRequestDTO requestDTO) {
+        if (!usuarioRepository.existsById(requestDTO.getUsuarioId())) {
+            throw new ResourceNotFoundException("Usuário não encontrado");
+        }
+        TarefaRecomendacao tarefa = new TarefaRecomendacao(UUID.randomUUID(), requestDTO.getUsuarioId(), requestDTO.getAparelho());
+        RecomendacaoService.PromptRecomendacao prompt = recomendacaoService.montarPrompt(
+                requestDTO.getUsuarioId(), requestDTO.getAparelho());
+        String chave = IndiceSemanticoRecomendacao.normalizar(prompt.texto());
+
+        while (true) {
+            Geracao geracao = emAndamento.get(chave);
+            if (geracao != null) {
+                if (geracao.incluir(tarefa)) {
+                    break;
+                }
+                // Geração encerrada entre a consulta e a inclusão
+                emAndamento.remove(chave, geracao);
+                continue;
+            }
+            Geracao nova = new Geracao(chave, prompt);
+            nova.incluir(tarefa);
+            if (emAndamento.putIfAbsent(chave, nova) == null) {
+                try {
+                    executor.execute(() -> gerar(nova));
+                } catch (RejectedExecutionException e) {
+                    emAndamento.remove(chave, nova);
+                    throw new ServicoIndisponivelException("Muitas recomendações em geração. Tente novamente em instantes.", e);
+                }
+                break;
+            }
+        }
+
+        tarefas.put(tarefa.getId(), tarefa);
+        return tarefa.paraResponseDTO();
+    }
+
+    /**
+     * Busca a situação de uma tarefa.
+     *
+     * @param id ID da tarefa.
+     * @return Situação atual da tarefa.
+     */
+    public TarefaRecomendacaoResponseDTO buscarTarefa(UUID id) {
+        return getTarefa(id).paraResponseDTO();
+    }
+
+    /**
+     * Transmite a tarefa por Server-Sent Events: um evento {@value #EVENTO_TRECHO} para cada
+     * trecho de texto e um evento {@value #EVENTO_FINALIZADA} com a situação final, após o qual
+     * a conexão é encerrada.
+     *
+     * @param id ID da tarefa.
+     * @return Emissor dos eventos da tarefa.
+     */
+    public SseEmitter transmitirTarefa(UUID id) {
+        TarefaRecomendacao tarefa = getTarefa(id);
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        EnvioSse ouvinte = new EnvioSse(emitter, envios);
+        emitter.onCompletion(() -> tarefa.deixarDeAcompanhar(ouvinte));
+        emitter.onTimeout(() -> tarefa.deixarDeAcompanhar(ouvinte));
+        emitter.onError(erro -> tarefa.deixarDeAcompanhar(ouvinte));
+        try {
+            tarefa.acompanhar(ouvinte);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+        envios.shutdownNow();
+    }
+
+    private TarefaRecomendacao getTarefa(UUID id) {
+        TarefaRecomendacao tarefa = tarefas.getIfPresent(id);
+        if (tarefa == null) {
+            throw new ResourceNotFoundException("Tarefa não encontrada");
+        }
+        return tarefa;
+    }
+
+    private void gerar(Geracao geracao) {
+        String mensagem;
+        try {
+            mensagem = recomendacaoService.gerarMensagem(geracao.prompt, geracao::adicionarTrecho, timeout);
+        } catch (RuntimeException e) {
+            logger.error("Falha ao gerar a recomendação para o aparelho '{}'", geracao.prompt.aparelho(), e);
+            mensagem = null;
+        }
+
+        List<TarefaRecomendacao> participantes = geracao.encerrar(mensagem);
+        emAndamento.remove(geracao.chave, geracao);
+        for (TarefaRecomendacao tarefa : participantes) {
+            if (mensagem == null) {
+                tarefa.falhar(ERRO_GERACAO);
+                continue;
+            }
+            try {
+                tarefa.concluir(recomendacaoService.salvarRecomendacao(tarefa.getUsuarioId(), mensagem));
+            } catch (RuntimeException e) {
+                logger.error("Falha ao salvar a recomendação da tarefa {}", tarefa.getId(), e);
+                tarefa.falhar(ERRO_GERACAO);
+            }
+        }
+    }
+
+    /**
+     * Ouvinte que entrega os eventos de uma tarefa a um {@link SseEmitter}. Os eventos entram na
+     * fila da conexão e são enviados em ordem por uma única thread do pool de envio por vez;
+     * após a finalização a conexão é encerrada, e após uma falha de envio os eventos seguintes
+     * são descartados.
+     */
+    static final class EnvioSse implements TarefaRecomendacao.Ouvinte {
+
+        private final SseEmitter emitter;
+        private final Executor envios;
+        private final Queue<Envio> fila = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean encerrado;
+
+        EnvioSse(SseEmitter emitter, Executor envios) {
+            this.emitter = emitter;
+            this.envios = envios;
+        }
+
+        @Override
+        public void aoReceberTrecho(String trecho) {
+            enfileirar(new Envio(SseEmitter.event().name(EVENTO_TRECHO).data(trecho), false));
+        }
+
+        @Override
+        public void aoFinalizar(TarefaRecomendacaoResponseDTO responseDTO) {
+            enfileirar(new Envio(SseEmitter.event().name(EVENTO_FINALIZADA).data(responseDTO), true));
+        }
+
+        private void enfileirar(Envio envio) {
+            if (encerrado) {
+                return;
+            }
+            fila.add(envio);
+            agendar();
+        }
+
+        private void agendar() {
+            if (!fila.isEmpty() && enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::esvaziar);
+                } catch (RejectedExecutionException e) {
+                    enviando.set(false);
+                    falhar(e);
+                }
+            }
+        }
+
+        private void esvaziar() {
+            try {
+                for (Envio envio = fila.poll(); envio != null && !encerrado; envio = fila.poll()) {
+                    emitter.send(envio.evento());
+                    if (envio.ultimo()) {
+                        encerrado = true;
+                        emitter.complete();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Conexão encerrada pelo cliente
+                falhar(e);
+            } finally {
+                enviando.set(false);
+            }
+            // Eventos enfileirados depois da última consulta à fila
+            agendar();
+        }
+
+        private void falhar(Exception e) {
+            encerrado = true;
+            fila.clear();
+            emitter.completeWithError(e);
+        }
+
+        /**
+         * Evento da fila; o último encerra a conexão depois de enviado.
+         */
+        private record Envio(SseEmitter.SseEventBuilder evento, boolean ultimo) {
+        }
+    }
+
+    /**
+     * Geração em andamento para um prompt e as tarefas que aguardam por ela.
+     */
+    private static final class Geracao {
+
+        private final String chave;
+        private final RecomendacaoService.PromptRecomendacao prompt;
+        private final List<TarefaRecomendacao> participantes = new ArrayList<>();
+        private final StringBuilder texto = new StringBuilder();
+        private boolean encerrada;
+
+        private Geracao(String chave, RecomendacaoService.PromptRecomendacao prompt) {
+            this.chave = chave;
+            this.prompt = prompt;
+        }
+
+        /**
+         * Inclui uma tarefa na geração, repassando a ela o texto já recebido.
+         *
+         * @return false se a geração já foi encerrada.
+         */
+        synchronized boolean incluir(TarefaRecomendacao tarefa) {
+            if (encerrada) {
+                return false;
+            }
+            if (!texto.isEmpty()) {
+                tarefa.adicionarTrecho(texto.toString());
+            }
+            participantes.add(tarefa);
+            return true;
+        }
+
+        synchronized void adicionarTrecho(String trecho) {
+            texto.append(trecho);
+            participantes.forEach(tarefa -> tarefa.adicionarTrecho(trecho));
+        }
+
+        /**
+         * Encerra a geração. Uma mensagem vinda do cache não passa pelos trechos, então o texto
+         * que falta é repassado às tarefas antes da conclusão.
+         *
+         * @return Tarefas que participaram da geração.
+         */
+        synchronized List<TarefaRecomendacao> encerrar(String mensagem) {
+            encerrada = true;
+            if (mensagem != null && mensagem.length() > texto.length() && mensagem.startsWith(texto.toString())) {
+                adicionarTrecho(mensagem.substring(texto.length()));
+            }
+            return List.copyOf(participantes);
+        }
+    }
+}
@@ -3,12 +3,14 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.UsuarioRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.UsuarioResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.UsuarioMapper;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,14 +22,20 @@ public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
     private final KafkaProducerService kafkaProducerService;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final UsuarioMapper usuarioMapper;
 
     @Autowired
     public UsuarioService(UsuarioRepository usuarioRepository,
                           PasswordEncoder passwordEncoder,
-                          KafkaProducerService kafkaProducerService) {
+                          KafkaProducerService kafkaProducerService,
+                          CustomUserDetailsService customUserDetailsService,
+                          UsuarioMapper usuarioMapper) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
         this.kafkaProducerService = kafkaProducerService;
+        this.customUserDetailsService = customUserDetailsService;
+        this.usuarioMapper = usuarioMapper;
     }
 
     /**
@@ -37,7 +45,7 @@ public class UsuarioService {
      */
     public List<UsuarioResponseDTO> listarTodosUsuarios() {
         return usuarioRepository.findAll().stream()
-                .map(this::toResponseDTO)
+                .map(usuarioMapper::toResponseDTO)
                 .collect(Collectors.toList());
     }
 
@@ -49,7 +57,7 @@ public class UsuarioService {
      */
     public Optional<UsuarioResponseDTO> buscarUsuarioPorId(Long id) {
         return usuarioRepository.findById(id)
-                .map(this::toResponseDTO);
+                .map(usuarioMapper::toResponseDTO);
     }
 
     /**
@@ -58,13 +66,13 @@ public class UsuarioService {
      * @param requestDTO Dados do usuário.
      * @return UsuarioResponseDTO com os dados do usuário criado.
      */
+    @Transactional
     public UsuarioResponseDTO criarUsuario(UsuarioRequestDTO requestDTO) {
         if (usuarioRepository.existsByEmail(requestDTO.getEmail())) {
             throw new IllegalArgumentException("O email já está em uso.");
         }
 
-        Usuario usuario = new Usuario();
-        BeanUtils.copyProperties(requestDTO, usuario);
+        Usuario usuario = usuarioMapper.toEntity(requestDTO);
         usuario.setSenha(passwordEncoder.encode(requestDTO.getSenha()));
         usuario.setRole("ROLE_USER"); // Define o papel padrão
         usuario.setPontuacaoEconomia(0.0);
@@ -72,14 +80,10 @@ public class UsuarioService {
         Usuario novoUsuario = usuarioRepository.save(usuario);
 
         // Enviar evento ao Kafka
-        try {
-            UsuarioResponseDTO responseDTO = toResponseDTO(novoUsuario);
-            kafkaProducerService.sendMessage("usuario-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("usuario-events", novoUsuario.getId(),
+                TipoEvento.CRIADO, usuarioMapper.toResponseDTO(novoUsuario));
 
-        return toResponseDTO(novoUsuario);
+        return usuarioMapper.toResponseDTO(novoUsuario);
     }
 
     /**
@@ -89,6 +93,7 @@ public class UsuarioService {
      * @param requestDTO Dados atualizados do usuário.
      * @return UsuarioResponseDTO com os dados atualizados.
      */
+    @Transactional
     public UsuarioResponseDTO atualizarUsuario(Long id, UsuarioRequestDTO requestDTO) {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
@@ -98,6 +103,7 @@ public class UsuarioService {
             throw new IllegalArgumentException("O email já está em uso.");
         }
 
+        String emailAnterior = usuario.getEmail();
         usuario.setNome(requestDTO.getNome());
         usuario.setEmail(requestDTO.getEmail());
 
@@ -106,16 +112,13 @@ public class UsuarioService {
         }
 
         Usuario usuarioAtualizado = usuarioRepository.save(usuario);
+        customUserDetailsService.invalidarUsuario(emailAnterior);
 
         // Enviar evento ao Kafka
-        try {
-            UsuarioResponseDTO responseDTO = toResponseDTO(usuarioAtualizado);
-            kafkaProducerService.sendMessage("usuario-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        kafkaProducerService.sendMessage("usuario-events", usuarioAtualizado.getId(),
+                TipoEvento.ATUALIZADO, usuarioMapper.toResponseDTO(usuarioAtualizado));
 
-        return toResponseDTO(usuarioAtualizado);
+        return usuarioMapper.toResponseDTO(usuarioAtualizado);
     }
 
     /**
@@ -127,7 +130,7 @@ public class UsuarioService {
     public UsuarioResponseDTO buscarUsuarioPorEmail(String email) {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado com o email: " + email));
-        return toResponseDTO(usuario);
+        return usuarioMapper.toResponseDTO(usuario);
     }
 
     /**
@@ -135,30 +138,16 @@ public class UsuarioService {
      *
      * @param id ID do usuário.
      */
+    @Transactional
     public void excluirUsuario(Long id) {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
 
         usuarioRepository.delete(usuario);
+        customUserDetailsService.invalidarUsuario(usuario.getEmail());
 
         // Enviar evento ao Kafka
-        try {
-            UsuarioResponseDTO responseDTO = toResponseDTO(usuario);
-            kafkaProducerService.sendMessage("usuario-events", responseDTO);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Converte uma entidade Usuario para UsuarioResponseDTO.
-     *
-     * @param usuario Entidade a ser convertida.
-     * @return UsuarioResponseDTO correspondente.
-     */
-    private UsuarioResponseDTO toResponseDTO(Usuario usuario) {
-        UsuarioResponseDTO responseDTO = new UsuarioResponseDTO();
-        BeanUtils.copyProperties(usuario, responseDTO);
-        return responseDTO;
+        kafkaProducerService.sendMessage("usuario-events", usuario.getId(),
+                TipoEvento.EXCLUIDO, usuarioMapper.toResponseDTO(usuario));
     }
 }
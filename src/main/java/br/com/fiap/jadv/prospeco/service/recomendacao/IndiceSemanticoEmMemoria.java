@@ -0,0 +1,93 @@
+package br.com.fiap.jadv.prospeco.service.recomendacao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <h1>IndiceSemanticoEmMemoria</h1>
+ * Índice local, sem modelo de embeddings: a similaridade entre assuntos é o coeficiente de
+ * Jaccard dos trigramas de caracteres dos textos normalizados, o que aproxima variações de
+ * grafia, plural e pontuação ("ar-condicionado", "Ar condicionados"). As entradas ficam em um
+ * cache com expiração e tamanho máximo, e a busca percorre as entradas da instância.
+ */
+@Component
+public class IndiceSemanticoEmMemoria implements IndiceSemanticoRecomendacao {
+
+    public static final String ARMAZENAMENTO = "memoria";
+
+    private final Cache<String, Entrada> entradas;
+    private final double limiarSimilaridade;
+
+    @Autowired
+    public IndiceSemanticoEmMemoria(@Value("${app.recomendacao.cache.semantico.memoria.tamanho-maximo:1000}") long tamanhoMaximo,
+                                    @Value("${app.recomendacao.cache.expiracao:PT24H}") Duration expiracao,
+                                    @Value("${app.recomendacao.cache.semantico.memoria.limiar-similaridade:0.7}") double limiarSimilaridade) {
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .build();
+        this.limiarSimilaridade = limiarSimilaridade;
+    }
+
+    @Override
+    public String armazenamento() {
+        return ARMAZENAMENTO;
+    }
+
+    @Override
+    public Optional<String> buscar(String assunto) {
+        Set<String> trigramas = trigramas(IndiceSemanticoRecomendacao.normalizar(assunto));
+        Entrada maisSemelhante = null;
+        double maiorSimilaridade = limiarSimilaridade;
+        for (Entrada entrada : entradas.asMap().values()) {
+            double similaridade = similaridade(trigramas, entrada.trigramas());
+            if (similaridade >= maiorSimilaridade) {
+                maisSemelhante = entrada;
+                maiorSimilaridade = similaridade;
+            }
+        }
+        return maisSemelhante == null ? Optional.empty() : Optional.of(maisSemelhante.recomendacao());
+    }
+
+    @Override
+    public void registrar(String assunto, String recomendacao) {
+        String normalizado = IndiceSemanticoRecomendacao.normalizar(assunto);
+        entradas.put(normalizado, new Entrada(trigramas(normalizado), recomendacao));
+    }
+
+    private static double similaridade(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.equals(b) ? 1.0 : 0.0;
+        }
+        int comuns = 0;
+        for (String trigrama : a) {
+            if (b.contains(trigrama)) {
+                comuns++;
+            }
+        }
+        return (double) comuns / (a.size() + b.size() - comuns);
+    }
+
+    private static Set<String> trigramas(String texto) {
+        String delimitado = " " + texto + " ";
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= delimitado.length(); i++) {
+            trigramas.add(delimitado.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    /**
+     * Recomendação registrada e os trigramas do seu assunto.
+     */
+    private record Entrada(Set<String> trigramas, String recomendacao) {
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.fiap.jadv.prospeco.service.recomendacao;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * <h1>IndiceSemanticoRecomendacao</h1>
+ * Armazenamento das recomendações já geradas, consultado por similaridade do assunto
+ * (o nome do aparelho, única parte variável do prompt). Permite reaproveitar a recomendação
+ * de um assunto equivalente ("geladeira", "Geladeiras") sem uma nova chamada ao modelo.
+ */
+public interface IndiceSemanticoRecomendacao {
+
+    /**
+     * Nome do armazenamento, usado em {@code app.recomendacao.cache.semantico.armazenamento}.
+     *
+     * @return Nome do armazenamento.
+     */
+    String armazenamento();
+
+    /**
+     * Busca a recomendação do assunto mais semelhante, dentro do limiar de similaridade
+     * e da expiração configurados.
+     *
+     * @param assunto Assunto da recomendação.
+     * @return Recomendação encontrada; vazio se nenhum assunto é semelhante o suficiente.
+     */
+    Optional<String> buscar(String assunto);
+
+    /**
+     * Registra a recomendação gerada para um assunto.
+     *
+     * @param assunto      Assunto da recomendação.
+     * @param recomendacao Texto gerado pelo modelo.
+     */
+    void registrar(String assunto, String recomendacao);
+
+    /**
+     * Normaliza um texto para comparação: sem acentos, em minúsculas e com pontuação e
+     * espaços repetidos reduzidos a um único espaço.
+     *
+     * @param texto Texto original.
+     * @return Texto normalizado.
+     */
+    static String normalizar(String texto) {
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.fiap.jadv.prospeco.service.recomendacao;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <h1>IndiceSemanticoVectorStore</h1>
+ * Índice sobre o {@link VectorStore} do Spring AI (o Azure AI Search do starter declarado no
+ * projeto), com a similaridade calculada pelos embeddings do assunto. Cada recomendação é um
+ * documento com o assunto normalizado como conteúdo e, nos metadados, o texto gerado e o
+ * instante do registro; documentos mais antigos que a expiração são ignorados e removidos
+ * quando encontrados.
+ */
+@Component
+public class IndiceSemanticoVectorStore implements IndiceSemanticoRecomendacao {
+
+    public static final String ARMAZENAMENTO = "vector-store";
+
+    static final String METADADO_RECOMENDACAO = "recomendacao";
+    static final String METADADO_REGISTRADO_EM = "registradoEm";
+
+    private static final int CANDIDATOS = 3;
+
+    private final ObjectProvider<VectorStore> vectorStore;
+    private final Duration expiracao;
+    private final double limiarSimilaridade;
+
+    @Autowired
+    public IndiceSemanticoVectorStore(ObjectProvider<VectorStore> vectorStore,
+                                      @Value("${app.recomendacao.cache.expiracao:PT24H}") Duration expiracao,
+                                      @Value("${app.recomendacao.cache.semantico.vector-store.limiar-similaridade:0.9}") double limiarSimilaridade) {
+        this.vectorStore = vectorStore;
+        this.expiracao = expiracao;
+        this.limiarSimilaridade = limiarSimilaridade;
+    }
+
+    @Override
+    public String armazenamento() {
+        return ARMAZENAMENTO;
+    }
+
+    @Override
+    public Optional<String> buscar(String assunto) {
+        VectorStore store = getVectorStore();
+        List<Document> documentos = store.similaritySearch(SearchRequest.query(IndiceSemanticoRecomendacao.normalizar(assunto))
+                .withTopK(CANDIDATOS)
+                .withSimilarityThreshold(limiarSimilaridade));
+
+        long limiteRegistro = System.currentTimeMillis() - expiracao.toMillis();
+        List<String> expirados = new ArrayList<>();
+        Optional<String> recomendacao = Optional.empty();
+        for (Document documento : documentos) {
+            Map<String, Object> metadados = documento.getMetadata();
+            Object registradoEm = metadados.get(METADADO_REGISTRADO_EM);
+            if (!(registradoEm instanceof Number) || ((Number) registradoEm).longValue() < limiteRegistro) {
+                expirados.add(documento.getId());
+            } else if (recomendacao.isEmpty() && metadados.get(METADADO_RECOMENDACAO) instanceof String texto) {
+                // Os documentos chegam do mais para o menos semelhante
+                recomendacao = Optional.of(texto);
+            }
+        }
+        if (!expirados.isEmpty()) {
+            store.delete(expirados);
+        }
+        return recomendacao;
+    }
+
+    @Override
+    public void registrar(String assunto, String recomendacao) {
+        getVectorStore().add(List.of(new Document(IndiceSemanticoRecomendacao.normalizar(assunto), Map.of(
+                METADADO_RECOMENDACAO, recomendacao,
+                METADADO_REGISTRADO_EM, System.currentTimeMillis()))));
+    }
+
+    private VectorStore getVectorStore() {
+        VectorStore store = vectorStore.getIfAvailable();
+        if (store == null) {
+            throw new IllegalStateException("Nenhum VectorStore configurado (spring.ai.vectorstore.azure.*)");
+        }
+        return store;
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.fiap.jadv.prospeco.service.serializacao;
+
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import org.apache.avro.SchemaNormalization;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>RegistroSchemasAvro</h1>
+ * Registro local dos schemas Avro dos eventos, indexados pela impressão digital
+ * (CRC-64-AVRO da forma canônica) que acompanha cada mensagem.
+ *
+ * <p>
+ * Substitui um schema registry enquanto produtores e consumidores são a mesma aplicação:
+ * contém os schemas gerados por esta instância a partir dos DTOs. Uma mensagem com schema
+ * de outra versão da aplicação só é lida depois que o schema for registrado aqui.
+ * </p>
+ */
+@Component
+public class RegistroSchemasAvro {
+
+    private final Map<Long, AvroSchema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Registra um schema.
+     *
+     * @param schema Schema Avro.
+     * @return Impressão digital do schema.
+     */
+    public long registrar(AvroSchema schema) {
+        long impressaoDigital = SchemaNormalization.parsingFingerprint64(schema.getAvroSchema());
+        schemas.putIfAbsent(impressaoDigital, schema);
+        return impressaoDigital;
+    }
+
+    /**
+     * Busca um schema pela impressão digital.
+     *
+     * @param impressaoDigital Impressão digital do schema.
+     * @return Schema, se registrado.
+     */
+    public Optional<AvroSchema> buscar(long impressaoDigital) {
+        return Optional.ofNullable(schemas.get(impressaoDigital));
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.fiap.jadv.prospeco.service.serializacao;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+
+import java.io.IOException;
+
+/**
+ * <h1>SerializadorEvento</h1>
+ * Formato de serialização dos eventos publicados no Kafka. Cada implementação identifica
+ * o próprio conteúdo, de modo que os consumidores leem eventos de qualquer formato
+ * independentemente do formato configurado para a publicação.
+ */
+public interface SerializadorEvento {
+
+    /**
+     * Nome do formato, usado em {@code app.kafka.serializacao.formato}.
+     *
+     * @return Nome do formato.
+     */
+    String formato();
+
+    /**
+     * Indica se o conteúdo foi produzido por este serializador.
+     *
+     * @param conteudo Conteúdo recebido do Kafka.
+     * @return true se o conteúdo está neste formato.
+     */
+    boolean reconhece(byte[] conteudo);
+
+    /**
+     * Serializa um evento.
+     *
+     * @param evento    Evento a ser serializado.
+     * @param tipoDados Classe do DTO carregado pelo evento.
+     * @return Conteúdo serializado.
+     * @throws IOException Se o evento não puder ser serializado.
+     */
+    byte[] serializar(EventoDTO<?> evento, Class<?> tipoDados) throws IOException;
+
+    /**
+     * Desserializa um evento.
+     *
+     * @param conteudo  Conteúdo recebido do Kafka.
+     * @param tipoDados Classe do DTO carregado pelo evento.
+     * @param <T>       Tipo do DTO.
+     * @return Evento desserializado.
+     * @throws IOException Se o conteúdo for inválido.
+     */
+    <T> EventoDTO<T> desserializar(byte[] conteudo, Class<T> tipoDados) throws IOException;
+}
@@ -0,0 +1,137 @@
+package br.com.fiap.jadv.prospeco.service.serializacao;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import com.fasterxml.jackson.dataformat.avro.schema.AvroSchemaGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>SerializadorEventoAvro</h1>
+ * Serializa os eventos em Avro binário, com o schema gerado a partir do envelope e do DTO.
+ *
+ * <p>
+ * As mensagens seguem a codificação de objeto único do Avro: o marcador {@code C3 01},
+ * a impressão digital do schema de escrita (8 bytes, little-endian) e o registro. Na leitura,
+ * se a impressão digital difere do schema local, o schema de escrita é buscado no
+ * {@link RegistroSchemasAvro} e resolvido contra o schema local.
+ * </p>
+ */
+@Component
+public class SerializadorEventoAvro implements SerializadorEvento {
+
+    public static final String FORMATO = "avro";
+
+    private static final byte[] MARCADOR = {(byte) 0xC3, 0x01};
+    private static final int TAMANHO_CABECALHO = MARCADOR.length + Long.BYTES;
+
+    private final AvroMapper avroMapper;
+    private final RegistroSchemasAvro registroSchemas;
+    private final Map<Class<?>, EsquemaEvento> esquemas = new ConcurrentHashMap<>();
+    private final Map<ChaveLeitor, ObjectReader> leitoresResolvidos = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SerializadorEventoAvro(RegistroSchemasAvro registroSchemas) {
+        this.registroSchemas = registroSchemas;
+        this.avroMapper = AvroMapper.builder()
+                .addModule(new AvroJavaTimeModule())
+                .build();
+    }
+
+    @Override
+    public String formato() {
+        return FORMATO;
+    }
+
+    @Override
+    public boolean reconhece(byte[] conteudo) {
+        return conteudo.length >= TAMANHO_CABECALHO && conteudo[0] == MARCADOR[0] && conteudo[1] == MARCADOR[1];
+    }
+
+    @Override
+    public byte[] serializar(EventoDTO<?> evento, Class<?> tipoDados) throws IOException {
+        EsquemaEvento esquema = esquemaDe(tipoDados);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(256);
+        saida.write(MARCADOR);
+        saida.write(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(esquema.impressaoDigital()).array());
+        esquema.escritor().writeValue(saida, evento);
+        return saida.toByteArray();
+    }
+
+    @Override
+    public <T> EventoDTO<T> desserializar(byte[] conteudo, Class<T> tipoDados) throws IOException {
+        if (!reconhece(conteudo)) {
+            throw new JsonMappingException(null, "Conteúdo não está no formato Avro de objeto único");
+        }
+        long impressaoDigital = ByteBuffer.wrap(conteudo, MARCADOR.length, Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .getLong();
+        EsquemaEvento esquema = esquemaDe(tipoDados);
+        ObjectReader leitor = impressaoDigital == esquema.impressaoDigital()
+                ? esquema.leitor()
+                : leitoresResolvidos.computeIfAbsent(new ChaveLeitor(impressaoDigital, tipoDados),
+                        this::criarLeitorResolvido);
+        return leitor.readValue(conteudo, TAMANHO_CABECALHO, conteudo.length - TAMANHO_CABECALHO);
+    }
+
+    private EsquemaEvento esquemaDe(Class<?> tipoDados) {
+        return esquemas.computeIfAbsent(tipoDados, this::gerarEsquema);
+    }
+
+    private EsquemaEvento gerarEsquema(Class<?> tipoDados) {
+        JavaType tipoEnvelope = tipoEnvelope(tipoDados);
+        try {
+            AvroSchemaGenerator gerador = new AvroSchemaGenerator().enableLogicalTypes();
+            avroMapper.acceptJsonFormatVisitor(tipoEnvelope, gerador);
+            AvroSchema schema = gerador.getGeneratedSchema();
+            return new EsquemaEvento(registroSchemas.registrar(schema), schema,
+                    avroMapper.writerFor(tipoEnvelope).with(schema),
+                    avroMapper.readerFor(tipoEnvelope).with(schema));
+        } catch (JsonMappingException e) {
+            throw new IllegalStateException(
+                    "Erro ao gerar o schema Avro dos eventos de " + tipoDados.getSimpleName(), e);
+        }
+    }
+
+    private ObjectReader criarLeitorResolvido(ChaveLeitor chave) {
+        AvroSchema schemaEscrita = registroSchemas.buscar(chave.impressaoDigital())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Schema Avro desconhecido: " + Long.toHexString(chave.impressaoDigital())));
+        AvroSchema schemaLeitura = esquemaDe(chave.tipoDados()).schema();
+        try {
+            return avroMapper.readerFor(tipoEnvelope(chave.tipoDados()))
+                    .with(schemaEscrita.withReaderSchema(schemaLeitura));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Schema Avro incompatível: "
+                    + Long.toHexString(chave.impressaoDigital()), e);
+        }
+    }
+
+    private JavaType tipoEnvelope(Class<?> tipoDados) {
+        return avroMapper.getTypeFactory().constructParametricType(EventoDTO.class, tipoDados);
+    }
+
+    /**
+     * Schema gerado para o envelope de um DTO, com escritor e leitor já vinculados a ele.
+     */
+    private record EsquemaEvento(long impressaoDigital, AvroSchema schema, ObjectWriter escritor, ObjectReader leitor) {
+    }
+
+    private record ChaveLeitor(long impressaoDigital, Class<?> tipoDados) {
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.fiap.jadv.prospeco.service.serializacao;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h1>SerializadorEventoJson</h1>
+ * Serializa os eventos em JSON, o formato original do pipeline. A leitura usa um
+ * {@link ObjectReader} por classe de DTO, criado uma única vez.
+ */
+@Component
+public class SerializadorEventoJson implements SerializadorEvento {
+
+    public static final String FORMATO = "json";
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> leitores = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SerializadorEventoJson(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String formato() {
+        return FORMATO;
+    }
+
+    @Override
+    public boolean reconhece(byte[] conteudo) {
+        for (byte b : conteudo) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] serializar(EventoDTO<?> evento, Class<?> tipoDados) throws IOException {
+        return objectMapper.writeValueAsBytes(evento);
+    }
+
+    @Override
+    public <T> EventoDTO<T> desserializar(byte[] conteudo, Class<T> tipoDados) throws IOException {
+        return leitores.computeIfAbsent(tipoDados, this::criarLeitor).readValue(conteudo);
+    }
+
+    private ObjectReader criarLeitor(Class<?> tipoDados) {
+        JavaType tipoEnvelope = objectMapper.getTypeFactory().constructParametricType(EventoDTO.class, tipoDados);
+        return objectMapper.readerFor(tipoEnvelope);
+    }
+}
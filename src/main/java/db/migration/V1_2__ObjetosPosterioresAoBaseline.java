@@ -0,0 +1,104 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * <h1>V1_2__ObjetosPosterioresAoBaseline</h1>
+ * Migração que cria as tabelas e sequências que não existiam no esquema anterior ao Flyway. Nos
+ * bancos existentes a versão 1 é registrada como baseline e não é executada, portanto estes objetos
+ * são criados aqui, depois da conversão das colunas IDENTITY (versão 1.1, db/sqlserver) e antes das
+ * versões que os alteram.
+ *
+ * <p>
+ * Cada objeto só é criado se ainda não existir, pois bancos atualizados pelo Hibernate
+ * ({@code ddl-auto=update}) antes do Flyway podem já tê-lo. A migração é escrita em Java para
+ * consultar o INFORMATION_SCHEMA da mesma forma no SQL Server e no H2. As sequências pooled começam
+ * em MAX(id) + 50 porque o otimizador pooled do Hibernate trata o valor lido como o limite superior
+ * do bloco.
+ * </p>
+ */
+public class V1_2__ObjetosPosterioresAoBaseline extends BaseJavaMigration {
+
+    private static final String CONSUMOS_AGREGADOS = "CREATE TABLE consumos_agregados ("
+            + " id                    BIGINT IDENTITY(1, 1) NOT NULL,"
+            + " escopo                VARCHAR(20)           NOT NULL,"
+            + " referencia_id         BIGINT                NOT NULL,"
+            + " granularidade         VARCHAR(10)           NOT NULL,"
+            + " inicio_periodo        DATETIME2(6)          NOT NULL,"
+            + " consumo_total         FLOAT(53)             NOT NULL,"
+            + " quantidade_registros  BIGINT                NOT NULL,"
+            + " CONSTRAINT pk_consumos_agregados PRIMARY KEY (id),"
+            + " CONSTRAINT uk_consumos_agregados_periodo UNIQUE (escopo, referencia_id, granularidade, inicio_periodo),"
+            + " CONSTRAINT ck_consumos_agregados_escopo CHECK (escopo IN ('APARELHO', 'USUARIO')),"
+            + " CONSTRAINT ck_consumos_agregados_granularidade CHECK (granularidade IN ('HORA', 'DIA', 'MES'))"
+            + ")";
+
+    private static final String EVENTOS_OUTBOX = "CREATE TABLE eventos_outbox ("
+            + " id         BIGINT         NOT NULL,"
+            + " topico     VARCHAR(200)   NOT NULL,"
+            + " chave      VARCHAR(100),"
+            + " payload    VARBINARY(MAX) NOT NULL,"
+            + " criado_em  DATETIME2(6)   NOT NULL,"
+            + " CONSTRAINT pk_eventos_outbox PRIMARY KEY (id)"
+            + ")";
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection conexao = context.getConnection();
+        if (!existe(conexao, "INFORMATION_SCHEMA.TABLES", "TABLE", "consumos_agregados")) {
+            executar(conexao, CONSUMOS_AGREGADOS);
+        }
+        if (!existe(conexao, "INFORMATION_SCHEMA.TABLES", "TABLE", "eventos_outbox")) {
+            executar(conexao, EVENTOS_OUTBOX);
+        }
+        criarSequenciaPooled(conexao, "registros_consumo_seq", "registros_consumo");
+        criarSequenciaPooled(conexao, "notificacoes_seq", "notificacoes");
+        criarSequenciaPooled(conexao, "eventos_outbox_seq", "eventos_outbox");
+    }
+
+    /**
+     * Cria uma sequência com incremento 50, a partir do maior ID já gravado na tabela.
+     */
+    private static void criarSequenciaPooled(Connection conexao, String sequencia, String tabela) throws SQLException {
+        if (existe(conexao, "INFORMATION_SCHEMA.SEQUENCES", "SEQUENCE", sequencia)) {
+            return;
+        }
+        long inicio;
+        try (Statement instrucao = conexao.createStatement();
+             ResultSet resultado = instrucao.executeQuery("SELECT COALESCE(MAX(id), 0) + 50 FROM " + tabela)) {
+            resultado.next();
+            inicio = resultado.getLong(1);
+        }
+        executar(conexao, "CREATE SEQUENCE " + sequencia + " AS BIGINT START WITH " + inicio + " INCREMENT BY 50");
+    }
+
+    /**
+     * Verifica se um objeto existe no esquema da conexão, comparando os nomes sem diferenciar
+     * maiúsculas (o H2 guarda os identificadores em maiúsculas).
+     */
+    private static boolean existe(Connection conexao, String visao, String tipo, String nome) throws SQLException {
+        String consulta = "SELECT COUNT(*) FROM " + visao + " WHERE UPPER(" + tipo + "_SCHEMA) = UPPER(?)"
+                + " AND UPPER(" + tipo + "_NAME) = UPPER(?)";
+        try (PreparedStatement instrucao = conexao.prepareStatement(consulta)) {
+            instrucao.setString(1, conexao.getSchema());
+            instrucao.setString(2, nome);
+            try (ResultSet resultado = instrucao.executeQuery()) {
+                resultado.next();
+                return resultado.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static void executar(Connection conexao, String sql) throws SQLException {
+        try (Statement instrucao = conexao.createStatement()) {
+            instrucao.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- =====================================================================
+-- Reserva de lotes do pré-cálculo de recomendações.
+--
+-- Cada instância reserva o próximo lote de usuários (avançando o
+-- checkpoint da execução) antes de chamar o modelo, e os usuários
+-- reservados ficam pendentes até que sua recomendação seja gravada. Os
+-- que falharam, ou cuja reserva expirou, são tentados de novo antes de
+-- a execução ser concluída.
+-- =====================================================================
+
+CREATE TABLE pendencias_pre_calculo_recomendacao (
+    id               BIGINT IDENTITY(1, 1) NOT NULL,
+    data_referencia  DATE                  NOT NULL,
+    usuario_id       BIGINT                NOT NULL,
+    tentativas       INT                   NOT NULL,
+    reservada_ate    DATETIME2(6),
+    CONSTRAINT pk_pendencias_pre_calculo_recomendacao PRIMARY KEY (id),
+    CONSTRAINT uk_pendencias_pre_calculo_recomendacao_usuario UNIQUE (data_referencia, usuario_id)
+);
@@ -0,0 +1,92 @@
+-- =====================================================================
+-- Esquema inicial do ProspEco: as tabelas que o Hibernate gerava com
+-- spring.jpa.hibernate.ddl-auto=update antes da adoção do Flyway, já com
+-- registros_consumo e notificacoes sem IDENTITY.
+--
+-- Bancos criados antes do Flyway já possuem estas tabelas: nesses casos a
+-- versão 1 é registrada como baseline (spring.flyway.baseline-on-migrate)
+-- e somente as versões seguintes são aplicadas, a começar pela 1.1
+-- (db/sqlserver), que converte as colunas IDENTITY ainda existentes. As
+-- tabelas e sequências que não existiam nesses bancos são criadas pela
+-- versão 1.2 (db.migration.V1_2__ObjetosPosterioresAoBaseline).
+-- =====================================================================
+
+CREATE TABLE usuarios (
+    id                  BIGINT IDENTITY(1, 1) NOT NULL,
+    nome                VARCHAR(255),
+    email               VARCHAR(255)          NOT NULL,
+    senha               VARCHAR(255),
+    role                VARCHAR(255),
+    pontuacao_economia  FLOAT(53),
+    CONSTRAINT pk_usuarios PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE aparelhos (
+    id          BIGINT IDENTITY(1, 1) NOT NULL,
+    nome        VARCHAR(100)          NOT NULL,
+    potencia    FLOAT(53)             NOT NULL,
+    tipo        VARCHAR(50)           NOT NULL,
+    descricao   VARCHAR(255),
+    usuario_id  BIGINT                NOT NULL,
+    CONSTRAINT pk_aparelhos PRIMARY KEY (id),
+    CONSTRAINT fk_aparelhos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE registros_consumo (
+    id           BIGINT       NOT NULL,
+    data_hora    DATETIME2(6) NOT NULL,
+    consumo      FLOAT(53)    NOT NULL,
+    aparelho_id  BIGINT       NOT NULL,
+    CONSTRAINT pk_registros_consumo PRIMARY KEY (id),
+    CONSTRAINT fk_registros_consumo_aparelho FOREIGN KEY (aparelho_id) REFERENCES aparelhos (id)
+);
+
+CREATE TABLE metas (
+    id            BIGINT IDENTITY(1, 1) NOT NULL,
+    consumo_alvo  FLOAT(53)             NOT NULL,
+    data_inicio   DATE                  NOT NULL,
+    data_fim      DATE                  NOT NULL,
+    atingida      BIT                   NOT NULL,
+    usuario_id    BIGINT                NOT NULL,
+    CONSTRAINT pk_metas PRIMARY KEY (id),
+    CONSTRAINT fk_metas_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE notificacoes (
+    id          BIGINT       NOT NULL,
+    mensagem    TEXT         NOT NULL,
+    data_hora   DATETIME2(6) NOT NULL,
+    lida        BIT          NOT NULL,
+    usuario_id  BIGINT       NOT NULL,
+    CONSTRAINT pk_notificacoes PRIMARY KEY (id),
+    CONSTRAINT fk_notificacoes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE recomendacoes (
+    id          BIGINT IDENTITY(1, 1) NOT NULL,
+    mensagem    TEXT                  NOT NULL,
+    data_hora   DATETIME2(6)          NOT NULL,
+    usuario_id  BIGINT                NOT NULL,
+    CONSTRAINT pk_recomendacoes PRIMARY KEY (id),
+    CONSTRAINT fk_recomendacoes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE conquistas (
+    id              BIGINT IDENTITY(1, 1) NOT NULL,
+    titulo          VARCHAR(100)          NOT NULL,
+    descricao       VARCHAR(255),
+    data_conquista  DATETIME2(6)          NOT NULL,
+    usuario_id      BIGINT                NOT NULL,
+    CONSTRAINT pk_conquistas PRIMARY KEY (id),
+    CONSTRAINT fk_conquistas_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE bandeiras_tarifarias (
+    id             BIGINT IDENTITY(1, 1) NOT NULL,
+    tipo_bandeira  VARCHAR(20)           NOT NULL,
+    data_vigencia  DATE                  NOT NULL,
+    CONSTRAINT pk_bandeiras_tarifarias PRIMARY KEY (id),
+    CONSTRAINT ck_bandeiras_tarifarias_tipo
+        CHECK (tipo_bandeira IN ('VERDE', 'AMARELA', 'VERMELHA_1', 'VERMELHA_2'))
+);
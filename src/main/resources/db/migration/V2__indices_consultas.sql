@@ -0,0 +1,45 @@
+-- =====================================================================
+-- Índices das consultas dos repositórios.
+--
+-- O SQL Server não indexa chaves estrangeiras automaticamente, portanto
+-- toda listagem por usuário ou aparelho fazia varredura da tabela. Os
+-- índices das listagens ordenadas por data seguem a ordem dos feeds (data
+-- e id decrescentes, o desempate da paginação por cursor) e incluem as
+-- colunas projetadas que podem ser indexadas, de forma que a consulta não
+-- precise ordenar nem voltar à tabela.
+-- A coluna mensagem (TEXT) não pode fazer parte de um índice; nas
+-- notificações e recomendações apenas as linhas da página são buscadas
+-- na tabela.
+-- =====================================================================
+
+-- RegistroConsumoRepository: listarRegistrosPorAparelho, listarRegistrosRecentes e listarRegistrosAnteriores
+CREATE INDEX idx_registros_consumo_aparelho_data_hora
+    ON registros_consumo (aparelho_id, data_hora DESC, id DESC, consumo);
+
+-- NotificacaoRepository: listarNotificacoesPorUsuario, listarNotificacoesRecentes e listarNotificacoesAnteriores
+CREATE INDEX idx_notificacoes_usuario_data_hora
+    ON notificacoes (usuario_id, data_hora DESC, id DESC, lida);
+
+-- NotificacaoRepository: countByUsuarioAndLida
+CREATE INDEX idx_notificacoes_usuario_lida
+    ON notificacoes (usuario_id, lida);
+
+-- RecomendacaoRepository: listarRecomendacoesPorUsuario, listarRecomendacoesRecentes e listarRecomendacoesAnteriores
+CREATE INDEX idx_recomendacoes_usuario_data_hora
+    ON recomendacoes (usuario_id, data_hora DESC, id DESC);
+
+-- BandeiraTarifariaRepository: findByDataVigencia
+CREATE INDEX idx_bandeiras_tarifarias_data_vigencia
+    ON bandeiras_tarifarias (data_vigencia, tipo_bandeira);
+
+-- AparelhoRepository: listarAparelhosPorUsuario
+CREATE INDEX idx_aparelhos_usuario
+    ON aparelhos (usuario_id);
+
+-- MetaRepository: listarMetasPorUsuario
+CREATE INDEX idx_metas_usuario
+    ON metas (usuario_id);
+
+-- ConquistaRepository: listarConquistasPorUsuario
+CREATE INDEX idx_conquistas_usuario
+    ON conquistas (usuario_id);
@@ -0,0 +1,14 @@
+-- =====================================================================
+-- Custo dos consumos agregados.
+--
+-- Cada período passa a guardar o custo em reais, com cada leitura
+-- precificada pela bandeira tarifária vigente na sua data. Os agregados
+-- existentes ficam com custo zero até a próxima reprecificação
+-- (POST /api/consumo-agregado/reprecificacao).
+-- =====================================================================
+
+ALTER TABLE consumos_agregados ADD custo_total FLOAT(53) DEFAULT 0 NOT NULL;
+
+-- ConsumoAgregadoRepository: reprecificar, buscarPrimeiroInicioPeriodo e buscarUltimoInicioPeriodo
+CREATE INDEX idx_consumos_agregados_granularidade_inicio
+    ON consumos_agregados (granularidade, inicio_periodo);
@@ -0,0 +1,27 @@
+-- =====================================================================
+-- Avaliação automática das metas.
+--
+-- Cada meta guarda o consumo acumulado no seu período, somado a cada
+-- leitura, e se a avaliação já foi encerrada (fim do período ou alvo
+-- ultrapassado). As metas já marcadas como atingidas ficam encerradas e
+-- o consumo acumulado das existentes é apurado a partir dos agregados
+-- diários do usuário.
+-- =====================================================================
+
+ALTER TABLE metas ADD consumo_acumulado FLOAT(53) DEFAULT 0 NOT NULL;
+ALTER TABLE metas ADD encerrada BIT DEFAULT 0 NOT NULL;
+
+UPDATE metas
+SET encerrada = atingida,
+    consumo_acumulado = COALESCE((
+        SELECT SUM(c.consumo_total)
+        FROM consumos_agregados c
+        WHERE c.escopo = 'USUARIO'
+          AND c.referencia_id = metas.usuario_id
+          AND c.granularidade = 'DIA'
+          AND c.inicio_periodo >= metas.data_inicio
+          AND c.inicio_periodo < DATEADD(DAY, 1, metas.data_fim)), 0);
+
+-- MetaRepository: buscarMetasEmAvaliacao e buscarVencidas
+CREATE INDEX idx_metas_encerrada_data_fim
+    ON metas (encerrada, data_fim);
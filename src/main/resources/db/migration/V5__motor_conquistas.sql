@@ -0,0 +1,37 @@
+-- =====================================================================
+-- Motor de conquistas.
+--
+-- As conquistas concedidas por regra guardam o código da regra. O estado
+-- das métricas de cada usuário é compacto (dia e mês em andamento,
+-- sequência atual e meta vigente) e não referencia usuarios, pois é
+-- descartável. Os checkpoints guardam, por partição do Kafka, o próximo
+-- offset a aplicar, gravado na mesma transação que os estados.
+-- =====================================================================
+
+ALTER TABLE conquistas ADD codigo_regra VARCHAR(50);
+
+CREATE TABLE estados_conquista (
+    usuario_id                    BIGINT     NOT NULL,
+    dia_atual                     DATE,
+    consumo_dia_atual             FLOAT(53)  NOT NULL,
+    sequencia_dias_abaixo_da_meta INT        NOT NULL,
+    mes_atual                     DATE,
+    consumo_mes_atual             FLOAT(53)  NOT NULL,
+    consumo_mes_anterior          FLOAT(53)  NOT NULL,
+    meta_id                       BIGINT,
+    alvo_diario                   FLOAT(53),
+    inicio_meta                   DATE,
+    fim_meta                      DATE,
+    metas_atingidas               INT        NOT NULL,
+    CONSTRAINT pk_estados_conquista PRIMARY KEY (usuario_id)
+);
+
+CREATE TABLE checkpoints_conquista (
+    particao        VARCHAR(210)  NOT NULL,
+    proximo_offset  BIGINT        NOT NULL,
+    CONSTRAINT pk_checkpoints_conquista PRIMARY KEY (particao)
+);
+
+-- ConquistaRepository: existsByUsuarioIdAndCodigoRegra
+CREATE INDEX idx_conquistas_usuario_codigo_regra
+    ON conquistas (usuario_id, codigo_regra);
@@ -0,0 +1,21 @@
+-- =====================================================================
+-- Pré-cálculo noturno de recomendações.
+--
+-- Cada execução guarda o último usuário processado, gravado na mesma
+-- transação que as recomendações do lote, para que uma execução
+-- interrompida seja retomada a partir do lote seguinte.
+-- =====================================================================
+
+CREATE TABLE execucoes_pre_calculo_recomendacao (
+    data_referencia        DATE          NOT NULL,
+    ultimo_usuario_id      BIGINT        NOT NULL,
+    recomendacoes_geradas  INT           NOT NULL,
+    concluida              BIT           NOT NULL,
+    iniciada_em            DATETIME2(6)  NOT NULL,
+    concluida_em           DATETIME2(6),
+    CONSTRAINT pk_execucoes_pre_calculo_recomendacao PRIMARY KEY (data_referencia)
+);
+
+-- ExecucaoPreCalculoRecomendacaoRepository: findFirstByConcluidaFalseOrderByDataReferenciaDesc
+CREATE INDEX idx_execucoes_pre_calculo_recomendacao_concluida
+    ON execucoes_pre_calculo_recomendacao (concluida, data_referencia DESC);
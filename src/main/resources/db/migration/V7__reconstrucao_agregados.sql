@@ -0,0 +1,22 @@
+-- =====================================================================
+-- Marcador da reconstrução dos agregados de consumo.
+--
+-- A reconstrução grava um bloco de leituras por transação e avança o
+-- último registro reprocessado junto com os agregados do bloco. A única
+-- linha também é lida com bloqueio compartilhado por quem altera leituras,
+-- para não somar registros que o bloco seguinte ainda vai reprocessar.
+-- =====================================================================
+
+CREATE TABLE reconstrucao_agregados (
+    id                     INT           NOT NULL,
+    em_andamento           BIT           NOT NULL,
+    limite_registro_id     BIGINT        NOT NULL,
+    ultimo_registro_id     BIGINT        NOT NULL,
+    registros_processados  BIGINT        NOT NULL,
+    iniciada_em            DATETIME2(6),
+    concluida_em           DATETIME2(6),
+    CONSTRAINT pk_reconstrucao_agregados PRIMARY KEY (id)
+);
+
+INSERT INTO reconstrucao_agregados (id, em_andamento, limite_registro_id, ultimo_registro_id, registros_processados)
+VALUES (1, 0, 0, 0, 0);
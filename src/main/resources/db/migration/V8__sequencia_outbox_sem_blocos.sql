@@ -0,0 +1,12 @@
+-- =====================================================================
+-- Sequência do outbox sem alocação em blocos.
+--
+-- O relay publica os eventos em ordem de id. Com blocos de 50 por
+-- instância, um evento registrado depois em outra instância podia receber
+-- um id menor e ser publicado antes do anterior do mesmo agregado. Com
+-- incremento 1 cada id é obtido no momento da gravação. O próximo valor é
+-- sempre maior que os já entregues, pois o otimizador pooled do Hibernate
+-- nunca usa ids acima do último valor lido da sequência.
+-- =====================================================================
+
+ALTER SEQUENCE eventos_outbox_seq INCREMENT BY 1;
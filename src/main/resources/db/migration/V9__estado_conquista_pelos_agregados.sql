@@ -0,0 +1,12 @@
+-- =====================================================================
+-- Motor de conquistas avaliado pelos agregados.
+--
+-- O consumo dos dias e meses encerrados passa a ser lido de
+-- consumos_agregados, que somam as leituras de todos os aparelhos do
+-- usuário. Os acumulados mantidos no estado de cada usuário deixam de
+-- existir.
+-- =====================================================================
+
+ALTER TABLE estados_conquista DROP COLUMN consumo_dia_atual;
+ALTER TABLE estados_conquista DROP COLUMN consumo_mes_atual;
+ALTER TABLE estados_conquista DROP COLUMN consumo_mes_anterior;
@@ -0,0 +1,63 @@
+-- =====================================================================
+-- Migração das tabelas registros_consumo e notificacoes de IDENTITY para
+-- sequências com alocação em blocos (pooled, incremento 50): remove a
+-- propriedade IDENTITY; as sequências são criadas pela versão 1.2.
+--
+-- Somente o SQL Server carrega esta pasta (spring.flyway.locations usa
+-- db/{vendor}). A versão 1.1 roda logo após o baseline dos bancos criados
+-- antes do Flyway, que ainda podem ter as colunas IDENTITY, e antes dos
+-- índices da versão 2, que a reconstrução das tabelas descartaria.
+--
+-- O SQL Server não permite remover a propriedade IDENTITY de uma coluna,
+-- portanto cada tabela é reconstruída preservando os ids existentes.
+--
+-- Cada passo é condicional: tabelas já migradas (inclusive as criadas pela
+-- versão 1) são ignoradas. O Flyway executa a migração em uma única
+-- transação.
+-- =====================================================================
+SET XACT_ABORT ON;
+
+IF COLUMNPROPERTY(OBJECT_ID('dbo.registros_consumo'), 'id', 'IsIdentity') = 1
+BEGIN
+    CREATE TABLE dbo.registros_consumo_migracao (
+        id          BIGINT       NOT NULL,
+        data_hora   DATETIME2(6) NOT NULL,
+        consumo     FLOAT        NOT NULL,
+        aparelho_id BIGINT       NOT NULL
+    );
+
+    INSERT INTO dbo.registros_consumo_migracao (id, data_hora, consumo, aparelho_id)
+    SELECT id, data_hora, consumo, aparelho_id
+    FROM dbo.registros_consumo WITH (TABLOCKX);
+
+    DROP TABLE dbo.registros_consumo;
+    EXEC sp_rename 'dbo.registros_consumo_migracao', 'registros_consumo';
+
+    ALTER TABLE dbo.registros_consumo
+        ADD CONSTRAINT pk_registros_consumo PRIMARY KEY (id);
+    ALTER TABLE dbo.registros_consumo
+        ADD CONSTRAINT fk_registros_consumo_aparelho FOREIGN KEY (aparelho_id) REFERENCES dbo.aparelhos (id);
+END;
+
+IF COLUMNPROPERTY(OBJECT_ID('dbo.notificacoes'), 'id', 'IsIdentity') = 1
+BEGIN
+    CREATE TABLE dbo.notificacoes_migracao (
+        id         BIGINT       NOT NULL,
+        mensagem   TEXT         NOT NULL,
+        data_hora  DATETIME2(6) NOT NULL,
+        lida       BIT          NOT NULL,
+        usuario_id BIGINT       NOT NULL
+    );
+
+    INSERT INTO dbo.notificacoes_migracao (id, mensagem, data_hora, lida, usuario_id)
+    SELECT id, mensagem, data_hora, lida, usuario_id
+    FROM dbo.notificacoes WITH (TABLOCKX);
+
+    DROP TABLE dbo.notificacoes;
+    EXEC sp_rename 'dbo.notificacoes_migracao', 'notificacoes';
+
+    ALTER TABLE dbo.notificacoes
+        ADD CONSTRAINT pk_notificacoes PRIMARY KEY (id);
+    ALTER TABLE dbo.notificacoes
+        ADD CONSTRAINT fk_notificacoes_usuario FOREIGN KEY (usuario_id) REFERENCES dbo.usuarios (id);
+END;
@@ -0,0 +1,87 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class FirebaseTokenVerifierTest {
+
+    private static final String TOKEN_FIREBASE = token("{\"alg\":\"RS256\",\"kid\":\"a1b2c3\",\"typ\":\"JWT\"}");
+
+    @Mock
+    private FirebaseAuth firebaseAuth;
+
+    @Mock
+    private FirebaseToken firebaseToken;
+
+    private FirebaseTokenVerifier firebaseTokenVerifier;
+
+    @BeforeEach
+    public void setUp() {
+        firebaseTokenVerifier = new FirebaseTokenVerifier(100);
+        when(firebaseToken.getUid()).thenReturn("uid-maria");
+        when(firebaseToken.getClaims()).thenReturn(Map.of("exp", System.currentTimeMillis() / 1000 + 3600));
+    }
+
+    @Test
+    public void verify_ReutilizaTokenVerificado() throws Exception {
+        when(firebaseAuth.verifyIdToken(TOKEN_FIREBASE)).thenReturn(firebaseToken);
+
+        Optional<FirebaseToken> primeiro = firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth);
+        Optional<FirebaseToken> segundo = firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth);
+
+        assertEquals("uid-maria", primeiro.orElseThrow().getUid());
+        assertSame(primeiro.get(), segundo.orElseThrow());
+        verify(firebaseAuth, times(1)).verifyIdToken(TOKEN_FIREBASE);
+    }
+
+    @Test
+    public void verify_TokenInvalidoNaoFicaEmCache() throws Exception {
+        when(firebaseAuth.verifyIdToken(TOKEN_FIREBASE)).thenThrow(mock(FirebaseAuthException.class));
+
+        assertTrue(firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth).isEmpty());
+        assertTrue(firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth).isEmpty());
+        verify(firebaseAuth, times(2)).verifyIdToken(TOKEN_FIREBASE);
+    }
+
+    @Test
+    public void verify_TokenExpiradoNaoFicaEmCache() throws Exception {
+        when(firebaseToken.getClaims()).thenReturn(Map.of("exp", System.currentTimeMillis() / 1000 - 60));
+        when(firebaseAuth.verifyIdToken(TOKEN_FIREBASE)).thenReturn(firebaseToken);
+
+        firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth);
+        firebaseTokenVerifier.verify(TOKEN_FIREBASE, firebaseAuth);
+
+        verify(firebaseAuth, times(2)).verifyIdToken(TOKEN_FIREBASE);
+    }
+
+    @Test
+    public void detectar_TipoPeloCabecalho() {
+        String tokenAplicacao = new JwtTokenProvider("segredo-de-teste-com-pelo-menos-256-bits-para-hs256", 60000, 100)
+                .generateToken("maria@prospeco.com");
+
+        assertEquals(TipoTokenBearer.APLICACAO, TipoTokenBearer.detectar(tokenAplicacao));
+        assertEquals(TipoTokenBearer.FIREBASE, TipoTokenBearer.detectar(TOKEN_FIREBASE));
+        assertEquals(TipoTokenBearer.DESCONHECIDO, TipoTokenBearer.detectar("não-é-um-jwt"));
+        assertEquals(TipoTokenBearer.DESCONHECIDO, TipoTokenBearer.detectar(null));
+    }
+
+    private static String token(String cabecalho) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(cabecalho.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString("{\"sub\":\"uid-maria\"}".getBytes(StandardCharsets.UTF_8)) + ".assinatura";
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class JwtTokenProviderTest {
+
+    private static final String SEGREDO = "segredo-de-teste-com-pelo-menos-256-bits-para-hs256";
+
+    private final JwtTokenProvider tokenProvider = new JwtTokenProvider(SEGREDO, 60000, 100);
+
+    @Test
+    public void getVerifiedClaims_TokenValido() {
+        String token = tokenProvider.generateToken("maria@prospeco.com");
+
+        Optional<Claims> claims = tokenProvider.getVerifiedClaims(token);
+
+        assertTrue(claims.isPresent());
+        assertEquals("maria@prospeco.com", claims.get().getSubject());
+    }
+
+    @Test
+    public void getVerifiedClaims_ReutilizaTokenVerificado() {
+        String token = tokenProvider.generateToken("maria@prospeco.com");
+
+        Claims primeira = tokenProvider.getVerifiedClaims(token).orElseThrow();
+        Claims segunda = tokenProvider.getVerifiedClaims(token).orElseThrow();
+
+        assertSame(primeira, segunda);
+    }
+
+    @Test
+    public void getVerifiedClaims_AssinaturaInvalida() {
+        String token = tokenProvider.generateToken("maria@prospeco.com");
+        String adulterado = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        JwtTokenProvider outroSegredo = new JwtTokenProvider(SEGREDO + "-outro", 60000, 100);
+
+        assertTrue(tokenProvider.getVerifiedClaims(adulterado).isEmpty());
+        assertTrue(outroSegredo.getVerifiedClaims(token).isEmpty());
+        assertTrue(tokenProvider.getVerifiedClaims("nao-e-um-jwt").isEmpty());
+    }
+
+    @Test
+    public void getVerifiedClaims_TokenExpirado() {
+        JwtTokenProvider expirado = new JwtTokenProvider(SEGREDO, -1000, 100);
+
+        assertTrue(expirado.getVerifiedClaims(expirado.generateToken("maria@prospeco.com")).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.fiap.jadv.prospeco.config;
+
+import br.com.fiap.jadv.prospeco.service.RetentativaEventoService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class KafkaListenerConfigTest {
+
+    private static final TopicPartition PARTICAO = new TopicPartition("meta-events", 0);
+
+    @Mock
+    private RetentativaEventoService retentativaEventoService;
+
+    @Mock
+    private Consumer<String, byte[]> consumer;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Test
+    public void kafkaErrorHandler_LoteQueVoltaASerProcessadoNaoVaiAoDeadLetter() {
+        DefaultErrorHandler errorHandler = criarErrorHandler();
+        AtomicInteger entregas = new AtomicInteger();
+
+        errorHandler.handleBatch(new DataAccessResourceFailureException("Banco indisponível"), lote(), consumer,
+                container, () -> {
+                    if (entregas.incrementAndGet() < 2) {
+                        throw new DataAccessResourceFailureException("Banco indisponível");
+                    }
+                });
+
+        assertEquals(2, entregas.get());
+        verifyNoInteractions(retentativaEventoService);
+    }
+
+    @Test
+    public void kafkaErrorHandler_TentativasEsgotadasEncaminhamOLoteAoDeadLetter() {
+        DefaultErrorHandler errorHandler = criarErrorHandler();
+        DataAccessResourceFailureException erro = new DataAccessResourceFailureException("Banco indisponível");
+        AtomicInteger entregas = new AtomicInteger();
+        when(retentativaEventoService.encaminhar(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        errorHandler.handleBatch(erro, lote(), consumer, container, () -> {
+            entregas.incrementAndGet();
+            throw erro;
+        });
+
+        assertEquals(3, entregas.get());
+        verify(retentativaEventoService, times(2)).encaminhar(any(), any(DataAccessResourceFailureException.class));
+        verify(retentativaEventoService, times(2)).aguardarEncaminhamentos(anyList());
+    }
+
+    private DefaultErrorHandler criarErrorHandler() {
+        when(container.isRunning()).thenReturn(true);
+        when(consumer.assignment()).thenReturn(Set.of(PARTICAO));
+        when(consumer.poll(any(Duration.class))).thenReturn(ConsumerRecords.empty());
+        return new KafkaListenerConfig().kafkaErrorHandler(retentativaEventoService, 3,
+                Duration.ofMillis(1), 2.0, Duration.ofMillis(5));
+    }
+
+    private static ConsumerRecords<String, byte[]> lote() {
+        return new ConsumerRecords<>(Map.of(PARTICAO, List.of(
+                new ConsumerRecord<>("meta-events", 0, 10L, "7", new byte[0]),
+                new ConsumerRecord<>("meta-events", 0, 11L, "8", new byte[0]))));
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.fiap.jadv.prospeco.mapper;
+
+import br.com.fiap.jadv.prospeco.dto.request.AparelhoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.Aparelho;
+import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class RegistroConsumoMapperTest {
+
+    private final RegistroConsumoMapper registroConsumoMapper = new RegistroConsumoMapperImpl();
+    private final AparelhoMapper aparelhoMapper = new AparelhoMapperImpl();
+
+    @Test
+    public void toResponseDTO_CopiaIdsDoAparelhoEDoUsuario() {
+        RegistroConsumo registro = registro();
+
+        RegistroConsumoResponseDTO responseDTO = registroConsumoMapper.toResponseDTO(registro);
+
+        assertEquals(RegistroConsumoResponseDTO.builder()
+                .id(7L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 0))
+                .consumo(1.5)
+                .aparelhoId(3L)
+                .usuarioId(10L)
+                .build(), responseDTO);
+    }
+
+    @Test
+    public void atualizar_MantemIdEAparelho() {
+        RegistroConsumo registro = registro();
+        Aparelho aparelho = registro.getAparelho();
+        RegistroConsumoRequestDTO requestDTO = new RegistroConsumoRequestDTO();
+        requestDTO.setDataHora(LocalDateTime.of(2024, 5, 10, 15, 0));
+        requestDTO.setConsumo(2.5);
+        requestDTO.setAparelhoId(99L);
+
+        registroConsumoMapper.atualizar(requestDTO, registro);
+
+        assertEquals(7L, registro.getId());
+        assertSame(aparelho, registro.getAparelho());
+        assertEquals(LocalDateTime.of(2024, 5, 10, 15, 0), registro.getDataHora());
+        assertEquals(2.5, registro.getConsumo());
+    }
+
+    @Test
+    public void toEntity_MantemValoresIniciaisDaEntidade() {
+        AparelhoRequestDTO requestDTO = new AparelhoRequestDTO();
+        requestDTO.setNome("Geladeira");
+        requestDTO.setPotencia(150.0);
+        requestDTO.setTipo("Eletrodoméstico");
+
+        Aparelho aparelho = aparelhoMapper.toEntity(requestDTO);
+
+        assertNull(aparelho.getId());
+        assertEquals("Geladeira", aparelho.getNome());
+        assertNotNull(aparelho.getRegistrosConsumo());
+    }
+
+    private RegistroConsumo registro() {
+        Usuario usuario = new Usuario();
+        usuario.setId(10L);
+        Aparelho aparelho = new Aparelho();
+        aparelho.setId(3L);
+        aparelho.setUsuario(usuario);
+        return RegistroConsumo.builder()
+                .id(7L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 0))
+                .consumo(1.5)
+                .aparelho(aparelho)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:consumo-agregado;MODE=MSSQLServer",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ConsumoAgregadoRepositoryTest {
+
+    private static final LocalDateTime MAIO = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @BeforeEach
+    public void setUp() {
+        for (EscopoAgregacao escopo : EscopoAgregacao.values()) {
+            persistir(escopo, GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 19, 23, 0), 1.0);
+            persistir(escopo, GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 5, 19, 0, 0), 4.0);
+            persistir(escopo, GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 20, 10, 0), 2.0);
+            persistir(escopo, GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 5, 20, 0, 0), 6.0);
+            persistir(escopo, GranularidadeAgregacao.MES, MAIO, 10.0);
+        }
+    }
+
+    @Test
+    public void reprecificarERecalcularCustoMensal_AtualizamSomenteOIntervalo() {
+        int periodos = consumoAgregadoRepository.reprecificar(
+                List.of(GranularidadeAgregacao.HORA, GranularidadeAgregacao.DIA),
+                LocalDateTime.of(2024, 5, 20, 0, 0), LocalDateTime.of(2024, 6, 1, 0, 0), 0.75);
+        int meses = consumoAgregadoRepository.recalcularCustoMensal(GranularidadeAgregacao.MES,
+                GranularidadeAgregacao.DIA, MAIO, MAIO.plusMonths(1));
+        entityManager.clear();
+
+        assertEquals(4, periodos);
+        assertEquals(2, meses);
+        for (EscopoAgregacao escopo : EscopoAgregacao.values()) {
+            assertEquals(0.5, custo(escopo, GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 19, 23, 0)));
+            assertEquals(1.5, custo(escopo, GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 20, 10, 0)));
+            assertEquals(4.5, custo(escopo, GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 5, 20, 0, 0)));
+            // 4 kWh a 0,50 no dia 19 e 6 kWh a 0,75 no dia 20
+            assertEquals(6.5, custo(escopo, GranularidadeAgregacao.MES, MAIO));
+        }
+        assertEquals(LocalDateTime.of(2024, 5, 19, 0, 0),
+                consumoAgregadoRepository.buscarPrimeiroInicioPeriodo(GranularidadeAgregacao.DIA));
+        assertEquals(LocalDateTime.of(2024, 5, 20, 0, 0),
+                consumoAgregadoRepository.buscarUltimoInicioPeriodo(GranularidadeAgregacao.DIA));
+    }
+
+    @Test
+    public void somarConsumoPorAparelho_SomaOsDiasDoIntervaloPorAparelho() {
+        Usuario usuario = entityManager.persist(Usuario.builder()
+                .nome("Maria")
+                .email("maria@prospeco.com")
+                .senha("$2a$10$hash")
+                .role("ROLE_USER")
+                .pontuacaoEconomia(0.0)
+                .build());
+        Aparelho geladeira = persistirAparelho(usuario, "Geladeira");
+        Aparelho chuveiro = persistirAparelho(usuario, "Chuveiro");
+        persistir(EscopoAgregacao.APARELHO, geladeira.getId(), GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 4, 18, 0, 0), 3.0);
+        persistir(EscopoAgregacao.APARELHO, geladeira.getId(), GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 4, 19, 0, 0), 3.0);
+        persistir(EscopoAgregacao.APARELHO, chuveiro.getId(), GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 4, 19, 0, 0), 5.0);
+        // Fora do intervalo (os períodos de maio do setUp também ficam fora)
+        persistir(EscopoAgregacao.APARELHO, chuveiro.getId(), GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 4, 21, 0, 0), 9.0);
+
+        List<ConsumoAparelhoProjecao> consumos = consumoAgregadoRepository.somarConsumoPorAparelho(
+                EscopoAgregacao.APARELHO, GranularidadeAgregacao.DIA, LocalDateTime.of(2024, 4, 14, 0, 0),
+                LocalDateTime.of(2024, 4, 21, 0, 0), List.of(usuario.getId())).stream()
+                .sorted(Comparator.comparing(ConsumoAparelhoProjecao::getConsumo))
+                .toList();
+
+        assertEquals(2, consumos.size());
+        assertEquals("Chuveiro", consumos.get(0).getNome());
+        assertEquals(5.0, consumos.get(0).getConsumo());
+        assertEquals(geladeira.getId(), consumos.get(1).getAparelhoId());
+        assertEquals(usuario.getId(), consumos.get(1).getUsuarioId());
+        assertEquals(6.0, consumos.get(1).getConsumo());
+    }
+
+    @Test
+    public void acumularEmLote_SomaAosPeriodosExistentesECriaOsNovos() {
+        LocalDateTime novaHora = LocalDateTime.of(2024, 5, 20, 11, 0);
+        consumoAgregadoRepository.acumularEmLote(List.of(
+                delta(GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 20, 10, 0), 3.0),
+                delta(GranularidadeAgregacao.HORA, novaHora, 1.5)));
+        entityManager.clear();
+
+        List<ConsumoAgregado> periodos = consumoAgregadoRepository.buscarPeriodos(EscopoAgregacao.APARELHO, 1L,
+                GranularidadeAgregacao.HORA, LocalDateTime.of(2024, 5, 20, 0, 0), LocalDateTime.of(2024, 5, 21, 0, 0));
+
+        assertEquals(2, periodos.size());
+        assertEquals(5.0, periodos.get(0).getConsumoTotal());
+        assertEquals(2.5, periodos.get(0).getCustoTotal());
+        assertEquals(2L, periodos.get(0).getQuantidadeRegistros());
+        assertEquals(novaHora, periodos.get(1).getInicioPeriodo());
+        assertEquals(1.5, periodos.get(1).getConsumoTotal());
+        assertEquals(1L, periodos.get(1).getQuantidadeRegistros());
+    }
+
+    private static ConsumoAgregado delta(GranularidadeAgregacao granularidade, LocalDateTime inicioPeriodo, double consumo) {
+        return ConsumoAgregado.builder()
+                .escopo(EscopoAgregacao.APARELHO)
+                .referenciaId(1L)
+                .granularidade(granularidade)
+                .inicioPeriodo(inicioPeriodo)
+                .consumoTotal(consumo)
+                .custoTotal(consumo * 0.5)
+                .quantidadeRegistros(1L)
+                .build();
+    }
+
+    private Aparelho persistirAparelho(Usuario usuario, String nome) {
+        return entityManager.persist(Aparelho.builder()
+                .nome(nome)
+                .potencia(150.0)
+                .tipo("Eletrodoméstico")
+                .usuario(usuario)
+                .build());
+    }
+
+    private void persistir(EscopoAgregacao escopo, GranularidadeAgregacao granularidade,
+                           LocalDateTime inicioPeriodo, double consumo) {
+        persistir(escopo, 1L, granularidade, inicioPeriodo, consumo);
+    }
+
+    private void persistir(EscopoAgregacao escopo, Long referenciaId, GranularidadeAgregacao granularidade,
+                           LocalDateTime inicioPeriodo, double consumo) {
+        entityManager.persist(ConsumoAgregado.builder()
+                .escopo(escopo)
+                .referenciaId(referenciaId)
+                .granularidade(granularidade)
+                .inicioPeriodo(inicioPeriodo)
+                .consumoTotal(consumo)
+                .custoTotal(consumo * 0.5)
+                .quantidadeRegistros(1L)
+                .build());
+    }
+
+    private double custo(EscopoAgregacao escopo, GranularidadeAgregacao granularidade, LocalDateTime inicioPeriodo) {
+        return consumoAgregadoRepository.buscarPeriodos(escopo, 1L, granularidade, inicioPeriodo, inicioPeriodo.plusSeconds(1))
+                .get(0).getCustoTotal();
+    }
+}
@@ -0,0 +1,170 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:indices-consulta;MODE=MSSQLServer",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "br.com.fiap.jadv.prospeco.repository.IndicesConsultaRepositoryTest$InstrucoesExecutadas"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class IndicesConsultaRepositoryTest {
+
+    private static final Pageable PAGINA = PageRequest.of(0, 10);
+    private static final LocalDateTime DATA_HORA = LocalDateTime.of(2024, 5, 10, 14, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RegistroConsumoRepository registroConsumoRepository;
+
+    @Autowired
+    private NotificacaoRepository notificacaoRepository;
+
+    @Autowired
+    private RecomendacaoRepository recomendacaoRepository;
+
+    @Autowired
+    private BandeiraTarifariaRepository bandeiraTarifariaRepository;
+
+    @Autowired
+    private AparelhoRepository aparelhoRepository;
+
+    @Autowired
+    private MetaRepository metaRepository;
+
+    @Autowired
+    private ConquistaRepository conquistaRepository;
+
+    @Autowired
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    public void registrosConsumo_UsamIndiceDeAparelhoEDataHora() {
+        String indice = "idx_registros_consumo_aparelho_data_hora";
+
+        assertUsaIndice(indice, () -> registroConsumoRepository.listarRegistrosPorAparelho(1L, PAGINA));
+        assertUsaIndice(indice, () -> registroConsumoRepository.listarRegistrosRecentes(1L, PAGINA));
+        assertUsaIndice(indice, () -> registroConsumoRepository.listarRegistrosAnteriores(1L, DATA_HORA, 10L, PAGINA));
+    }
+
+    @Test
+    public void notificacoesERecomendacoes_UsamIndicesDeUsuario() {
+        // A mensagem (TEXT) não cabe no índice, então o H2 empata o índice da migração com o que ele
+        // cria para a chave estrangeira e não considera a ordenação por data; o SQL Server não
+        // indexa chaves estrangeiras e percorre idx_*_usuario_data_hora já na ordem do feed.
+        assertIndiceCriado("idx_notificacoes_usuario_data_hora");
+        assertIndiceCriado("idx_recomendacoes_usuario_data_hora");
+        assertUsaIndice(": usuario_id = ?1", () -> notificacaoRepository.listarNotificacoesPorUsuario(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1", () -> notificacaoRepository.listarNotificacoesRecentes(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1",
+                () -> notificacaoRepository.listarNotificacoesAnteriores(1L, DATA_HORA, 10L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1", () -> recomendacaoRepository.listarRecomendacoesPorUsuario(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1", () -> recomendacaoRepository.listarRecomendacoesRecentes(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1",
+                () -> recomendacaoRepository.listarRecomendacoesAnteriores(1L, DATA_HORA, 10L, PAGINA));
+    }
+
+    @Test
+    public void demaisConsultas_UsamIndices() {
+        assertUsaIndice("idx_notificacoes_usuario_lida",
+                () -> notificacaoRepository.countByUsuarioAndLida(Usuario.builder().id(1L).build(), false));
+        assertUsaIndice("idx_bandeiras_tarifarias_data_vigencia",
+                () -> bandeiraTarifariaRepository.findByDataVigencia(LocalDate.of(2024, 5, 1)));
+        assertUsaIndice("uk_consumos_agregados_periodo", () -> consumoAgregadoRepository.buscarPeriodos(
+                EscopoAgregacao.APARELHO, 1L, GranularidadeAgregacao.HORA, DATA_HORA, DATA_HORA.plusDays(1)));
+        assertUsaIndice("uk_usuarios_email", () -> usuarioRepository.findByEmail("maria@prospeco.com"));
+    }
+
+    @Test
+    public void listagensPorUsuario_UsamIndiceDeUsuario() {
+        // O índice criado pelo H2 para a chave estrangeira é equivalente ao da migração.
+        assertIndiceCriado("idx_aparelhos_usuario");
+        assertIndiceCriado("idx_metas_usuario");
+        assertIndiceCriado("idx_conquistas_usuario");
+        assertUsaIndice(": usuario_id = ?1", () -> aparelhoRepository.listarAparelhosPorUsuario(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1", () -> metaRepository.listarMetasPorUsuario(1L, PAGINA));
+        assertUsaIndice(": usuario_id = ?1", () -> conquistaRepository.listarConquistasPorUsuario(1L, PAGINA));
+    }
+
+    private void assertIndiceCriado(String indice) {
+        Integer quantidade = new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from information_schema.indexes where lower(index_name) = ?", Integer.class, indice);
+        assertEquals(1, quantidade, () -> "Índice " + indice + " não criado pelas migrações");
+    }
+
+    /**
+     * Executa a consulta do repositório e verifica, pelo EXPLAIN do H2, que a primeira instrução
+     * gerada pelo Hibernate é resolvida pelo índice (ou condição de índice) informado, sem varrer
+     * a tabela.
+     */
+    private void assertUsaIndice(String indice, Runnable consulta) {
+        InstrucoesExecutadas.limpar();
+        consulta.run();
+        String sql = InstrucoesExecutadas.primeira();
+
+        String plano = new JdbcTemplate(dataSource).query("EXPLAIN " + sql, instrucao -> {
+            for (int i = 1; i <= instrucao.getParameterMetaData().getParameterCount(); i++) {
+                instrucao.setObject(i, null);
+            }
+        }, resultado -> resultado.next() ? resultado.getString(1) : null);
+
+        assertNotNull(plano);
+        assertTrue(plano.toLowerCase().contains(indice), () -> "Índice " + indice + " não utilizado:\n" + plano);
+        assertFalse(plano.contains("tableScan"), () -> "Varredura de tabela:\n" + plano);
+    }
+
+    /**
+     * Registra as instruções SQL preparadas pelo Hibernate para que o plano da consulta
+     * real de cada repositório possa ser inspecionado.
+     */
+    public static class InstrucoesExecutadas implements StatementInspector {
+
+        private static final List<String> INSTRUCOES = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (INSTRUCOES) {
+                INSTRUCOES.add(sql);
+            }
+            return sql;
+        }
+
+        static void limpar() {
+            synchronized (INSTRUCOES) {
+                INSTRUCOES.clear();
+            }
+        }
+
+        static String primeira() {
+            synchronized (INSTRUCOES) {
+                assertFalse(INSTRUCOES.isEmpty(), "Nenhuma instrução executada");
+                return INSTRUCOES.get(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.service.CursorPaginacao;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listagem-paginada;MODE=MSSQLServer",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ListagemPaginadaRepositoryTest {
+
+    private static final Pageable PAGINA = PageRequest.of(0, 10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RegistroConsumoRepository registroConsumoRepository;
+
+    @Autowired
+    private AparelhoRepository aparelhoRepository;
+
+    @Autowired
+    private MetaRepository metaRepository;
+
+    @Autowired
+    private NotificacaoRepository notificacaoRepository;
+
+    @Autowired
+    private RecomendacaoRepository recomendacaoRepository;
+
+    @Autowired
+    private ConquistaRepository conquistaRepository;
+
+    private Usuario usuario;
+    private Aparelho aparelho;
+
+    @BeforeEach
+    public void setUp() {
+        usuario = entityManager.persist(Usuario.builder()
+                .nome("Maria")
+                .email("maria@prospeco.com")
+                .senha("$2a$10$hash")
+                .role("ROLE_USER")
+                .pontuacaoEconomia(0.0)
+                .build());
+        aparelho = entityManager.persist(Aparelho.builder()
+                .nome("Geladeira")
+                .potencia(150.0)
+                .tipo("Eletrodoméstico")
+                .usuario(usuario)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(RegistroConsumo.builder()
+                    .dataHora(LocalDateTime.of(2024, 5, 10, 14 + i, 0))
+                    .consumo(1.5 + i)
+                    .aparelho(aparelho)
+                    .build());
+            entityManager.persist(Meta.builder()
+                    .consumoAlvo(100.0 + i)
+                    .dataInicio(LocalDate.of(2024, 5, 1))
+                    .dataFim(LocalDate.of(2024, 5, 31))
+                    .atingida(false)
+                    .usuario(usuario)
+                    .build());
+            entityManager.persist(Notificacao.builder()
+                    .mensagem("Notificação " + i)
+                    .dataHora(LocalDateTime.of(2024, 5, 10, 14 + i, 0))
+                    .lida(false)
+                    .usuario(usuario)
+                    .build());
+            entityManager.persist(Recomendacao.builder()
+                    .mensagem("Recomendação " + i)
+                    .dataHora(LocalDateTime.of(2024, 5, 10, 14 + i, 0))
+                    .usuario(usuario)
+                    .build());
+            entityManager.persist(Conquista.builder()
+                    .titulo("Conquista " + i)
+                    .dataConquista(LocalDateTime.of(2024, 5, 10, 14 + i, 0))
+                    .usuario(usuario)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void listarRegistrosPorAparelho_UmaInstrucao() {
+        Page<RegistroConsumoResponseDTO> registros = contarInstrucoes(
+                () -> registroConsumoRepository.listarRegistrosPorAparelho(aparelho.getId(), PAGINA));
+
+        assertEquals(3, registros.getTotalElements());
+        RegistroConsumoResponseDTO registro = registros.getContent().get(0);
+        assertEquals(aparelho.getId(), registro.getAparelhoId());
+        assertEquals(usuario.getId(), registro.getUsuarioId());
+    }
+
+    @Test
+    public void listagensPorUsuario_UmaInstrucao() {
+        Long usuarioId = usuario.getId();
+
+        assertEquals(1, contarInstrucoes(() -> aparelhoRepository.listarAparelhosPorUsuario(usuarioId, PAGINA))
+                .getTotalElements());
+        assertEquals(3, contarInstrucoes(() -> metaRepository.listarMetasPorUsuario(usuarioId, PAGINA))
+                .getTotalElements());
+        assertEquals(3, contarInstrucoes(() -> conquistaRepository.listarConquistasPorUsuario(usuarioId, PAGINA))
+                .getTotalElements());
+        assertEquals("Notificação 2", contarInstrucoes(
+                () -> notificacaoRepository.listarNotificacoesPorUsuario(usuarioId, PAGINA)).getContent().get(0).getMensagem());
+        assertEquals("Recomendação 2", contarInstrucoes(
+                () -> recomendacaoRepository.listarRecomendacoesPorUsuario(usuarioId, PAGINA)).getContent().get(0).getMensagem());
+    }
+
+    @Test
+    public void inserirEmLote_RecomendacoesAparecemNaListagem() {
+        Usuario referencia = Usuario.builder().id(usuario.getId()).build();
+        List<Recomendacao> novas = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            novas.add(Recomendacao.builder()
+                    .mensagem("Pré-calculada " + i)
+                    .dataHora(LocalDateTime.of(2024, 5, 11, 3, 0).plusSeconds(i))
+                    .usuario(referencia)
+                    .build());
+        }
+
+        assertEquals(60, recomendacaoRepository.inserirEmLote(novas));
+
+        Page<RecomendacaoResponseDTO> pagina = recomendacaoRepository.listarRecomendacoesPorUsuario(usuario.getId(), PAGINA);
+        assertEquals(63, pagina.getTotalElements());
+        assertEquals("Pré-calculada 59", pagina.getContent().get(0).getMensagem());
+    }
+
+    @Test
+    public void paginaCheia_ConsultaEContagem() {
+        Statistics estatisticas = estatisticas();
+        estatisticas.clear();
+
+        Page<RegistroConsumoResponseDTO> registros =
+                registroConsumoRepository.listarRegistrosPorAparelho(aparelho.getId(), PageRequest.of(0, 2));
+
+        assertEquals(3, registros.getTotalElements());
+        assertEquals(2, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    public void listarRegistrosPorCursor_PercorreTodasAsLinhasComDataHoraRepetida() {
+        for (int i = 0; i < 2; i++) {
+            entityManager.persist(RegistroConsumo.builder()
+                    .dataHora(LocalDateTime.of(2024, 5, 10, 15, 0))
+                    .consumo(9.0 + i)
+                    .aparelho(entityManager.find(Aparelho.class, aparelho.getId()))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<RegistroConsumoResponseDTO> percorridos = new ArrayList<>();
+        PaginaCursorResponseDTO<RegistroConsumoResponseDTO> pagina = paginaDeRegistros(null);
+        percorridos.addAll(pagina.getItens());
+        while (pagina.getProximoCursor() != null) {
+            pagina = paginaDeRegistros(CursorPaginacao.decodificar(pagina.getProximoCursor()));
+            percorridos.addAll(pagina.getItens());
+        }
+
+        assertEquals(5, percorridos.size());
+        assertEquals(5, percorridos.stream().map(RegistroConsumoResponseDTO::getId).distinct().count());
+        for (int i = 1; i < percorridos.size(); i++) {
+            RegistroConsumoResponseDTO anterior = percorridos.get(i - 1);
+            RegistroConsumoResponseDTO atual = percorridos.get(i);
+            assertTrue(atual.getDataHora().isBefore(anterior.getDataHora())
+                    || (atual.getDataHora().equals(anterior.getDataHora()) && atual.getId() < anterior.getId()));
+        }
+    }
+
+    private PaginaCursorResponseDTO<RegistroConsumoResponseDTO> paginaDeRegistros(CursorPaginacao posicao) {
+        Statistics estatisticas = estatisticas();
+        estatisticas.clear();
+        List<RegistroConsumoResponseDTO> linhas = posicao == null
+                ? registroConsumoRepository.listarRegistrosRecentes(aparelho.getId(), CursorPaginacao.consulta(2))
+                : registroConsumoRepository.listarRegistrosAnteriores(aparelho.getId(), posicao.getDataHora(),
+                posicao.getId(), CursorPaginacao.consulta(2));
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        return CursorPaginacao.pagina(linhas, 2, item -> new CursorPaginacao(item.getDataHora(), item.getId()));
+    }
+
+    private <T> Page<T> contarInstrucoes(Supplier<Page<T>> listagem) {
+        Statistics estatisticas = estatisticas();
+        estatisticas.clear();
+        Page<T> pagina = listagem.get();
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+        return pagina;
+    }
+
+    private Statistics estatisticas() {
+        return entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.fiap.jadv.prospeco.repository;
+
+import br.com.fiap.jadv.prospeco.model.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aplica as migrações sobre um banco criado pelo Hibernate antes do Flyway, em que a versão 1 é
+ * registrada como baseline; o contexto só sobe se o esquema resultante passar na validação do
+ * Hibernate ({@code ddl-auto=validate}).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migracao-banco-existente;MODE=MSSQLServer",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class MigracaoBancoExistenteRepositoryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AparelhoRepository aparelhoRepository;
+
+    @Autowired
+    private RegistroConsumoRepository registroConsumoRepository;
+
+    @Autowired
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Test
+    public void migrar_RegistraOBaselineEAplicaAsVersoesSeguintes() {
+        List<String> versoes = jdbcTemplate.queryForList(
+                "select \"version\" from \"flyway_schema_history\" where \"version\" is not null and \"success\" = true "
+                        + "order by \"installed_rank\"", String.class);
+
+        assertEquals("1", versoes.get(0));
+        assertEquals("1.2", versoes.get(1));
+        assertEquals("10", versoes.get(versoes.size() - 1));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from \"flyway_schema_history\" where \"type\" = 'BASELINE'", Integer.class));
+    }
+
+    @Test
+    public void migrar_CriaOsObjetosPosterioresAoBaselineEPreservaOsDados() {
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from registros_consumo", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from eventos_outbox", Integer.class));
+        // Backfill da versão 4 sobre os agregados criados pela versão 1.2
+        assertEquals(true, jdbcTemplate.queryForObject("select encerrada from metas where id = 1", Boolean.class));
+
+        ConsumoAgregado agregado = consumoAgregadoRepository.saveAndFlush(ConsumoAgregado.builder()
+                .escopo(EscopoAgregacao.USUARIO)
+                .referenciaId(1L)
+                .granularidade(GranularidadeAgregacao.DIA)
+                .inicioPeriodo(LocalDateTime.of(2024, 5, 10, 0, 0))
+                .consumoTotal(4.0)
+                .custoTotal(2.0)
+                .quantidadeRegistros(3L)
+                .build());
+        assertNotNull(agregado.getId());
+    }
+
+    @Test
+    public void migrar_SequenciaDosRegistrosComecaAposOMaiorId() {
+        RegistroConsumo registro = registroConsumoRepository.saveAndFlush(RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 10, 13, 0))
+                .consumo(1.0)
+                .aparelho(aparelhoRepository.getReferenceById(1L))
+                .build());
+
+        assertTrue(registro.getId() > 3);
+    }
+
+    @TestConfiguration
+    static class BancoAnteriorAoFlyway {
+
+        /**
+         * Cria o esquema anterior ao Flyway antes de migrar, como em um banco já em produção.
+         */
+        @Bean
+        FlywayMigrationStrategy migrarBancoExistente() {
+            return flyway -> {
+                new ResourceDatabasePopulator(new ClassPathResource("db/esquema-anterior-ao-flyway.sql"))
+                        .execute(flyway.getConfiguration().getDataSource());
+                flyway.migrate();
+            };
+        }
+    }
+}
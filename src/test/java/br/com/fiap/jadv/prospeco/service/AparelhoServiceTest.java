@@ -3,7 +3,10 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.AparelhoRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.AparelhoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.AparelhoMapper;
+import br.com.fiap.jadv.prospeco.mapper.AparelhoMapperImpl;
 import br.com.fiap.jadv.prospeco.model.Aparelho;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.AparelhoRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
@@ -11,6 +14,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -36,6 +40,12 @@ public class AparelhoServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private ConsumoAgregadoService consumoAgregadoService;
+
+    @Spy
+    private AparelhoMapper aparelhoMapper = new AparelhoMapperImpl();
+
     @InjectMocks
     private AparelhoService aparelhoService;
 
@@ -47,7 +57,7 @@ public class AparelhoServiceTest {
         usuario.setId(1L);
 
         // Mock KafkaProducerService
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -58,8 +68,8 @@ public class AparelhoServiceTest {
         aparelho.setId(1L);
         aparelho.setUsuario(usuario);
 
-        when(aparelhoRepository.findByUsuarioId(usuarioId, pageable))
-                .thenReturn(new PageImpl<>(Arrays.asList(aparelho)));
+        Page<AparelhoResponseDTO> aparelhos = new PageImpl<>(Arrays.asList(aparelho)).map(aparelhoMapper::toResponseDTO);
+        when(aparelhoRepository.listarAparelhosPorUsuario(usuarioId, pageable)).thenReturn(aparelhos);
 
         Page<AparelhoResponseDTO> result = aparelhoService.listarAparelhosPorUsuario(usuarioId, pageable);
 
@@ -98,7 +108,7 @@ public class AparelhoServiceTest {
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        verify(kafkaProducerService, times(1)).sendMessage(anyString(), any());
+        verify(kafkaProducerService, times(1)).sendMessage(anyString(), anyLong(), eq(TipoEvento.CRIADO), any());
     }
 
     @Test
@@ -116,7 +126,7 @@ public class AparelhoServiceTest {
 
         assertNotNull(result);
         assertEquals(aparelhoId, result.getId());
-        verify(kafkaProducerService, times(1)).sendMessage(anyString(), any());
+        verify(kafkaProducerService, times(1)).sendMessage(anyString(), anyLong(), eq(TipoEvento.ATUALIZADO), any());
     }
 
     @Test
@@ -130,7 +140,7 @@ public class AparelhoServiceTest {
 
         assertDoesNotThrow(() -> aparelhoService.excluirAparelho(aparelhoId));
         verify(aparelhoRepository, times(1)).delete(aparelho);
-        verify(kafkaProducerService, times(1)).sendMessage(anyString(), any());
+        verify(kafkaProducerService, times(1)).sendMessage(anyString(), anyLong(), eq(TipoEvento.EXCLUIDO), any());
     }
 
     @Test
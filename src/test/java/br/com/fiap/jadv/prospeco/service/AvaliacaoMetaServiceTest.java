@@ -0,0 +1,232 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapper;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapperImpl;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.MetaRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class AvaliacaoMetaServiceTest {
+
+    @Mock
+    private MetaRepository metaRepository;
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private SerializacaoEventoService serializacaoEventoService;
+
+    @Mock
+    private Acknowledgment ack;
+
+    @Spy
+    private MetaMapper metaMapper = new MetaMapperImpl();
+
+    @InjectMocks
+    private AvaliacaoMetaService avaliacaoMetaService;
+
+    private Usuario usuario;
+    private Aparelho aparelho;
+    private Meta metaMaio;
+    private Meta metaJunho;
+
+    @BeforeEach
+    public void setUp() {
+        usuario = new Usuario();
+        usuario.setId(7L);
+
+        aparelho = new Aparelho();
+        aparelho.setId(1L);
+        aparelho.setUsuario(usuario);
+
+        metaMaio = meta(1L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31));
+        metaJunho = meta(2L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30));
+        when(metaRepository.buscarMetasEmAvaliacao()).thenReturn(List.of(metaMaio, metaJunho));
+        when(metaRepository.acumularConsumo(anyLong(), anyDouble())).thenReturn(1);
+    }
+
+    @Test
+    public void registrarInclusoes_AcumulaSomenteNasMetasDoPeriodo() {
+        avaliacaoMetaService.registrarInclusoes(List.of(
+                leitura(LocalDateTime.of(2024, 5, 10, 14, 0), 3.0),
+                leitura(LocalDateTime.of(2024, 5, 31, 23, 0), 2.0),
+                leitura(LocalDateTime.of(2024, 6, 2, 8, 0), 1.0),
+                leitura(LocalDateTime.of(2024, 7, 1, 8, 0), 4.0)));
+
+        verify(metaRepository).acumularConsumo(1L, 5.0);
+        verify(metaRepository).acumularConsumo(2L, 1.0);
+        verify(metaRepository, times(2)).acumularConsumo(anyLong(), anyDouble());
+        verify(metaRepository, never()).encerrar(anyLong(), anyBoolean(), anyDouble());
+    }
+
+    @Test
+    public void registrarInclusoes_AtualizaAsMetasEmOrdemDeId() {
+        when(metaRepository.buscarMetasEmAvaliacao()).thenReturn(List.of(
+                meta(17L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31)),
+                meta(3L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 15))));
+
+        avaliacaoMetaService.registrarInclusoes(List.of(leitura(LocalDateTime.of(2024, 5, 10, 14, 0), 3.0)));
+
+        InOrder ordem = inOrder(metaRepository);
+        ordem.verify(metaRepository).acumularConsumo(3L, 3.0);
+        ordem.verify(metaRepository).acumularConsumo(17L, 3.0);
+    }
+
+    @Test
+    public void onPartitionsAssigned_RecarregaEReleOTopicoDesdeAntesDaCarga() {
+        avaliacaoMetaService.getIndice();
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        TopicPartition particao = new TopicPartition("meta-events", 0);
+
+        avaliacaoMetaService.onPartitionsAssigned(Map.of(particao, 10L), callback);
+
+        verify(metaRepository, times(2)).buscarMetasEmAvaliacao();
+        verify(callback).seekToTimestamp(eq(Set.of(particao)), longThat(instante ->
+                instante <= System.currentTimeMillis() - AvaliacaoMetaService.MARGEM_RELEITURA.toMillis()));
+    }
+
+    @Test
+    public void registrarInclusoes_UltrapassarOAlvoEncerraAMeta() {
+        when(metaRepository.buscarUltrapassadas(List.of(1L))).thenReturn(List.of(metaMaio));
+        when(consumoAgregadoRepository.somarConsumo(EscopoAgregacao.USUARIO, 7L, GranularidadeAgregacao.DIA,
+                LocalDateTime.of(2024, 5, 1, 0, 0), LocalDateTime.of(2024, 6, 1, 0, 0))).thenReturn(120.0);
+        when(metaRepository.encerrar(1L, false, 120.0)).thenReturn(1);
+
+        avaliacaoMetaService.registrarInclusoes(List.of(leitura(LocalDateTime.of(2024, 5, 10, 14, 0), 30.0)));
+
+        ArgumentCaptor<MetaResponseDTO> captor = ArgumentCaptor.forClass(MetaResponseDTO.class);
+        verify(kafkaProducerService).sendMessage(eq("meta-events"), eq(7L), eq(TipoEvento.ATUALIZADO), captor.capture(),
+                argThat(anterior -> !((MetaResponseDTO) anterior).getEncerrada()));
+        assertTrue(captor.getValue().getEncerrada());
+        assertFalse(captor.getValue().getAtingida());
+        assertEquals(120.0, captor.getValue().getConsumoAcumulado());
+        assertEquals(List.of(), avaliacaoMetaService.getIndice().metasEm(7L, LocalDate.of(2024, 5, 10)));
+    }
+
+    @Test
+    public void registrarAlteracao_ReducaoNaoVerificaOAlvo() {
+        avaliacaoMetaService.registrarAlteracao(LocalDateTime.of(2024, 5, 10, 14, 0), 5.0,
+                leitura(LocalDateTime.of(2024, 5, 10, 14, 0), 2.0));
+
+        verify(metaRepository).acumularConsumo(1L, -3.0);
+        verify(metaRepository, never()).buscarUltrapassadas(any());
+    }
+
+    @Test
+    public void encerrarMetasVencidas_AtingidaQuandoNaoUltrapassaOAlvo() {
+        when(metaRepository.buscarVencidas(any(LocalDate.class))).thenReturn(List.of(metaMaio, metaJunho));
+        when(consumoAgregadoRepository.somarConsumo(any(), anyLong(), any(), any(), any())).thenReturn(80.0);
+        when(metaRepository.encerrar(1L, true, 80.0)).thenReturn(1);
+        // A meta de junho já foi encerrada por outra instância
+        when(metaRepository.encerrar(2L, true, 80.0)).thenReturn(0);
+
+        int encerradas = avaliacaoMetaService.encerrarMetasVencidas();
+
+        assertEquals(1, encerradas);
+        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), eq(7L), eq(TipoEvento.ATUALIZADO),
+                argThat(dto -> ((MetaResponseDTO) dto).getId() == 1L && ((MetaResponseDTO) dto).getAtingida()), any());
+    }
+
+    @Test
+    public void avaliarMeta_ApuraOConsumoERegistraNoIndice() {
+        Meta nova = meta(3L, LocalDate.now().minusDays(5), LocalDate.now().plusDays(5));
+        when(consumoAgregadoRepository.somarConsumo(any(), anyLong(), any(), any(), any())).thenReturn(30.0);
+
+        avaliacaoMetaService.avaliarMeta(nova);
+
+        assertEquals(30.0, nova.getConsumoAcumulado());
+        assertFalse(nova.getEncerrada());
+        assertFalse(nova.getAtingida());
+        assertTrue(avaliacaoMetaService.getIndice().metasEm(7L, LocalDate.now()).contains(3L));
+    }
+
+    @Test
+    public void sincronizarIndice_AplicaEventosDeOutrasInstancias() throws Exception {
+        byte[] criacao = {1};
+        byte[] encerramento = {2};
+        when(serializacaoEventoService.desserializar(criacao, MetaResponseDTO.class))
+                .thenReturn(evento(TipoEvento.CRIADO, dto(3L, false)));
+        when(serializacaoEventoService.desserializar(encerramento, MetaResponseDTO.class))
+                .thenReturn(evento(TipoEvento.ATUALIZADO, dto(1L, true)));
+
+        avaliacaoMetaService.sincronizarIndice(List.of(record(criacao), record(encerramento)), ack);
+
+        assertEquals(List.of(3L), avaliacaoMetaService.getIndice().metasEm(7L, LocalDate.of(2024, 5, 10)));
+        verify(ack, times(1)).acknowledge();
+    }
+
+    private Meta meta(Long id, LocalDate inicio, LocalDate fim) {
+        return Meta.builder()
+                .id(id)
+                .consumoAlvo(100.0)
+                .dataInicio(inicio)
+                .dataFim(fim)
+                .atingida(false)
+                .consumoAcumulado(0.0)
+                .encerrada(false)
+                .usuario(usuario)
+                .build();
+    }
+
+    private RegistroConsumo leitura(LocalDateTime dataHora, Double consumo) {
+        return RegistroConsumo.builder()
+                .dataHora(dataHora)
+                .consumo(consumo)
+                .aparelho(aparelho)
+                .build();
+    }
+
+    private MetaResponseDTO dto(Long id, boolean encerrada) {
+        return MetaResponseDTO.builder()
+                .id(id)
+                .consumoAlvo(100.0)
+                .dataInicio(LocalDate.of(2024, 5, 1))
+                .dataFim(LocalDate.of(2024, 5, 31))
+                .atingida(false)
+                .encerrada(encerrada)
+                .usuarioId(7L)
+                .build();
+    }
+
+    private EventoDTO<MetaResponseDTO> evento(TipoEvento tipo, MetaResponseDTO dados) {
+        return EventoDTO.<MetaResponseDTO>builder()
+                .tipo(tipo)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave(String.valueOf(dados.getUsuarioId()))
+                .dados(dados)
+                .build();
+    }
+
+    private ConsumerRecord<String, byte[]> record(byte[] conteudo) {
+        return new ConsumerRecord<>("meta-events", 0, 0L, "7", conteudo);
+    }
+}
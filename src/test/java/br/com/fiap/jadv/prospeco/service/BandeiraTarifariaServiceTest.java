@@ -1,23 +1,37 @@
 package br.com.fiap.jadv.prospeco.service;
 
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
 import br.com.fiap.jadv.prospeco.dto.request.BandeiraTarifariaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.BandeiraTarifariaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.BandeiraTarifariaMapper;
+import br.com.fiap.jadv.prospeco.mapper.BandeiraTarifariaMapperImpl;
 import br.com.fiap.jadv.prospeco.model.BandeiraTarifaria;
 import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.repository.BandeiraTarifariaRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,13 +45,25 @@ public class BandeiraTarifariaServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private SerializacaoEventoService serializacaoEventoService;
+
+    @Mock
+    private Acknowledgment ack;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private BandeiraTarifariaMapper bandeiraTarifariaMapper = new BandeiraTarifariaMapperImpl();
+
     @InjectMocks
     private BandeiraTarifariaService bandeiraTarifariaService;
 
     @BeforeEach
     public void setUp() {
         // Configurando o comportamento do kafkaProducerService para não fazer nada
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -135,7 +161,8 @@ public class BandeiraTarifariaServiceTest {
         assertEquals(requestDTO.getDataVigencia(), responseDTO.getDataVigencia());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), any(BandeiraTarifariaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), anyLong(),
+                eq(TipoEvento.CRIADO), any(BandeiraTarifariaResponseDTO.class));
     }
 
     @Test
@@ -165,7 +192,8 @@ public class BandeiraTarifariaServiceTest {
         assertEquals(requestDTO.getDataVigencia(), responseDTO.getDataVigencia());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), any(BandeiraTarifariaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), anyLong(),
+                eq(TipoEvento.ATUALIZADO), any(BandeiraTarifariaResponseDTO.class));
     }
 
     @Test
@@ -182,7 +210,7 @@ public class BandeiraTarifariaServiceTest {
         verify(bandeiraTarifariaRepository, never()).save(any(BandeiraTarifaria.class));
 
         // Verifica se o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -203,7 +231,8 @@ public class BandeiraTarifariaServiceTest {
         verify(bandeiraTarifariaRepository, times(1)).delete(bandeira);
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), any(BandeiraTarifariaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("bandeira-tarifaria-events"), anyLong(),
+                eq(TipoEvento.EXCLUIDO), any(BandeiraTarifariaResponseDTO.class));
     }
 
     @Test
@@ -219,6 +248,94 @@ public class BandeiraTarifariaServiceTest {
         verify(bandeiraTarifariaRepository, never()).delete(any(BandeiraTarifaria.class));
 
         // Verifica se o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
+    }
+
+    @Test
+    public void criarBandeira_AtualizaOCalendario() {
+        when(bandeiraTarifariaRepository.findAll()).thenReturn(List.of(
+                new BandeiraTarifaria(1L, TipoBandeira.VERDE, LocalDate.of(2024, 5, 1))));
+        when(bandeiraTarifariaRepository.save(any(BandeiraTarifaria.class)))
+                .thenReturn(new BandeiraTarifaria(2L, TipoBandeira.VERMELHA_1, LocalDate.of(2024, 6, 1)));
+        CalendarioBandeiras anterior = bandeiraTarifariaService.getCalendario();
+
+        bandeiraTarifariaService.criarBandeira(BandeiraTarifariaRequestDTO.builder()
+                .tipoBandeira(TipoBandeira.VERMELHA_1)
+                .dataVigencia(LocalDate.of(2024, 6, 1))
+                .build());
+
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        assertEquals(Optional.of(TipoBandeira.VERMELHA_1), calendario.bandeiraEm(LocalDateTime.of(2024, 6, 2, 10, 0)));
+        assertEquals(Optional.of(TipoBandeira.VERDE), anterior.bandeiraEm(LocalDateTime.of(2024, 6, 2, 10, 0)));
+        verify(bandeiraTarifariaRepository, times(1)).findAll();
+        verify(eventPublisher).publishEvent(new BandeiraTarifariaService.CalendarioAlterado(anterior, calendario));
+    }
+
+    @Test
+    public void sincronizarCalendario_AplicaEventosDeOutrasInstancias() throws Exception {
+        when(bandeiraTarifariaRepository.findAll()).thenReturn(List.of(
+                new BandeiraTarifaria(1L, TipoBandeira.VERDE, LocalDate.of(2024, 5, 1)),
+                new BandeiraTarifaria(2L, TipoBandeira.AMARELA, LocalDate.of(2024, 6, 1))));
+        CalendarioBandeiras anterior = bandeiraTarifariaService.getCalendario();
+        byte[] criacao = {1};
+        byte[] exclusao = {2};
+        when(serializacaoEventoService.desserializar(criacao, BandeiraTarifariaResponseDTO.class))
+                .thenReturn(evento(TipoEvento.CRIADO, new BandeiraTarifariaResponseDTO(3L, TipoBandeira.VERMELHA_2,
+                        LocalDate.of(2024, 7, 1))));
+        when(serializacaoEventoService.desserializar(exclusao, BandeiraTarifariaResponseDTO.class))
+                .thenReturn(evento(TipoEvento.EXCLUIDO, new BandeiraTarifariaResponseDTO(2L, TipoBandeira.AMARELA,
+                        LocalDate.of(2024, 6, 1))));
+
+        bandeiraTarifariaService.sincronizarCalendario(List.of(record(criacao), record(exclusao)), ack);
+
+        CalendarioBandeiras calendario = bandeiraTarifariaService.getCalendario();
+        assertEquals(Optional.of(TipoBandeira.VERDE), calendario.bandeiraEm(LocalDateTime.of(2024, 6, 15, 0, 0)));
+        assertEquals(Optional.of(TipoBandeira.VERMELHA_2), calendario.bandeiraEm(LocalDateTime.of(2024, 7, 15, 0, 0)));
+        assertEquals(2, bandeiraTarifariaService.listarTodasBandeiras().size());
+        verify(ack, times(1)).acknowledge();
+        // A instância reprecifica os custos depois de passar a usar o calendário novo
+        verify(eventPublisher).publishEvent(new BandeiraTarifariaService.CalendarioAlterado(anterior, calendario));
+    }
+
+    @Test
+    public void sincronizarCalendario_EventoIlegivelRecarregaDoBanco() throws Exception {
+        when(bandeiraTarifariaRepository.findAll()).thenReturn(List.of(
+                new BandeiraTarifaria(1L, TipoBandeira.VERDE, LocalDate.of(2024, 5, 1))));
+        when(serializacaoEventoService.desserializar(any(), eq(BandeiraTarifariaResponseDTO.class)))
+                .thenThrow(new IOException("conteúdo inválido"));
+        bandeiraTarifariaService.getCalendario();
+
+        bandeiraTarifariaService.sincronizarCalendario(List.of(record(new byte[]{0})), ack);
+
+        verify(bandeiraTarifariaRepository, times(2)).findAll();
+        verify(ack, times(1)).acknowledge();
+    }
+
+    @Test
+    public void onPartitionsAssigned_RecarregaEReleOTopicoDesdeAntesDaCarga() {
+        when(bandeiraTarifariaRepository.findAll()).thenReturn(List.of(
+                new BandeiraTarifaria(1L, TipoBandeira.VERDE, LocalDate.of(2024, 5, 1))));
+        bandeiraTarifariaService.getCalendario();
+        ConsumerSeekAware.ConsumerSeekCallback callback = mock(ConsumerSeekAware.ConsumerSeekCallback.class);
+        TopicPartition particao = new TopicPartition("bandeira-tarifaria-events", 0);
+
+        bandeiraTarifariaService.onPartitionsAssigned(Map.of(particao, 10L), callback);
+
+        verify(bandeiraTarifariaRepository, times(2)).findAll();
+        verify(callback).seekToTimestamp(eq(Set.of(particao)), longThat(instante ->
+                instante <= System.currentTimeMillis() - BandeiraTarifariaService.MARGEM_RELEITURA.toMillis()));
+    }
+
+    private EventoDTO<BandeiraTarifariaResponseDTO> evento(TipoEvento tipo, BandeiraTarifariaResponseDTO dados) {
+        return EventoDTO.<BandeiraTarifariaResponseDTO>builder()
+                .tipo(tipo)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave(String.valueOf(dados.getId()))
+                .dados(dados)
+                .build();
+    }
+
+    private ConsumerRecord<String, byte[]> record(byte[] conteudo) {
+        return new ConsumerRecord<>("bandeira-tarifaria-events", 0, 0L, "1", conteudo);
     }
 }
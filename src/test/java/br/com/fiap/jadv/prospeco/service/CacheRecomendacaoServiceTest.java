@@ -0,0 +1,146 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoEmMemoria;
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoRecomendacao;
+import br.com.fiap.jadv.prospeco.service.recomendacao.IndiceSemanticoVectorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class CacheRecomendacaoServiceTest {
+
+    @Mock
+    private VectorStore vectorStore;
+
+    @Mock
+    private ObjectProvider<VectorStore> vectorStoreProvider;
+
+    @Mock
+    private IndiceSemanticoRecomendacao indiceIndisponivel;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger geracoes = new AtomicInteger();
+    private final Function<String, String> gerador = prompt -> "Recomendação " + geracoes.incrementAndGet();
+
+    @Test
+    public void obter_PromptNormalizadoIgualUsaOCacheLocal() {
+        CacheRecomendacaoService cache = cache(List.of(), CacheRecomendacaoService.SEM_INDICE_SEMANTICO);
+
+        String primeira = cache.obter("Geladeira", "Economize com a 'Geladeira'.", gerador);
+        String segunda = cache.obter("geladeira", "economize  com a geladeira", gerador);
+
+        assertEquals(primeira, segunda);
+        assertEquals(1, geracoes.get());
+        assertEquals(1.0, consultas("exato"));
+        assertEquals(1.0, consultas("ausente"));
+    }
+
+    @Test
+    public void obter_GeracaoEmAndamentoNaoBloqueiaOutrosPrompts() throws Exception {
+        CacheRecomendacaoService cache = cache(List.of(), CacheRecomendacaoService.SEM_INDICE_SEMANTICO);
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch liberada = new CountDownLatch(1);
+        Function<String, String> geradorLento = prompt -> {
+            iniciada.countDown();
+            try {
+                liberada.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return gerador.apply(prompt);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> primeira = executor.submit(() -> cache.obter(null, "Economize com a geladeira", geradorLento));
+            assertTrue(iniciada.await(5, TimeUnit.SECONDS));
+            Future<String> mesmoPrompt = executor.submit(() -> cache.obter(null, "Economize com a geladeira", gerador));
+
+            String outroPrompt = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> cache.obter(null, "Economize com o chuveiro", gerador));
+            liberada.countDown();
+
+            assertEquals("Recomendação 1", outroPrompt);
+            assertEquals("Recomendação 2", primeira.get(5, TimeUnit.SECONDS));
+            assertEquals("Recomendação 2", mesmoPrompt.get(5, TimeUnit.SECONDS));
+            assertEquals(2, geracoes.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void obter_AssuntoSemelhanteUsaOIndiceEmMemoria() {
+        IndiceSemanticoEmMemoria indice = new IndiceSemanticoEmMemoria(100, Duration.ofHours(1), 0.7);
+        CacheRecomendacaoService cache = cache(List.of(indice), IndiceSemanticoEmMemoria.ARMAZENAMENTO);
+
+        String geladeira = cache.obter("Geladeira", "Economize com a geladeira", gerador);
+        String geladeiras = cache.obter("Geladeiras", "Economize com as geladeiras", gerador);
+        String arCondicionado = cache.obter("Ar-condicionado", "Economize com o ar-condicionado", gerador);
+
+        assertEquals(geladeira, geladeiras);
+        assertNotEquals(geladeira, arCondicionado);
+        assertEquals(2, geracoes.get());
+        assertEquals(1.0, consultas("semantico"));
+        assertEquals(2.0, consultas("ausente"));
+    }
+
+    @Test
+    public void obter_FalhaDoIndiceSemanticoNaoImpedeAGeracao() {
+        when(indiceIndisponivel.armazenamento()).thenReturn("indisponivel");
+        when(indiceIndisponivel.buscar(anyString())).thenThrow(new IllegalStateException("Índice fora do ar"));
+        doThrow(new IllegalStateException("Índice fora do ar")).when(indiceIndisponivel).registrar(anyString(), anyString());
+        CacheRecomendacaoService cache = cache(List.of(indiceIndisponivel), "indisponivel");
+
+        assertEquals("Recomendação 1", cache.obter("Geladeira", "Economize com a geladeira", gerador));
+        assertEquals(1.0, consultas("ausente"));
+    }
+
+    @Test
+    public void obter_IndiceVectorStoreIgnoraERemoveDocumentosExpirados() {
+        when(vectorStoreProvider.getIfAvailable()).thenReturn(vectorStore);
+        Document expirado = new Document("geladeira", Map.of("recomendacao", "Antiga",
+                "registradoEm", System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+        Document vigente = new Document("geladeiras", Map.of("recomendacao", "Vigente",
+                "registradoEm", System.currentTimeMillis()));
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(expirado, vigente));
+        IndiceSemanticoVectorStore indice = new IndiceSemanticoVectorStore(vectorStoreProvider, Duration.ofHours(24), 0.9);
+        CacheRecomendacaoService cache = cache(List.of(indice), IndiceSemanticoVectorStore.ARMAZENAMENTO);
+
+        assertEquals("Vigente", cache.obter("Geladeira", "Economize com a geladeira", gerador));
+
+        verify(vectorStore).similaritySearch(argThat((SearchRequest busca) ->
+                busca.getQuery().equals("geladeira") && busca.getSimilarityThreshold() == 0.9));
+        verify(vectorStore).delete(List.of(expirado.getId()));
+        assertEquals(0, geracoes.get());
+    }
+
+    @Test
+    public void construtor_ArmazenamentoDesconhecido() {
+        assertThrows(IllegalArgumentException.class, () -> cache(List.of(), "redis"));
+    }
+
+    private CacheRecomendacaoService cache(List<IndiceSemanticoRecomendacao> indices, String armazenamento) {
+        return new CacheRecomendacaoService(indices, meterRegistry, 100, Duration.ofHours(1), armazenamento);
+    }
+
+    private double consultas(String resultado) {
+        return meterRegistry.get(CacheRecomendacaoService.METRICA_CONSULTAS).tag("resultado", resultado).counter().count();
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CalendarioBandeirasTest {
+
+    private final CalendarioBandeiras calendario = CalendarioBandeiras.de(List.of(
+            vigencia(3L, TipoBandeira.VERMELHA_1, LocalDate.of(2024, 7, 1)),
+            vigencia(1L, TipoBandeira.VERDE, LocalDate.of(2024, 5, 1)),
+            vigencia(2L, TipoBandeira.AMARELA, LocalDate.of(2024, 6, 1))));
+
+    @Test
+    public void bandeiraEm_VigenteAteAProximaData() {
+        assertEquals(Optional.of(TipoBandeira.VERDE), calendario.bandeiraEm(LocalDateTime.of(2024, 5, 1, 0, 0)));
+        assertEquals(Optional.of(TipoBandeira.VERDE), calendario.bandeiraEm(LocalDateTime.of(2024, 5, 31, 23, 59)));
+        assertEquals(Optional.of(TipoBandeira.AMARELA), calendario.bandeiraEm(LocalDateTime.of(2024, 6, 15, 12, 0)));
+        assertEquals(Optional.of(TipoBandeira.VERMELHA_1), calendario.bandeiraEm(LocalDateTime.of(2030, 1, 1, 0, 0)));
+        assertEquals(Optional.empty(), calendario.bandeiraEm(LocalDateTime.of(2024, 4, 30, 23, 59)));
+        assertEquals(Optional.empty(), CalendarioBandeiras.VAZIO.bandeiraEm(LocalDateTime.of(2024, 5, 1, 0, 0)));
+    }
+
+    @Test
+    public void vigenciaEm_MesmaDataPrevaleceOMaiorId() {
+        CalendarioBandeiras corrigido = calendario.comVigencia(
+                vigencia(4L, TipoBandeira.VERMELHA_2, LocalDate.of(2024, 6, 1)));
+
+        assertEquals(4L, corrigido.vigenciaEm(LocalDate.of(2024, 6, 10)).orElseThrow().id());
+        assertEquals(List.of(1L, 2L, 4L, 3L), corrigido.vigencias().stream().map(CalendarioBandeiras.Vigencia::id).toList());
+    }
+
+    @Test
+    public void trechos_DivideOIntervaloPelasBandeiras() {
+        assertEquals(List.of(
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 4, 20), LocalDate.of(2024, 5, 1), null),
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 1), TipoBandeira.VERDE),
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 10), TipoBandeira.AMARELA)),
+                calendario.trechos(LocalDate.of(2024, 4, 20), LocalDate.of(2024, 6, 10)));
+
+        CalendarioBandeiras corrigido = calendario.comVigencia(
+                vigencia(4L, TipoBandeira.VERMELHA_2, LocalDate.of(2024, 6, 1)));
+        assertEquals(List.of(
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 1), TipoBandeira.VERMELHA_2),
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 15), TipoBandeira.VERMELHA_1)),
+                corrigido.trechos(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 15)));
+    }
+
+    @Test
+    public void trechosAlterados_SomenteOsDiasComBandeiraDiferente() {
+        CalendarioBandeiras corrigido = calendario.comVigencia(
+                vigencia(4L, TipoBandeira.VERMELHA_2, LocalDate.of(2024, 6, 1)));
+
+        assertEquals(List.of(new CalendarioBandeiras.Trecho(
+                        LocalDate.of(2024, 6, 1), LocalDate.of(2024, 7, 1), TipoBandeira.VERMELHA_2)),
+                corrigido.trechosAlterados(calendario));
+        assertEquals(List.of(new CalendarioBandeiras.Trecho(LocalDate.of(2024, 7, 1), null, TipoBandeira.AMARELA)),
+                calendario.semVigencia(3L).trechosAlterados(calendario));
+        assertEquals(List.of(new CalendarioBandeiras.Trecho(LocalDate.of(2024, 5, 1), null, null)),
+                CalendarioBandeiras.VAZIO.trechosAlterados(calendario));
+        assertEquals(List.of(), calendario.trechosAlterados(calendario));
+    }
+
+    @Test
+    public void comVigenciaESemVigencia_NaoAlteramOCalendarioOriginal() {
+        CalendarioBandeiras alterado = calendario
+                .comVigencia(vigencia(2L, TipoBandeira.VERMELHA_2, LocalDate.of(2024, 6, 1)))
+                .semVigencia(3L);
+
+        assertEquals(Optional.of(TipoBandeira.VERMELHA_2), alterado.bandeiraEm(LocalDateTime.of(2024, 8, 1, 0, 0)));
+        assertEquals(2, alterado.tamanho());
+        assertEquals(Optional.of(TipoBandeira.VERMELHA_1), calendario.bandeiraEm(LocalDateTime.of(2024, 8, 1, 0, 0)));
+        assertEquals(3, calendario.tamanho());
+        assertSame(calendario, calendario.semVigencia(99L));
+    }
+
+    private static CalendarioBandeiras.Vigencia vigencia(Long id, TipoBandeira tipo, LocalDate data) {
+        return new CalendarioBandeiras.Vigencia(id, tipo, data);
+    }
+}
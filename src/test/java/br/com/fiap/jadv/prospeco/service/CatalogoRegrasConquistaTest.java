@@ -0,0 +1,36 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.MetricaConquista;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CatalogoRegrasConquistaTest {
+
+    @Test
+    public void regrasDa_CarregaAsRegrasDoArquivo() {
+        CatalogoRegrasConquista catalogo = new CatalogoRegrasConquista(new ObjectMapper(),
+                new ClassPathResource("conquistas/regras.json"));
+
+        List<CatalogoRegrasConquista.Regra> sequencias = catalogo.regrasDa(MetricaConquista.SEQUENCIA_DIAS_ABAIXO_DA_META);
+
+        assertEquals(List.of(7.0, 30.0), sequencias.stream().map(CatalogoRegrasConquista.Regra::limite).toList());
+        assertTrue(sequencias.get(0).alcancadaPor(6, 7));
+        assertFalse(sequencias.get(0).alcancadaPor(7, 8));
+        assertFalse(catalogo.regrasDa(MetricaConquista.REDUCAO_CONSUMO_MENSAL).isEmpty());
+    }
+
+    @Test
+    public void construtor_RejeitaCodigoRepetido() {
+        CatalogoRegrasConquista.Regra regra = new CatalogoRegrasConquista.Regra("META", "Meta atingida", null,
+                MetricaConquista.METAS_ATINGIDAS, 1, 5, false);
+
+        assertThrows(IllegalStateException.class, () -> new CatalogoRegrasConquista(List.of(regra, regra)));
+    }
+}
@@ -3,7 +3,11 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.ConquistaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.ConquistaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.ConquistaMapper;
+import br.com.fiap.jadv.prospeco.mapper.ConquistaMapperImpl;
 import br.com.fiap.jadv.prospeco.model.Conquista;
+import br.com.fiap.jadv.prospeco.model.MetricaConquista;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.ConquistaRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
@@ -11,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
@@ -34,6 +39,9 @@ public class ConquistaServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Spy
+    private ConquistaMapper conquistaMapper = new ConquistaMapperImpl();
+
     @InjectMocks
     private ConquistaService conquistaService;
 
@@ -45,7 +53,7 @@ public class ConquistaServiceTest {
         usuario.setId(1L);
 
         // Configura o KafkaProducerService para não fazer nada durante os testes
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -72,7 +80,8 @@ public class ConquistaServiceTest {
 
         Page<Conquista> conquistasPage = new PageImpl<>(Arrays.asList(conquista1, conquista2), pageable, 2);
 
-        when(conquistaRepository.findByUsuarioId(usuarioId, pageable)).thenReturn(conquistasPage);
+        Page<ConquistaResponseDTO> dtosPage = conquistasPage.map(conquistaMapper::toResponseDTO);
+        when(conquistaRepository.listarConquistasPorUsuario(usuarioId, pageable)).thenReturn(dtosPage);
 
         // Execução do método
         Page<ConquistaResponseDTO> result = conquistaService.listarConquistasPorUsuario(usuarioId, pageable);
@@ -139,7 +148,8 @@ public class ConquistaServiceTest {
         assertEquals(usuario.getId(), result.getUsuarioId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), any(ConquistaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), anyLong(),
+                eq(TipoEvento.CRIADO), any(ConquistaResponseDTO.class));
     }
 
     @Test
@@ -160,7 +170,36 @@ public class ConquistaServiceTest {
         verify(conquistaRepository, never()).save(any(Conquista.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
+    }
+
+    @Test
+    public void concederConquista_SomaPontosEPublicaEvento() {
+        CatalogoRegrasConquista.Regra regra = regra(true);
+        when(usuarioRepository.somarPontuacaoEconomia(1L, 10.0)).thenReturn(1);
+        when(usuarioRepository.getReferenceById(1L)).thenReturn(usuario);
+        when(conquistaRepository.save(any(Conquista.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<ConquistaResponseDTO> resultado = conquistaService.concederConquista(1L, regra);
+
+        assertTrue(resultado.isPresent());
+        assertEquals("Uma semana abaixo da meta", resultado.get().getTitulo());
+        verify(conquistaRepository).save(argThat(conquista -> "SEMANA".equals(conquista.getCodigoRegra())));
+        verify(conquistaRepository, never()).existsByUsuarioIdAndCodigoRegra(anyLong(), anyString());
+        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), eq(1L),
+                eq(TipoEvento.CRIADO), any(ConquistaResponseDTO.class));
+    }
+
+    @Test
+    public void concederConquista_RegraNaoRepetivelJaConcedida() {
+        when(conquistaRepository.existsByUsuarioIdAndCodigoRegra(1L, "SEMANA")).thenReturn(true);
+
+        Optional<ConquistaResponseDTO> resultado = conquistaService.concederConquista(1L, regra(false));
+
+        assertTrue(resultado.isEmpty());
+        verify(usuarioRepository, never()).somarPontuacaoEconomia(anyLong(), anyDouble());
+        verify(conquistaRepository, never()).save(any(Conquista.class));
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -195,7 +234,8 @@ public class ConquistaServiceTest {
         assertEquals(usuario.getId(), result.getUsuarioId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), any(ConquistaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), anyLong(),
+                eq(TipoEvento.ATUALIZADO), any(ConquistaResponseDTO.class));
     }
 
     @Test
@@ -217,7 +257,7 @@ public class ConquistaServiceTest {
         verify(conquistaRepository, never()).save(any(Conquista.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -240,7 +280,8 @@ public class ConquistaServiceTest {
 
         // Verificações
         verify(conquistaRepository, times(1)).delete(conquista);
-        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), any(ConquistaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("conquista-events"), anyLong(),
+                eq(TipoEvento.EXCLUIDO), any(ConquistaResponseDTO.class));
     }
 
     @Test
@@ -257,6 +298,11 @@ public class ConquistaServiceTest {
         verify(conquistaRepository, never()).delete(any(Conquista.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
+    }
+
+    private CatalogoRegrasConquista.Regra regra(boolean repetivel) {
+        return new CatalogoRegrasConquista.Regra("SEMANA", "Uma semana abaixo da meta", null,
+                MetricaConquista.SEQUENCIA_DIAS_ABAIXO_DA_META, 7, 10, repetivel);
     }
 }
@@ -0,0 +1,321 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoAgregadoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.LeituraConsumoProjecao;
+import br.com.fiap.jadv.prospeco.repository.ReconstrucaoAgregadosRepository;
+import br.com.fiap.jadv.prospeco.repository.RegistroConsumoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ConsumoAgregadoServiceTest {
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private RegistroConsumoRepository registroConsumoRepository;
+
+    @Mock
+    private BandeiraTarifariaService bandeiraTarifariaService;
+
+    @Mock
+    private ReconstrucaoAgregadosRepository reconstrucaoAgregadosRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TabelaTarifaria tabelaTarifaria = new TabelaTarifaria(0.5, 0.0, 0.25, 0.5, 0.75);
+
+    @InjectMocks
+    private ConsumoAgregadoService consumoAgregadoService;
+
+    private Aparelho aparelho;
+
+    @BeforeEach
+    public void setUp() {
+        Usuario usuario = new Usuario();
+        usuario.setId(7L);
+
+        aparelho = new Aparelho();
+        aparelho.setId(1L);
+        aparelho.setUsuario(usuario);
+
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(CalendarioBandeiras.VAZIO);
+    }
+
+    @Test
+    public void registrarInclusoes_CombinaDeltasEGravaOsPeriodosEmOrdem() {
+        RegistroConsumo registro1 = RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 10))
+                .consumo(1.5)
+                .aparelho(aparelho)
+                .build();
+        RegistroConsumo registro2 = RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 50))
+                .consumo(2.5)
+                .aparelho(aparelho)
+                .build();
+
+        consumoAgregadoService.registrarInclusoes(Arrays.asList(registro1, registro2));
+
+        // Hora, dia e mês para o aparelho e para o usuário: 6 períodos, cada um gravado uma única vez
+        List<ConsumoAgregado> periodos = periodosGravados();
+        assertEquals(6, periodos.size());
+        assertTrue(periodos.stream().allMatch(a -> a.getConsumoTotal() == 4.0 && a.getCustoTotal() == 2.0
+                && a.getQuantidadeRegistros() == 2L));
+        // Sempre na mesma ordem, para que transações simultâneas bloqueiem os períodos na mesma sequência
+        assertEquals(List.of(EscopoAgregacao.APARELHO, EscopoAgregacao.APARELHO, EscopoAgregacao.APARELHO,
+                        EscopoAgregacao.USUARIO, EscopoAgregacao.USUARIO, EscopoAgregacao.USUARIO),
+                periodos.stream().map(ConsumoAgregado::getEscopo).toList());
+        assertEquals(List.of(GranularidadeAgregacao.HORA, GranularidadeAgregacao.DIA, GranularidadeAgregacao.MES),
+                periodos.subList(3, 6).stream().map(ConsumoAgregado::getGranularidade).toList());
+        assertEquals(LocalDateTime.of(2024, 5, 10, 14, 0), periodos.get(3).getInicioPeriodo());
+    }
+
+    @Test
+    public void registrarInclusoes_PrecificaPelaBandeiraVigente() {
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(CalendarioBandeiras.de(List.of(
+                new CalendarioBandeiras.Vigencia(1L, TipoBandeira.AMARELA, LocalDate.of(2024, 5, 10)))));
+        RegistroConsumo antesDaBandeira = RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 9, 23, 30))
+                .consumo(1.0)
+                .aparelho(aparelho)
+                .build();
+        RegistroConsumo comBandeira = RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 10, 0, 30))
+                .consumo(2.0)
+                .aparelho(aparelho)
+                .build();
+
+        consumoAgregadoService.registrarInclusoes(Arrays.asList(antesDaBandeira, comBandeira));
+
+        // Tarifa base (0,50) antes da bandeira e base mais o acréscimo da amarela (0,75) a partir dela
+        List<ConsumoAgregado> periodos = periodosGravados();
+        assertTrue(periodos.contains(periodo(EscopoAgregacao.APARELHO, 1L, GranularidadeAgregacao.DIA,
+                LocalDateTime.of(2024, 5, 9, 0, 0), 1.0, 0.5, 1L)));
+        assertTrue(periodos.contains(periodo(EscopoAgregacao.USUARIO, 7L, GranularidadeAgregacao.DIA,
+                LocalDateTime.of(2024, 5, 10, 0, 0), 2.0, 1.5, 1L)));
+        assertTrue(periodos.contains(periodo(EscopoAgregacao.USUARIO, 7L, GranularidadeAgregacao.MES,
+                LocalDateTime.of(2024, 5, 1, 0, 0), 3.0, 2.0, 2L)));
+    }
+
+    @Test
+    public void registrarInclusoes_IgnoraRegistrosQueAReconstrucaoAindaVaiLer() {
+        when(reconstrucaoAgregadosRepository.buscarParaLeitura(ReconstrucaoAgregados.ID_UNICO))
+                .thenReturn(Optional.of(ReconstrucaoAgregados.builder()
+                        .id(ReconstrucaoAgregados.ID_UNICO)
+                        .emAndamento(true)
+                        .ultimoRegistroId(100L)
+                        .limiteRegistroId(500L)
+                        .build()));
+        RegistroConsumo jaReprocessado = RegistroConsumo.builder()
+                .id(90L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 10))
+                .consumo(1.0)
+                .aparelho(aparelho)
+                .build();
+        RegistroConsumo aindaNaoReprocessado = RegistroConsumo.builder()
+                .id(200L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 20))
+                .consumo(2.0)
+                .aparelho(aparelho)
+                .build();
+        RegistroConsumo posteriorAoInicio = RegistroConsumo.builder()
+                .id(600L)
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 30))
+                .consumo(4.0)
+                .aparelho(aparelho)
+                .build();
+
+        consumoAgregadoService.registrarInclusoes(Arrays.asList(jaReprocessado, aindaNaoReprocessado, posteriorAoInicio));
+
+        // O registro 200 será somado pelo próximo bloco da reconstrução
+        assertTrue(periodosGravados().stream().allMatch(a -> a.getConsumoTotal() == 5.0
+                && a.getQuantidadeRegistros() == 2L));
+    }
+
+    @Test
+    public void registrarAlteracao_MesmoPeriodoAplicaSomenteDiferenca() {
+        RegistroConsumo registro = RegistroConsumo.builder()
+                .dataHora(LocalDateTime.of(2024, 5, 10, 14, 30))
+                .consumo(5.0)
+                .aparelho(aparelho)
+                .build();
+
+        consumoAgregadoService.registrarAlteracao(LocalDateTime.of(2024, 5, 10, 14, 5), 3.0, registro);
+
+        List<ConsumoAgregado> periodos = periodosGravados();
+        assertEquals(6, periodos.size());
+        assertTrue(periodos.stream().allMatch(a -> a.getConsumoTotal() == 2.0 && a.getCustoTotal() == 1.0
+                && a.getQuantidadeRegistros() == 0L));
+    }
+
+    @Test
+    public void registrarAlteracao_SemMudancaNaoGravaNada() {
+        LocalDateTime dataHora = LocalDateTime.of(2024, 5, 10, 14, 30);
+        RegistroConsumo registro = RegistroConsumo.builder()
+                .dataHora(dataHora)
+                .consumo(5.0)
+                .aparelho(aparelho)
+                .build();
+
+        consumoAgregadoService.registrarAlteracao(dataHora, 5.0, registro);
+
+        verifyNoInteractions(consumoAgregadoRepository);
+    }
+
+    @Test
+    public void consultarPorAparelho_SomaPeriodos() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime fim = LocalDateTime.of(2024, 5, 3, 0, 0);
+
+        List<ConsumoAgregado> periodos = Arrays.asList(
+                ConsumoAgregado.builder().inicioPeriodo(inicio).consumoTotal(3.0).custoTotal(1.5)
+                        .quantidadeRegistros(2L).build(),
+                ConsumoAgregado.builder().inicioPeriodo(inicio.plusDays(1)).consumoTotal(4.5).custoTotal(2.25)
+                        .quantidadeRegistros(3L).build());
+
+        when(consumoAgregadoRepository.buscarPeriodos(EscopoAgregacao.APARELHO, 1L, GranularidadeAgregacao.DIA, inicio, fim))
+                .thenReturn(periodos);
+
+        ConsumoAgregadoResponseDTO response = consumoAgregadoService
+                .consultarPorAparelho(1L, GranularidadeAgregacao.DIA, inicio, fim);
+
+        assertEquals(7.5, response.getConsumoTotal());
+        assertEquals(3.75, response.getCustoTotal());
+        assertEquals(5L, response.getQuantidadeRegistros());
+        assertEquals(2, response.getPeriodos().size());
+    }
+
+    @Test
+    public void consultarPorUsuario_IntervaloInvalido() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 5, 3, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> consumoAgregadoService
+                .consultarPorUsuario(7L, GranularidadeAgregacao.DIA, inicio, inicio.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> consumoAgregadoService
+                .consultarPorUsuario(7L, GranularidadeAgregacao.HORA, inicio, inicio.plusYears(5)));
+    }
+
+    @Test
+    public void removerAgregadosDoAparelho_SubtraiDoUsuario() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 5, 1, 0, 0);
+        ConsumoAgregado agregado = ConsumoAgregado.builder()
+                .escopo(EscopoAgregacao.APARELHO)
+                .referenciaId(1L)
+                .granularidade(GranularidadeAgregacao.MES)
+                .inicioPeriodo(inicio)
+                .consumoTotal(12.0)
+                .custoTotal(6.0)
+                .quantidadeRegistros(4L)
+                .build();
+
+        when(consumoAgregadoRepository.findByEscopoAndReferenciaId(EscopoAgregacao.APARELHO, 1L))
+                .thenReturn(List.of(agregado));
+        consumoAgregadoService.removerAgregadosDoAparelho(1L, 7L);
+
+        assertEquals(List.of(periodo(EscopoAgregacao.USUARIO, 7L, GranularidadeAgregacao.MES, inicio, -12.0, -6.0, -4L)),
+                periodosGravados());
+        verify(consumoAgregadoRepository).removerPorReferencia(EscopoAgregacao.APARELHO, 1L);
+    }
+
+    @Test
+    public void reconstruirAgregados_GravaCadaBlocoEmSuaTransacaoEAvancaOMarcador() {
+        ReflectionTestUtils.setField(consumoAgregadoService, "tamanhoBlocoReconstrucao", 2);
+        ReconstrucaoAgregados reconstrucao = ReconstrucaoAgregados.builder().id(ReconstrucaoAgregados.ID_UNICO).build();
+        when(reconstrucaoAgregadosRepository.buscarParaAtualizacao(ReconstrucaoAgregados.ID_UNICO))
+                .thenReturn(Optional.of(reconstrucao));
+        when(reconstrucaoAgregadosRepository.findById(ReconstrucaoAgregados.ID_UNICO)).thenReturn(Optional.of(reconstrucao));
+        when(registroConsumoRepository.buscarMaiorId()).thenReturn(30L);
+        LocalDateTime dataHora = LocalDateTime.of(2024, 5, 10, 14, 0);
+        List<LeituraConsumoProjecao> primeiroBloco = List.of(leitura(10L, dataHora), leitura(20L, dataHora));
+        List<LeituraConsumoProjecao> ultimoBloco = List.of(leitura(30L, dataHora));
+        when(registroConsumoRepository.buscarLeiturasAposId(eq(0L), eq(30L), any(Pageable.class))).thenReturn(primeiroBloco);
+        when(registroConsumoRepository.buscarLeiturasAposId(eq(20L), eq(30L), any(Pageable.class))).thenReturn(ultimoBloco);
+
+        long processados = consumoAgregadoService.reconstruirAgregados();
+
+        assertEquals(3L, processados);
+        verify(consumoAgregadoRepository).deleteAllInBatch();
+        // Início mais dois blocos, cada um confirmado separadamente
+        verify(transactionManager, times(3)).commit(any());
+        verify(consumoAgregadoRepository, times(2)).acumularEmLote(anyList());
+        assertFalse(reconstrucao.getEmAndamento());
+        assertEquals(30L, reconstrucao.getUltimoRegistroId());
+        assertNotNull(reconstrucao.getConcluidaEm());
+    }
+
+    @Test
+    public void reconstruirAgregados_RetomaSemDescartarOsAgregados() {
+        ReconstrucaoAgregados reconstrucao = ReconstrucaoAgregados.builder()
+                .id(ReconstrucaoAgregados.ID_UNICO)
+                .emAndamento(true)
+                .limiteRegistroId(30L)
+                .ultimoRegistroId(20L)
+                .registrosProcessados(2L)
+                .build();
+        when(reconstrucaoAgregadosRepository.buscarParaAtualizacao(ReconstrucaoAgregados.ID_UNICO))
+                .thenReturn(Optional.of(reconstrucao));
+        when(reconstrucaoAgregadosRepository.findById(ReconstrucaoAgregados.ID_UNICO)).thenReturn(Optional.of(reconstrucao));
+        List<LeituraConsumoProjecao> ultimoBloco = List.of(leitura(30L, LocalDateTime.of(2024, 5, 10, 14, 0)));
+        when(registroConsumoRepository.buscarLeiturasAposId(eq(20L), eq(30L), any(Pageable.class))).thenReturn(ultimoBloco);
+
+        assertEquals(3L, consumoAgregadoService.reconstruirAgregados());
+
+        verify(consumoAgregadoRepository, never()).deleteAllInBatch();
+        verify(registroConsumoRepository, never()).buscarMaiorId();
+        assertFalse(reconstrucao.getEmAndamento());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ConsumoAgregado> periodosGravados() {
+        ArgumentCaptor<List<ConsumoAgregado>> captor = ArgumentCaptor.forClass(List.class);
+        verify(consumoAgregadoRepository).acumularEmLote(captor.capture());
+        return captor.getValue();
+    }
+
+    private LeituraConsumoProjecao leitura(Long id, LocalDateTime dataHora) {
+        LeituraConsumoProjecao leitura = mock(LeituraConsumoProjecao.class);
+        when(leitura.getId()).thenReturn(id);
+        when(leitura.getAparelhoId()).thenReturn(1L);
+        when(leitura.getUsuarioId()).thenReturn(7L);
+        when(leitura.getDataHora()).thenReturn(dataHora);
+        when(leitura.getConsumo()).thenReturn(1.0);
+        return leitura;
+    }
+
+    private static ConsumoAgregado periodo(EscopoAgregacao escopo, Long referenciaId, GranularidadeAgregacao granularidade,
+                                           LocalDateTime inicioPeriodo, double consumo, double custo, long quantidade) {
+        return ConsumoAgregado.builder()
+                .escopo(escopo)
+                .referenciaId(referenciaId)
+                .granularidade(granularidade)
+                .inicioPeriodo(inicioPeriodo)
+                .consumoTotal(consumo)
+                .custoTotal(custo)
+                .quantidadeRegistros(quantidade)
+                .build();
+    }
+}
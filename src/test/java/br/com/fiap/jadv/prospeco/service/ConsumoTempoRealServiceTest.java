@@ -0,0 +1,295 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.ConsumoAgregadoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import br.com.fiap.jadv.prospeco.service.serializacao.RegistroSchemasAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.*;
+import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@SpringBootTest
+@EmbeddedKafka(partitions = 1, topics = "registro-consumo-events")
+public class ConsumoTempoRealServiceTest {
+
+    private static final String TOPICO = "registro-consumo-events";
+
+    private static final String ENDERECO_LOCAL = "localhost:8080";
+
+    @Mock
+    private StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+    @Mock
+    private KafkaStreams kafkaStreams;
+
+    @TempDir
+    private Path diretorioEstado;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ConsumoTempoRealService consumoTempoRealService;
+
+    private MockRestServiceServer outraInstancia;
+
+    private TopologyTestDriver driver;
+
+    private TestInputTopic<String, String> topicoEntrada;
+
+    @BeforeEach
+    public void setUp() {
+        SerializacaoEventoService serializacaoEventoService = new SerializacaoEventoService(List.of(
+                new SerializadorEventoJson(objectMapper), new SerializadorEventoAvro(new RegistroSchemasAvro())),
+                SerializadorEventoJson.FORMATO);
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        outraInstancia = MockRestServiceServer.bindTo(restClientBuilder).build();
+        consumoTempoRealService = new ConsumoTempoRealService(streamsBuilderFactoryBean, serializacaoEventoService,
+                restClientBuilder, ENDERECO_LOCAL);
+
+        StreamsBuilder streamsBuilder = new StreamsBuilder();
+        consumoTempoRealService.definirTopologia(streamsBuilder);
+
+        Properties propriedades = new Properties();
+        propriedades.put(StreamsConfig.APPLICATION_ID_CONFIG, "consumo-tempo-real-teste");
+        propriedades.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        propriedades.put(StreamsConfig.STATE_DIR_CONFIG, diretorioEstado.toString());
+        propriedades.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+                LogAndContinueExceptionHandler.class);
+        driver = new TopologyTestDriver(streamsBuilder.build(), propriedades);
+        topicoEntrada = driver.createInputTopic(TOPICO, new StringSerializer(), new StringSerializer());
+
+        when(streamsBuilderFactoryBean.getKafkaStreams()).thenReturn(kafkaStreams);
+        doReturn(dono(HostInfo.buildFromEndpoint(ENDERECO_LOCAL)))
+                .when(kafkaStreams).queryMetadataForKey(anyString(), any(), any(Serializer.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    public void consultarPorAparelho_SomaLeiturasPorHora() throws Exception {
+        topicoEntrada.pipeInput("1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5));
+        topicoEntrada.pipeInput("1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 55), 2.0));
+        topicoEntrada.pipeInput("1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 15, 10), 4.0));
+        topicoEntrada.pipeInput("2", criado(2L, 10L, LocalDateTime.of(2024, 5, 10, 14, 20), 8.0));
+
+        doReturn(driver.getWindowStore(ConsumoTempoRealService.STORE_CONSUMO_APARELHO)).when(kafkaStreams).store(any());
+
+        ConsumoAgregadoResponseDTO response = consumoTempoRealService.consultarPorAparelho(1L,
+                LocalDateTime.of(2024, 5, 10, 14, 30), LocalDateTime.of(2024, 5, 10, 16, 0));
+
+        assertEquals(LocalDateTime.of(2024, 5, 10, 14, 0), response.getInicio());
+        assertEquals(2, response.getPeriodos().size());
+        assertEquals(3.5, response.getPeriodos().get(0).getConsumoTotal());
+        assertEquals(2L, response.getPeriodos().get(0).getQuantidadeRegistros());
+        assertEquals(7.5, response.getConsumoTotal());
+        assertEquals(3L, response.getQuantidadeRegistros());
+    }
+
+    @Test
+    public void consultarPorUsuario_SomaTodosOsAparelhos() throws Exception {
+        topicoEntrada.pipeInput("1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5));
+        topicoEntrada.pipeInput("2", criado(2L, 10L, LocalDateTime.of(2024, 5, 10, 14, 20), 8.0));
+        topicoEntrada.pipeInput("3", criado(3L, 20L, LocalDateTime.of(2024, 5, 10, 14, 30), 5.0));
+        topicoEntrada.pipeInput("1", "{json inválido");
+
+        doReturn(driver.getWindowStore(ConsumoTempoRealService.STORE_CONSUMO_USUARIO)).when(kafkaStreams).store(any());
+
+        ConsumoAgregadoResponseDTO response = consumoTempoRealService.consultarPorUsuario(10L,
+                LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0));
+
+        assertEquals(1, response.getPeriodos().size());
+        assertEquals(9.5, response.getConsumoTotal());
+        assertEquals(2L, response.getQuantidadeRegistros());
+    }
+
+    @Test
+    public void consultarPorAparelho_EncaminhaAInstanciaDonaDoAparelho() {
+        doReturn(dono(new HostInfo("prospeco-2", 8080)))
+                .when(kafkaStreams).queryMetadataForKey(anyString(), any(), any(Serializer.class));
+        outraInstancia.expect(requestTo("http://prospeco-2:8080/api/consumo-agregado/tempo-real/aparelho/1"
+                        + "?inicio=2024-05-10T00%3A00&fim=2024-05-11T00%3A00"))
+                .andExpect(header(ConsumoTempoRealService.CABECALHO_ENCAMINHADA, "true"))
+                .andRespond(withSuccess("{\"referenciaId\":1,\"consumoTotal\":7.5,\"quantidadeRegistros\":3}",
+                        MediaType.APPLICATION_JSON));
+
+        ConsumoAgregadoResponseDTO response = consumoTempoRealService.consultarPorAparelho(1L,
+                LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0));
+
+        outraInstancia.verify();
+        assertEquals(7.5, response.getConsumoTotal());
+        verify(kafkaStreams, never()).store(any());
+    }
+
+    @Test
+    public void consultarPorAparelho_ConsultaEncaminhadaRespondidaLocalmente() throws Exception {
+        topicoEntrada.pipeInput("1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5));
+        doReturn(driver.getWindowStore(ConsumoTempoRealService.STORE_CONSUMO_APARELHO)).when(kafkaStreams).store(any());
+
+        ConsumoAgregadoResponseDTO response = consumoTempoRealService.consultarPorAparelho(1L,
+                LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0), true);
+
+        assertEquals(1.5, response.getConsumoTotal());
+        verify(kafkaStreams, never()).queryMetadataForKey(anyString(), any(), any(Serializer.class));
+    }
+
+    @Test
+    public void consultarPorAparelho_StreamsInativo() {
+        when(streamsBuilderFactoryBean.getKafkaStreams()).thenReturn(null);
+
+        assertThrows(ServicoIndisponivelException.class, () -> consumoTempoRealService.consultarPorAparelho(1L,
+                LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0)));
+    }
+
+    @Test
+    public void consultarPorAparelho_IntervaloInvalido() {
+        LocalDateTime inicio = LocalDateTime.of(2024, 5, 10, 0, 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> consumoTempoRealService.consultarPorAparelho(1L, inicio, inicio));
+    }
+
+    @Test
+    public void topologia_AgregaLeiturasRecebidasDoBrokerEmbarcado(EmbeddedKafkaBroker broker) throws Exception {
+        StreamsBuilder streamsBuilder = new StreamsBuilder();
+        consumoTempoRealService.definirTopologia(streamsBuilder);
+
+        Properties propriedades = new Properties();
+        propriedades.put(StreamsConfig.APPLICATION_ID_CONFIG, "consumo-tempo-real-embarcado");
+        propriedades.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        propriedades.put(StreamsConfig.STATE_DIR_CONFIG, diretorioEstado.resolve("embarcado").toString());
+        propriedades.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 100);
+        propriedades.put(StreamsConfig.APPLICATION_SERVER_CONFIG, ENDERECO_LOCAL);
+        propriedades.put("auto.offset.reset", "earliest");
+
+        Map<String, Object> configProdutor = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, String> produtor =
+                     new KafkaProducer<>(configProdutor, new StringSerializer(), new StringSerializer());
+             KafkaStreams streams = new KafkaStreams(streamsBuilder.build(), propriedades)) {
+
+            produtor.send(new ProducerRecord<>(TOPICO, "1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5)));
+            produtor.send(new ProducerRecord<>(TOPICO, "1", criado(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 40), 2.5)));
+            produtor.flush();
+
+            streams.start();
+            when(streamsBuilderFactoryBean.getKafkaStreams()).thenReturn(streams);
+
+            ConsumoAgregadoResponseDTO response = null;
+            long limite = System.currentTimeMillis() + Duration.ofSeconds(60).toMillis();
+            while (System.currentTimeMillis() < limite) {
+                try {
+                    response = consumoTempoRealService.consultarPorAparelho(1L,
+                            LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0));
+                    if (response.getQuantidadeRegistros() == 2) {
+                        break;
+                    }
+                } catch (ServicoIndisponivelException e) {
+                    // Streams ainda iniciando ou restaurando os stores
+                }
+                Thread.sleep(200);
+            }
+
+            assertNotNull(response);
+            assertEquals(4.0, response.getConsumoTotal());
+            assertEquals(2L, response.getQuantidadeRegistros());
+        }
+    }
+
+    @Test
+    public void consultarPorAparelho_AplicaAlteracoesEExclusoes() throws Exception {
+        RegistroConsumoResponseDTO original = leitura(1L, 10L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5);
+        RegistroConsumoResponseDTO alterado = leitura(1L, 10L, LocalDateTime.of(2024, 5, 10, 15, 5), 2.5);
+        RegistroConsumoResponseDTO excluido = leitura(1L, 10L, LocalDateTime.of(2024, 5, 10, 15, 8), 4.0);
+
+        topicoEntrada.pipeInput("1", evento(TipoEvento.CRIADO, original, null));
+        topicoEntrada.pipeInput("1", evento(TipoEvento.CRIADO, excluido, null));
+        topicoEntrada.pipeInput("1", evento(TipoEvento.ATUALIZADO, alterado, original));
+        topicoEntrada.pipeInput("1", evento(TipoEvento.EXCLUIDO, excluido, null));
+
+        doReturn(driver.getWindowStore(ConsumoTempoRealService.STORE_CONSUMO_APARELHO)).when(kafkaStreams).store(any());
+
+        ConsumoAgregadoResponseDTO response = consumoTempoRealService.consultarPorAparelho(1L,
+                LocalDateTime.of(2024, 5, 10, 0, 0), LocalDateTime.of(2024, 5, 11, 0, 0));
+
+        // A leitura alterada sai da janela das 14h (ainda dentro da tolerância) e entra na das 15h;
+        // a excluída deixa de contar
+        assertEquals(0.0, response.getPeriodos().get(0).getConsumoTotal());
+        assertEquals(0L, response.getPeriodos().get(0).getQuantidadeRegistros());
+        assertEquals(2.5, response.getPeriodos().get(1).getConsumoTotal());
+        assertEquals(1L, response.getPeriodos().get(1).getQuantidadeRegistros());
+        assertEquals(2.5, response.getConsumoTotal());
+        assertEquals(1L, response.getQuantidadeRegistros());
+    }
+
+    private String criado(Long aparelhoId, Long usuarioId, LocalDateTime dataHora, double consumo) throws Exception {
+        return evento(TipoEvento.CRIADO, leitura(aparelhoId, usuarioId, dataHora, consumo), null);
+    }
+
+    private String evento(TipoEvento tipo, RegistroConsumoResponseDTO dados, RegistroConsumoResponseDTO anterior)
+            throws Exception {
+        return objectMapper.writeValueAsString(EventoDTO.<RegistroConsumoResponseDTO>builder()
+                .tipo(tipo)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave(String.valueOf(dados.getAparelhoId()))
+                .ocorridoEm(LocalDateTime.now())
+                .dados(dados)
+                .anterior(anterior)
+                .build());
+    }
+
+    private RegistroConsumoResponseDTO leitura(Long aparelhoId, Long usuarioId, LocalDateTime dataHora, double consumo) {
+        return RegistroConsumoResponseDTO.builder()
+                .id(System.nanoTime())
+                .aparelhoId(aparelhoId)
+                .usuarioId(usuarioId)
+                .dataHora(dataHora)
+                .consumo(consumo)
+                .build();
+    }
+
+    private static KeyQueryMetadata dono(HostInfo instancia) {
+        return new KeyQueryMetadata(instancia, Set.of(), 0);
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.ConsumoAgregado;
+import br.com.fiap.jadv.prospeco.model.EscopoAgregacao;
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ContextoConsumoServiceTest {
+
+    private static final String INSTRUCAO = "Gere uma recomendação detalhada para economizar energia ao usar o aparelho 'Chuveiro'.";
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private BandeiraTarifariaService bandeiraTarifariaService;
+
+    private final TabelaTarifaria tabelaTarifaria = new TabelaTarifaria(0.656, 0, 0.01885, 0.04463, 0.07877);
+
+    @BeforeEach
+    public void setUp() {
+        LocalDate hoje = LocalDate.now();
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(CalendarioBandeiras.de(List.of(
+                new CalendarioBandeiras.Vigencia(1L, TipoBandeira.VERMELHA_1, hoje.minusDays(10)))));
+
+        // 1 kWh às 8h todos os dias; às 19h, 2 kWh, e 3 kWh na última semana
+        List<ConsumoAgregado> periodos = new ArrayList<>();
+        for (int dias = 28; dias >= 1; dias--) {
+            LocalDate dia = hoje.minusDays(dias);
+            periodos.add(periodo(dia, 8, 1.0));
+            periodos.add(periodo(dia, 19, dias <= 7 ? 3.0 : 2.0));
+        }
+        when(consumoAgregadoRepository.buscarPeriodos(eq(EscopoAgregacao.USUARIO), eq(1L), eq(GranularidadeAgregacao.HORA),
+                eq(hoje.minusDays(28).atStartOfDay()), eq(hoje.atStartOfDay()))).thenReturn(periodos);
+    }
+
+    @Test
+    public void montarPrompt_ResumeOConsumoDoUsuario() {
+        String prompt = criar(250).montarPrompt(INSTRUCAO, 1L);
+
+        assertTrue(prompt.startsWith(INSTRUCAO));
+        assertTrue(prompt.contains("91,0 kWh no período"));
+        assertTrue(prompt.contains("Horários de maior consumo: 19h, 8h (100% do total)"));
+        assertTrue(prompt.contains("bandeira vermelha 1, R$ 0,70/kWh; 10 de 28 dias em bandeira amarela ou vermelha"));
+        assertTrue(prompt.contains("custo médio de R$ 0,50/kWh"));
+        assertTrue(prompt.contains("consumo subiu 33%"));
+        assertTrue(prompt.contains("manhã 31%, tarde 0%, noite 69%"));
+        assertTrue(ContextoConsumoService.estimarTokens(prompt) <= 250);
+    }
+
+    @Test
+    public void montarPrompt_RespeitaOOrcamentoDeTokens() {
+        ContextoConsumoService contextoConsumoService = criar(80);
+
+        String prompt = contextoConsumoService.montarPrompt(INSTRUCAO, 1L);
+        String cortada = contextoConsumoService.montarPrompt("Aparelho ".repeat(100), 1L);
+
+        // Só as linhas de maior prioridade cabem no orçamento
+        assertTrue(prompt.contains("kWh por dia"));
+        assertFalse(prompt.contains("Perfil do dia"));
+        assertTrue(ContextoConsumoService.estimarTokens(prompt) <= 80);
+        assertEquals(80 * ContextoConsumoService.CARACTERES_POR_TOKEN, cortada.length());
+    }
+
+    @Test
+    public void montarPrompt_ResumoEmCachePorUsuarioEDia() {
+        ContextoConsumoService contextoConsumoService = criar(250);
+
+        String primeiro = contextoConsumoService.montarPrompt(INSTRUCAO, 1L);
+        String segundo = contextoConsumoService.montarPrompt(INSTRUCAO.replace("Chuveiro", "Geladeira"), 1L);
+
+        assertEquals(primeiro.substring(INSTRUCAO.length()), segundo.substring(INSTRUCAO.length() + 1));
+        verify(consumoAgregadoRepository, times(1)).buscarPeriodos(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    public void montarPrompt_SemConsumoRetornaAInstrucao() {
+        ContextoConsumoService contextoConsumoService = criar(250);
+
+        assertEquals(INSTRUCAO, contextoConsumoService.montarPrompt(INSTRUCAO, 2L));
+        assertEquals(INSTRUCAO, contextoConsumoService.montarPrompt(INSTRUCAO, null));
+        verify(consumoAgregadoRepository, never()).buscarPeriodos(any(), isNull(), any(), any(), any());
+    }
+
+    private ContextoConsumoService criar(int maxTokens) {
+        return new ContextoConsumoService(consumoAgregadoRepository, bandeiraTarifariaService, tabelaTarifaria,
+                new SimpleMeterRegistry(), 28, maxTokens, 100);
+    }
+
+    private static ConsumoAgregado periodo(LocalDate dia, int hora, double consumo) {
+        return ConsumoAgregado.builder()
+                .escopo(EscopoAgregacao.USUARIO)
+                .referenciaId(1L)
+                .granularidade(GranularidadeAgregacao.HORA)
+                .inicioPeriodo(dia.atTime(hora, 0))
+                .consumoTotal(consumo)
+                .custoTotal(consumo * 0.5)
+                .quantidadeRegistros(1L)
+                .build();
+    }
+}
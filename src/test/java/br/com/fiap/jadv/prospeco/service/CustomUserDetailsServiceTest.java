@@ -0,0 +1,81 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class CustomUserDetailsServiceTest {
+
+    private static final String EMAIL = "maria@prospeco.com";
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private CustomUserDetailsService customUserDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        customUserDetailsService = new CustomUserDetailsService(usuarioRepository, 100, Duration.ofMinutes(5));
+        Usuario usuario = Usuario.builder()
+                .id(1L)
+                .nome("Maria")
+                .email(EMAIL)
+                .senha("$2a$10$hash")
+                .role("ROLE_USER")
+                .build();
+        when(usuarioRepository.findByEmail(EMAIL)).thenReturn(Optional.of(usuario));
+    }
+
+    @Test
+    public void carregarUsuarioAutenticado_ConsultaOBancoUmaUnicaVez() {
+        UserDetails primeiro = customUserDetailsService.carregarUsuarioAutenticado(EMAIL);
+        UserDetails segundo = customUserDetailsService.carregarUsuarioAutenticado(EMAIL);
+
+        assertSame(primeiro, segundo);
+        assertEquals(EMAIL, primeiro.getUsername());
+        assertEquals("", primeiro.getPassword());
+        assertEquals("ROLE_USER", primeiro.getAuthorities().iterator().next().getAuthority());
+        verify(usuarioRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void invalidarUsuario_RecarregaNaProximaRequisicao() {
+        customUserDetailsService.carregarUsuarioAutenticado(EMAIL);
+
+        customUserDetailsService.invalidarUsuario(EMAIL);
+        customUserDetailsService.carregarUsuarioAutenticado(EMAIL);
+
+        verify(usuarioRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    public void carregarUsuarioAutenticado_UsuarioInexistenteNaoFicaEmCache() {
+        when(usuarioRepository.findByEmail("inexistente@prospeco.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+                () -> customUserDetailsService.carregarUsuarioAutenticado("inexistente@prospeco.com"));
+        assertThrows(UsernameNotFoundException.class,
+                () -> customUserDetailsService.carregarUsuarioAutenticado("inexistente@prospeco.com"));
+        verify(usuarioRepository, times(2)).findByEmail("inexistente@prospeco.com");
+    }
+
+    @Test
+    public void loadUserByUsername_SempreConsultaOBanco() {
+        customUserDetailsService.loadUserByUsername(EMAIL);
+        customUserDetailsService.loadUserByUsername(EMAIL);
+
+        verify(usuarioRepository, times(2)).findByEmail(EMAIL);
+    }
+}
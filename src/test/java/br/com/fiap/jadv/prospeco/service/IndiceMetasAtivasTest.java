@@ -0,0 +1,54 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class IndiceMetasAtivasTest {
+
+    private final IndiceMetasAtivas indice = IndiceMetasAtivas.de(List.of(
+            janela(1L, 1L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31)),
+            janela(2L, 1L, LocalDate.of(2024, 5, 10), LocalDate.of(2024, 5, 12)),
+            janela(3L, 1L, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 6, 30)),
+            janela(4L, 1L, LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)),
+            janela(5L, 2L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31))));
+
+    @Test
+    public void metasEm_SomenteAsMetasCujoPeriodoContemAData() {
+        assertEquals(Set.of(1L, 2L, 3L), metasEm(1L, LocalDate.of(2024, 5, 11)));
+        assertEquals(Set.of(1L, 3L), metasEm(1L, LocalDate.of(2024, 5, 31)));
+        assertEquals(Set.of(3L, 4L), metasEm(1L, LocalDate.of(2024, 6, 30)));
+        assertEquals(Set.of(), metasEm(1L, LocalDate.of(2024, 7, 1)));
+        assertEquals(Set.of(), metasEm(1L, LocalDate.of(2024, 3, 31)));
+        assertEquals(Set.of(5L), metasEm(2L, LocalDate.of(2024, 5, 11)));
+        assertEquals(Set.of(), metasEm(3L, LocalDate.of(2024, 5, 11)));
+    }
+
+    @Test
+    public void registrarERemover_SubstituemAJanelaDaMeta() {
+        indice.registrar(janela(2L, 1L, LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 31)));
+        indice.remover(1L, 3L);
+        indice.remover(1L, 99L);
+        indice.remover(2L, 5L);
+
+        assertEquals(Set.of(1L), metasEm(1L, LocalDate.of(2024, 5, 11)));
+        assertEquals(Set.of(2L), metasEm(1L, LocalDate.of(2024, 7, 15)));
+        assertEquals(Set.of(), metasEm(2L, LocalDate.of(2024, 5, 11)));
+        assertEquals(3, indice.tamanho());
+    }
+
+    private Set<Long> metasEm(Long usuarioId, LocalDate data) {
+        return new HashSet<>(indice.metasEm(usuarioId, data));
+    }
+
+    private static IndiceMetasAtivas.Janela janela(Long metaId, Long usuarioId, LocalDate inicio, LocalDate fim) {
+        return new IndiceMetasAtivas.Janela(metaId, usuarioId, inicio, fim);
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.service.serializacao.RegistroSchemasAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class KafkaConsumerServiceTest {
+
+    private static final String TOPICO = "registro-consumo-events";
+
+    @Mock
+    private Acknowledgment ack;
+
+    @Mock
+    private RetentativaEventoService retentativaEventoService;
+
+    private KafkaConsumerService kafkaConsumerService;
+
+    @BeforeEach
+    public void setUp() {
+        SerializacaoEventoService serializacaoEventoService = new SerializacaoEventoService(List.of(
+                new SerializadorEventoJson(new ObjectMapper().findAndRegisterModules()),
+                new SerializadorEventoAvro(new RegistroSchemasAvro())), SerializadorEventoJson.FORMATO);
+        kafkaConsumerService = new KafkaConsumerService(serializacaoEventoService, retentativaEventoService);
+        when(retentativaEventoService.encaminhar(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    public void consumeRegistroConsumoEvent_ConfirmaLoteUmaUnicaVez() {
+        List<ConsumerRecord<String, byte[]>> records = Arrays.asList(
+                record(0, "{\"tipo\":\"CRIADO\",\"versao\":1,\"chave\":\"1\",\"dados\":{\"id\":1,\"consumo\":1.5}}"),
+                record(1, "{\"tipo\":\"CRIADO\",\"versao\":1,\"chave\":\"1\",\"dados\":{\"id\":2,\"consumo\":2.0}}"),
+                record(2, "{\"tipo\":\"EXCLUIDO\",\"versao\":1,\"chave\":\"2\",\"dados\":{\"id\":3,\"consumo\":0.5}}")
+        );
+
+        kafkaConsumerService.consumeRegistroConsumoEvent(records, ack);
+
+        verify(ack, times(1)).acknowledge();
+        verify(retentativaEventoService, never()).encaminhar(any(), any());
+    }
+
+    @Test
+    public void processBatch_MensagemInvalidaEEncaminhadaSemInterromperLote() {
+        ConsumerRecord<String, byte[]> invalido = record(1, "não é json");
+        List<ConsumerRecord<String, byte[]>> records = Arrays.asList(
+                record(0, "{\"tipo\":\"CRIADO\",\"versao\":1,\"chave\":\"1\",\"dados\":{\"id\":1,\"consumo\":1.5}}"),
+                invalido,
+                record(2, "{\"tipo\":\"ATUALIZADO\",\"versao\":1,\"chave\":\"1\",\"dados\":{\"id\":1,\"consumo\":3.0}}")
+        );
+
+        int processados = kafkaConsumerService.processBatch(
+                records, RegistroConsumoResponseDTO.class, "Registro de Consumo", ack);
+
+        assertEquals(2, processados);
+        verify(retentativaEventoService, times(1)).encaminhar(eq(invalido), any(Exception.class));
+        verify(retentativaEventoService, times(1)).aguardarEncaminhamentos(argThat(envios -> envios.size() == 1));
+        verify(ack, times(1)).acknowledge();
+    }
+
+    @Test
+    public void processBatch_LotesDeTiposDiferentes() {
+        List<ConsumerRecord<String, byte[]>> metas =
+                List.of(record(0, "{\"tipo\":\"CRIADO\",\"versao\":1,\"chave\":\"5\",\"dados\":{\"id\":9,\"usuarioId\":5}}"));
+        List<ConsumerRecord<String, byte[]>> registros =
+                List.of(record(0, "{\"tipo\":\"CRIADO\",\"versao\":1,\"chave\":\"1\",\"dados\":{\"id\":1,\"consumo\":1.0}}"));
+
+        assertEquals(1, kafkaConsumerService.processBatch(metas, MetaResponseDTO.class, "Meta", ack));
+        assertEquals(1, kafkaConsumerService.processBatch(
+                registros, RegistroConsumoResponseDTO.class, "Registro de Consumo", ack));
+        assertEquals(0, kafkaConsumerService.processBatch(List.of(), MetaResponseDTO.class, "Meta", ack));
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, String valor) {
+        return new ConsumerRecord<>(TOPICO, 0, offset, "1", valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,7 +3,10 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.MetaRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapper;
+import br.com.fiap.jadv.prospeco.mapper.MetaMapperImpl;
 import br.com.fiap.jadv.prospeco.model.Meta;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.MetaRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
@@ -11,6 +14,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
@@ -34,6 +38,12 @@ public class MetaServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private AvaliacaoMetaService avaliacaoMetaService;
+
+    @Spy
+    private MetaMapper metaMapper = new MetaMapperImpl();
+
     @InjectMocks
     private MetaService metaService;
 
@@ -45,7 +55,7 @@ public class MetaServiceTest {
         usuario.setId(1L);
 
         // Configura o KafkaProducerService para não fazer nada durante os testes
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -74,8 +84,8 @@ public class MetaServiceTest {
 
         Page<Meta> metasPage = new PageImpl<>(Arrays.asList(meta1, meta2), pageable, 2);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
-        when(metaRepository.findByUsuario(usuario, pageable)).thenReturn(metasPage);
+        Page<MetaResponseDTO> dtosPage = metasPage.map(metaMapper::toResponseDTO);
+        when(metaRepository.listarMetasPorUsuario(usuarioId, pageable)).thenReturn(dtosPage);
 
         // Execução do método
         Page<MetaResponseDTO> result = metaService.listarMetasPorUsuario(usuarioId, pageable);
@@ -93,13 +103,11 @@ public class MetaServiceTest {
         Long usuarioId = usuario.getId();
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.empty());
+        when(metaRepository.listarMetasPorUsuario(usuarioId, pageable)).thenReturn(Page.empty(pageable));
+        when(usuarioRepository.existsById(usuarioId)).thenReturn(false);
 
         // Execução e verificação
         assertThrows(ResourceNotFoundException.class, () -> metaService.listarMetasPorUsuario(usuarioId, pageable));
-
-        // Verifica que o repositório de metas não foi chamado
-        verify(metaRepository, never()).findByUsuario(any(Usuario.class), any(Pageable.class));
     }
 
     @Test
@@ -172,7 +180,9 @@ public class MetaServiceTest {
         assertEquals(usuario.getId(), result.getUsuarioId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), any(MetaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), anyLong(),
+                eq(TipoEvento.CRIADO), any(MetaResponseDTO.class));
+        verify(avaliacaoMetaService, times(1)).avaliarMeta(metaSalva);
     }
 
     @Test
@@ -194,7 +204,7 @@ public class MetaServiceTest {
         verify(metaRepository, never()).save(any(Meta.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -230,7 +240,8 @@ public class MetaServiceTest {
         assertEquals(usuario.getId(), result.getUsuarioId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), any(MetaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), anyLong(),
+                eq(TipoEvento.ATUALIZADO), any(MetaResponseDTO.class));
     }
 
     @Test
@@ -253,7 +264,7 @@ public class MetaServiceTest {
         verify(metaRepository, never()).save(any(Meta.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -277,7 +288,8 @@ public class MetaServiceTest {
 
         // Verificações
         verify(metaRepository, times(1)).delete(meta);
-        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), any(MetaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), anyLong(),
+                eq(TipoEvento.EXCLUIDO), any(MetaResponseDTO.class));
     }
 
     @Test
@@ -294,7 +306,7 @@ public class MetaServiceTest {
         verify(metaRepository, never()).delete(any(Meta.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -328,7 +340,11 @@ public class MetaServiceTest {
 
         // Verificações
         verify(metaRepository, times(1)).save(any(Meta.class));
-        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), any(MetaResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("meta-events"), anyLong(), eq(TipoEvento.ATUALIZADO),
+                argThat(dto -> ((MetaResponseDTO) dto).getAtingida()),
+                argThat(anterior -> !((MetaResponseDTO) anterior).getAtingida()));
+        assertTrue(meta.getEncerrada());
+        verify(avaliacaoMetaService, times(1)).removerMeta(metaAtingida);
     }
 
     @Test
@@ -345,6 +361,6 @@ public class MetaServiceTest {
         verify(metaRepository, never()).save(any(Meta.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any(), any());
     }
 }
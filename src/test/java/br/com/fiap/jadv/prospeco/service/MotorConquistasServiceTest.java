@@ -0,0 +1,295 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.*;
+import br.com.fiap.jadv.prospeco.repository.CheckpointConquistaRepository;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import br.com.fiap.jadv.prospeco.repository.EstadoConquistaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class MotorConquistasServiceTest {
+
+    @Mock
+    private EstadoConquistaRepository estadoConquistaRepository;
+
+    @Mock
+    private CheckpointConquistaRepository checkpointConquistaRepository;
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private ConquistaService conquistaService;
+
+    @Mock
+    private SerializacaoEventoService serializacaoEventoService;
+
+    @Mock
+    private RetentativaEventoService retentativaEventoService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Acknowledgment ack;
+
+    @Spy
+    private CatalogoRegrasConquista catalogoRegrasConquista = new CatalogoRegrasConquista(new ObjectMapper(),
+            new ClassPathResource("conquistas/regras.json"));
+
+    @InjectMocks
+    private MotorConquistasService motorConquistasService;
+
+    private final Map<Long, EstadoConquista> estados = new HashMap<>();
+    private final Map<String, CheckpointConquista> checkpoints = new HashMap<>();
+    private final Map<byte[], EventoDTO<?>> conteudos = new IdentityHashMap<>();
+    private final List<ConsumoAgregado> agregados = new ArrayList<>();
+    private long proximoOffset;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        // Os repositórios guardam em memória o que foi salvo, como o banco entre lotes
+        when(estadoConquistaRepository.buscarParaAtualizacao(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream()
+                        .map(estados::get).filter(Objects::nonNull).toList());
+        when(estadoConquistaRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            ((Iterable<EstadoConquista>) invocation.getArgument(0)).forEach(estado -> estados.put(estado.getUsuarioId(), estado));
+            return List.of();
+        });
+        when(checkpointConquistaRepository.buscarParaAtualizacao(anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).stream()
+                        .map(checkpoints::get).filter(Objects::nonNull)
+                        .map(checkpoint -> new CheckpointConquista(checkpoint.getParticao(), checkpoint.getProximoOffset()))
+                        .toList());
+        when(checkpointConquistaRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            ((Iterable<CheckpointConquista>) invocation.getArgument(0)).forEach(checkpoint -> checkpoints.put(checkpoint.getParticao(), checkpoint));
+            return List.of();
+        });
+        when(estadoConquistaRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            EstadoConquista estado = invocation.getArgument(0);
+            estados.put(estado.getUsuarioId(), estado);
+            return estado;
+        });
+        when(serializacaoEventoService.desserializar(any(byte[].class), any()))
+                .thenAnswer(invocation -> conteudos.get(invocation.getArgument(0)));
+        // Agregados do usuário 7, já com todas as leituras gravadas
+        when(consumoAgregadoRepository.buscarPeriodos(eq(EscopoAgregacao.USUARIO), eq(7L), any(), any(), any()))
+                .thenAnswer(invocation -> agregados.stream()
+                        .filter(agregado -> agregado.getGranularidade() == invocation.getArgument(2))
+                        .filter(agregado -> !agregado.getInicioPeriodo().isBefore(invocation.getArgument(3)))
+                        .filter(agregado -> agregado.getInicioPeriodo().isBefore(invocation.getArgument(4)))
+                        .sorted(Comparator.comparing(ConsumoAgregado::getInicioPeriodo))
+                        .toList());
+    }
+
+    @Test
+    public void consumirEventosConsumo_SeteDiasAbaixoDaMetaConcedemAConquista() {
+        // Meta de 31 kWh em maio: alvo diário de 1 kWh
+        motorConquistasService.consumirEventosMeta(List.of(
+                record("meta-events", eventoMeta(TipoEvento.CRIADO, meta(false), null))), ack);
+
+        List<ConsumerRecord<String, byte[]>> leituras = new ArrayList<>();
+        for (int dia = 1; dia <= 8; dia++) {
+            agregarDia(LocalDate.of(2024, 5, dia), 0.8);
+            leituras.add(record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO,
+                    leitura(LocalDateTime.of(2024, 5, dia, 12, 0), 0.8), null)));
+        }
+        motorConquistasService.consumirEventosConsumo(leituras, ack);
+
+        // A leitura do dia 8 encerra o dia 7, sétimo dia seguido abaixo do alvo
+        verify(conquistaService, times(1)).concederConquista(eq(7L),
+                argThat(regra -> regra.codigo().equals("SEMANA_ABAIXO_DA_META")));
+        assertEquals(7, estados.get(7L).getSequenciaDiasAbaixoDaMeta());
+        verify(ack, times(2)).acknowledge();
+    }
+
+    @Test
+    public void consumirEventosConsumo_DiaAcimaDoAlvoOuSemLeituraReiniciaASequencia() {
+        motorConquistasService.consumirEventosMeta(List.of(
+                record("meta-events", eventoMeta(TipoEvento.CRIADO, meta(false), null))), ack);
+        agregarDia(LocalDate.of(2024, 5, 1), 0.5);
+        agregarDia(LocalDate.of(2024, 5, 2), 3.0);
+        agregarDia(LocalDate.of(2024, 5, 3), 0.5);
+        agregarDia(LocalDate.of(2024, 5, 4), 0.5);
+        agregarDia(LocalDate.of(2024, 5, 7), 0.5);
+
+        motorConquistasService.consumirEventosConsumo(List.of(
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 1, 8, 0), 0.5), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 2, 8, 0), 0.5), null)),
+                // A alteração leva o dia 2 acima do alvo antes de ele ser encerrado
+                record("registro-consumo-events", eventoConsumo(TipoEvento.ATUALIZADO,
+                        leitura(LocalDateTime.of(2024, 5, 2, 8, 0), 3.0), leitura(LocalDateTime.of(2024, 5, 2, 8, 0), 0.5))),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 3, 8, 0), 0.5), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 4, 8, 0), 0.5), null))), ack);
+        assertEquals(1, estados.get(7L).getSequenciaDiasAbaixoDaMeta());
+
+        // Os dias 5 e 6 ficaram sem leitura
+        motorConquistasService.consumirEventosConsumo(List.of(
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 7, 8, 0), 0.5), null))), ack);
+
+        assertEquals(0, estados.get(7L).getSequenciaDiasAbaixoDaMeta());
+        assertEquals(LocalDate.of(2024, 5, 7), estados.get(7L).getDiaAtual());
+        verifyNoInteractions(conquistaService);
+    }
+
+    @Test
+    public void consumirEventosConsumo_MesComVintePorCentoAMenosConcedeAConquista() {
+        agregarMes(LocalDate.of(2024, 4, 1), 100.0);
+        agregarMes(LocalDate.of(2024, 5, 1), 70.0);
+        agregarMes(LocalDate.of(2024, 6, 1), 5.0);
+        motorConquistasService.consumirEventosConsumo(List.of(
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 4, 10, 8, 0), 100.0), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 10, 8, 0), 70.0), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 20, 8, 0), 10.0), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.EXCLUIDO, leitura(LocalDateTime.of(2024, 5, 20, 8, 0), 10.0), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 6, 1, 8, 0), 5.0), null))), ack);
+
+        verify(conquistaService, times(1)).concederConquista(eq(7L),
+                argThat(regra -> regra.codigo().equals("REDUCAO_MENSAL_20")));
+        assertEquals(LocalDate.of(2024, 6, 1), estados.get(7L).getMesAtual());
+    }
+
+    @Test
+    public void consumirEventosConsumo_DiaEncerradoSomaAsLeiturasDeOutrasParticoes() {
+        motorConquistasService.consumirEventosMeta(List.of(
+                record("meta-events", eventoMeta(TipoEvento.CRIADO, meta(false), null))), ack);
+        // Leituras de 0,6 kWh em dois aparelhos no dia 1; só uma passa por esta partição
+        agregarDia(LocalDate.of(2024, 5, 1), 1.2);
+        agregarDia(LocalDate.of(2024, 5, 2), 0.5);
+
+        motorConquistasService.consumirEventosConsumo(List.of(
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 1, 8, 0), 0.6), null)),
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 2, 8, 0), 0.5), null))), ack);
+
+        assertEquals(0, estados.get(7L).getSequenciaDiasAbaixoDaMeta());
+    }
+
+    @Test
+    public void consumirEventosConsumo_EstadoCriadoPorOutroConsumidorNaoFalhaOLote() {
+        doAnswer(invocation -> {
+            // Outro consumidor gravou o estado primeiro
+            estados.put(7L, EstadoConquista.builder().usuarioId(7L).diaAtual(LocalDate.of(2024, 5, 1)).build());
+            throw new DataIntegrityViolationException("pk_estados_conquista");
+        }).when(estadoConquistaRepository).saveAndFlush(any());
+
+        motorConquistasService.consumirEventosConsumo(List.of(
+                record("registro-consumo-events", eventoConsumo(TipoEvento.CRIADO, leitura(LocalDateTime.of(2024, 5, 1, 8, 0), 0.5), null))), ack);
+
+        assertEquals(LocalDate.of(2024, 5, 1), estados.get(7L).getDiaAtual());
+        assertEquals(1L, checkpoints.get("registro-consumo-events-0").getProximoOffset());
+        verify(ack, times(1)).acknowledge();
+    }
+
+    @Test
+    public void consumirEventosMeta_MensagensReentreguesNaoSaoReaplicadas() {
+        List<ConsumerRecord<String, byte[]>> lote = List.of(
+                record("meta-events", eventoMeta(TipoEvento.CRIADO, meta(false), null)),
+                record("meta-events", eventoMeta(TipoEvento.ATUALIZADO, meta(true), meta(false))),
+                // Alteração posterior de uma meta já atingida não é contada de novo
+                record("meta-events", eventoMeta(TipoEvento.ATUALIZADO, meta(true), null)));
+
+        motorConquistasService.consumirEventosMeta(lote, ack);
+        motorConquistasService.consumirEventosMeta(lote, ack);
+
+        verify(conquistaService, times(1)).concederConquista(eq(7L),
+                argThat(regra -> regra.codigo().equals("PRIMEIRA_META_ATINGIDA")));
+        assertEquals(1, estados.get(7L).getMetasAtingidas());
+        assertEquals(3L, checkpoints.get("meta-events-0").getProximoOffset());
+        verify(ack, times(2)).acknowledge();
+    }
+
+    @Test
+    public void consumirEventosMeta_EventoIlegivelEEncaminhadoAoDeadLetter() throws Exception {
+        ConsumerRecord<String, byte[]> ilegivel = new ConsumerRecord<>("meta-events", 0, proximoOffset++, "7", new byte[]{1});
+        IllegalArgumentException erro = new IllegalArgumentException("Evento sem envelope");
+        when(serializacaoEventoService.desserializar(same(ilegivel.value()), any())).thenThrow(erro);
+
+        motorConquistasService.consumirEventosMeta(List.of(ilegivel,
+                record("meta-events", eventoMeta(TipoEvento.CRIADO, meta(false), null))), ack);
+
+        verify(retentativaEventoService).encaminhar(ilegivel, erro);
+        verify(retentativaEventoService).aguardarEncaminhamentos(argThat(envios -> envios.size() == 1));
+        // O restante do lote é aplicado normalmente
+        assertTrue(estados.containsKey(7L));
+        assertEquals(2L, checkpoints.get("meta-events-0").getProximoOffset());
+        verify(ack, times(1)).acknowledge();
+    }
+
+    private void agregarDia(LocalDate dia, double consumo) {
+        agregados.add(agregado(GranularidadeAgregacao.DIA, dia, consumo));
+    }
+
+    private void agregarMes(LocalDate mes, double consumo) {
+        agregados.add(agregado(GranularidadeAgregacao.MES, mes, consumo));
+    }
+
+    private ConsumoAgregado agregado(GranularidadeAgregacao granularidade, LocalDate inicio, double consumo) {
+        return ConsumoAgregado.builder()
+                .escopo(EscopoAgregacao.USUARIO)
+                .referenciaId(7L)
+                .granularidade(granularidade)
+                .inicioPeriodo(inicio.atStartOfDay())
+                .consumoTotal(consumo)
+                .build();
+    }
+
+    private MetaResponseDTO meta(boolean atingida) {
+        return MetaResponseDTO.builder()
+                .id(1L)
+                .consumoAlvo(31.0)
+                .dataInicio(LocalDate.of(2024, 5, 1))
+                .dataFim(LocalDate.of(2024, 5, 31))
+                .atingida(atingida)
+                .encerrada(atingida)
+                .usuarioId(7L)
+                .build();
+    }
+
+    private RegistroConsumoResponseDTO leitura(LocalDateTime dataHora, Double consumo) {
+        return RegistroConsumoResponseDTO.builder()
+                .id(1L)
+                .dataHora(dataHora)
+                .consumo(consumo)
+                .aparelhoId(1L)
+                .usuarioId(7L)
+                .build();
+    }
+
+    private EventoDTO<MetaResponseDTO> eventoMeta(TipoEvento tipo, MetaResponseDTO dados, MetaResponseDTO anterior) {
+        return EventoDTO.<MetaResponseDTO>builder().tipo(tipo).dados(dados).anterior(anterior).build();
+    }
+
+    private EventoDTO<RegistroConsumoResponseDTO> eventoConsumo(TipoEvento tipo, RegistroConsumoResponseDTO dados,
+                                                                RegistroConsumoResponseDTO anterior) {
+        return EventoDTO.<RegistroConsumoResponseDTO>builder().tipo(tipo).dados(dados).anterior(anterior).build();
+    }
+
+    private ConsumerRecord<String, byte[]> record(String topico, EventoDTO<?> evento) {
+        byte[] conteudo = new byte[0];
+        conteudos.put(conteudo, evento);
+        return new ConsumerRecord<>(topico, 0, proximoOffset++, "7", conteudo);
+    }
+}
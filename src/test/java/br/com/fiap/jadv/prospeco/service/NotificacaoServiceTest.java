@@ -2,8 +2,12 @@ package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.dto.request.NotificacaoRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.NotificacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.PaginaCursorResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.NotificacaoMapper;
+import br.com.fiap.jadv.prospeco.mapper.NotificacaoMapperImpl;
 import br.com.fiap.jadv.prospeco.model.Notificacao;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.NotificacaoRepository;
 import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
@@ -11,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
@@ -34,6 +39,9 @@ public class NotificacaoServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Spy
+    private NotificacaoMapper notificacaoMapper = new NotificacaoMapperImpl();
+
     @InjectMocks
     private NotificacaoService notificacaoService;
 
@@ -45,7 +53,7 @@ public class NotificacaoServiceTest {
         usuario.setId(1L);
 
         // Configura o KafkaProducerService para não fazer nada durante os testes
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -72,8 +80,8 @@ public class NotificacaoServiceTest {
 
         Page<Notificacao> notificacoesPage = new PageImpl<>(Arrays.asList(notificacao1, notificacao2), pageable, 2);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
-        when(notificacaoRepository.findByUsuarioOrderByDataHoraDesc(usuario, pageable)).thenReturn(notificacoesPage);
+        Page<NotificacaoResponseDTO> dtosPage = notificacoesPage.map(notificacaoMapper::toResponseDTO);
+        when(notificacaoRepository.listarNotificacoesPorUsuario(usuarioId, pageable)).thenReturn(dtosPage);
 
         // Execução do método
         Page<NotificacaoResponseDTO> result = notificacaoService.listarNotificacoesPorUsuario(usuarioId, pageable);
@@ -91,13 +99,48 @@ public class NotificacaoServiceTest {
         Long usuarioId = usuario.getId();
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.empty());
+        when(notificacaoRepository.listarNotificacoesPorUsuario(usuarioId, pageable)).thenReturn(Page.empty(pageable));
+        when(usuarioRepository.existsById(usuarioId)).thenReturn(false);
 
         // Execução e verificação
         assertThrows(ResourceNotFoundException.class, () -> notificacaoService.listarNotificacoesPorUsuario(usuarioId, pageable));
+    }
+
+    @Test
+    public void listarNotificacoesPorUsuarioCursor_PaginasSeguintes() {
+        Long usuarioId = usuario.getId();
+        LocalDateTime dataHora = LocalDateTime.of(2024, 5, 10, 14, 0);
+        NotificacaoResponseDTO notificacao3 = new NotificacaoResponseDTO(3L, "Notificação 3", dataHora, false, usuarioId);
+        NotificacaoResponseDTO notificacao2 = new NotificacaoResponseDTO(2L, "Notificação 2", dataHora, false, usuarioId);
+        NotificacaoResponseDTO notificacao1 = new NotificacaoResponseDTO(1L, "Notificação 1", dataHora, false, usuarioId);
+
+        when(notificacaoRepository.listarNotificacoesRecentes(usuarioId, PageRequest.of(0, 3)))
+                .thenReturn(Arrays.asList(notificacao3, notificacao2, notificacao1));
+        when(notificacaoRepository.listarNotificacoesAnteriores(usuarioId, dataHora, 2L, PageRequest.of(0, 3)))
+                .thenReturn(Arrays.asList(notificacao1));
+
+        PaginaCursorResponseDTO<NotificacaoResponseDTO> primeira =
+                notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, null, 2);
+        PaginaCursorResponseDTO<NotificacaoResponseDTO> segunda =
+                notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, primeira.getProximoCursor(), 2);
+
+        assertEquals(Arrays.asList(notificacao3, notificacao2), primeira.getItens());
+        assertNotNull(primeira.getProximoCursor());
+        assertEquals(Arrays.asList(notificacao1), segunda.getItens());
+        assertNull(segunda.getProximoCursor());
+        verify(usuarioRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    public void listarNotificacoesPorUsuarioCursor_ParametrosInvalidos() {
+        Long usuarioId = usuario.getId();
 
-        // Verifica que o repositório de notificações não foi chamado
-        verify(notificacaoRepository, never()).findByUsuarioOrderByDataHoraDesc(any(Usuario.class), any(Pageable.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, "não-é-um-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> notificacaoService.listarNotificacoesPorUsuarioCursor(usuarioId, null, 101));
     }
 
     @Test
@@ -166,7 +209,8 @@ public class NotificacaoServiceTest {
         assertEquals(usuario.getId(), result.getUsuarioId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), any(NotificacaoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), anyLong(),
+                eq(TipoEvento.CRIADO), any(NotificacaoResponseDTO.class));
     }
 
     @Test
@@ -186,7 +230,7 @@ public class NotificacaoServiceTest {
         verify(notificacaoRepository, never()).save(any(Notificacao.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -218,7 +262,8 @@ public class NotificacaoServiceTest {
 
         // Verificações
         verify(notificacaoRepository, times(1)).save(any(Notificacao.class));
-        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), any(NotificacaoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), anyLong(),
+                eq(TipoEvento.ATUALIZADO), any(NotificacaoResponseDTO.class));
     }
 
     @Test
@@ -235,7 +280,7 @@ public class NotificacaoServiceTest {
         verify(notificacaoRepository, never()).save(any(Notificacao.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
@@ -258,7 +303,8 @@ public class NotificacaoServiceTest {
 
         // Verificações
         verify(notificacaoRepository, times(1)).delete(notificacao);
-        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), any(NotificacaoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("notificacao-events"), anyLong(),
+                eq(TipoEvento.EXCLUIDO), any(NotificacaoResponseDTO.class));
     }
 
     @Test
@@ -275,7 +321,7 @@ public class NotificacaoServiceTest {
         verify(notificacaoRepository, never()).delete(any(Notificacao.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any());
     }
 
     @Test
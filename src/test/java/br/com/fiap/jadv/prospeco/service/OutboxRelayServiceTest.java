@@ -0,0 +1,99 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.EventoOutbox;
+import br.com.fiap.jadv.prospeco.repository.EventoOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class OutboxRelayServiceTest {
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OutboxRelayService outboxRelayService;
+
+    @Test
+    public void retransmitirPendentes_PublicaNaOrdemERemoveConfirmados() {
+        EventoOutbox evento1 = evento(1L, "meta-events", "{\"id\":1}");
+        EventoOutbox evento2 = evento(2L, "meta-events", "{\"id\":2}");
+
+        when(eventoOutboxRepository.buscarPendentes(any(Pageable.class)))
+                .thenReturn(Arrays.asList(evento1, evento2));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        outboxRelayService.retransmitirPendentes();
+
+        var ordem = inOrder(kafkaTemplate);
+        ordem.verify(kafkaTemplate).send("meta-events", "7", bytes("{\"id\":1}"));
+        ordem.verify(kafkaTemplate).send("meta-events", "7", bytes("{\"id\":2}"));
+        verify(eventoOutboxRepository, times(1)).deleteAllByIdInBatch(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    public void publicarLote_FalhaMantemSomenteOEventoQueFalhou() {
+        EventoOutbox evento1 = evento(1L, "aparelho-events", "{\"id\":1}");
+        EventoOutbox evento2 = evento(2L, "aparelho-events", "{\"id\":2}");
+        EventoOutbox evento3 = evento(3L, "aparelho-events", "{\"id\":3}");
+
+        when(eventoOutboxRepository.buscarPendentes(any(Pageable.class)))
+                .thenReturn(Arrays.asList(evento1, evento2, evento3));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker indisponível")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        int publicados = outboxRelayService.publicarLote();
+
+        // O evento 3 já está no broker: mantê-lo no outbox o publicaria de novo
+        assertEquals(2, publicados);
+        verify(eventoOutboxRepository, times(1)).deleteAllByIdInBatch(Arrays.asList(1L, 3L));
+    }
+
+    @Test
+    public void publicarLote_SemPendentes() {
+        when(eventoOutboxRepository.buscarPendentes(any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, outboxRelayService.publicarLote());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(byte[].class));
+        verify(eventoOutboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private EventoOutbox evento(Long id, String topico, String payload) {
+        return EventoOutbox.builder()
+                .id(id)
+                .topico(topico)
+                .chave("7")
+                .payload(bytes(payload))
+                .criadoEm(LocalDateTime.now())
+                .build();
+    }
+
+    private byte[] bytes(String conteudo) {
+        return conteudo.getBytes(StandardCharsets.UTF_8);
+    }
+}
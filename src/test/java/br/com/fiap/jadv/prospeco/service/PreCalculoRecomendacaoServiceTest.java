@@ -0,0 +1,370 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.ExecucaoPreCalculoRecomendacao;
+import br.com.fiap.jadv.prospeco.model.PendenciaPreCalculoRecomendacao;
+import br.com.fiap.jadv.prospeco.model.Recomendacao;
+import br.com.fiap.jadv.prospeco.model.Usuario;
+import br.com.fiap.jadv.prospeco.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class PreCalculoRecomendacaoServiceTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2024, 11, 10);
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RecomendacaoRepository recomendacaoRepository;
+
+    @Mock
+    private ExecucaoPreCalculoRecomendacaoRepository execucaoRepository;
+
+    @Mock
+    private PendenciaPreCalculoRecomendacaoRepository pendenciaRepository;
+
+    @Mock
+    private RecomendacaoService recomendacaoService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PreCalculoRecomendacaoService preCalculoRecomendacaoService;
+
+    private final List<Recomendacao> gravadas = new ArrayList<>();
+    private final Map<Long, PendenciaPreCalculoRecomendacao> pendencias = new TreeMap<>();
+    private ExecucaoPreCalculoRecomendacao execucao;
+
+    @BeforeEach
+    public void setUp() {
+        preCalculoRecomendacaoService = new PreCalculoRecomendacaoService(consumoAgregadoRepository, usuarioRepository,
+                recomendacaoRepository, execucaoRepository, pendenciaRepository, recomendacaoService, transactionManager,
+                7, 2, 2, 0, Duration.ofMinutes(30), 3, Duration.ofMillis(50));
+
+        // A execução fica em memória, como no banco entre lotes
+        when(execucaoRepository.findById(HOJE)).thenAnswer(invocation -> Optional.ofNullable(execucao));
+        when(execucaoRepository.buscarParaAtualizacao(HOJE)).thenAnswer(invocation -> Optional.ofNullable(execucao));
+        when(execucaoRepository.save(any(ExecucaoPreCalculoRecomendacao.class))).thenAnswer(invocation -> {
+            execucao = invocation.getArgument(0);
+            return execucao;
+        });
+        // As pendências também ficam em memória, por usuário
+        when(pendenciaRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<PendenciaPreCalculoRecomendacao> salvas = new ArrayList<>();
+            for (PendenciaPreCalculoRecomendacao pendencia : (Iterable<PendenciaPreCalculoRecomendacao>) invocation.getArgument(0)) {
+                pendencias.put(pendencia.getUsuarioId(), pendencia);
+                salvas.add(pendencia);
+            }
+            return salvas;
+        });
+        when(pendenciaRepository.buscarDisponiveis(eq(HOJE), anyInt(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    int maxTentativas = invocation.getArgument(1);
+                    LocalDateTime agora = invocation.getArgument(2);
+                    Pageable pageable = invocation.getArgument(3);
+                    return pendencias.values().stream()
+                            .filter(p -> p.getTentativas() < maxTentativas)
+                            .filter(p -> p.getReservadaAte() == null || p.getReservadaAte().isBefore(agora))
+                            .limit(pageable.getPageSize())
+                            .toList();
+                });
+        when(pendenciaRepository.findByDataReferenciaAndUsuarioIdInOrderByUsuarioId(eq(HOJE), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> usuarioIds = invocation.getArgument(1);
+                    return pendencias.values().stream().filter(p -> usuarioIds.contains(p.getUsuarioId())).toList();
+                });
+        when(pendenciaRepository.existsByDataReferenciaAndTentativasLessThan(eq(HOJE), anyInt())).thenAnswer(invocation -> {
+            int maxTentativas = invocation.getArgument(1);
+            return pendencias.values().stream().anyMatch(p -> p.getTentativas() < maxTentativas);
+        });
+        when(pendenciaRepository.excluirDaExecucao(HOJE)).thenAnswer(invocation -> {
+            int excluidas = pendencias.size();
+            pendencias.clear();
+            return excluidas;
+        });
+        doAnswer(invocation -> {
+            for (PendenciaPreCalculoRecomendacao pendencia : (Iterable<PendenciaPreCalculoRecomendacao>) invocation.getArgument(0)) {
+                pendencias.remove(pendencia.getUsuarioId());
+            }
+            return null;
+        }).when(pendenciaRepository).deleteAllInBatch(anyIterable());
+        when(recomendacaoRepository.inserirEmLote(anyList())).thenAnswer(invocation -> {
+            List<Recomendacao> recomendacoes = invocation.getArgument(0);
+            gravadas.addAll(recomendacoes);
+            return recomendacoes.size();
+        });
+        when(usuarioRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            Usuario usuario = new Usuario();
+            usuario.setId(invocation.getArgument(0));
+            return usuario;
+        });
+        when(usuarioRepository.buscarIdsAposId(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long ultimoId = invocation.getArgument(0);
+            return List.of(1L, 2L, 3L).stream().filter(id -> id > ultimoId).limit(2).toList();
+        });
+        when(recomendacaoService.gerarMensagem(anyString())).thenAnswer(invocation ->
+                "Recomendação para " + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        preCalculoRecomendacaoService.encerrar();
+    }
+
+    @Test
+    public void executar_GeraUmaVezCadaPromptEGravaOsLotes() {
+        when(consumoAgregadoRepository.somarConsumoPorAparelho(any(), any(), any(), any(), eq(List.of(1L, 2L))))
+                .thenReturn(List.of(consumo(1L, 10L, "Geladeira", 30.0), consumo(1L, 11L, "Televisão", 5.0),
+                        consumo(2L, 20L, "geladeira ", 25.0)));
+        when(consumoAgregadoRepository.somarConsumoPorAparelho(any(), any(), any(), any(), eq(List.of(3L))))
+                .thenReturn(List.of(consumo(3L, 30L, "Ar-condicionado", 40.0)));
+
+        int quantidade = preCalculoRecomendacaoService.executar(HOJE);
+
+        assertEquals(3, quantidade);
+        assertEquals(List.of(1L, 2L, 3L), gravadas.stream().map(r -> r.getUsuario().getId()).toList());
+        assertEquals("Recomendação para Geladeira", gravadas.get(1).getMensagem());
+        verify(recomendacaoService, times(1)).gerarMensagem(argThat(aparelho -> aparelho.trim().equalsIgnoreCase("geladeira")));
+        verify(recomendacaoService).gerarMensagem("Ar-condicionado");
+        verify(recomendacaoService, never()).gerarMensagem("Televisão");
+        verify(consumoAgregadoRepository).somarConsumoPorAparelho(any(), any(),
+                eq(LocalDateTime.of(2024, 11, 3, 0, 0)), eq(HOJE.atStartOfDay()), eq(List.of(1L, 2L)));
+        assertTrue(execucao.getConcluida());
+        assertEquals(3L, execucao.getUltimoUsuarioId());
+        assertEquals(3, execucao.getRecomendacoesGeradas());
+        assertTrue(pendencias.isEmpty());
+    }
+
+    @Test
+    public void executar_ReservaOLoteAntesDeChamarOModelo() {
+        consumosPorUsuario(Map.of(1L, consumo(1L, 10L, "Geladeira", 30.0), 3L, consumo(3L, 30L, "Ar-condicionado", 40.0)));
+        List<Long> checkpointsDuranteAGeracao = new ArrayList<>();
+        when(recomendacaoService.gerarMensagem(anyString())).thenAnswer(invocation -> {
+            checkpointsDuranteAGeracao.add(execucao.getUltimoUsuarioId());
+            return "Recomendação para " + invocation.getArgument(0);
+        });
+
+        preCalculoRecomendacaoService.executar(HOJE);
+
+        // Outra instância que consultasse a execução durante a geração já veria o lote reservado
+        assertEquals(List.of(2L, 3L), checkpointsDuranteAGeracao);
+    }
+
+    @Test
+    public void executar_LoteReservadoPorOutraInstanciaNaoEGeradoDeNovo() {
+        LocalDateTime reservadaAte = LocalDateTime.now().plusMinutes(10);
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .ultimoUsuarioId(2L)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+        pendencias.put(1L, pendencia(1L, reservadaAte));
+        pendencias.put(2L, pendencia(2L, reservadaAte));
+        consumosPorUsuario(Map.of(3L, consumo(3L, 30L, "Ar-condicionado", 40.0)));
+
+        assertEquals(1, preCalculoRecomendacaoService.executar(HOJE));
+
+        verify(recomendacaoService, times(1)).gerarMensagem(anyString());
+        assertEquals(Set.of(1L, 2L), pendencias.keySet());
+        // A instância que reservou os usuários 1 e 2 conclui a execução depois de gravá-los
+        assertFalse(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_ReservaExpiradaDeInstanciaInterrompidaETentadaDeNovo() {
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .ultimoUsuarioId(3L)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+        pendencias.put(2L, pendencia(2L, LocalDateTime.now().minusMinutes(1)));
+        consumosPorUsuario(Map.of(2L, consumo(2L, 20L, "Geladeira", 25.0)));
+
+        assertEquals(1, preCalculoRecomendacaoService.executar(HOJE));
+
+        assertEquals(List.of(2L), gravadas.stream().map(r -> r.getUsuario().getId()).toList());
+        assertTrue(pendencias.isEmpty());
+        assertTrue(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_UsuarioComFalhaETentadoDeNovoAntesDeConcluir() {
+        consumosPorUsuario(Map.of(1L, consumo(1L, 10L, "Geladeira", 30.0), 2L, consumo(2L, 20L, "Televisão", 5.0),
+                3L, consumo(3L, 30L, "Ar-condicionado", 40.0)));
+        when(recomendacaoService.gerarMensagem("Geladeira"))
+                .thenThrow(new IllegalStateException("Resposta inválida"))
+                .thenReturn("Recomendação para Geladeira");
+
+        assertEquals(3, preCalculoRecomendacaoService.executar(HOJE));
+
+        assertEquals(List.of(2L, 3L, 1L), gravadas.stream().map(r -> r.getUsuario().getId()).toList());
+        verify(recomendacaoService, times(2)).gerarMensagem("Geladeira");
+        assertTrue(pendencias.isEmpty());
+        assertTrue(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_UsuarioQueSempreFalhaEDescartadoAposAsTentativas() {
+        consumosPorUsuario(Map.of(1L, consumo(1L, 10L, "Geladeira", 30.0), 2L, consumo(2L, 20L, "Televisão", 5.0)));
+        when(recomendacaoService.gerarMensagem("Geladeira")).thenThrow(new IllegalStateException("Resposta inválida"));
+
+        // Os lotes só com o usuário que falha param a execução, como o modelo indisponível
+        assertThrows(IllegalStateException.class, () -> preCalculoRecomendacaoService.executar(HOJE));
+        assertThrows(IllegalStateException.class, () -> preCalculoRecomendacaoService.executar(HOJE));
+        assertEquals(0, preCalculoRecomendacaoService.executar(HOJE));
+
+        verify(recomendacaoService, times(3)).gerarMensagem("Geladeira");
+        assertEquals(List.of(2L), gravadas.stream().map(r -> r.getUsuario().getId()).toList());
+        assertTrue(pendencias.isEmpty());
+        assertTrue(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_ExecucaoInterrompidaRetomaAposOUltimoUsuario() {
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .ultimoUsuarioId(2L)
+                .recomendacoesGeradas(2)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+        when(consumoAgregadoRepository.somarConsumoPorAparelho(any(), any(), any(), any(), eq(List.of(3L))))
+                .thenReturn(List.of(consumo(3L, 30L, "Ar-condicionado", 40.0)));
+
+        assertEquals(1, preCalculoRecomendacaoService.executar(HOJE));
+
+        verify(consumoAgregadoRepository, never()).somarConsumoPorAparelho(any(), any(), any(), any(), eq(List.of(1L, 2L)));
+        assertEquals(3, execucao.getRecomendacoesGeradas());
+        assertTrue(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_ModeloIndisponivelMantemOsUsuariosPendentes() {
+        when(consumoAgregadoRepository.somarConsumoPorAparelho(any(), any(), any(), any(), anyCollection()))
+                .thenReturn(List.of(consumo(1L, 10L, "Geladeira", 30.0)));
+        when(recomendacaoService.gerarMensagem(anyString())).thenThrow(new IllegalStateException("Modelo fora do ar"));
+
+        assertThrows(IllegalStateException.class, () -> preCalculoRecomendacaoService.executar(HOJE));
+
+        // O lote já tinha sido reservado; o usuário sem recomendação fica livre para nova tentativa
+        assertEquals(2L, execucao.getUltimoUsuarioId());
+        assertEquals(Set.of(1L), pendencias.keySet());
+        assertEquals(1, pendencias.get(1L).getTentativas());
+        assertNull(pendencias.get(1L).getReservadaAte());
+        assertFalse(execucao.getConcluida());
+        verify(recomendacaoRepository, never()).inserirEmLote(anyList());
+    }
+
+    @Test
+    public void retomarExecucaoInterrompida_ModeloIndisponivelAgendaNovaRetomada() throws Exception {
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+        when(execucaoRepository.findFirstByConcluidaFalseOrderByDataReferenciaDesc()).thenReturn(Optional.of(execucao));
+        consumosPorUsuario(Map.of(1L, consumo(1L, 10L, "Geladeira", 30.0), 3L, consumo(3L, 30L, "Ar-condicionado", 40.0)));
+        when(recomendacaoService.gerarMensagem("Geladeira"))
+                .thenThrow(new IllegalStateException("Modelo fora do ar"))
+                .thenReturn("Recomendação para Geladeira");
+
+        preCalculoRecomendacaoService.retomarExecucaoInterrompida();
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!execucao.getConcluida() && System.nanoTime() < limite) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(execucao.getConcluida());
+        assertEquals(Set.of(1L, 3L), gravadas.stream().map(r -> r.getUsuario().getId()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void retomarExecucaoInterrompida_ExecucaoPosteriorSubstituiARetomada() throws Exception {
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+        when(execucaoRepository.findFirstByConcluidaFalseOrderByDataReferenciaDesc()).thenReturn(Optional.of(execucao));
+        when(execucaoRepository.existsByDataReferenciaAfter(HOJE)).thenReturn(true);
+
+        preCalculoRecomendacaoService.retomarExecucaoInterrompida();
+        preCalculoRecomendacaoService.encerrar();
+
+        verify(usuarioRepository, never()).buscarIdsAposId(anyLong(), any(Pageable.class));
+        assertFalse(execucao.getConcluida());
+    }
+
+    @Test
+    public void executar_ExecucaoConcluidaNaoGeraNada() {
+        execucao = ExecucaoPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .ultimoUsuarioId(3L)
+                .concluida(true)
+                .iniciadaEm(HOJE.atTime(3, 0))
+                .build();
+
+        assertEquals(0, preCalculoRecomendacaoService.executar(HOJE));
+
+        verifyNoInteractions(recomendacaoService);
+        verify(recomendacaoRepository, never()).inserirEmLote(anyList());
+    }
+
+    private void consumosPorUsuario(Map<Long, ConsumoAparelhoProjecao> consumos) {
+        when(consumoAgregadoRepository.somarConsumoPorAparelho(any(), any(), any(), any(), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> usuarioIds = invocation.getArgument(4);
+                    return usuarioIds.stream().filter(consumos::containsKey).map(consumos::get).toList();
+                });
+    }
+
+    private static PendenciaPreCalculoRecomendacao pendencia(Long usuarioId, LocalDateTime reservadaAte) {
+        return PendenciaPreCalculoRecomendacao.builder()
+                .dataReferencia(HOJE)
+                .usuarioId(usuarioId)
+                .reservadaAte(reservadaAte)
+                .build();
+    }
+
+    private static ConsumoAparelhoProjecao consumo(Long usuarioId, Long aparelhoId, String nome, double consumo) {
+        return new ConsumoAparelhoProjecao() {
+            @Override
+            public Long getUsuarioId() {
+                return usuarioId;
+            }
+
+            @Override
+            public Long getAparelhoId() {
+                return aparelhoId;
+            }
+
+            @Override
+            public String getNome() {
+                return nome;
+            }
+
+            @Override
+            public Double getConsumo() {
+                return consumo;
+            }
+        };
+    }
+}
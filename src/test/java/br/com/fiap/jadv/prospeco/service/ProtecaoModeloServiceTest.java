@@ -0,0 +1,118 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class ProtecaoModeloServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ProtecaoModeloService protecaoModeloService;
+
+    @AfterEach
+    public void tearDown() {
+        protecaoModeloService.encerrar();
+    }
+
+    @Test
+    public void chamar_RespostaDentroDoTimeout() {
+        protecaoModeloService = criar(10, 2, Duration.ofSeconds(5));
+
+        assertEquals("Desligue da tomada.", protecaoModeloService.chamar(() -> "Desligue da tomada."));
+        assertEquals(0.0, falhas("timeout") + falhas("falha"));
+    }
+
+    @Test
+    public void chamar_ModeloLentoExcedeOTimeout() {
+        protecaoModeloService = criar(10, 2, Duration.ofMillis(50));
+
+        assertThrows(ServicoIndisponivelException.class, () -> protecaoModeloService.chamar(() -> {
+            dormir(Duration.ofSeconds(5));
+            return "Tarde demais.";
+        }));
+        assertEquals(1.0, falhas("timeout"));
+    }
+
+    @Test
+    public void chamar_FalhasSeguidasAbremOCircuito() {
+        protecaoModeloService = criar(10, 2, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ServicoIndisponivelException.class, () -> protecaoModeloService.chamar(() -> {
+                throw new IllegalStateException("Modelo fora do ar");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, protecaoModeloService.getEstadoCircuito());
+        // Com o circuito aberto, o modelo nem é chamado
+        assertThrows(ServicoIndisponivelException.class, () -> protecaoModeloService.chamar(() -> fail("Modelo chamado")));
+        assertEquals(2.0, falhas("falha"));
+        assertEquals(1.0, falhas("circuito-aberto"));
+    }
+
+    @Test
+    public void chamar_ChamadasEmAndamentoNoMaximoSaoRejeitadas() throws Exception {
+        protecaoModeloService = criar(10, 1, Duration.ofSeconds(5));
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<String> primeira = CompletableFuture.supplyAsync(() -> protecaoModeloService.chamar(() -> {
+            emAndamento.countDown();
+            aguardar(liberar);
+            return "Primeira.";
+        }));
+        assertTrue(emAndamento.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServicoIndisponivelException.class, () -> protecaoModeloService.chamar(() -> "Segunda."));
+        liberar.countDown();
+        assertEquals("Primeira.", primeira.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, falhas("lotacao"));
+    }
+
+    @Test
+    public void chamar_LimiteDeChamadasPorSegundo() {
+        protecaoModeloService = criar(1, 2, Duration.ofSeconds(5));
+
+        assertEquals("Primeira.", protecaoModeloService.chamar(() -> "Primeira."));
+
+        assertThrows(ServicoIndisponivelException.class, () -> protecaoModeloService.chamar(() -> "Segunda."));
+        assertEquals(1.0, falhas("limite-taxa"));
+    }
+
+    private ProtecaoModeloService criar(int chamadasPorSegundo, int maxEmAndamento, Duration timeout) {
+        return new ProtecaoModeloService(meterRegistry, chamadasPorSegundo, Duration.ZERO, maxEmAndamento,
+                timeout, 50, 2, Duration.ofMinutes(1));
+    }
+
+    private double falhas(String motivo) {
+        return meterRegistry.counter(ProtecaoModeloService.METRICA_FALHAS, "motivo", motivo).count();
+    }
+
+    private static void dormir(Duration duracao) {
+        try {
+            Thread.sleep(duracao.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package br.com.fiap.jadv.prospeco.service;
 import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.exception.ServicoIndisponivelException;
 import br.com.fiap.jadv.prospeco.model.Recomendacao;
 import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.RecomendacaoRepository;
@@ -11,13 +12,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.StreamingChatModel;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,7 +42,21 @@ public class RecomendacaoServiceTest {
     private UsuarioRepository usuarioRepository;
 
     @Mock
-    private AzureOpenAiChatModel chatModel;
+    private ChatModel chatModel;
+
+    @Mock
+    private StreamingChatModel streamingChatModel;
+
+    @Spy
+    private CacheRecomendacaoService cacheRecomendacaoService = new CacheRecomendacaoService(List.of(),
+            new SimpleMeterRegistry(), 100, Duration.ofHours(1), CacheRecomendacaoService.SEM_INDICE_SEMANTICO);
+
+    @Mock
+    private ContextoConsumoService contextoConsumoService;
+
+    @Spy
+    private ProtecaoModeloService protecaoModeloService = new ProtecaoModeloService(new SimpleMeterRegistry(),
+            100, Duration.ZERO, 2, Duration.ofSeconds(5), 50, 10, Duration.ofMinutes(1));
 
     @InjectMocks
     private RecomendacaoService recomendacaoService;
@@ -48,6 +70,8 @@ public class RecomendacaoServiceTest {
 
         // Configura o chatModel para retornar uma mensagem simulada
         when(chatModel.call(any(UserMessage.class))).thenReturn("Mensagem de recomendação simulada.");
+        // Sem consumo registrado, o prompt fica só com a instrução
+        when(contextoConsumoService.montarPrompt(anyString(), any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -56,24 +80,24 @@ public class RecomendacaoServiceTest {
         Long usuarioId = usuario.getId();
         Pageable pageable = PageRequest.of(0, 10);
 
-        Recomendacao recomendacao1 = Recomendacao.builder()
+        RecomendacaoResponseDTO recomendacao1 = RecomendacaoResponseDTO.builder()
                 .id(1L)
                 .mensagem("Recomendação 1")
                 .dataHora(LocalDateTime.now())
-                .usuario(usuario)
+                .usuarioId(usuarioId)
                 .build();
 
-        Recomendacao recomendacao2 = Recomendacao.builder()
+        RecomendacaoResponseDTO recomendacao2 = RecomendacaoResponseDTO.builder()
                 .id(2L)
                 .mensagem("Recomendação 2")
                 .dataHora(LocalDateTime.now())
-                .usuario(usuario)
+                .usuarioId(usuarioId)
                 .build();
 
-        Page<Recomendacao> recomendacoesPage = new PageImpl<>(Arrays.asList(recomendacao1, recomendacao2), pageable, 2);
+        Page<RecomendacaoResponseDTO> recomendacoesPage =
+                new PageImpl<>(Arrays.asList(recomendacao1, recomendacao2), pageable, 2);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.of(usuario));
-        when(recomendacaoRepository.findByUsuarioOrderByDataHoraDesc(usuario, pageable)).thenReturn(recomendacoesPage);
+        when(recomendacaoRepository.listarRecomendacoesPorUsuario(usuarioId, pageable)).thenReturn(recomendacoesPage);
 
         // Execução do método
         Page<RecomendacaoResponseDTO> result = recomendacaoService.listarRecomendacoesPorUsuario(usuarioId, pageable);
@@ -91,13 +115,11 @@ public class RecomendacaoServiceTest {
         Long usuarioId = usuario.getId();
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(usuarioRepository.findById(usuarioId)).thenReturn(Optional.empty());
+        when(recomendacaoRepository.listarRecomendacoesPorUsuario(usuarioId, pageable)).thenReturn(Page.empty(pageable));
+        when(usuarioRepository.existsById(usuarioId)).thenReturn(false);
 
         // Execução e verificação
         assertThrows(ResourceNotFoundException.class, () -> recomendacaoService.listarRecomendacoesPorUsuario(usuarioId, pageable));
-
-        // Verifica que o repositório de recomendações não foi chamado
-        verify(recomendacaoRepository, never()).findByUsuarioOrderByDataHoraDesc(any(Usuario.class), any(Pageable.class));
     }
 
     @Test
@@ -132,6 +154,86 @@ public class RecomendacaoServiceTest {
         verify(chatModel, times(1)).call(any(UserMessage.class));
     }
 
+    @Test
+    public void criarRecomendacao_MesmoAparelhoReaproveitaARecomendacao() {
+        when(usuarioRepository.findById(usuario.getId())).thenReturn(Optional.of(usuario));
+        when(recomendacaoRepository.save(any(Recomendacao.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RecomendacaoResponseDTO primeira = recomendacaoService.criarRecomendacao(RecomendacaoRequestDTO.builder()
+                .aparelho("Geladeira").usuarioId(usuario.getId()).build());
+        RecomendacaoResponseDTO segunda = recomendacaoService.criarRecomendacao(RecomendacaoRequestDTO.builder()
+                .aparelho("  geladeira ").usuarioId(usuario.getId()).build());
+
+        assertEquals(primeira.getMensagem(), segunda.getMensagem());
+        verify(chatModel, times(1)).call(any(UserMessage.class));
+        verify(recomendacaoRepository, times(2)).save(any(Recomendacao.class));
+    }
+
+    @Test
+    public void gerarMensagem_RepassaOsTrechosDoModeloDeStreaming() {
+        when(streamingChatModel.stream(any(UserMessage.class))).thenReturn(Flux.just("Desligue ", "a geladeira ", "da tomada."));
+        List<String> trechos = new ArrayList<>();
+
+        String mensagem = recomendacaoService.gerarMensagem(recomendacaoService.montarPrompt(1L, "Geladeira"),
+                trechos::add, Duration.ofSeconds(5));
+        String emCache = recomendacaoService.gerarMensagem(recomendacaoService.montarPrompt(2L, "geladeira"),
+                trechos::add, Duration.ofSeconds(5));
+
+        assertEquals("Desligue a geladeira da tomada.", mensagem);
+        assertEquals(mensagem, emCache);
+        assertEquals(List.of("Desligue ", "a geladeira ", "da tomada."), trechos);
+        verify(streamingChatModel, times(1)).stream(any(UserMessage.class));
+        verify(chatModel, never()).call(any(UserMessage.class));
+    }
+
+    @Test
+    public void criarRecomendacao_ModeloIndisponivelUsaAMensagemAlternativaSemCache() {
+        when(usuarioRepository.findById(usuario.getId())).thenReturn(Optional.of(usuario));
+        when(recomendacaoRepository.save(any(Recomendacao.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(chatModel.call(any(UserMessage.class)))
+                .thenThrow(new IllegalStateException("Modelo fora do ar"))
+                .thenReturn("Mensagem de recomendação simulada.");
+        RecomendacaoRequestDTO requestDTO = RecomendacaoRequestDTO.builder()
+                .aparelho("Geladeira")
+                .usuarioId(usuario.getId())
+                .build();
+
+        RecomendacaoResponseDTO alternativa = recomendacaoService.criarRecomendacao(requestDTO);
+        RecomendacaoResponseDTO gerada = recomendacaoService.criarRecomendacao(requestDTO);
+
+        assertEquals(String.format(RecomendacaoService.MENSAGEM_ALTERNATIVA, "Geladeira"), alternativa.getMensagem());
+        // A mensagem alternativa não fica em cache: a próxima requisição chama o modelo de novo
+        assertEquals("Mensagem de recomendação simulada.", gerada.getMensagem());
+        verify(chatModel, times(2)).call(any(UserMessage.class));
+    }
+
+    @Test
+    public void criarRecomendacao_PromptComOResumoDoConsumoDoUsuario() {
+        when(usuarioRepository.findById(usuario.getId())).thenReturn(Optional.of(usuario));
+        when(recomendacaoRepository.save(any(Recomendacao.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(contextoConsumoService.montarPrompt(anyString(), eq(usuario.getId()))).thenAnswer(invocation ->
+                invocation.getArgument(0) + "\n- Consumo médio de 12,0 kWh por dia.");
+
+        recomendacaoService.criarRecomendacao(RecomendacaoRequestDTO.builder()
+                .aparelho("Geladeira").usuarioId(usuario.getId()).build());
+        String generica = recomendacaoService.gerarMensagem("Geladeira");
+
+        assertEquals("Mensagem de recomendação simulada.", generica);
+        verify(chatModel).call(argThat((UserMessage mensagem) -> mensagem.getContent().contains("12,0 kWh por dia")));
+        // O prompt genérico não reaproveita a recomendação personalizada
+        verify(chatModel, times(2)).call(any(UserMessage.class));
+        verify(cacheRecomendacaoService).obter(isNull(), anyString(), any());
+        verify(contextoConsumoService).montarPrompt(anyString(), isNull());
+    }
+
+    @Test
+    public void gerarMensagem_ModeloIndisponivelLancaExcecaoSemMensagemAlternativa() {
+        when(chatModel.call(any(UserMessage.class))).thenThrow(new IllegalStateException("Modelo fora do ar"));
+
+        // O pré-cálculo não deve gravar a mensagem alternativa como recomendação
+        assertThrows(ServicoIndisponivelException.class, () -> recomendacaoService.gerarMensagem("Chuveiro"));
+    }
+
     @Test
     public void criarRecomendacao_UsuarioNaoEncontrado() {
         // Dados de teste
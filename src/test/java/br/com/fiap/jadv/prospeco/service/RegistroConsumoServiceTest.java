@@ -1,21 +1,30 @@
 package br.com.fiap.jadv.prospeco.service;
 
 import br.com.fiap.jadv.prospeco.dto.request.RegistroConsumoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoLoteResponseDTO;
 import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
 import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.mapper.RegistroConsumoMapper;
+import br.com.fiap.jadv.prospeco.mapper.RegistroConsumoMapperImpl;
 import br.com.fiap.jadv.prospeco.model.Aparelho;
 import br.com.fiap.jadv.prospeco.model.RegistroConsumo;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import br.com.fiap.jadv.prospeco.model.Usuario;
 import br.com.fiap.jadv.prospeco.repository.AparelhoRepository;
 import br.com.fiap.jadv.prospeco.repository.RegistroConsumoRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +42,18 @@ public class RegistroConsumoServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private ConsumoAgregadoService consumoAgregadoService;
+
+    @Mock
+    private AvaliacaoMetaService avaliacaoMetaService;
+
+    @Spy
+    private RegistroConsumoMapper registroConsumoMapper = new RegistroConsumoMapperImpl();
+
     @InjectMocks
     private RegistroConsumoService registroConsumoService;
 
@@ -40,11 +61,15 @@ public class RegistroConsumoServiceTest {
 
     @BeforeEach
     public void setUp() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+
         aparelho = new Aparelho();
         aparelho.setId(1L);
+        aparelho.setUsuario(usuario);
 
         // Configura o KafkaProducerService para não fazer nada durante os testes
-        doNothing().when(kafkaProducerService).sendMessage(anyString(), any());
+        doNothing().when(kafkaProducerService).sendMessage(anyString(), any(), any(), any(), any());
     }
 
     @Test
@@ -69,8 +94,8 @@ public class RegistroConsumoServiceTest {
 
         Page<RegistroConsumo> registrosPage = new PageImpl<>(Arrays.asList(registro1, registro2), pageable, 2);
 
-        when(aparelhoRepository.findById(aparelhoId)).thenReturn(Optional.of(aparelho));
-        when(registroConsumoRepository.findByAparelho(aparelho, pageable)).thenReturn(registrosPage);
+        Page<RegistroConsumoResponseDTO> dtosPage = registrosPage.map(registroConsumoMapper::toResponseDTO);
+        when(registroConsumoRepository.listarRegistrosPorAparelho(aparelhoId, pageable)).thenReturn(dtosPage);
 
         // Execução do método
         Page<RegistroConsumoResponseDTO> result = registroConsumoService.listarRegistrosPorAparelho(aparelhoId, pageable);
@@ -88,13 +113,11 @@ public class RegistroConsumoServiceTest {
         Long aparelhoId = aparelho.getId();
         Pageable pageable = PageRequest.of(0, 10);
 
-        when(aparelhoRepository.findById(aparelhoId)).thenReturn(Optional.empty());
+        when(registroConsumoRepository.listarRegistrosPorAparelho(aparelhoId, pageable)).thenReturn(Page.empty(pageable));
+        when(aparelhoRepository.existsById(aparelhoId)).thenReturn(false);
 
         // Execução e verificação
         assertThrows(ResourceNotFoundException.class, () -> registroConsumoService.listarRegistrosPorAparelho(aparelhoId, pageable));
-
-        // Verifica que o repositório de registros não foi chamado
-        verify(registroConsumoRepository, never()).findByAparelho(any(Aparelho.class), any(Pageable.class));
     }
 
     @Test
@@ -163,7 +186,8 @@ public class RegistroConsumoServiceTest {
         assertEquals(aparelho.getId(), result.getAparelhoId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), any(RegistroConsumoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), anyLong(),
+                eq(TipoEvento.CRIADO), any(RegistroConsumoResponseDTO.class), isNull());
     }
 
     @Test
@@ -184,7 +208,7 @@ public class RegistroConsumoServiceTest {
         verify(registroConsumoRepository, never()).save(any(RegistroConsumo.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any(), any());
     }
 
     @Test
@@ -217,7 +241,8 @@ public class RegistroConsumoServiceTest {
         assertEquals(aparelho.getId(), result.getAparelhoId());
 
         // Verifica se o evento Kafka foi enviado
-        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), any(RegistroConsumoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), anyLong(),
+                eq(TipoEvento.ATUALIZADO), any(RegistroConsumoResponseDTO.class), any(RegistroConsumoResponseDTO.class));
     }
 
     @Test
@@ -239,7 +264,7 @@ public class RegistroConsumoServiceTest {
         verify(registroConsumoRepository, never()).save(any(RegistroConsumo.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any(), any());
     }
 
     @Test
@@ -261,7 +286,8 @@ public class RegistroConsumoServiceTest {
 
         // Verificações
         verify(registroConsumoRepository, times(1)).delete(registro);
-        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), any(RegistroConsumoResponseDTO.class));
+        verify(kafkaProducerService, times(1)).sendMessage(eq("registro-consumo-events"), anyLong(),
+                eq(TipoEvento.EXCLUIDO), any(RegistroConsumoResponseDTO.class), isNull());
     }
 
     @Test
@@ -278,6 +304,64 @@ public class RegistroConsumoServiceTest {
         verify(registroConsumoRepository, never()).delete(any(RegistroConsumo.class));
 
         // Verifica que o evento Kafka não foi enviado
-        verify(kafkaProducerService, never()).sendMessage(anyString(), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void criarRegistrosConsumoEmLote_Sucesso() {
+        // Dados de teste
+        Aparelho outroAparelho = new Aparelho();
+        outroAparelho.setId(2L);
+        outroAparelho.setUsuario(aparelho.getUsuario());
+
+        List<RegistroConsumoRequestDTO> requestDTOs = Arrays.asList(
+                new RegistroConsumoRequestDTO(LocalDateTime.now(), 1.5, aparelho.getId()),
+                new RegistroConsumoRequestDTO(LocalDateTime.now(), 2.5, aparelho.getId()),
+                new RegistroConsumoRequestDTO(LocalDateTime.now(), 3.5, outroAparelho.getId()));
+
+        when(aparelhoRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(aparelho, outroAparelho));
+
+        // Execução do método
+        RegistroConsumoLoteResponseDTO result = registroConsumoService.criarRegistrosConsumoEmLote(requestDTOs);
+
+        // Verificações
+        assertEquals(3, result.getQuantidadeRegistros());
+        assertEquals(2, result.getQuantidadeAparelhos());
+
+        // Verifica que os aparelhos foram resolvidos em uma única consulta e que não houve buscas individuais
+        verify(aparelhoRepository, times(1)).findAllById(anyCollection());
+        verify(aparelhoRepository, never()).findById(anyLong());
+        verify(registroConsumoRepository, never()).save(any(RegistroConsumo.class));
+
+        // Verifica que os eventos foram publicados em um único conjunto
+        verify(kafkaProducerService, times(1)).sendMessages(eq("registro-consumo-events"), eq(TipoEvento.CRIADO),
+                argThat(eventos -> eventos.size() == 3), any());
+        verify(kafkaProducerService, never()).sendMessage(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void criarRegistrosConsumoEmLote_AparelhoNaoEncontrado() {
+        // Dados de teste
+        List<RegistroConsumoRequestDTO> requestDTOs = Arrays.asList(
+                new RegistroConsumoRequestDTO(LocalDateTime.now(), 1.5, aparelho.getId()),
+                new RegistroConsumoRequestDTO(LocalDateTime.now(), 2.5, 99L));
+
+        when(aparelhoRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(aparelho));
+
+        // Execução e verificação
+        assertThrows(ResourceNotFoundException.class, () -> registroConsumoService.criarRegistrosConsumoEmLote(requestDTOs));
+
+        // Verifica que nada foi gravado nem publicado
+        verify(registroConsumoRepository, never()).saveAll(anyList());
+        verify(kafkaProducerService, never()).sendMessages(anyString(), any(), anyList(), any());
+    }
+
+    @Test
+    public void criarRegistrosConsumoEmLote_LoteVazio() {
+        // Execução e verificação
+        assertThrows(IllegalArgumentException.class, () -> registroConsumoService.criarRegistrosConsumoEmLote(Collections.emptyList()));
+
+        // Verifica que nenhum aparelho foi consultado
+        verify(aparelhoRepository, never()).findAllById(anyCollection());
     }
 }
@@ -0,0 +1,126 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.model.GranularidadeAgregacao;
+import br.com.fiap.jadv.prospeco.model.TipoBandeira;
+import br.com.fiap.jadv.prospeco.repository.ConsumoAgregadoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class ReprecificacaoCustoServiceTest {
+
+    private static final List<GranularidadeAgregacao> HORA_E_DIA =
+            List.of(GranularidadeAgregacao.HORA, GranularidadeAgregacao.DIA);
+
+    @Mock
+    private ConsumoAgregadoRepository consumoAgregadoRepository;
+
+    @Mock
+    private BandeiraTarifariaService bandeiraTarifariaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReprecificacaoCustoService reprecificacaoCustoService;
+
+    private final CalendarioBandeiras anterior = CalendarioBandeiras.de(List.of(
+            new CalendarioBandeiras.Vigencia(1L, TipoBandeira.VERDE, LocalDate.of(2024, 4, 1))));
+
+    @BeforeEach
+    public void setUp() {
+        reprecificacaoCustoService = new ReprecificacaoCustoService(consumoAgregadoRepository,
+                bandeiraTarifariaService, new TabelaTarifaria(0.5, 0.0, 0.25, 0.5, 0.75), transactionManager, 2, Duration.ofMillis(200));
+        when(consumoAgregadoRepository.reprecificar(any(), any(), any(), anyDouble())).thenReturn(10);
+        when(consumoAgregadoRepository.recalcularCustoMensal(any(), any(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reprecificacaoCustoService.encerrar();
+    }
+
+    @Test
+    public void agendar_ReprecificaSomenteOsDiasAlteradosPorMes() throws Exception {
+        CalendarioBandeiras atual = anterior.comVigencia(
+                new CalendarioBandeiras.Vigencia(2L, TipoBandeira.AMARELA, LocalDate.of(2024, 5, 20)));
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(atual);
+        when(consumoAgregadoRepository.buscarUltimoInicioPeriodo(GranularidadeAgregacao.DIA))
+                .thenReturn(LocalDateTime.of(2024, 6, 10, 0, 0));
+
+        int periodos = reprecificacaoCustoService.agendar(atual.trechosAlterados(anterior)).get();
+
+        // A bandeira amarela vale de 20/05 até o último dia com consumo, dividida nos meses de maio e junho
+        verify(consumoAgregadoRepository).reprecificar(HORA_E_DIA,
+                LocalDateTime.of(2024, 5, 20, 0, 0), LocalDateTime.of(2024, 6, 1, 0, 0), 0.75);
+        verify(consumoAgregadoRepository).reprecificar(HORA_E_DIA,
+                LocalDateTime.of(2024, 6, 1, 0, 0), LocalDateTime.of(2024, 6, 11, 0, 0), 0.75);
+        verify(consumoAgregadoRepository).recalcularCustoMensal(GranularidadeAgregacao.MES, GranularidadeAgregacao.DIA,
+                LocalDateTime.of(2024, 5, 1, 0, 0), LocalDateTime.of(2024, 6, 1, 0, 0));
+        verify(consumoAgregadoRepository).recalcularCustoMensal(GranularidadeAgregacao.MES, GranularidadeAgregacao.DIA,
+                LocalDateTime.of(2024, 6, 1, 0, 0), LocalDateTime.of(2024, 7, 1, 0, 0));
+        verify(transactionManager, times(4)).commit(any());
+        assertEquals(22, periodos);
+    }
+
+    @Test
+    public void aoAlterarCalendario_RepeteAReprecificacaoNaSegundaPassagem() {
+        CalendarioBandeiras atual = anterior.comVigencia(
+                new CalendarioBandeiras.Vigencia(2L, TipoBandeira.AMARELA, LocalDate.of(2024, 5, 20)));
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(atual);
+        when(consumoAgregadoRepository.buscarUltimoInicioPeriodo(GranularidadeAgregacao.DIA))
+                .thenReturn(LocalDateTime.of(2024, 5, 25, 0, 0));
+
+        reprecificacaoCustoService.aoAlterarCalendario(new BandeiraTarifariaService.CalendarioAlterado(anterior, atual));
+
+        verify(consumoAgregadoRepository, timeout(5000).times(2)).reprecificar(HORA_E_DIA,
+                LocalDateTime.of(2024, 5, 20, 0, 0), LocalDateTime.of(2024, 5, 26, 0, 0), 0.75);
+    }
+
+    @Test
+    public void aoAlterarCalendario_CalendarioSemMudancaNaoReprecifica() {
+        reprecificacaoCustoService.aoAlterarCalendario(new BandeiraTarifariaService.CalendarioAlterado(anterior, anterior));
+
+        verifyNoInteractions(consumoAgregadoRepository, bandeiraTarifariaService);
+    }
+
+    @Test
+    public void reprecificarTudo_UsaOCalendarioAtualDesdeOPrimeiroDia() {
+        when(bandeiraTarifariaService.getCalendario()).thenReturn(anterior);
+        when(consumoAgregadoRepository.buscarPrimeiroInicioPeriodo(GranularidadeAgregacao.DIA))
+                .thenReturn(LocalDateTime.of(2024, 3, 30, 0, 0));
+        when(consumoAgregadoRepository.buscarUltimoInicioPeriodo(GranularidadeAgregacao.DIA))
+                .thenReturn(LocalDateTime.of(2024, 4, 2, 0, 0));
+
+        reprecificacaoCustoService.reprecificarTudo();
+
+        // Tarifa base antes da primeira bandeira e tarifa da verde a partir dela
+        verify(consumoAgregadoRepository).reprecificar(HORA_E_DIA,
+                LocalDateTime.of(2024, 3, 30, 0, 0), LocalDateTime.of(2024, 4, 1, 0, 0), 0.5);
+        verify(consumoAgregadoRepository).reprecificar(HORA_E_DIA,
+                LocalDateTime.of(2024, 4, 1, 0, 0), LocalDateTime.of(2024, 4, 3, 0, 0), 0.5);
+        verify(consumoAgregadoRepository, times(2)).recalcularCustoMensal(any(), any(), any(), any());
+    }
+
+    @Test
+    public void reprecificar_SemAgregadosNaoAtualizaNada() {
+        assertEquals(0, reprecificacaoCustoService.reprecificarTudo());
+        assertEquals(0, reprecificacaoCustoService.reprecificar(List.of(
+                new CalendarioBandeiras.Trecho(LocalDate.of(2024, 5, 1), null, TipoBandeira.AMARELA))));
+
+        verify(consumoAgregadoRepository, never()).reprecificar(any(), any(), any(), anyDouble());
+        verifyNoInteractions(bandeiraTarifariaService);
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonParseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class RetentativaEventoServiceTest {
+
+    private static final String TOPICO = "meta-events";
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private ConsumerFactory<String, byte[]> consumerFactory;
+
+    private MeterRegistry meterRegistry;
+
+    private RetentativaEventoService retentativaEventoService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retentativaEventoService = new RetentativaEventoService(kafkaTemplate, consumerFactory, meterRegistry,
+                List.of(TOPICO, "registro-consumo-events"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    public void encaminhar_FalhaDeLeituraVaiParaDeadLetter() {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPICO, 0, 10L, "5", bytes("inválido"));
+
+        retentativaEventoService.encaminhar(record, new JsonParseException(null, "JSON inválido"));
+
+        ProducerRecord<String, byte[]> encaminhado = capturarEncaminhado();
+        assertEquals(TOPICO + RetentativaEventoService.SUFIXO_DLT, encaminhado.topic());
+        assertEquals("5", encaminhado.key());
+        assertEquals(TOPICO, header(encaminhado, RetentativaEventoService.HEADER_TOPICO_ORIGINAL));
+        assertTrue(header(encaminhado, RetentativaEventoService.HEADER_ERRO).startsWith("JsonParseException"));
+        assertEquals(1.0, meterRegistry.get(RetentativaEventoService.METRICA_ENCAMINHADOS)
+                .tag("topico", TOPICO).tag("destino", "dlt").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void reprocessarDeadLetter_ReenviaEConfirmaOffsets() {
+        String topicoDlt = TOPICO + RetentativaEventoService.SUFIXO_DLT;
+        TopicPartition particao = new TopicPartition(topicoDlt, 0);
+        Consumer<String, byte[]> consumer = mock(Consumer.class);
+        when(consumerFactory.createConsumer(anyString(), any(), any(), any())).thenReturn(consumer);
+        when(consumer.partitionsFor(topicoDlt)).thenReturn(List.of(new PartitionInfo(topicoDlt, 0, null, null, null)));
+        when(consumer.poll(any(Duration.class))).thenReturn(new ConsumerRecords<>(Map.of(particao, List.of(
+                new ConsumerRecord<>(topicoDlt, 0, 7L, "5", bytes("{\"id\":1}")),
+                new ConsumerRecord<>(topicoDlt, 0, 8L, "6", bytes("{\"id\":2}")),
+                new ConsumerRecord<>(topicoDlt, 0, 9L, "7", bytes("{\"id\":3}"))))));
+
+        int reenviados = retentativaEventoService.reprocessarDeadLetter(TOPICO, 2);
+
+        assertEquals(2, reenviados);
+        verify(kafkaTemplate).send(TOPICO, "5", bytes("{\"id\":1}"));
+        verify(kafkaTemplate).send(TOPICO, "6", bytes("{\"id\":2}"));
+        verify(kafkaTemplate, never()).send(TOPICO, "7", bytes("{\"id\":3}"));
+        verify(consumer).commitSync(Map.of(particao, new OffsetAndMetadata(9L)));
+        verify(consumer).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void reprocessarDeadLetter_TopicoInexistente() {
+        Consumer<String, byte[]> consumer = mock(Consumer.class);
+        when(consumerFactory.createConsumer(anyString(), any(), any(), any())).thenReturn(consumer);
+        when(consumer.partitionsFor(anyString())).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> retentativaEventoService.reprocessarDeadLetter(TOPICO, 10));
+        assertThrows(IllegalArgumentException.class, () -> retentativaEventoService.reprocessarDeadLetter(TOPICO, 0));
+    }
+
+    @Test
+    public void reprocessarDeadLetter_TopicoDesconhecidoRejeitadoSemConsultarOBroker() {
+        assertThrows(IllegalArgumentException.class,
+                () -> retentativaEventoService.reprocessarDeadLetter("__consumer_offsets", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> retentativaEventoService.reprocessarDeadLetter(TOPICO + RetentativaEventoService.SUFIXO_DLT, 10));
+        verifyNoInteractions(consumerFactory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, byte[]> capturarEncaminhado() {
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private byte[] bytes(String conteudo) {
+        return conteudo.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String header(ProducerRecord<String, byte[]> record, String nome) {
+        return new String(record.headers().lastHeader(nome).value(), StandardCharsets.UTF_8);
+    }
+}
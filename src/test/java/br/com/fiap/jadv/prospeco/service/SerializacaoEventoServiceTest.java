@@ -0,0 +1,122 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.evento.EventoDTO;
+import br.com.fiap.jadv.prospeco.dto.response.MetaResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RegistroConsumoResponseDTO;
+import br.com.fiap.jadv.prospeco.model.TipoEvento;
+import br.com.fiap.jadv.prospeco.service.serializacao.RegistroSchemasAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoAvro;
+import br.com.fiap.jadv.prospeco.service.serializacao.SerializadorEventoJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class SerializacaoEventoServiceTest {
+
+    private SerializadorEventoJson serializadorJson;
+    private SerializadorEventoAvro serializadorAvro;
+
+    @BeforeEach
+    public void setUp() {
+        serializadorJson = new SerializadorEventoJson(new ObjectMapper().findAndRegisterModules());
+        serializadorAvro = new SerializadorEventoAvro(new RegistroSchemasAvro());
+    }
+
+    @Test
+    public void serializar_AvroIdaEVoltaComEstadoAnterior() throws Exception {
+        SerializacaoEventoService avro = servico(SerializadorEventoAvro.FORMATO);
+        EventoDTO<RegistroConsumoResponseDTO> evento = evento(TipoEvento.ATUALIZADO,
+                leitura(1L, LocalDateTime.of(2024, 5, 10, 15, 5), 2.5),
+                leitura(1L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5));
+
+        byte[] conteudo = avro.serializar(evento);
+        EventoDTO<RegistroConsumoResponseDTO> lido = avro.desserializar(conteudo, RegistroConsumoResponseDTO.class);
+
+        assertTrue(serializadorAvro.reconhece(conteudo));
+        assertEquals(evento, lido);
+    }
+
+    @Test
+    public void desserializar_LeJsonEAvroIndependenteDoFormatoDePublicacao() throws Exception {
+        EventoDTO<MetaResponseDTO> evento = EventoDTO.<MetaResponseDTO>builder()
+                .tipo(TipoEvento.CRIADO)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave("5")
+                .ocorridoEm(LocalDateTime.of(2024, 5, 10, 12, 0))
+                .dados(MetaResponseDTO.builder()
+                        .id(9L)
+                        .consumoAlvo(120.0)
+                        .dataInicio(LocalDate.of(2024, 5, 1))
+                        .dataFim(LocalDate.of(2024, 5, 31))
+                        .atingida(false)
+                        .usuarioId(5L)
+                        .build())
+                .build();
+
+        byte[] json = servico(SerializadorEventoJson.FORMATO).serializar(evento);
+        byte[] avro = servico(SerializadorEventoAvro.FORMATO).serializar(evento);
+        SerializacaoEventoService leitor = servico(SerializadorEventoJson.FORMATO);
+
+        assertEquals(evento, leitor.desserializar(json, MetaResponseDTO.class));
+        assertEquals(evento, leitor.desserializar(avro, MetaResponseDTO.class));
+        assertTrue(avro.length < json.length);
+    }
+
+    @Test
+    public void desserializar_SchemaAvroDesconhecido() throws Exception {
+        byte[] conteudo = servico(SerializadorEventoAvro.FORMATO).serializar(evento(TipoEvento.CRIADO,
+                leitura(1L, LocalDateTime.of(2024, 5, 10, 14, 5), 1.5), null));
+        conteudo[2] ^= 0x7F;
+
+        assertThrows(IllegalStateException.class,
+                () -> servico(SerializadorEventoJson.FORMATO).desserializar(conteudo, RegistroConsumoResponseDTO.class));
+    }
+
+    @Test
+    public void desserializar_ConteudoInvalidoLidoComoJson() {
+        byte[] conteudo = "não é json".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(com.fasterxml.jackson.core.JsonProcessingException.class,
+                () -> servico(SerializadorEventoJson.FORMATO).desserializar(conteudo, RegistroConsumoResponseDTO.class));
+    }
+
+    @Test
+    public void construtor_FormatoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> servico("xml"));
+    }
+
+    private SerializacaoEventoService servico(String formato) {
+        return new SerializacaoEventoService(List.of(serializadorJson, serializadorAvro), formato);
+    }
+
+    private EventoDTO<RegistroConsumoResponseDTO> evento(TipoEvento tipo, RegistroConsumoResponseDTO dados,
+                                                         RegistroConsumoResponseDTO anterior) {
+        return EventoDTO.<RegistroConsumoResponseDTO>builder()
+                .tipo(tipo)
+                .versao(EventoDTO.VERSAO_ATUAL)
+                .chave(String.valueOf(dados.getAparelhoId()))
+                .ocorridoEm(LocalDateTime.of(2024, 5, 10, 15, 6))
+                .dados(dados)
+                .anterior(anterior)
+                .build();
+    }
+
+    private RegistroConsumoResponseDTO leitura(Long id, LocalDateTime dataHora, Double consumo) {
+        return RegistroConsumoResponseDTO.builder()
+                .id(id)
+                .dataHora(dataHora)
+                .consumo(consumo)
+                .aparelhoId(3L)
+                .usuarioId(10L)
+                .build();
+    }
+}
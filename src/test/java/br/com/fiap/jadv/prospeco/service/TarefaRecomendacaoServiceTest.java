@@ -0,0 +1,176 @@
+package br.com.fiap.jadv.prospeco.service;
+
+import br.com.fiap.jadv.prospeco.dto.request.RecomendacaoRequestDTO;
+import br.com.fiap.jadv.prospeco.dto.response.RecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.dto.response.TarefaRecomendacaoResponseDTO;
+import br.com.fiap.jadv.prospeco.exception.ResourceNotFoundException;
+import br.com.fiap.jadv.prospeco.model.SituacaoTarefaRecomendacao;
+import br.com.fiap.jadv.prospeco.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class TarefaRecomendacaoServiceTest {
+
+    @Mock
+    private RecomendacaoService recomendacaoService;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private TarefaRecomendacaoService tarefaRecomendacaoService;
+
+    @BeforeEach
+    public void setUp() {
+        tarefaRecomendacaoService = new TarefaRecomendacaoService(recomendacaoService, usuarioRepository,
+                2, 10, 2, Duration.ofMinutes(5), Duration.ofSeconds(5), Duration.ofSeconds(5));
+        when(usuarioRepository.existsById(anyLong())).thenReturn(true);
+        when(recomendacaoService.montarPrompt(anyLong(), anyString())).thenAnswer(invocation ->
+                new RecomendacaoService.PromptRecomendacao(invocation.getArgument(1),
+                        "Recomendação para " + invocation.getArgument(1), false));
+        when(recomendacaoService.salvarRecomendacao(anyLong(), anyString())).thenAnswer(invocation ->
+                RecomendacaoResponseDTO.builder()
+                        .usuarioId(invocation.getArgument(0))
+                        .mensagem(invocation.getArgument(1))
+                        .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tarefaRecomendacaoService.encerrar();
+    }
+
+    @Test
+    public void iniciarTarefa_MesmoAparelhoCompartilhaAGeracao() throws InterruptedException {
+        CountDownLatch primeiroTrecho = new CountDownLatch(1);
+        CountDownLatch liberarGeracao = new CountDownLatch(1);
+        when(recomendacaoService.gerarMensagem(argThat(prompt -> prompt.aparelho().equals("Geladeira")), any(), any())).thenAnswer(invocation -> {
+            Consumer<String> aoReceberTrecho = invocation.getArgument(1);
+            aoReceberTrecho.accept("Desligue ");
+            primeiroTrecho.countDown();
+            assertTrue(liberarGeracao.await(5, TimeUnit.SECONDS));
+            aoReceberTrecho.accept("da tomada.");
+            return "Desligue da tomada.";
+        });
+
+        TarefaRecomendacaoResponseDTO primeira = tarefaRecomendacaoService.iniciarTarefa(request(1L, "Geladeira"));
+        assertTrue(primeiroTrecho.await(5, TimeUnit.SECONDS));
+        TarefaRecomendacaoResponseDTO segunda = tarefaRecomendacaoService.iniciarTarefa(request(2L, " geladeira"));
+
+        // Quem entra durante a geração recebe o texto já produzido
+        assertEquals("Desligue ", tarefaRecomendacaoService.buscarTarefa(segunda.getId()).getTexto());
+        liberarGeracao.countDown();
+
+        TarefaRecomendacaoResponseDTO primeiraFinal = aguardarFinalizacao(primeira.getId());
+        TarefaRecomendacaoResponseDTO segundaFinal = aguardarFinalizacao(segunda.getId());
+        assertEquals(SituacaoTarefaRecomendacao.CONCLUIDA, primeiraFinal.getSituacao());
+        assertEquals(SituacaoTarefaRecomendacao.CONCLUIDA, segundaFinal.getSituacao());
+        assertEquals("Desligue da tomada.", segundaFinal.getTexto());
+        assertEquals(2L, segundaFinal.getRecomendacao().getUsuarioId());
+        verify(recomendacaoService, times(1)).gerarMensagem(any(RecomendacaoService.PromptRecomendacao.class), any(), any());
+        verify(recomendacaoService).salvarRecomendacao(1L, "Desligue da tomada.");
+        verify(recomendacaoService).salvarRecomendacao(2L, "Desligue da tomada.");
+    }
+
+    @Test
+    public void iniciarTarefa_FalhaDoModeloEncerraATarefaComErro() throws InterruptedException {
+        when(recomendacaoService.gerarMensagem(any(RecomendacaoService.PromptRecomendacao.class), any(), any())).thenThrow(new IllegalStateException("Timeout"));
+
+        TarefaRecomendacaoResponseDTO tarefa = tarefaRecomendacaoService.iniciarTarefa(request(1L, "Geladeira"));
+
+        TarefaRecomendacaoResponseDTO finalizada = aguardarFinalizacao(tarefa.getId());
+        assertEquals(SituacaoTarefaRecomendacao.FALHA, finalizada.getSituacao());
+        assertEquals(TarefaRecomendacaoService.ERRO_GERACAO, finalizada.getErro());
+        verify(recomendacaoService, never()).salvarRecomendacao(anyLong(), anyString());
+    }
+
+    @Test
+    public void envioSse_ClienteLentoNaoBloqueiaQuemRepassaOsTrechos() throws Exception {
+        CountDownLatch liberarEnvio = new CountDownLatch(1);
+        CountDownLatch encerrada = new CountDownLatch(1);
+        List<String> enviados = new CopyOnWriteArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder evento) throws IOException {
+                try {
+                    liberarEnvio.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                StringBuilder conteudo = new StringBuilder();
+                evento.build().forEach(parte -> conteudo.append(parte.getData()));
+                enviados.add(conteudo.toString());
+            }
+
+            @Override
+            public void complete() {
+                encerrada.countDown();
+            }
+        };
+        ExecutorService envios = Executors.newSingleThreadExecutor();
+        try {
+            TarefaRecomendacaoService.EnvioSse ouvinte = new TarefaRecomendacaoService.EnvioSse(emitter, envios);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                ouvinte.aoReceberTrecho("Desligue ");
+                ouvinte.aoReceberTrecho("a geladeira");
+                ouvinte.aoFinalizar(TarefaRecomendacaoResponseDTO.builder().situacao(SituacaoTarefaRecomendacao.CONCLUIDA).build());
+            });
+            liberarEnvio.countDown();
+
+            assertTrue(encerrada.await(5, TimeUnit.SECONDS));
+            assertEquals(3, enviados.size());
+            assertTrue(enviados.get(0).contains("Desligue "));
+            assertTrue(enviados.get(1).contains("a geladeira"));
+        } finally {
+            envios.shutdownNow();
+        }
+    }
+
+    @Test
+    public void iniciarTarefa_UsuarioNaoEncontrado() {
+        when(usuarioRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> tarefaRecomendacaoService.iniciarTarefa(request(99L, "Geladeira")));
+        verify(recomendacaoService, never()).gerarMensagem(any(RecomendacaoService.PromptRecomendacao.class), any(), any());
+    }
+
+    @Test
+    public void buscarTarefa_TarefaNaoEncontrada() {
+        assertThrows(ResourceNotFoundException.class, () -> tarefaRecomendacaoService.buscarTarefa(UUID.randomUUID()));
+    }
+
+    private static RecomendacaoRequestDTO request(Long usuarioId, String aparelho) {
+        return RecomendacaoRequestDTO.builder()
+                .usuarioId(usuarioId)
+                .aparelho(aparelho)
+                .build();
+    }
+
+    private TarefaRecomendacaoResponseDTO aguardarFinalizacao(UUID id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        TarefaRecomendacaoResponseDTO tarefa = tarefaRecomendacaoService.buscarTarefa(id);
+        while (tarefa.getSituacao() != SituacaoTarefaRecomendacao.CONCLUIDA
+                && tarefa.getSituacao() != SituacaoTarefaRecomendacao.FALHA
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+            tarefa = tarefaRecomendacaoService.buscarTarefa(id);
+        }
+        return tarefa;
+    }
+}
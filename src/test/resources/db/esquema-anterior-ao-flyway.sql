@@ -0,0 +1,72 @@
+-- Esquema gerado pelo Hibernate (ddl-auto=update) antes da adoção do Flyway, com alguns dados.
+
+CREATE TABLE usuarios (
+    id                  BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    nome                VARCHAR(255),
+    email               VARCHAR(255)          NOT NULL UNIQUE,
+    senha               VARCHAR(255),
+    role                VARCHAR(255),
+    pontuacao_economia  FLOAT(53)
+);
+
+CREATE TABLE aparelhos (
+    id          BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    nome        VARCHAR(255),
+    potencia    FLOAT(53),
+    tipo        VARCHAR(255),
+    descricao   VARCHAR(255),
+    usuario_id  BIGINT                NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE registros_consumo (
+    id           BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    data_hora    DATETIME2(6),
+    consumo      FLOAT(53),
+    aparelho_id  BIGINT                NOT NULL REFERENCES aparelhos (id)
+);
+
+CREATE TABLE metas (
+    id            BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    consumo_alvo  FLOAT(53),
+    data_inicio   DATE,
+    data_fim      DATE,
+    atingida      BIT,
+    usuario_id    BIGINT                NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE notificacoes (
+    id          BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    mensagem    TEXT,
+    data_hora   DATETIME2(6),
+    lida        BIT,
+    usuario_id  BIGINT                NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE recomendacoes (
+    id          BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    mensagem    TEXT,
+    data_hora   DATETIME2(6),
+    usuario_id  BIGINT                NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE conquistas (
+    id              BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    titulo          VARCHAR(255),
+    descricao       VARCHAR(255),
+    data_conquista  DATETIME2(6),
+    usuario_id      BIGINT                NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE bandeiras_tarifarias (
+    id             BIGINT IDENTITY(1, 1) NOT NULL PRIMARY KEY,
+    tipo_bandeira  VARCHAR(20),
+    data_vigencia  DATE
+);
+
+INSERT INTO usuarios (nome, email, senha, role) VALUES ('Ana', 'ana@prospeco.com', 'x', 'USER');
+INSERT INTO aparelhos (nome, potencia, tipo, usuario_id) VALUES ('Geladeira', 150, 'COZINHA', 1);
+INSERT INTO registros_consumo (data_hora, consumo, aparelho_id) VALUES ('2024-05-10 10:00:00', 1.5, 1);
+INSERT INTO registros_consumo (data_hora, consumo, aparelho_id) VALUES ('2024-05-10 11:00:00', 2.0, 1);
+INSERT INTO registros_consumo (data_hora, consumo, aparelho_id) VALUES ('2024-05-10 12:00:00', 0.5, 1);
+INSERT INTO metas (consumo_alvo, data_inicio, data_fim, atingida, usuario_id) VALUES (100, '2024-04-01', '2024-04-30', 1, 1);
+INSERT INTO notificacoes (mensagem, data_hora, lida, usuario_id) VALUES ('Bem-vinda', '2024-05-01 08:00:00', 0, 1);